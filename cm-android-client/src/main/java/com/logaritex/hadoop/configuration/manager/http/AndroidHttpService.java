@@ -17,30 +17,21 @@
  */
 package com.logaritex.hadoop.configuration.manager.http;
 
-import java.util.Collections;
-
-import org.springframework.http.ContentCodingType;
-import org.springframework.http.HttpBasicAuthentication;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.protocol.RequestAddCookies;
+import org.apache.http.client.protocol.ResponseProcessCookies;
+import org.apache.http.impl.client.AbstractHttpClient;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.http.converter.json.MappingJacksonHttpMessageConverter;
-import org.springframework.web.client.RestTemplate;
 
-import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.rest.RestTemplateHttpService;
 
-public class AndroidHttpService implements HttpService {
+/**
+ * Android transport: the {@link RestTemplateHttpService} on the HttpClient bundled with the platform.
+ */
+public class AndroidHttpService extends RestTemplateHttpService {
 	
 	public static final int DEFAULT_CONNECTION_TIMEOUT_MS = 5000; // ~5 seconds
 
-	private final String baseUrl;
-
-	private final HttpHeaders httpHeaders;
-
-	private RestTemplate restTemplate;	
-
 	public AndroidHttpService(String hostName, int port, String username,
 			String password, int connectionTimeout) {
 		this(String.format("http://%s:%s", hostName.trim(), port), username,
@@ -48,69 +39,35 @@ public class AndroidHttpService implements HttpService {
 	}
 
 	public AndroidHttpService(String baseUrl, String username, String password, int connectionTimeout) {
-		this.baseUrl = baseUrl;
-		httpHeaders = createHttpHeaders(username, password);
+		super(baseUrl, username, password,
+				createRequestFactory(connectionTimeout));
+	}
+
+	private static HttpComponentsClientHttpRequestFactory createRequestFactory(
+			int connectionTimeout) {
 
 		// Initialize a request factory, setting the request timeout
 		HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
 		requestFactory.setReadTimeout(connectionTimeout);
 		requestFactory.setConnectTimeout(0);
 
-		restTemplate = new RestTemplate(requestFactory);
-
-		restTemplate.getMessageConverters().add(
-				new MappingJacksonHttpMessageConverter());
+		// Decode gzip/deflate responses in the HttpClient, where the
+		// compressed wire bytes can still be counted
+		HttpClient httpClient = requestFactory.getHttpClient();
+		if (httpClient instanceof AbstractHttpClient) {
+			AbstractHttpClient abstractHttpClient = (AbstractHttpClient) httpClient;
+			abstractHttpClient
+					.addResponseInterceptor(new ContentDecodingResponseInterceptor());
+
+			// The session cookie is managed by the service (see
+			// setSessionStore), not by the HttpClient. HttpClient 4.0 has no
+			// IGNORE_COOKIES policy, so drop the cookie interceptors instead.
+			abstractHttpClient
+					.removeRequestInterceptorByClass(RequestAddCookies.class);
+			abstractHttpClient
+					.removeResponseInterceptorByClass(ResponseProcessCookies.class);
+		}
+
+		return requestFactory;
 	}
-
-	public <R> R get(String url, Class<R> responseType, Object... uriVariables) {
-
-		R response = restTemplate
-				.exchange(baseUrl + url, HttpMethod.GET,
-						new HttpEntity<Object>(httpHeaders), responseType,
-						uriVariables).getBody();
-
-		return response;
-	}
-
-	public <R> R post(String url, Object request, Class<R> responseType,
-			Object... uriVariables) {
-
-		R response = restTemplate.exchange(baseUrl + url, HttpMethod.POST,
-				new HttpEntity<Object>(request, httpHeaders), responseType,
-				uriVariables).getBody();
-
-		return response;
-	}
-
-	public <R> R delete(String url, Object request, Class<R> responseType,
-			Object... uriVariables) {
-		R response = restTemplate.exchange(baseUrl + url, HttpMethod.DELETE,
-				new HttpEntity<Object>(request, httpHeaders), responseType,
-				uriVariables).getBody();
-
-		return response;
-	}
-
-	public <R> R put(String url, Object request, Class<R> responseType,
-			Object... uriVariables) {
-
-		R response = restTemplate.exchange(baseUrl + url, HttpMethod.PUT,
-				new HttpEntity<Object>(request, httpHeaders), responseType,
-				uriVariables).getBody();
-
-		return response;
-	}
-
-	private HttpHeaders createHttpHeaders(String username, String password) {
-
-		HttpBasicAuthentication authHeader = new HttpBasicAuthentication(
-				username, password);
-		HttpHeaders httpHeaders = new HttpHeaders();
-		httpHeaders.setAuthorization(authHeader);
-		httpHeaders.setAccept(Collections
-				.singletonList(MediaType.APPLICATION_JSON));
-		httpHeaders.setAcceptEncoding(ContentCodingType.GZIP);
-
-		return httpHeaders;
-	}	
 }
@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.protocol.HttpContext;
+
+import com.logaritex.hadoop.configuration.manager.service.http.ContentDecodingInputStream;
+
+/**
+ * Replaces the response entity with one that decodes gzip/deflate content
+ * while it is read, and removes the Content-Encoding header so the
+ * RestTemplate does not decode the body a second time.
+ * 
+ * The entity content is a {@link ContentDecodingInputStream}, which counts
+ * the wire and the decoded bytes.
+ */
+public class ContentDecodingResponseInterceptor implements
+		HttpResponseInterceptor {
+
+	private static final String CONTENT_ENCODING = "Content-Encoding";
+
+	public void process(HttpResponse response, HttpContext context)
+			throws HttpException, IOException {
+
+		HttpEntity entity = response.getEntity();
+		if (entity == null) {
+			return;
+		}
+
+		Header contentEncoding = entity.getContentEncoding();
+		if (contentEncoding == null) {
+			contentEncoding = response.getFirstHeader(CONTENT_ENCODING);
+		}
+
+		response.setEntity(new DecodingEntity(entity,
+				contentEncoding != null ? contentEncoding.getValue() : null));
+		response.removeHeaders(CONTENT_ENCODING);
+	}
+
+	private static class DecodingEntity extends HttpEntityWrapper {
+
+		private final String contentEncoding;
+
+		private InputStream content;
+
+		public DecodingEntity(HttpEntity entity, String contentEncoding) {
+			super(entity);
+			this.contentEncoding = contentEncoding;
+		}
+
+		@Override
+		public InputStream getContent() throws IOException {
+			if (content == null) {
+				content = new ContentDecodingInputStream(
+						wrappedEntity.getContent(), contentEncoding);
+			}
+			return content;
+		}
+
+		@Override
+		public Header getContentEncoding() {
+			return null;
+		}
+
+		@Override
+		public long getContentLength() {
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.logaritex.hadoop.configuration.manager.ClouderaManagerFactory;
+import com.logaritex.hadoop.configuration.manager.domain.Cluster;
+import com.logaritex.hadoop.configuration.manager.domain.Service;
+import com.logaritex.hadoop.configuration.manager.fake.FakeClouderaManagerServer;
+import com.logaritex.hadoop.configuration.manager.fake.TopologyGenerator;
+import com.logaritex.hadoop.configuration.manager.service.ClouderaManager;
+import com.logaritex.hadoop.configuration.manager.service.ServiceService;
+import com.logaritex.hadoop.configuration.manager.service.ServiceService.View;
+
+/**
+ * Macro benchmark of the nightly inventory crawl (see Sample1): all clusters, then for every cluster all services and
+ * for every service its full configuration and roles, then all users and all hosts (full view). Runs one call at a
+ * time, against a {@link FakeClouderaManagerServer} serving synthetic topologies of increasing size.
+ * 
+ * <br/>
+ * For every size it reports the wall time of a crawl, the number of requests, the response bytes on the wire and two
+ * client side memory costs: the bytes allocated by the crawling thread, and the heap retained by the inventory (heap
+ * used after a GC at the end of the crawl, relative to the one before it). The fake server runs in the same JVM but
+ * on its own threads, and its topology is part of the baseline, so neither includes the server state.
+ * 
+ * <br/>
+ * Usage: CrawlBenchmark [hostCounts, e.g. 100,1000,10000] [rolesPerHost] [iterations] [latencyMs] [pooled]
+ * <br/>
+ * Run with: java -cp cm-benchmarks/target/benchmarks.jar
+ * com.logaritex.hadoop.configuration.manager.benchmark.CrawlBenchmark
+ */
+public class CrawlBenchmark {
+
+	public static void main(String[] args) throws Exception {
+
+		String[] hostCounts = (args.length > 0 ? args[0] : "100,1000,10000").split(",");
+		int rolesPerHost = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		long latencyMs = args.length > 3 ? Long.parseLong(args[3]) : 0;
+		boolean pooled = args.length > 4 && Boolean.parseBoolean(args[4]);
+
+		System.out.println(String.format("%8s %8s %10s %10s %10s %12s %12s %14s", "hosts", "roles", "p50 [ms]",
+				"min [ms]", "requests", "wire [KB]", "alloc [MB]", "retained [MB]"));
+
+		for (String hostCount : hostCounts) {
+			run(Integer.parseInt(hostCount.trim()), rolesPerHost, iterations, latencyMs, pooled);
+		}
+	}
+
+	static void run(int hosts, int rolesPerHost, int iterations, long latencyMs, boolean pooled) throws Exception {
+
+		FakeClouderaManagerServer server = new FakeClouderaManagerServer(new TopologyGenerator(1, hosts,
+				rolesPerHost).generate());
+		server.setLatency(latencyMs, 0);
+		server.start();
+
+		try {
+			ClouderaManager cm = pooled ? ClouderaManagerFactory.createPooledClouderaManager(server.getBaseUrl(),
+					"admin", "admin") : ClouderaManagerFactory.createClouderaManager(server.getBaseUrl(), "admin",
+					"admin");
+
+			// warm up
+			crawl(cm);
+
+			long[] elapsed = new long[iterations];
+			long allocated = 0;
+			long retained = 0;
+
+			server.resetStatistics();
+
+			for (int i = 0; i < iterations; i++) {
+				long baseline = heapUsedAfterGc();
+				long allocatedBefore = threadAllocatedBytes();
+
+				long start = System.nanoTime();
+				List<Object> inventory = crawl(cm);
+				elapsed[i] = System.nanoTime() - start;
+
+				allocated += threadAllocatedBytes() - allocatedBefore;
+				retained = Math.max(retained, heapUsedAfterGc() - baseline);
+				inventory.clear();
+			}
+
+			Arrays.sort(elapsed);
+
+			System.out.println(String.format("%8d %8d %10.1f %10.1f %10d %12d %12.1f %14.1f", hosts, server.getTopology()
+					.getRoleCount(), TimeUnit.NANOSECONDS.toMicros(elapsed[iterations / 2]) / 1000.0,
+					TimeUnit.NANOSECONDS.toMicros(elapsed[0]) / 1000.0, server.getRequestCount() / iterations,
+					server.getBytesSent() / iterations / 1024, allocated / iterations / (1024.0 * 1024.0), retained
+							/ (1024.0 * 1024.0)));
+		} finally {
+			server.stop();
+		}
+	}
+
+	/**
+	 * The crawl of Sample1. Everything fetched is kept until the end, as the inventory job does.
+	 */
+	static List<Object> crawl(ClouderaManager cm) {
+
+		List<Object> inventory = new ArrayList<Object>();
+		ServiceService serviceService = cm.getServiceService();
+
+		List<Cluster> clusters = cm.getClusterService().getAllClusters();
+		inventory.add(clusters);
+
+		for (Cluster cluster : clusters) {
+			List<Service> services = serviceService.getAllServices(cluster.getName());
+			inventory.add(services);
+
+			for (Service service : services) {
+				inventory.add(serviceService.getServiceConfiguration(service, View.full));
+				inventory.add(serviceService.getRoles(service));
+			}
+		}
+
+		inventory.add(cm.getUserService().getAllUsers());
+		inventory.add(cm.getHostService().getAllHosts());
+
+		return inventory;
+	}
+
+	/**
+	 * @return Bytes allocated so far by the current thread, which runs the whole crawl.
+	 */
+	private static long threadAllocatedBytes() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static long heapUsedAfterGc() {
+		System.gc();
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+}
@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.logaritex.hadoop.configuration.manager.domain.BulkCommandList;
+import com.logaritex.hadoop.configuration.manager.domain.EventQueryResult;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.HostList;
+import com.logaritex.hadoop.configuration.manager.domain.MetricList;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceConfig;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+import com.logaritex.hadoop.configuration.manager.service.http.JsonItemReader;
+
+/**
+ * Deserialization of the cm-domain list payloads, as done by the transports: full-view HostList (with health checks
+ * and role references), full-view ServiceConfig (with roleTypeConfigs), MetricList, EventQueryResult and
+ * BulkCommandList. The items parameter is the number of hosts, configuration parameters per role type, metrics, events
+ * and commands respectively.
+ * 
+ * <br/>
+ * Run with -prof gc to see the bytes allocated per operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeserializationBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	private int items;
+
+	private ObjectMapper objectMapper;
+
+	private JsonItemReader itemReader;
+
+	private byte[] hostList;
+
+	private byte[] serviceConfig;
+
+	private byte[] metricList;
+
+	private byte[] eventQueryResult;
+
+	private byte[] bulkCommandList;
+
+	@Setup
+	public void setup() throws IOException {
+		objectMapper = new ObjectMapper();
+		itemReader = new JsonItemReader(objectMapper);
+
+		hostList = DomainPayloads.hostList(items);
+		serviceConfig = DomainPayloads.serviceConfig(items);
+		metricList = DomainPayloads.metricList(items);
+		eventQueryResult = DomainPayloads.eventQueryResult(items);
+		bulkCommandList = DomainPayloads.bulkCommandList(items);
+	}
+
+	@Benchmark
+	public HostList hostListFull() throws IOException {
+		return objectMapper.readValue(hostList, HostList.class);
+	}
+
+	/**
+	 * The same payload read item by item through the streaming list API.
+	 */
+	@Benchmark
+	public int hostListFullStreaming(final Blackhole blackhole) throws IOException {
+		return itemReader.read(new ByteArrayInputStream(hostList), HostList.class, new ItemCallback<Host>() {
+			@Override
+			public void onItem(Host item) {
+				blackhole.consume(item);
+			}
+		});
+	}
+
+	@Benchmark
+	public ServiceConfig serviceConfigFull() throws IOException {
+		return objectMapper.readValue(serviceConfig, ServiceConfig.class);
+	}
+
+	@Benchmark
+	public MetricList metricList() throws IOException {
+		return objectMapper.readValue(metricList, MetricList.class);
+	}
+
+	@Benchmark
+	public EventQueryResult eventQueryResult() throws IOException {
+		return objectMapper.readValue(eventQueryResult, EventQueryResult.class);
+	}
+
+	@Benchmark
+	public BulkCommandList bulkCommandList() throws IOException {
+		return objectMapper.readValue(bulkCommandList, BulkCommandList.class);
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+
+import com.logaritex.hadoop.configuration.manager.domain.BulkCommandList;
+import com.logaritex.hadoop.configuration.manager.domain.Command;
+import com.logaritex.hadoop.configuration.manager.domain.Event;
+import com.logaritex.hadoop.configuration.manager.domain.Event.EventAttribute;
+import com.logaritex.hadoop.configuration.manager.domain.Event.EventCategory;
+import com.logaritex.hadoop.configuration.manager.domain.Event.EventSeverity;
+import com.logaritex.hadoop.configuration.manager.domain.EventQueryResult;
+import com.logaritex.hadoop.configuration.manager.domain.HostList;
+import com.logaritex.hadoop.configuration.manager.domain.MetricList;
+import com.logaritex.hadoop.configuration.manager.domain.RoleRef;
+import com.logaritex.hadoop.configuration.manager.fake.SyntheticTopology;
+import com.logaritex.hadoop.configuration.manager.fake.TopologyGenerator;
+
+/**
+ * Realistic JSON payloads of the list endpoints, serialized the way Cloudera Manager does (null fields left out).
+ * Hosts, configurations and metrics come from the {@link TopologyGenerator}; events and commands are generated here.
+ */
+final class DomainPayloads {
+
+	private static final long SEED = 42;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper().setSerializationInclusion(
+			JsonSerialize.Inclusion.NON_NULL);
+
+	private DomainPayloads() {
+	}
+
+	/**
+	 * @return /api/v1/hosts?view=full with the given number of hosts, each with 3 role references and 5 health checks.
+	 */
+	static byte[] hostList(int hosts) throws IOException {
+		SyntheticTopology topology = new TopologyGenerator(1, hosts, 3).generate();
+		return MAPPER.writeValueAsBytes(new HostList(topology.getHosts()));
+	}
+
+	/**
+	 * @return Full view HDFS service configuration: the given number of service-wide parameters and as many for each of
+	 *         the 4 role types.
+	 */
+	static byte[] serviceConfig(int configsPerRoleType) throws IOException {
+		TopologyGenerator generator = new TopologyGenerator(1, 1, 0);
+		generator.setServiceConfigs(configsPerRoleType);
+		generator.setConfigsPerRoleType(configsPerRoleType);
+		return MAPPER.writeValueAsBytes(generator.generate().getServiceConfig("cluster1", "hdfs1"));
+	}
+
+	/**
+	 * @return Host metrics: the given number of metrics with 10 data points each.
+	 */
+	static byte[] metricList(int metrics) throws IOException {
+		SyntheticTopology topology = new TopologyGenerator(1, 1, 0).generate();
+		topology.setMetricsPerHost(metrics);
+		topology.setDataPointsPerMetric(10);
+
+		MetricList metricList = new MetricList();
+		metricList.setItems(topology.getHostMetrics(topology.getHosts().get(0).getHostId()));
+		return MAPPER.writeValueAsBytes(metricList);
+	}
+
+	static byte[] eventQueryResult(int events) throws IOException {
+		Random random = new Random(SEED);
+
+		List<Event> items = new ArrayList<Event>(events);
+		for (int i = 0; i < events; i++) {
+			Event event = new Event();
+			event.setId("8c4a3f2e-" + String.format("%04x", i) + "-4f6b-9a1e-5d2c7b8e9f01");
+			event.setContent("The health test result for HOST_SCM_HEALTH has become bad: host-"
+					+ String.format("%06d", random.nextInt(10000)) + " stopped sending heartbeats.");
+			event.setTimeOccurred("2012-10-17T10:" + String.format("%02d:%02d", i / 60 % 60, i % 60) + ".000Z");
+			event.setTimeReceived(event.getTimeOccurred());
+			event.setCategory(EventCategory.values()[random.nextInt(EventCategory.values().length)]);
+			event.setSeverity(EventSeverity.values()[random.nextInt(EventSeverity.values().length)]);
+			event.setAlert(random.nextInt(10) == 0);
+			event.setAttributes(Arrays.asList(attribute("CLUSTER", "cluster1"), attribute("SERVICE", "hdfs1"),
+					attribute("ROLE_TYPE", "DATANODE"), attribute("HEALTH_TEST_NAME", "HOST_SCM_HEALTH")));
+			items.add(event);
+		}
+
+		EventQueryResult result = new EventQueryResult();
+		result.setItems(items);
+		result.setTotalResults(String.valueOf(events));
+		return MAPPER.writeValueAsBytes(result);
+	}
+
+	/**
+	 * @return Response of a role command on the given number of roles, one in ten failed.
+	 */
+	static byte[] bulkCommandList(int commands) throws IOException {
+		List<Command> items = new ArrayList<Command>(commands);
+		List<String> errors = new ArrayList<String>();
+		for (int i = 0; i < commands; i++) {
+			String roleName = "hdfs1-DATANODE-" + String.format("host-%06d", i);
+			if (i % 10 == 9) {
+				errors.add("Role '" + roleName + "' is not stopped.");
+				continue;
+			}
+
+			RoleRef roleRef = new RoleRef();
+			roleRef.setClusterName("cluster1");
+			roleRef.setServiceName("hdfs1");
+			roleRef.setRoleName(roleName);
+
+			Command command = new Command();
+			command.setId(String.valueOf(1000 + i));
+			command.setName("Start");
+			command.setStartTime("2012-10-17T10:00:00.000Z");
+			command.setActive(true);
+			command.setRoleRef(roleRef);
+			items.add(command);
+		}
+
+		BulkCommandList bulkCommandList = new BulkCommandList();
+		bulkCommandList.setItems(items);
+		bulkCommandList.setErrors(errors);
+		return MAPPER.writeValueAsBytes(bulkCommandList);
+	}
+
+	private static EventAttribute attribute(String name, String value) {
+		EventAttribute attribute = new EventAttribute();
+		attribute.setName(name);
+		attribute.setValues(Arrays.asList(value));
+		return attribute;
+	}
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.benchmark;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.logaritex.hadoop.configuration.manager.PooledHttpService;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.service.HostService;
+import com.logaritex.hadoop.configuration.manager.service.http.RecordingHttpService;
+import com.logaritex.hadoop.configuration.manager.service.http.ReplayHttpService;
+import com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl;
+
+/**
+ * Records a host polling workload against the {@link StandInServer} and compares the live run with its replay
+ * without the server: as fast as possible (replay), which leaves only the client side cost (JSON binding), and with
+ * the recorded latencies (replay-latency). The server charges serverCostMs per request.
+ * 
+ * <br/>
+ * Run with: java -jar cm-benchmarks/target/benchmarks.jar ReplayBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(ReplayBenchmark.THREADS)
+public class ReplayBenchmark {
+
+	static final int THREADS = 8;
+
+	private static final int RECORDED_REQUESTS = 100;
+
+	@Param({ "live", "replay", "replay-latency" })
+	private String mode;
+
+	@Param({ "100" })
+	private int hosts;
+
+	@Param({ "2" })
+	private long serverCostMs;
+
+	private File log;
+
+	private StandInServer server;
+
+	private PooledHttpService live;
+
+	private HostService hostService;
+
+	@Setup
+	public void setup() throws Exception {
+		log = File.createTempFile("cm-requests", ".log");
+
+		server = new StandInServer(TransportBenchmark.hostsJson(hosts), THREADS);
+		server.setAuthenticationCostMs(serverCostMs);
+		server.start();
+
+		live = new PooledHttpService(server.getBaseUrl(), "admin", "admin", THREADS);
+
+		RecordingHttpService recording = new RecordingHttpService(live, log);
+		HostService recordingHostService = new HostServiceImpl(recording);
+		for (int i = 0; i < RECORDED_REQUESTS; i++) {
+			recordingHostService.getAllHosts();
+		}
+		recording.close();
+
+		if ("live".equals(mode)) {
+			hostService = new HostServiceImpl(live);
+		} else {
+			stopServer();
+			hostService = new HostServiceImpl("replay".equals(mode) ? new ReplayHttpService(log)
+					: new ReplayHttpService(log, 1));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		stopServer();
+		log.delete();
+	}
+
+	private void stopServer() {
+		if (server != null) {
+			live.shutdown();
+			server.stop();
+			server = null;
+		}
+	}
+
+	@Benchmark
+	public List<Host> getAllHosts() {
+		return hostService.getAllHosts();
+	}
+}
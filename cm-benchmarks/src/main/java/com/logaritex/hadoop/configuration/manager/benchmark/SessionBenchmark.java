@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.benchmark;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.logaritex.hadoop.configuration.manager.PooledHttpService;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.service.HostService;
+import com.logaritex.hadoop.configuration.manager.service.http.SessionStore;
+import com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl;
+
+/**
+ * Compares Basic authentication on every request with the reuse of the Cloudera Manager session cookie under
+ * sustained polling of the hosts. The {@link StandInServer} charges authenticationCostMs for every credential check,
+ * like the user store lookup of the real server. The expiring mode invalidates all sessions every second to exercise
+ * the fallback to Basic auth.
+ * 
+ * <br/>
+ * The server side handling time and the number of credential checks of the trial are printed at its end.
+ * 
+ * <br/>
+ * Run with: java -jar cm-benchmarks/target/benchmarks.jar SessionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(SessionBenchmark.THREADS)
+public class SessionBenchmark {
+
+	static final int THREADS = 16;
+
+	@Param({ "basic", "session", "expiring" })
+	private String auth;
+
+	@Param({ "5" })
+	private long authenticationCostMs;
+
+	private StandInServer server;
+
+	private PooledHttpService httpService;
+
+	private SessionStore sessionStore;
+
+	private HostService hostService;
+
+	private ScheduledExecutorService expirer;
+
+	@Setup
+	public void setup() throws Exception {
+		server = new StandInServer(TransportBenchmark.hostsJson(10), THREADS);
+		server.setAuthenticationCostMs(authenticationCostMs);
+		server.start();
+
+		httpService = new PooledHttpService(server.getBaseUrl(), "admin", "admin", THREADS);
+		if (!"basic".equals(auth)) {
+			sessionStore = new SessionStore();
+			httpService.setSessionStore(sessionStore);
+		}
+		hostService = new HostServiceImpl(httpService);
+
+		expirer = Executors.newSingleThreadScheduledExecutor();
+		if ("expiring".equals(auth)) {
+			expirer.scheduleAtFixedRate(new Runnable() {
+				@Override
+				public void run() {
+					server.expireSessions();
+				}
+			}, 1, 1, TimeUnit.SECONDS);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		expirer.shutdownNow();
+		httpService.shutdown();
+		server.stop();
+
+		System.out.println(String.format("server side %.3f ms/request, %d credential checks, %d sessions expired",
+				server.getHandlingNanos() / 1e6 / server.getRequestCount(), server.getAuthenticationCount(),
+				sessionStore == null ? 0 : sessionStore.getSessionsExpired()));
+	}
+
+	@Benchmark
+	public List<Host> getAllHosts() {
+		return hostService.getAllHosts();
+	}
+}
@@ -0,0 +1,256 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.logaritex.hadoop.configuration.manager.ClouderaManagerFactory;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.fake.FakeClouderaManagerServer;
+import com.logaritex.hadoop.configuration.manager.fake.TopologyGenerator;
+import com.logaritex.hadoop.configuration.manager.service.ClouderaManager;
+import com.logaritex.hadoop.configuration.manager.topology.ClusterTopology;
+import com.logaritex.hadoop.configuration.manager.topology.TopologyCrawler;
+import com.logaritex.hadoop.configuration.manager.topology.TopologyHolder;
+
+/**
+ * Read throughput of a shared topology with 1 writer publishing new versions and N readers, each read being a host
+ * lookup, the roles on the host and the hosts in its rack, all on the same version. Compares the lock-free
+ * {@link TopologyHolder} against the same holder guarded by a ReentrantReadWriteLock and by synchronized.
+ * 
+ * <br/>
+ * The writer publishes one of two pre-crawled topologies and then burns writeTokens of CPU (Blackhole.consumeCPU),
+ * so the benchmark measures the cost of sharing the reference rather than the cost of a crawl. The number of readers
+ * is 3 by default, change it with -tg 1,N (the writer is the first thread of the group).
+ * 
+ * <br/>
+ * Run with: java -jar cm-benchmarks/target/benchmarks.jar TopologyHolderBenchmark -tg 1,7
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopologyHolderBenchmark {
+
+	@Param({ "1000" })
+	private int hosts;
+
+	@Param({ "100" })
+	private int writeTokens;
+
+	private ClusterTopology[] topologies;
+
+	private String[] hostIds;
+
+	private TopologyHolder copyOnWrite;
+
+	private LockedHolder readWriteLock;
+
+	private SynchronizedHolder synchronizedHolder;
+
+	private int writes;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		topologies = crawl(hosts, 2);
+
+		List<String> ids = new ArrayList<String>();
+		for (Host host : topologies[0].getHosts()) {
+			ids.add(host.getHostId());
+		}
+		hostIds = ids.toArray(new String[ids.size()]);
+
+		copyOnWrite = new TopologyHolder(topologies[0]);
+		readWriteLock = new LockedHolder(topologies[0]);
+		synchronizedHolder = new SynchronizedHolder(topologies[0]);
+	}
+
+	/**
+	 * Per reader thread position in the host ids, so the readers do not all look up the same host.
+	 */
+	@State(Scope.Thread)
+	public static class Reader {
+
+		int next;
+
+		String nextHostId(String[] hostIds) {
+			next = (next + 1) % hostIds.length;
+			return hostIds[next];
+		}
+	}
+
+	@Benchmark
+	@Group("copyOnWrite")
+	@GroupThreads(1)
+	public void copyOnWriteWriter() {
+		copyOnWrite.publish(nextTopology());
+		Blackhole.consumeCPU(writeTokens);
+	}
+
+	@Benchmark
+	@Group("copyOnWrite")
+	@GroupThreads(3)
+	public int copyOnWriteReader(Reader reader) {
+		return read(copyOnWrite.get(), reader.nextHostId(hostIds));
+	}
+
+	@Benchmark
+	@Group("readWriteLock")
+	@GroupThreads(1)
+	public void readWriteLockWriter() {
+		readWriteLock.publish(nextTopology());
+		Blackhole.consumeCPU(writeTokens);
+	}
+
+	@Benchmark
+	@Group("readWriteLock")
+	@GroupThreads(3)
+	public int readWriteLockReader(Reader reader) {
+		return readWriteLock.read(reader.nextHostId(hostIds));
+	}
+
+	@Benchmark
+	@Group("synchronized")
+	@GroupThreads(1)
+	public void synchronizedWriter() {
+		synchronizedHolder.publish(nextTopology());
+		Blackhole.consumeCPU(writeTokens);
+	}
+
+	@Benchmark
+	@Group("synchronized")
+	@GroupThreads(3)
+	public int synchronizedReader(Reader reader) {
+		return synchronizedHolder.read(reader.nextHostId(hostIds));
+	}
+
+	/**
+	 * Only the single writer thread of a group calls this.
+	 */
+	private ClusterTopology nextTopology() {
+		return topologies[writes++ & 1];
+	}
+
+	static int read(ClusterTopology topology, String hostId) {
+		Host host = topology.getHost(hostId);
+		return topology.getRolesOnHost(hostId).size() + topology.getHostsInRack(host.getRackId()).size();
+	}
+
+	/**
+	 * Crawls the same synthetic topology count times, each crawl giving a distinct ClusterTopology.
+	 */
+	static ClusterTopology[] crawl(int hosts, int count) throws IOException {
+
+		FakeClouderaManagerServer server = new FakeClouderaManagerServer(
+				new TopologyGenerator(1, hosts, 3).generate());
+		server.start();
+
+		ExecutorService executor = Executors.newFixedThreadPool(TopologyCrawler.DEFAULT_MAX_CONCURRENCY);
+		try {
+			ClouderaManager cm = ClouderaManagerFactory.createClouderaManager(server.getBaseUrl(), "admin",
+					"admin");
+			TopologyCrawler crawler = new TopologyCrawler(cm, executor);
+
+			ClusterTopology[] topologies = new ClusterTopology[count];
+			for (int i = 0; i < count; i++) {
+				topologies[i] = ClusterTopology.of(crawler.crawl());
+			}
+			return topologies;
+		} finally {
+			executor.shutdown();
+			server.stop();
+		}
+	}
+
+	/**
+	 * The current topology guarded by a read-write lock, readers hold the read lock for the whole read.
+	 */
+	static class LockedHolder {
+
+		private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+		private ClusterTopology topology;
+
+		LockedHolder(ClusterTopology topology) {
+			this.topology = topology;
+		}
+
+		void publish(ClusterTopology topology) {
+			lock.writeLock().lock();
+			try {
+				this.topology = topology;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+
+		int read(String hostId) {
+			lock.readLock().lock();
+			try {
+				return TopologyHolderBenchmark.read(topology, hostId);
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * The current topology guarded by the holder's monitor, readers hold it for the whole read.
+	 */
+	static class SynchronizedHolder {
+
+		private ClusterTopology topology;
+
+		SynchronizedHolder(ClusterTopology topology) {
+			this.topology = topology;
+		}
+
+		synchronized void publish(ClusterTopology topology) {
+			this.topology = topology;
+		}
+
+		synchronized int read(String hostId) {
+			return TopologyHolderBenchmark.read(topology, hostId);
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.benchmark;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.logaritex.hadoop.configuration.manager.service.ServiceService.View;
+import com.logaritex.hadoop.configuration.manager.service.http.UriTemplate;
+import com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl;
+import com.logaritex.hadoop.configuration.manager.service.impl.ServiceServiceImpl;
+
+/**
+ * Expansion throughput of the precompiled {@link UriTemplate} against the per call parsing done by RestTemplate
+ * (new org.springframework.web.util.UriTemplate(baseUrl + url).expand(uriVariables)).
+ * 
+ * <br/>
+ * Run with -prof gc to see the bytes allocated per call (gc.alloc.rate.norm).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UriTemplateBenchmark {
+
+	private static final String BASE_URL = "http://cm.cluster.local:7180";
+
+	private final String clusterName = "Cluster 1 - CDH4";
+
+	private final String serviceName = "hdfs1";
+
+	private final View view = View.full;
+
+	private final String hostId = "host-0042.cluster.local";
+
+	@Benchmark
+	public URI serviceConfigPrecompiled() {
+		return UriTemplate.of(ServiceServiceImpl.SERVICE_CONFING).toUri(BASE_URL, clusterName, serviceName, view);
+	}
+
+	@Benchmark
+	public URI serviceConfigRestTemplate() {
+		return new org.springframework.web.util.UriTemplate(BASE_URL + ServiceServiceImpl.SERVICE_CONFING).expand(
+				clusterName, serviceName, view);
+	}
+
+	@Benchmark
+	public String serviceConfigPrecompiledString() {
+		return UriTemplate.of(ServiceServiceImpl.SERVICE_CONFING).expand(clusterName, serviceName, view);
+	}
+
+	@Benchmark
+	public URI hostMetricsPrecompiled() {
+		return UriTemplate.of(HostServiceImpl.HOST_METRICS_PATH).toUri(BASE_URL, hostId);
+	}
+
+	@Benchmark
+	public URI hostMetricsRestTemplate() {
+		return new org.springframework.web.util.UriTemplate(BASE_URL + HostServiceImpl.HOST_METRICS_PATH)
+				.expand(hostId);
+	}
+}
@@ -17,7 +17,12 @@
  */
 package com.logaritex.hadoop.configuration.manager;
 
+import java.util.concurrent.ExecutorService;
+
+import com.logaritex.hadoop.configuration.manager.service.AsyncClouderaManager;
 import com.logaritex.hadoop.configuration.manager.service.ClouderaManager;
+import com.logaritex.hadoop.configuration.manager.service.http.ExecutorAsyncHttpService;
+import com.logaritex.hadoop.configuration.manager.service.impl.AsyncClouderaManagerImpl;
 import com.logaritex.hadoop.configuration.manager.service.impl.ClouderaManagerImpl;
 
 public class ClouderaManagerFactory {
@@ -33,4 +38,38 @@ public class ClouderaManagerFactory {
 		return new ClouderaManagerImpl(httpService);
 	}
 
+	/**
+	 * Creates a ClouderaManager that reuses persistent (keep-alive) connections to the server.
+	 */
+	public static ClouderaManager createPooledClouderaManager(String baseUrl, String username, String password) {
+		return createPooledClouderaManager(baseUrl, username, password,
+				PooledHttpService.DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+	}
+
+	/**
+	 * Creates a ClouderaManager that reuses persistent (keep-alive) connections to the server.
+	 * 
+	 * @param maxConnectionsPerRoute
+	 *            Maximum number of concurrently open connections to the server.
+	 */
+	public static ClouderaManager createPooledClouderaManager(String baseUrl, String username, String password,
+			int maxConnectionsPerRoute) {
+		PooledHttpService httpService = new PooledHttpService(baseUrl, username, password, maxConnectionsPerRoute);
+		return new ClouderaManagerImpl(httpService);
+	}
+
+	/**
+	 * Creates a non-blocking ClouderaManager. The requests are executed by the given executor over pooled keep-alive
+	 * connections, one connection per executor thread at most.
+	 * 
+	 * @param executor
+	 *            Runs the requests. Owned by the caller.
+	 * @param maxConnectionsPerRoute
+	 *            Maximum number of concurrently open connections to the server. Should match the executor threads.
+	 */
+	public static AsyncClouderaManager createAsyncClouderaManager(String baseUrl, String username, String password,
+			ExecutorService executor, int maxConnectionsPerRoute) {
+		PooledHttpService httpService = new PooledHttpService(baseUrl, username, password, maxConnectionsPerRoute);
+		return new AsyncClouderaManagerImpl(new ExecutorAsyncHttpService(httpService, executor));
+	}
 }
@@ -0,0 +1,205 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.client.params.CookiePolicy;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * {@link SimpleHttpService} backed by a pool of persistent (keep-alive) connections.
+ *
+ * <br/>
+ * Connections to the Cloudera Manager server are kept open between calls and reused, instead of paying the TCP setup
+ * for every request. Idle and expired connections are evicted by a background daemon thread.
+ *
+ * <br/>
+ * Call {@link #shutdown()} to release the pooled connections when the service is no longer needed.
+ */
+public class PooledHttpService extends SimpleHttpService {
+
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+	public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 100;
+
+	public static final long DEFAULT_KEEP_ALIVE_MS = 30000; // 30 [sec]
+
+	public static final long DEFAULT_IDLE_TIMEOUT_MS = 60000; // 60 [sec]
+
+	private final PoolingClientConnectionManager connectionManager;
+
+	private final IdleConnectionEvictor idleConnectionEvictor;
+
+	public PooledHttpService(String baseUrl, String username, String password) {
+		this(baseUrl, username, password, DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+	}
+
+	public PooledHttpService(String baseUrl, String username, String password, int maxConnectionsPerRoute) {
+		this(baseUrl, username, password, maxConnectionsPerRoute, Math.max(maxConnectionsPerRoute,
+				DEFAULT_MAX_CONNECTIONS_TOTAL), DEFAULT_KEEP_ALIVE_MS, DEFAULT_IDLE_TIMEOUT_MS);
+	}
+
+	/**
+	 * @param baseUrl
+	 *            Cloudera Manager URL (e.g. http://host:7180)
+	 * @param username
+	 *            API user name
+	 * @param password
+	 *            API user password
+	 * @param maxConnectionsPerRoute
+	 *            Maximum number of open connections to the Cloudera Manager server.
+	 * @param maxConnectionsTotal
+	 *            Maximum number of open connections over all routes.
+	 * @param keepAliveMs
+	 *            How long an idle connection is kept for reuse when the server does not send a Keep-Alive timeout
+	 *            itself. A shorter server provided timeout always wins.
+	 * @param idleTimeoutMs
+	 *            Connections idle for longer than this are closed by the evictor thread.
+	 */
+	public PooledHttpService(String baseUrl, String username, String password, int maxConnectionsPerRoute,
+			int maxConnectionsTotal, long keepAliveMs, long idleTimeoutMs) {
+		this(baseUrl, username, password, createConnectionManager(maxConnectionsPerRoute, maxConnectionsTotal),
+				keepAliveMs, idleTimeoutMs);
+	}
+
+	private PooledHttpService(String baseUrl, String username, String password,
+			PoolingClientConnectionManager connectionManager, long keepAliveMs, long idleTimeoutMs) {
+		super(baseUrl, username, password, createRequestFactory(connectionManager, keepAliveMs));
+
+		this.connectionManager = connectionManager;
+		this.idleConnectionEvictor = new IdleConnectionEvictor(connectionManager, idleTimeoutMs);
+		this.idleConnectionEvictor.start();
+	}
+
+	/**
+	 * Stops the idle connection evictor and closes all pooled connections.
+	 */
+	public void shutdown() {
+		idleConnectionEvictor.shutdown();
+		connectionManager.shutdown();
+	}
+
+	private static PoolingClientConnectionManager createConnectionManager(int maxConnectionsPerRoute,
+			int maxConnectionsTotal) {
+
+		PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager();
+		connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+		connectionManager.setMaxTotal(maxConnectionsTotal);
+
+		return connectionManager;
+	}
+
+	private static HttpComponentsClientHttpRequestFactory createRequestFactory(
+			PoolingClientConnectionManager connectionManager, long keepAliveMs) {
+
+		DefaultHttpClient httpClient = new DefaultHttpClient(connectionManager);
+		httpClient.setKeepAliveStrategy(new BoundedKeepAliveStrategy(keepAliveMs));
+		// the session cookie is managed by the service (see setSessionStore), not by the HttpClient
+		httpClient.getParams().setParameter(ClientPNames.COOKIE_POLICY, CookiePolicy.IGNORE_COOKIES);
+
+		HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+		requestFactory.setReadTimeout(DEFAULT_REQUEST_TIMEOUT_MS);
+		requestFactory.setConnectTimeout(DEFAULT_REQUEST_TIMEOUT_MS);
+
+		return requestFactory;
+	}
+
+	/**
+	 * Honors the server's Keep-Alive timeout but never keeps a connection longer than the configured maximum.
+	 */
+	private static class BoundedKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+		private final long maxKeepAliveMs;
+
+		public BoundedKeepAliveStrategy(long maxKeepAliveMs) {
+			this.maxKeepAliveMs = maxKeepAliveMs;
+		}
+
+		@Override
+		public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+
+			HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+
+			while (it.hasNext()) {
+				HeaderElement element = it.nextElement();
+				if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+					try {
+						return Math.min(Long.parseLong(element.getValue()) * 1000, maxKeepAliveMs);
+					} catch (NumberFormatException e) {
+						// fall back to the configured keep-alive
+					}
+				}
+			}
+
+			return maxKeepAliveMs;
+		}
+	}
+
+	/**
+	 * Periodically closes expired connections and connections idle for longer than the idle timeout.
+	 */
+	private static class IdleConnectionEvictor extends Thread {
+
+		private final PoolingClientConnectionManager connectionManager;
+
+		private final long idleTimeoutMs;
+
+		private volatile boolean shutdown;
+
+		public IdleConnectionEvictor(PoolingClientConnectionManager connectionManager, long idleTimeoutMs) {
+			super("cm-idle-connection-evictor");
+			setDaemon(true);
+			this.connectionManager = connectionManager;
+			this.idleTimeoutMs = idleTimeoutMs;
+		}
+
+		@Override
+		public void run() {
+			long checkInterval = Math.max(1000, idleTimeoutMs / 2);
+			try {
+				while (!shutdown) {
+					synchronized (this) {
+						wait(checkInterval);
+					}
+					connectionManager.closeExpiredConnections();
+					connectionManager.closeIdleConnections(idleTimeoutMs, TimeUnit.MILLISECONDS);
+				}
+			} catch (InterruptedException e) {
+				// terminate
+			}
+		}
+
+		public void shutdown() {
+			shutdown = true;
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+}
@@ -17,96 +17,52 @@
  */
 package com.logaritex.hadoop.configuration.manager;
 
-import java.util.Collections;
-
-import org.codehaus.jackson.Base64Variants;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
-import org.springframework.http.converter.json.MappingJacksonHttpMessageConverter;
-import org.springframework.web.client.RestTemplate;
 
+import com.logaritex.hadoop.configuration.manager.rest.RestTemplateHttpService;
 import com.logaritex.hadoop.configuration.manager.service.HttpService;
 
-public class SimpleHttpService implements HttpService {
-
-	private final String baseUrl;
-
-	private final HttpHeaders httpHeaders;
-
-	private final RestTemplate restTemplate;
+/**
+ * {@link HttpService} implementation based on Spring's RestTemplate, with one HttpURLConnection per call.
+ * 
+ * <br/>
+ * The request handling (content decoding, revalidation, session reuse and request listeners) is inherited from the
+ * {@link RestTemplateHttpService}.
+ */
+public class SimpleHttpService extends RestTemplateHttpService {
 
-	private int requestTimeout = 5000; // 5 [sec]
+	public static final int DEFAULT_REQUEST_TIMEOUT_MS = 5000; // 5 [sec]
 
 	public SimpleHttpService(String hostName, int port, String username, String password) {
-		this(String.format("%s:si", hostName, port), username, password);
+		this(String.format("http://%s:%s", hostName.trim(), port), username, password);
 	}
 
 	public SimpleHttpService(String baseUrl, String username, String password) {
-		this.baseUrl = baseUrl;
-		httpHeaders = createHttpHeaders(username, password);
-
-		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-		requestFactory.setReadTimeout(requestTimeout);
-		requestFactory.setConnectTimeout(requestTimeout);
-
-		restTemplate = new RestTemplate(requestFactory);
-
-		restTemplate.getMessageConverters().add(new MappingJacksonHttpMessageConverter());
-
+		this(baseUrl, username, password, createSimpleRequestFactory(DEFAULT_REQUEST_TIMEOUT_MS));
 	}
 
-	@Override
-	public <R> R get(String url, Class<R> clazz, Object... params) {
-
-		R response = restTemplate.exchange(baseUrl + url, HttpMethod.GET, new HttpEntity<Object>(httpHeaders), clazz,
-				params).getBody();
-
-		return response;
+	/**
+	 * @param baseUrl
+	 *            Cloudera Manager URL (e.g. http://host:7180)
+	 * @param username
+	 *            API user name
+	 * @param password
+	 *            API user password
+	 * @param requestFactory
+	 *            Creates the underlying HTTP connections. Allows alternative transports (e.g. pooled connections) to
+	 *            reuse the request handling of this service.
+	 */
+	public SimpleHttpService(String baseUrl, String username, String password, ClientHttpRequestFactory requestFactory) {
+		super(baseUrl, username, password, requestFactory);
 	}
 
-	@Override
-	public <R> R post(String url, Object request, Class<R> responseType, Object... uriVariables) {
+	private static SimpleClientHttpRequestFactory createSimpleRequestFactory(int requestTimeout) {
 
-		R response = restTemplate.exchange(baseUrl + url, HttpMethod.POST,
-				new HttpEntity<Object>(request, httpHeaders), responseType, uriVariables).getBody();
-
-		return response;
-	}
-
-	@Override
-	public <R> R delete(String url, Object request, Class<R> responseType, Object... uriVariables) {
-
-		R response = restTemplate.exchange(baseUrl + url, HttpMethod.DELETE,
-				new HttpEntity<Object>(request, httpHeaders), responseType, uriVariables).getBody();
-
-		return response;
-	}
-
-	@Override
-	public <R> R put(String url, Object request, Class<R> responseType, Object... uriVariables) {
-
-		R response = restTemplate.exchange(baseUrl + url, HttpMethod.PUT, new HttpEntity<Object>(request, httpHeaders),
-				responseType, uriVariables).getBody();
-
-		return response;
-	}
-
-	private static HttpHeaders createHttpHeaders(String username, String password) {
-
-		HttpHeaders httpHeaders = new HttpHeaders();
-		httpHeaders.set("Accept-Encoding", "gzip");
-		httpHeaders.set("Authorization", getBasicAuthHeaderValue(username, password));
-		httpHeaders.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-
-		return httpHeaders;
-	}
-
-	private static String getBasicAuthHeaderValue(String username, String password) {
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setReadTimeout(requestTimeout);
+		requestFactory.setConnectTimeout(requestTimeout);
 
-		byte[] bytes = String.format("%s:%s", username, password).getBytes();
-		return String.format("Basic %s", Base64Variants.getDefaultVariant().encode(bytes, false));
+		return requestFactory;
 	}
 }
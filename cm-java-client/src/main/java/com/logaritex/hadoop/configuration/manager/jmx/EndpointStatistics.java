@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.jmx;
+
+import java.beans.ConstructorProperties;
+
+import com.logaritex.hadoop.configuration.manager.service.http.InstrumentedHttpService.EndpointSnapshot;
+import com.logaritex.hadoop.configuration.manager.service.http.LatencyHistogram;
+
+/**
+ * Statistics of a single endpoint, as exposed over JMX. Latencies are in milliseconds.
+ */
+public class EndpointStatistics {
+
+	private final String urlTemplate;
+
+	private final long requests;
+
+	private final long errors;
+
+	private final int inFlight;
+
+	private final double meanMs;
+
+	private final double p50Ms;
+
+	private final double p90Ms;
+
+	private final double p99Ms;
+
+	private final double p999Ms;
+
+	private final double maxMs;
+
+	private final long requestBytes;
+
+	private final long responseWireBytes;
+
+	private final long responseBytes;
+
+	@ConstructorProperties({ "urlTemplate", "requests", "errors", "inFlight", "meanMs", "p50Ms", "p90Ms", "p99Ms",
+			"p999Ms", "maxMs", "requestBytes", "responseWireBytes", "responseBytes" })
+	public EndpointStatistics(String urlTemplate, long requests, long errors, int inFlight, double meanMs,
+			double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs, long requestBytes,
+			long responseWireBytes, long responseBytes) {
+		this.urlTemplate = urlTemplate;
+		this.requests = requests;
+		this.errors = errors;
+		this.inFlight = inFlight;
+		this.meanMs = meanMs;
+		this.p50Ms = p50Ms;
+		this.p90Ms = p90Ms;
+		this.p99Ms = p99Ms;
+		this.p999Ms = p999Ms;
+		this.maxMs = maxMs;
+		this.requestBytes = requestBytes;
+		this.responseWireBytes = responseWireBytes;
+		this.responseBytes = responseBytes;
+	}
+
+	static EndpointStatistics of(EndpointSnapshot snapshot) {
+		LatencyHistogram.Snapshot latency = snapshot.getLatency();
+		return new EndpointStatistics(snapshot.getUrlTemplate(), snapshot.getRequests(), snapshot.getErrors(),
+				snapshot.getInFlight(), millis(latency.getMeanNanos()), millis(latency.getPercentileNanos(50)),
+				millis(latency.getPercentileNanos(90)), millis(latency.getPercentileNanos(99)),
+				millis(latency.getPercentileNanos(99.9)), millis(latency.getMaxNanos()), snapshot.getRequestBytes(),
+				snapshot.getResponseWireBytes(), snapshot.getResponseBytes());
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
+
+	public String getUrlTemplate() {
+		return urlTemplate;
+	}
+
+	public long getRequests() {
+		return requests;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	public double getMeanMs() {
+		return meanMs;
+	}
+
+	public double getP50Ms() {
+		return p50Ms;
+	}
+
+	public double getP90Ms() {
+		return p90Ms;
+	}
+
+	public double getP99Ms() {
+		return p99Ms;
+	}
+
+	public double getP999Ms() {
+		return p999Ms;
+	}
+
+	public double getMaxMs() {
+		return maxMs;
+	}
+
+	public long getRequestBytes() {
+		return requestBytes;
+	}
+
+	public long getResponseWireBytes() {
+		return responseWireBytes;
+	}
+
+	public long getResponseBytes() {
+		return responseBytes;
+	}
+}
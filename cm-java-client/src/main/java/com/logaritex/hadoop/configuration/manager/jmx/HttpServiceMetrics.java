@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.jmx;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.logaritex.hadoop.configuration.manager.service.http.InstrumentedHttpService;
+import com.logaritex.hadoop.configuration.manager.service.http.InstrumentedHttpService.EndpointMetrics;
+import com.logaritex.hadoop.configuration.manager.service.http.InstrumentedHttpService.EndpointSnapshot;
+
+/**
+ * Exports the counters of an {@link InstrumentedHttpService} to the platform MBean server.
+ * 
+ * <br/>
+ * Usage: new HttpServiceMetrics(instrumented).register("cm1") registers the MXBean as
+ * com.logaritex.hadoop.configuration.manager:type=HttpServiceMetrics,name=cm1
+ */
+public class HttpServiceMetrics implements HttpServiceMetricsMXBean {
+
+	public static final String DOMAIN = "com.logaritex.hadoop.configuration.manager";
+
+	private final InstrumentedHttpService instrumentedHttpService;
+
+	private ObjectName objectName;
+
+	public HttpServiceMetrics(InstrumentedHttpService instrumentedHttpService) {
+		this.instrumentedHttpService = instrumentedHttpService;
+	}
+
+	/**
+	 * Registers this MXBean with the platform MBean server.
+	 * 
+	 * @param name
+	 *            Distinguishes the services of one JVM, e.g. the Cloudera Manager host.
+	 * @return The name the MXBean is registered under.
+	 */
+	public synchronized ObjectName register(String name) {
+		try {
+			objectName = new ObjectName(DOMAIN + ":type=HttpServiceMetrics,name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+			return objectName;
+		} catch (JMException e) {
+			throw new IllegalStateException("Failed to register the HttpServiceMetrics " + name, e);
+		}
+	}
+
+	/**
+	 * Removes this MXBean from the platform MBean server, if registered.
+	 */
+	public synchronized void unregister() {
+		if (objectName == null) {
+			return;
+		}
+		MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if (mBeanServer.isRegistered(objectName)) {
+				mBeanServer.unregisterMBean(objectName);
+			}
+		} catch (JMException e) {
+			throw new IllegalStateException("Failed to unregister " + objectName, e);
+		}
+		objectName = null;
+	}
+
+	@Override
+	public Map<String, EndpointStatistics> getEndpoints() {
+		Map<String, EndpointStatistics> endpoints = new LinkedHashMap<String, EndpointStatistics>();
+		for (EndpointSnapshot snapshot : instrumentedHttpService.snapshot().values()) {
+			endpoints.put(snapshot.getUrlTemplate(), EndpointStatistics.of(snapshot));
+		}
+		return endpoints;
+	}
+
+	@Override
+	public long getRequests() {
+		long requests = 0;
+		for (EndpointMetrics endpoint : instrumentedHttpService.getEndpoints().values()) {
+			requests += endpoint.getRequests();
+		}
+		return requests;
+	}
+
+	@Override
+	public long getErrors() {
+		long errors = 0;
+		for (EndpointMetrics endpoint : instrumentedHttpService.getEndpoints().values()) {
+			errors += endpoint.getErrors();
+		}
+		return errors;
+	}
+
+	@Override
+	public int getInFlight() {
+		int inFlight = 0;
+		for (EndpointMetrics endpoint : instrumentedHttpService.getEndpoints().values()) {
+			inFlight += endpoint.getInFlight();
+		}
+		return inFlight;
+	}
+
+	@Override
+	public void reset() {
+		instrumentedHttpService.reset();
+	}
+}
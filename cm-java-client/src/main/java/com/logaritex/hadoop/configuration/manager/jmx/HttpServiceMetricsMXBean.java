@@ -0,0 +1,51 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.jmx;
+
+import java.util.Map;
+
+/**
+ * JMX view of an {@link com.logaritex.hadoop.configuration.manager.service.http.InstrumentedHttpService}.
+ */
+public interface HttpServiceMetricsMXBean {
+
+	/**
+	 * @return The statistics of every endpoint, keyed by URL template.
+	 */
+	Map<String, EndpointStatistics> getEndpoints();
+
+	/**
+	 * @return Number of requests started, over all endpoints.
+	 */
+	long getRequests();
+
+	/**
+	 * @return Number of failed requests, over all endpoints.
+	 */
+	long getErrors();
+
+	/**
+	 * @return Number of requests in flight, over all endpoints.
+	 */
+	int getInFlight();
+
+	/**
+	 * Clears the latencies and the request and error counts.
+	 */
+	void reset();
+}
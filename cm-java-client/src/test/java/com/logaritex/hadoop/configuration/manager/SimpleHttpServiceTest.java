@@ -0,0 +1,209 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager;
+
+import static junit.framework.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.service.HostService;
+import com.logaritex.hadoop.configuration.manager.service.http.HttpStatusException;
+import com.logaritex.hadoop.configuration.manager.service.http.RecordingHttpService;
+import com.logaritex.hadoop.configuration.manager.service.http.ReplayHttpService;
+import com.logaritex.hadoop.configuration.manager.service.http.RevalidationCache;
+import com.logaritex.hadoop.configuration.manager.service.impl.ClouderaManagerImpl;
+import com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class SimpleHttpServiceTest {
+
+	private static final String HOST = "{\"hostId\":\"h1\",\"hostname\":\"host-1.cluster.local\"}";
+
+	private static final String ETAG = "\"v1\"";
+
+	private static final String LAST_MODIFIED = "Thu, 01 Jan 2015 00:00:00 GMT";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private HttpServer server;
+
+	private volatile HttpHandler handler;
+
+	private String baseUrl;
+
+	@Before
+	public void before() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				handler.handle(exchange);
+			}
+		});
+		server.start();
+		baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	@After
+	public void after() {
+		server.stop(0);
+	}
+
+	@Test
+	public void testErrorStatusIsRecordedAndReplayed() throws Exception {
+
+		handler = new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				if (exchange.getRequestURI().getPath().endsWith("/missing")) {
+					respond(exchange, 404, "{\"message\":\"Host 'missing' not found.\"}");
+				} else {
+					respond(exchange, 200, HOST);
+				}
+			}
+		};
+
+		File log = folder.newFile("cm.log");
+		RecordingHttpService recording = new RecordingHttpService(new SimpleHttpService(baseUrl, "admin", "admin"),
+				log);
+		HostService hostService = new ClouderaManagerImpl(recording).getHostService();
+
+		assertEquals("host-1.cluster.local", hostService.getHost("h1").getHostname());
+		assertMissing(hostService);
+		recording.close();
+
+		hostService = new ClouderaManagerImpl(new ReplayHttpService(log)).getHostService();
+
+		assertEquals("host-1.cluster.local", hostService.getHost("h1").getHostname());
+		assertMissing(hostService);
+	}
+
+	@Test
+	public void testRevalidationSendsTheValidatorsAndReturnsTheCachedObjectOnNotModified() throws Exception {
+
+		final List<String> conditions = new CopyOnWriteArrayList<String>();
+		handler = new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				Headers headers = exchange.getRequestHeaders();
+				conditions.add(headers.getFirst(RevalidationCache.IF_NONE_MATCH) + " "
+						+ headers.getFirst(RevalidationCache.IF_MODIFIED_SINCE));
+				if (ETAG.equals(headers.getFirst(RevalidationCache.IF_NONE_MATCH))) {
+					drain(exchange.getRequestBody());
+					exchange.sendResponseHeaders(304, -1);
+					exchange.close();
+					return;
+				}
+				exchange.getResponseHeaders().set(RevalidationCache.ETAG, ETAG);
+				exchange.getResponseHeaders().set(RevalidationCache.LAST_MODIFIED, LAST_MODIFIED);
+				respond(exchange, 200, HOST);
+			}
+		};
+
+		RevalidationCache cache = new RevalidationCache(HostServiceImpl.HOST_PATH);
+		HostService hostService = hostService(cache);
+
+		Host host = hostService.getHost("h1");
+		assertEquals("host-1.cluster.local", host.getHostname());
+		assertSame(host, hostService.getHost("h1"));
+
+		assertEquals(Arrays.asList("null null", ETAG + " " + LAST_MODIFIED), conditions);
+		assertEquals(1, cache.getNotModifiedResponses());
+		assertEquals(1, cache.getModifiedResponses());
+	}
+
+	@Test
+	public void testUnchangedContentWithoutValidatorsIsNotDeserializedAgain() throws Exception {
+
+		final List<String> conditions = new CopyOnWriteArrayList<String>();
+		handler = new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				Headers headers = exchange.getRequestHeaders();
+				conditions.add(headers.getFirst(RevalidationCache.IF_NONE_MATCH) + " "
+						+ headers.getFirst(RevalidationCache.IF_MODIFIED_SINCE));
+				respond(exchange, 200, HOST);
+			}
+		};
+
+		RevalidationCache cache = new RevalidationCache(HostServiceImpl.HOST_PATH);
+		HostService hostService = hostService(cache);
+
+		Host host = hostService.getHost("h1");
+		assertSame(host, hostService.getHost("h1"));
+
+		assertEquals(Arrays.asList("null null", "null null"), conditions);
+		assertEquals(0, cache.getNotModifiedResponses());
+		assertEquals(1, cache.getUnchangedResponses());
+		assertEquals(1, cache.getModifiedResponses());
+	}
+
+	private HostService hostService(RevalidationCache cache) {
+		SimpleHttpService httpService = new SimpleHttpService(baseUrl, "admin", "admin");
+		httpService.setRevalidationCache(cache);
+		return new ClouderaManagerImpl(httpService).getHostService();
+	}
+
+	private static void assertMissing(HostService hostService) {
+		try {
+			hostService.getHost("missing");
+			fail();
+		} catch (HttpStatusException e) {
+			assertEquals(404, e.getStatusCode());
+			assertTrue(e.getUrl().endsWith("/api/v1/hosts/missing"));
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+		drain(exchange.getRequestBody());
+
+		byte[] body = json.getBytes("UTF-8");
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, body.length);
+
+		OutputStream out = exchange.getResponseBody();
+		out.write(body);
+		out.close();
+	}
+
+	private static void drain(InputStream in) throws IOException {
+		byte[] buffer = new byte[1024];
+		while (in.read(buffer) >= 0) {
+			// discard
+		}
+		in.close();
+	}
+}
@@ -0,0 +1,230 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal local stand-in for the Cloudera Manager server. Answers every request with a fixed JSON body.
+ *
+ * <br/>
+ * Optionally simulates the cost of verifying Basic credentials against the user store: a request with an
+ * Authorization header takes {@link #setAuthenticationCostMs(long)} longer and opens a CLOUDERA_MANAGER_SESSIONID
+ * session, a request with a known session cookie skips the check and one with an unknown session gets 401.
+ */
+public class StandInServer {
+
+	static {
+		// avoid the Nagle / delayed-ACK stall on small responses
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private final HttpServer server;
+
+	private final ExecutorService executor;
+
+	private final byte[] body;
+
+	private final byte[] gzipBody;
+
+	private volatile boolean gzip;
+
+	private volatile long authenticationCostMs;
+
+	private final Set<String> sessions = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	private final AtomicLong requests = new AtomicLong();
+
+	private final AtomicLong authentications = new AtomicLong();
+
+	private final AtomicLong handlingNanos = new AtomicLong();
+
+	public StandInServer(String json, int threads) throws IOException {
+		this.body = json.getBytes("UTF-8");
+		this.gzipBody = gzip(body);
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+		this.executor = Executors.newFixedThreadPool(threads);
+
+		server.setExecutor(executor);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				handleRequest(exchange);
+			}
+		});
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	/**
+	 * @param gzip
+	 *            If true, responses are gzip encoded for clients that accept it.
+	 */
+	public void setGzip(boolean gzip) {
+		this.gzip = gzip;
+	}
+
+	/**
+	 * @param authenticationCostMs
+	 *            Time spent verifying the credentials of a Basic authenticated request. Zero disables the
+	 *            authentication simulation.
+	 */
+	public void setAuthenticationCostMs(long authenticationCostMs) {
+		this.authenticationCostMs = authenticationCostMs;
+	}
+
+	/**
+	 * Invalidates all open sessions, as a server restart or session timeout would.
+	 */
+	public void expireSessions() {
+		sessions.clear();
+	}
+
+	public String getBaseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	public long getRequestCount() {
+		return requests.get();
+	}
+
+	/**
+	 * @return Number of requests authenticated with Basic credentials.
+	 */
+	public long getAuthenticationCount() {
+		return authentications.get();
+	}
+
+	/**
+	 * @return Total time spent handling requests on the server side, in nanoseconds.
+	 */
+	public long getHandlingNanos() {
+		return handlingNanos.get();
+	}
+
+	/**
+	 * Resets the request, authentication and handling time counters.
+	 */
+	public void resetStatistics() {
+		requests.set(0);
+		authentications.set(0);
+		handlingNanos.set(0);
+	}
+
+	protected void handleRequest(HttpExchange exchange) throws IOException {
+		long start = System.nanoTime();
+		try {
+			requests.incrementAndGet();
+
+			drain(exchange.getRequestBody());
+
+			if (authenticationCostMs > 0 && !authenticate(exchange)) {
+				exchange.sendResponseHeaders(401, -1);
+				exchange.close();
+				return;
+			}
+
+			sendBody(exchange);
+		} finally {
+			handlingNanos.addAndGet(System.nanoTime() - start);
+		}
+	}
+
+	private boolean authenticate(HttpExchange exchange) {
+
+		String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+		if (cookie != null) {
+			return sessions.contains(cookie.trim());
+		}
+
+		if (exchange.getRequestHeaders().getFirst("Authorization") == null) {
+			return false;
+		}
+
+		// stands in for the user store lookup and password hash check
+		authentications.incrementAndGet();
+		try {
+			TimeUnit.MILLISECONDS.sleep(authenticationCostMs);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		String session = "CLOUDERA_MANAGER_SESSIONID=" + UUID.randomUUID();
+		sessions.add(session);
+		exchange.getResponseHeaders().add("Set-Cookie", session + "; Path=/; HttpOnly");
+		return true;
+	}
+
+	private void sendBody(HttpExchange exchange) throws IOException {
+
+		byte[] responseBody = body;
+
+		String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		if (gzip && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+			responseBody = gzipBody;
+		}
+
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, responseBody.length);
+
+		OutputStream out = exchange.getResponseBody();
+		out.write(responseBody);
+		out.close();
+	}
+
+	private static byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GZIPOutputStream gzip = new GZIPOutputStream(out);
+		gzip.write(data);
+		gzip.close();
+		return out.toByteArray();
+	}
+
+	private static void drain(InputStream in) throws IOException {
+		byte[] buffer = new byte[1024];
+		while (in.read(buffer) >= 0) {
+			// discard
+		}
+		in.close();
+	}
+}
@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+import com.logaritex.hadoop.configuration.manager.PooledHttpService;
+import com.logaritex.hadoop.configuration.manager.SimpleHttpService;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.HostList;
+import com.logaritex.hadoop.configuration.manager.service.HostService;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl;
+
+/**
+ * Compares the request throughput and the p99 latency of the {@link SimpleHttpService} (one HttpURLConnection per
+ * call) and the {@link PooledHttpService} (pooled keep-alive connections) against a local stand-in server.
+ *
+ * <br/>
+ * Usage: TransportBenchmark [threads] [requestsPerThread] [gzip]
+ */
+public class TransportBenchmark {
+
+	public static void main(String[] args) throws Exception {
+
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		int requestsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		boolean gzip = args.length > 2 && Boolean.parseBoolean(args[2]);
+
+		StandInServer server = new StandInServer(hostsJson(10), threads);
+		server.setGzip(gzip);
+		server.start();
+
+		try {
+			SimpleHttpService simple = new SimpleHttpService(server.getBaseUrl(), "admin", "admin");
+			PooledHttpService pooled = new PooledHttpService(server.getBaseUrl(), "admin", "admin", threads);
+
+			// warm up both transports first
+			run(simple, threads, requestsPerThread / 10);
+			run(pooled, threads, requestsPerThread / 10);
+
+			print("SimpleHttpService", run(simple, threads, requestsPerThread));
+			print("PooledHttpService", run(pooled, threads, requestsPerThread));
+
+			System.out.println(pooled.getTransferStatistics());
+
+			pooled.shutdown();
+		} finally {
+			server.stop();
+		}
+	}
+
+	static String hostsJson(int hostCount) throws Exception {
+		List<Host> hosts = new ArrayList<Host>();
+		for (int i = 0; i < hostCount; i++) {
+			Host host = new Host();
+			host.setHostId("host-" + i);
+			host.setHostname("host-" + i + ".cluster.local");
+			host.setIpAddress("10.0." + (i / 256) + "." + (i % 256));
+			host.setRackId("/default");
+			hosts.add(host);
+		}
+		return new ObjectMapper().writeValueAsString(new HostList(hosts));
+	}
+
+	static Result run(HttpService httpService, int threads, final int requestsPerThread) throws Exception {
+
+		final HostService hostService = new HostServiceImpl(httpService);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<long[]>> futures = new ArrayList<Future<long[]>>();
+
+		long start = System.nanoTime();
+
+		for (int t = 0; t < threads; t++) {
+			futures.add(executor.submit(new Callable<long[]>() {
+				@Override
+				public long[] call() throws Exception {
+					long[] latencies = new long[requestsPerThread];
+					for (int i = 0; i < requestsPerThread; i++) {
+						long requestStart = System.nanoTime();
+						hostService.getAllHosts();
+						latencies[i] = System.nanoTime() - requestStart;
+					}
+					return latencies;
+				}
+			}));
+		}
+
+		long[] latencies = new long[threads * requestsPerThread];
+		int offset = 0;
+		for (Future<long[]> future : futures) {
+			long[] threadLatencies = future.get();
+			System.arraycopy(threadLatencies, 0, latencies, offset, threadLatencies.length);
+			offset += threadLatencies.length;
+		}
+
+		long elapsed = System.nanoTime() - start;
+		executor.shutdown();
+
+		Arrays.sort(latencies);
+
+		return new Result(latencies.length, elapsed, latencies[latencies.length / 2],
+				latencies[(int) (latencies.length * 0.99) - 1]);
+	}
+
+	static void print(String name, Result result) {
+		System.out.println(String.format("%-20s %10.1f req/s   p50 %8.3f ms   p99 %8.3f ms", name,
+				result.requests / (result.elapsedNanos / 1e9), result.p50Nanos / 1e6, result.p99Nanos / 1e6));
+	}
+
+	static class Result {
+		final long requests;
+		final long elapsedNanos;
+		final long p50Nanos;
+		final long p99Nanos;
+
+		Result(long requests, long elapsedNanos, long p50Nanos, long p99Nanos) {
+			this.requests = requests;
+			this.elapsedNanos = elapsedNanos;
+			this.p50Nanos = p50Nanos;
+			this.p99Nanos = p99Nanos;
+		}
+
+		@Override
+		public String toString() {
+			return "Result [requests=" + requests + ", elapsed=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos)
+					+ "ms]";
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.jmx;
+
+import static junit.framework.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Test;
+
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.http.InstrumentedHttpService;
+import com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl;
+
+public class HttpServiceMetricsTest {
+
+	@Test
+	public void testEndpointsAreReadableOverJmx() throws Exception {
+
+		InstrumentedHttpService instrumented = new InstrumentedHttpService(mock(HttpService.class));
+		instrumented.get(HostServiceImpl.HOST_PATH, Host.class, "h1");
+		instrumented.get(HostServiceImpl.HOST_PATH, Host.class, "h2");
+
+		HttpServiceMetrics metrics = new HttpServiceMetrics(instrumented);
+		ObjectName objectName = metrics.register("test");
+		try {
+			MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+			assertEquals(2L, mBeanServer.getAttribute(objectName, "Requests"));
+
+			TabularData endpoints = (TabularData) mBeanServer.getAttribute(objectName, "Endpoints");
+			CompositeData endpoint = (CompositeData) endpoints.get(new Object[] { HostServiceImpl.HOST_PATH }).get(
+					"value");
+			assertEquals(2L, endpoint.get("requests"));
+			assertEquals(0L, endpoint.get("errors"));
+
+			mBeanServer.invoke(objectName, "reset", null, null);
+			assertEquals(0L, mBeanServer.getAttribute(objectName, "Requests"));
+		} finally {
+			metrics.unregister();
+		}
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+	}
+}
@@ -0,0 +1,63 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.jdk;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.logaritex.hadoop.configuration.manager.service.AsyncHttpService;
+
+/**
+ * Non-blocking {@link AsyncHttpService} on the {@link java.net.http.HttpClient} of a {@link JdkHttpService}.
+ *
+ * <br/>
+ * The requests are sent with {@link java.net.http.HttpClient#sendAsync}, so no thread waits for a response; over
+ * HTTP/2 all requests in flight share one connection. The returned futures are {@link CompletableFuture}s and can be
+ * composed. Shares the session and the transfer statistics of the underlying service.
+ */
+public class JdkAsyncHttpService implements AsyncHttpService {
+
+	private final JdkHttpService httpService;
+
+	public JdkAsyncHttpService(JdkHttpService httpService) {
+		this.httpService = httpService;
+	}
+
+	public JdkHttpService getHttpService() {
+		return httpService;
+	}
+
+	@Override
+	public <R> CompletableFuture<R> get(String url, Class<R> responseType, Object... uriVariables) {
+		return httpService.getAsync(url, responseType, uriVariables);
+	}
+
+	@Override
+	public <R> CompletableFuture<R> post(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return httpService.postAsync(url, request, responseType, uriVariables);
+	}
+
+	@Override
+	public <R> CompletableFuture<R> delete(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return httpService.deleteAsync(url, request, responseType, uriVariables);
+	}
+
+	@Override
+	public <R> CompletableFuture<R> put(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return httpService.putAsync(url, request, responseType, uriVariables);
+	}
+}
@@ -0,0 +1,38 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.jdk;
+
+import com.logaritex.hadoop.configuration.manager.service.AsyncClouderaManager;
+import com.logaritex.hadoop.configuration.manager.service.ClouderaManager;
+import com.logaritex.hadoop.configuration.manager.service.impl.AsyncClouderaManagerImpl;
+import com.logaritex.hadoop.configuration.manager.service.impl.ClouderaManagerImpl;
+
+public class JdkClouderaManagerFactory {
+
+	public static ClouderaManager createClouderaManager(String baseUrl, String username, String password) {
+		return new ClouderaManagerImpl(new JdkHttpService(baseUrl, username, password));
+	}
+
+	/**
+	 * Creates a non-blocking ClouderaManager. No thread waits for the responses and, over HTTP/2, all requests are
+	 * multiplexed on one connection.
+	 */
+	public static AsyncClouderaManager createAsyncClouderaManager(String baseUrl, String username, String password) {
+		return new AsyncClouderaManagerImpl(new JdkAsyncHttpService(new JdkHttpService(baseUrl, username, password)));
+	}
+}
@@ -0,0 +1,451 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.jdk;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+import com.logaritex.hadoop.configuration.manager.domain.ItemList;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+import com.logaritex.hadoop.configuration.manager.service.StreamingHttpService;
+import com.logaritex.hadoop.configuration.manager.service.http.ContentDecodingInputStream;
+import com.logaritex.hadoop.configuration.manager.service.http.HttpStatusException;
+import com.logaritex.hadoop.configuration.manager.service.http.JsonItemReader;
+import com.logaritex.hadoop.configuration.manager.service.http.RequestListeners;
+import com.logaritex.hadoop.configuration.manager.service.http.RequestTrace;
+import com.logaritex.hadoop.configuration.manager.service.http.SessionStore;
+import com.logaritex.hadoop.configuration.manager.service.http.TransferStatistics;
+import com.logaritex.hadoop.configuration.manager.service.http.UriTemplate;
+
+/**
+ * {@link HttpService} implementation based on the JDK 11 {@link HttpClient}.
+ *
+ * <br/>
+ * The client negotiates HTTP/2 when the server (or the proxy in front of Cloudera Manager) offers it, through ALPN for
+ * https and the h2c upgrade for http, so concurrent requests are multiplexed over a single connection. Otherwise it
+ * falls back to pooled HTTP/1.1 keep-alive connections.
+ *
+ * <br/>
+ * Response bodies are streamed through the gzip/deflate decoder straight into Jackson; the compressed and
+ * uncompressed byte counts are kept per endpoint in the {@link #getTransferStatistics()}. With a {@link SessionStore}
+ * set, the Cloudera Manager session cookie is reused instead of the Basic credentials, like in the SimpleHttpService.
+ * The lifecycle of every request is reported to the {@link #getRequestListeners()}.
+ *
+ * <br/>
+ * Use {@link JdkAsyncHttpService} for non-blocking sends over the same client.
+ */
+public class JdkHttpService implements StreamingHttpService {
+
+	public static final int DEFAULT_REQUEST_TIMEOUT_MS = 5000; // 5 [sec]
+
+	private static final String GET = "GET";
+
+	private static final String POST = "POST";
+
+	private static final String PUT = "PUT";
+
+	private static final String DELETE = "DELETE";
+
+	private static final String ACCEPT = "Accept";
+
+	private static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+	private static final String AUTHORIZATION = "Authorization";
+
+	private static final String CONTENT_ENCODING = "Content-Encoding";
+
+	private static final String CONTENT_TYPE = "Content-Type";
+
+	private static final String APPLICATION_JSON = "application/json";
+
+	private static final int UNAUTHORIZED = 401;
+
+	private static final int NO_CONTENT = 204;
+
+	private final String baseUrl;
+
+	private final String authorization;
+
+	private final HttpClient httpClient;
+
+	private final Duration requestTimeout;
+
+	private final ObjectMapper objectMapper;
+
+	private final JsonItemReader itemReader;
+
+	private volatile SessionStore sessionStore;
+
+	private final TransferStatistics transferStatistics = new TransferStatistics();
+
+	private final RequestListeners requestListeners = new RequestListeners();
+
+	public JdkHttpService(String baseUrl, String username, String password) {
+		this(baseUrl, username, password, HttpClient.Version.HTTP_2);
+	}
+
+	/**
+	 * @param version
+	 *            The preferred HTTP version. HTTP_2 falls back to HTTP/1.1 when the server does not support it.
+	 */
+	public JdkHttpService(String baseUrl, String username, String password, HttpClient.Version version) {
+		this(baseUrl, username, password, HttpClient.newBuilder().version(version)
+				.connectTimeout(Duration.ofMillis(DEFAULT_REQUEST_TIMEOUT_MS)).build(), DEFAULT_REQUEST_TIMEOUT_MS);
+	}
+
+	/**
+	 * @param baseUrl
+	 *            Cloudera Manager URL (e.g. http://host:7180)
+	 * @param username
+	 *            API user name
+	 * @param password
+	 *            API user password
+	 * @param httpClient
+	 *            The client to send the requests with. Allows the caller to configure e.g. the executor, the SSL
+	 *            context or a proxy. It must not handle cookies, the session is managed by this service.
+	 * @param requestTimeoutMs
+	 *            Time to wait for the response headers of a request.
+	 */
+	public JdkHttpService(String baseUrl, String username, String password, HttpClient httpClient,
+			int requestTimeoutMs) {
+		this.baseUrl = baseUrl;
+		this.authorization = "Basic "
+				+ Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+		this.httpClient = httpClient;
+		this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+		this.objectMapper = new ObjectMapper();
+		this.itemReader = new JsonItemReader(objectMapper);
+	}
+
+	/**
+	 * @return Per endpoint counters of the compressed (wire) and uncompressed response bytes.
+	 */
+	public TransferStatistics getTransferStatistics() {
+		return transferStatistics;
+	}
+
+	/**
+	 * @return The listeners notified of the lifecycle events of every request.
+	 */
+	public RequestListeners getRequestListeners() {
+		return requestListeners;
+	}
+
+	/**
+	 * @return The store of the session cookie, or null if every request is authenticated with Basic auth.
+	 */
+	public SessionStore getSessionStore() {
+		return sessionStore;
+	}
+
+	/**
+	 * Enables the reuse of the Cloudera Manager session instead of sending the credentials with every request.
+	 * 
+	 * @param sessionStore
+	 *            Holds the session cookie, or null to always authenticate with Basic auth.
+	 */
+	public void setSessionStore(SessionStore sessionStore) {
+		this.sessionStore = sessionStore;
+	}
+
+	public HttpClient getHttpClient() {
+		return httpClient;
+	}
+
+	@Override
+	public <R> R get(String url, Class<R> responseType, Object... uriVariables) {
+		return send(url, GET, null, reader(responseType), uriVariables);
+	}
+
+	@Override
+	public <R> R post(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return send(url, POST, request, reader(responseType), uriVariables);
+	}
+
+	@Override
+	public <R> R delete(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return send(url, DELETE, request, reader(responseType), uriVariables);
+	}
+
+	@Override
+	public <R> R put(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return send(url, PUT, request, reader(responseType), uriVariables);
+	}
+
+	@Override
+	public <T> void getItems(String url, Class<? extends ItemList<T>> listType, ItemCallback<? super T> callback,
+			Object... uriVariables) {
+
+		send(url, GET, null, body -> {
+			itemReader.read(body, listType, callback);
+			return null;
+		}, uriVariables);
+	}
+
+	<R> CompletableFuture<R> getAsync(String url, Class<R> responseType, Object... uriVariables) {
+		return sendAsync(url, GET, null, reader(responseType), uriVariables);
+	}
+
+	<R> CompletableFuture<R> postAsync(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return sendAsync(url, POST, request, reader(responseType), uriVariables);
+	}
+
+	<R> CompletableFuture<R> deleteAsync(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return sendAsync(url, DELETE, request, reader(responseType), uriVariables);
+	}
+
+	<R> CompletableFuture<R> putAsync(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return sendAsync(url, PUT, request, reader(responseType), uriVariables);
+	}
+
+	/**
+	 * Sends the request on the calling thread and streams the response body into the reader as it arrives.
+	 */
+	private <T> T send(String url, String method, Object request, BodyReader<T> reader, Object... uriVariables) {
+
+		RequestTrace trace = requestListeners.start(method, url);
+		try {
+			T result = send(trace, url, method, request, reader, uriVariables);
+			trace.completed();
+			return result;
+		} catch (RuntimeException e) {
+			trace.failed(e);
+			throw e;
+		}
+	}
+
+	private <T> T send(RequestTrace trace, String url, String method, Object request, BodyReader<T> reader,
+			Object... uriVariables) {
+
+		URI uri = UriTemplate.of(url).toUri(baseUrl, uriVariables);
+		byte[] requestBody = serialize(url, request);
+
+		SessionStore store = sessionStore;
+		String session = store == null ? null : store.getSession();
+
+		BodyHandler<InputStream> bodyHandler = tracing(trace, BodyHandlers.ofInputStream());
+
+		try {
+			HttpRequest httpRequest = newRequest(uri, method, requestBody, session);
+			trace.headersSent();
+			HttpResponse<InputStream> response = httpClient.send(httpRequest, bodyHandler);
+
+			if (session != null && response.statusCode() == UNAUTHORIZED) {
+				// the session expired; authenticate again with the credentials
+				response.body().close();
+				store.expired(session);
+				httpRequest = newRequest(uri, method, requestBody, null);
+				trace.headersSent();
+				response = httpClient.send(httpRequest, bodyHandler);
+			}
+
+			return read(url, trace, store, response, response.body(), reader);
+		} catch (IOException e) {
+			throw new UncheckedIOException("I/O error on " + method + " request for " + uri, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the response of " + uri, e);
+		}
+	}
+
+	/**
+	 * Sends the request without blocking. The response body is collected by the client and deserialized on the
+	 * client's executor.
+	 */
+	private <T> CompletableFuture<T> sendAsync(String url, String method, Object request, BodyReader<T> reader,
+			Object... uriVariables) {
+
+		RequestTrace trace = requestListeners.start(method, url);
+
+		URI uri;
+		byte[] requestBody;
+		try {
+			uri = UriTemplate.of(url).toUri(baseUrl, uriVariables);
+			requestBody = serialize(url, request);
+		} catch (RuntimeException e) {
+			trace.failed(e);
+			return CompletableFuture.failedFuture(e);
+		}
+
+		SessionStore store = sessionStore;
+		String session = store == null ? null : store.getSession();
+
+		BodyHandler<byte[]> bodyHandler = tracing(trace, BodyHandlers.ofByteArray());
+
+		HttpRequest httpRequest = newRequest(uri, method, requestBody, session);
+		trace.headersSent();
+		CompletableFuture<HttpResponse<byte[]>> response = httpClient.sendAsync(httpRequest, bodyHandler);
+
+		if (session != null) {
+			response = response.thenCompose(first -> {
+				if (first.statusCode() != UNAUTHORIZED) {
+					return CompletableFuture.completedFuture(first);
+				}
+				// the session expired; authenticate again with the credentials
+				store.expired(session);
+				HttpRequest retry = newRequest(uri, method, requestBody, null);
+				trace.headersSent();
+				return httpClient.sendAsync(retry, bodyHandler);
+			});
+		}
+
+		CompletableFuture<T> result = response.thenApply(r -> {
+			try {
+				return read(url, trace, store, r, new ByteArrayInputStream(r.body()), reader);
+			} catch (IOException e) {
+				throw new UncheckedIOException("I/O error on " + method + " request for " + uri, e);
+			}
+		});
+
+		if (!trace.isEnabled()) {
+			return result;
+		}
+		// the caller sees the result only after the listeners
+		return result.whenComplete((r, failure) -> {
+			if (failure == null) {
+				trace.completed();
+			} else {
+				trace.failed(failure instanceof CompletionException ? failure.getCause() : failure);
+			}
+		});
+	}
+
+	/**
+	 * Reports the first byte when the client has received the response headers, before the body is read.
+	 */
+	private static <T> BodyHandler<T> tracing(RequestTrace trace, BodyHandler<T> bodyHandler) {
+		if (!trace.isEnabled()) {
+			return bodyHandler;
+		}
+		return responseInfo -> {
+			trace.firstByteReceived(responseInfo.statusCode());
+			return bodyHandler.apply(responseInfo);
+		};
+	}
+
+	private HttpRequest newRequest(URI uri, String method, byte[] requestBody, String session) {
+
+		HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(requestTimeout)
+				.header(ACCEPT, APPLICATION_JSON)
+				.header(ACCEPT_ENCODING, ContentDecodingInputStream.GZIP + ", " + ContentDecodingInputStream.DEFLATE);
+
+		if (session != null) {
+			builder.header(SessionStore.COOKIE, session);
+		} else {
+			builder.header(AUTHORIZATION, authorization);
+		}
+
+		if (requestBody != null) {
+			builder.header(CONTENT_TYPE, APPLICATION_JSON);
+			builder.method(method, HttpRequest.BodyPublishers.ofByteArray(requestBody));
+		} else {
+			builder.method(method, HttpRequest.BodyPublishers.noBody());
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * Captures the session cookie, checks the status and decodes the body into the reader.
+	 */
+	private <T> T read(String url, RequestTrace trace, SessionStore store, HttpResponse<?> response,
+			InputStream wire, BodyReader<T> reader) throws IOException {
+
+		try {
+			if (store != null) {
+				store.capture(response.headers().allValues(SessionStore.SET_COOKIE));
+			}
+
+			int status = response.statusCode();
+			if (status >= 400) {
+				throw new HttpStatusException(status, response.uri().toString());
+			}
+			if (status == NO_CONTENT) {
+				return null;
+			}
+
+			ContentDecodingInputStream body = new ContentDecodingInputStream(wire, response.headers()
+					.firstValue(CONTENT_ENCODING).orElse(null));
+			try {
+				T result = reader.read(body);
+				trace.bodyDeserialized();
+				return result;
+			} finally {
+				transferStatistics.record(url, body);
+			}
+		} finally {
+			wire.close();
+		}
+	}
+
+	/**
+	 * Reads the body into the response type. An empty body reads as null, as it does with RestTemplate.
+	 */
+	private <R> BodyReader<R> reader(Class<R> responseType) {
+		return body -> {
+			if (responseType == null) {
+				return null;
+			}
+			PushbackInputStream in = new PushbackInputStream(body);
+			int first = in.read();
+			if (first < 0) {
+				return null;
+			}
+			in.unread(first);
+			return objectMapper.readValue(in, responseType);
+		};
+	}
+
+	private byte[] serialize(String url, Object request) {
+		if (request == null) {
+			return null;
+		}
+		try {
+			byte[] body = objectMapper.writeValueAsBytes(request);
+			transferStatistics.recordRequest(url, body.length);
+			return body;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write request of type " + request.getClass().getName(), e);
+		}
+	}
+
+	/**
+	 * Deserializes a (decoded) response body.
+	 */
+	private interface BodyReader<T> {
+
+		T read(InputStream body) throws IOException;
+	}
+}
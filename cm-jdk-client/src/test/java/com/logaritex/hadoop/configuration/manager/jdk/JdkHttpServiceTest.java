@@ -0,0 +1,203 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.jdk;
+
+import static junit.framework.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.logaritex.hadoop.configuration.manager.domain.HostList;
+import com.logaritex.hadoop.configuration.manager.service.http.HttpStatusException;
+import com.logaritex.hadoop.configuration.manager.service.http.RequestEvent;
+import com.logaritex.hadoop.configuration.manager.service.http.RequestListenerAdapter;
+import com.logaritex.hadoop.configuration.manager.service.http.SessionStore;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class JdkHttpServiceTest {
+
+	private static final String HOSTS = "{\"items\":[{\"hostId\":\"h1\"},{\"hostId\":\"h2\"}]}";
+
+	private HttpServer server;
+
+	private JdkHttpService httpService;
+
+	private final AtomicInteger basicRequests = new AtomicInteger();
+
+	private volatile String validSession = "CLOUDERA_MANAGER_SESSIONID=s1";
+
+	@Before
+	public void before() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/api/v1/hosts", this::hosts);
+		server.createContext("/api/v1/missing", exchange -> {
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+		});
+		server.createContext("/api/v1/empty", exchange -> {
+			exchange.getRequestBody().readAllBytes();
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+		});
+		server.start();
+
+		httpService = new JdkHttpService("http://127.0.0.1:" + server.getAddress().getPort(), "admin", "admin");
+	}
+
+	@After
+	public void after() {
+		server.stop(0);
+	}
+
+	@Test
+	public void testGzipResponseIsDecodedAndCounted() {
+
+		HostList hosts = httpService.get("/api/v1/hosts", HostList.class);
+
+		assertEquals(2, hosts.getItems().size());
+		assertEquals("h2", hosts.getItems().get(1).getHostId());
+
+		assertEquals(1, httpService.getTransferStatistics().getEndpoint("/api/v1/hosts").getCompressedResponses());
+		assertEquals(HOSTS.length(), httpService.getTransferStatistics().getEndpoint("/api/v1/hosts")
+				.getDecodedBytes());
+	}
+
+	@Test
+	public void testAsyncSessionIsReusedAndRenewedAfterExpiry() throws Exception {
+
+		SessionStore sessionStore = new SessionStore();
+		httpService.setSessionStore(sessionStore);
+		JdkAsyncHttpService asyncHttpService = new JdkAsyncHttpService(httpService);
+
+		asyncHttpService.get("/api/v1/hosts", HostList.class).get();
+		asyncHttpService.get("/api/v1/hosts", HostList.class).get();
+		assertEquals(1, basicRequests.get());
+		assertEquals("CLOUDERA_MANAGER_SESSIONID=s1", sessionStore.getSession());
+
+		validSession = "CLOUDERA_MANAGER_SESSIONID=s2";
+
+		assertEquals(2, asyncHttpService.get("/api/v1/hosts", HostList.class).get().getItems().size());
+		assertEquals(2, basicRequests.get());
+		assertEquals(1, sessionStore.getSessionsExpired());
+		assertEquals("CLOUDERA_MANAGER_SESSIONID=s2", sessionStore.getSession());
+	}
+
+	@Test
+	public void testErrorStatusFailsTheRequest() throws Exception {
+
+		try {
+			httpService.get("/api/v1/missing", HostList.class);
+			fail();
+		} catch (HttpStatusException e) {
+			assertEquals(404, e.getStatusCode());
+		}
+
+		try {
+			new JdkAsyncHttpService(httpService).get("/api/v1/missing", HostList.class).get();
+			fail();
+		} catch (ExecutionException e) {
+			assertEquals(404, ((HttpStatusException) e.getCause()).getStatusCode());
+		}
+	}
+
+	@Test
+	public void testEmptyBodyReadsAsNull() throws Exception {
+
+		assertNull(httpService.delete("/api/v1/empty", null, HostList.class));
+		assertNull(httpService.post("/api/v1/empty", new HostList(), HostList.class));
+		assertNull(new JdkAsyncHttpService(httpService).delete("/api/v1/empty", null, HostList.class).get());
+	}
+
+	@Test
+	public void testRequestLifecycleIsReported() throws Exception {
+
+		final List<String> events = new CopyOnWriteArrayList<String>();
+		httpService.getRequestListeners().add(new RequestListenerAdapter() {
+			@Override
+			public void firstByteReceived(RequestEvent event) {
+				events.add("firstByte " + event.getStatusCode());
+			}
+
+			@Override
+			public void bodyDeserialized(RequestEvent event) {
+				events.add("deserialized");
+			}
+
+			@Override
+			public void requestCompleted(RequestEvent event) {
+				events.add("completed " + event.getUrlTemplate());
+			}
+
+			@Override
+			public void requestFailed(RequestEvent event, Throwable cause) {
+				events.add("failed " + cause.getClass().getSimpleName());
+			}
+		});
+
+		httpService.get("/api/v1/hosts", HostList.class);
+		assertEquals("[firstByte 200, deserialized, completed /api/v1/hosts]", events.toString());
+
+		events.clear();
+		try {
+			new JdkAsyncHttpService(httpService).get("/api/v1/missing", HostList.class).get();
+			fail();
+		} catch (ExecutionException e) {
+			// expected
+		}
+		assertEquals("[firstByte 404, failed HttpStatusException]", events.toString());
+	}
+
+	private void hosts(HttpExchange exchange) throws IOException {
+
+		String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+		if (cookie != null && !cookie.equals(validSession)) {
+			exchange.sendResponseHeaders(401, -1);
+			exchange.close();
+			return;
+		}
+		if (cookie == null) {
+			basicRequests.incrementAndGet();
+			exchange.getResponseHeaders().add("Set-Cookie", validSession + "; Path=/");
+		}
+
+		ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+		GZIPOutputStream gzip = new GZIPOutputStream(gzipped);
+		gzip.write(HOSTS.getBytes(StandardCharsets.UTF_8));
+		gzip.close();
+
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+		exchange.sendResponseHeaders(200, gzipped.size());
+		OutputStream out = exchange.getResponseBody();
+		gzipped.writeTo(out);
+		out.close();
+	}
+}
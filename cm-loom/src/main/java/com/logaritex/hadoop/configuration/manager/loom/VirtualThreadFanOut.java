@@ -0,0 +1,218 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.loom;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+
+import com.logaritex.hadoop.configuration.manager.domain.Config;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.Metric;
+import com.logaritex.hadoop.configuration.manager.domain.Role;
+import com.logaritex.hadoop.configuration.manager.domain.Service;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceConfig;
+import com.logaritex.hadoop.configuration.manager.service.ClouderaManager;
+import com.logaritex.hadoop.configuration.manager.service.ServiceService.View;
+
+/**
+ * Runs fan-outs over the blocking {@link ClouderaManager} services with one virtual thread per call.
+ *
+ * <br/>
+ * A blocked virtual thread does not hold a platform thread, so a fan-out over thousands of hosts needs neither a
+ * thread pool sized for it nor the async services. The total number of calls in flight, over all fan-outs of this
+ * instance, is capped by a semaphore to protect the Cloudera Manager server; size the connection pool of the
+ * underlying HttpService to the same cap.
+ *
+ * <br/>
+ * Results are returned in the order of the input. The calls are awaited in completion order: as soon as one fails the
+ * remaining calls are interrupted and the failure is rethrown.
+ */
+public class VirtualThreadFanOut {
+
+	public static final int DEFAULT_MAX_CONCURRENCY = 64;
+
+	private final ClouderaManager clouderaManager;
+
+	private final int maxConcurrency;
+
+	private final Semaphore permits;
+
+	private final ThreadFactory threadFactory = Thread.ofVirtual().name("cm-fan-out-", 0).factory();
+
+	public VirtualThreadFanOut(ClouderaManager clouderaManager) {
+		this(clouderaManager, DEFAULT_MAX_CONCURRENCY);
+	}
+
+	/**
+	 * @param maxConcurrency
+	 *            Maximum number of Cloudera Manager calls in flight.
+	 */
+	public VirtualThreadFanOut(ClouderaManager clouderaManager, int maxConcurrency) {
+		this.clouderaManager = clouderaManager;
+		this.maxConcurrency = maxConcurrency;
+		this.permits = new Semaphore(maxConcurrency);
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	/**
+	 * @return Number of calls waiting for a permit.
+	 */
+	public int getWaiting() {
+		return permits.getQueueLength();
+	}
+
+	/**
+	 * @return The configuration of every host, keyed by host id.
+	 */
+	public Map<String, List<Config>> getConfigsForAllHosts() {
+		return getHostConfigs(clouderaManager.getHostService().getAllHosts());
+	}
+
+	/**
+	 * @return The configuration of the given hosts, keyed by host id.
+	 */
+	public Map<String, List<Config>> getHostConfigs(Collection<Host> hosts) {
+		return invokeAll(hostIds(hosts), hostId -> clouderaManager.getHostService().getHostConfig(hostId));
+	}
+
+	/**
+	 * @return The metrics of every host, keyed by host id.
+	 */
+	public Map<String, List<Metric>> getMetricsForAllHosts() {
+		return getHostMetrics(clouderaManager.getHostService().getAllHosts());
+	}
+
+	/**
+	 * @return The metrics of the given hosts, keyed by host id.
+	 */
+	public Map<String, List<Metric>> getHostMetrics(Collection<Host> hosts) {
+		return invokeAll(hostIds(hosts), hostId -> clouderaManager.getHostService().getHostMetrics(hostId));
+	}
+
+	/**
+	 * @return The roles of every service of the cluster, keyed by service name.
+	 */
+	public Map<String, List<Role>> getRolesForAllServices(String clusterName) {
+		return getRoles(clouderaManager.getServiceService().getAllServices(clusterName));
+	}
+
+	/**
+	 * @return The roles of the given services, keyed by service name.
+	 */
+	public Map<String, List<Role>> getRoles(Collection<Service> services) {
+		return byServiceName(invokeAll(services, service -> clouderaManager.getServiceService().getRoles(service)));
+	}
+
+	/**
+	 * @return The configuration of every service of the cluster, keyed by service name.
+	 */
+	public Map<String, ServiceConfig> getConfigsForAllServices(String clusterName, View view) {
+		return byServiceName(invokeAll(clouderaManager.getServiceService().getAllServices(clusterName),
+				service -> clouderaManager.getServiceService().getServiceConfiguration(service, view)));
+	}
+
+	/**
+	 * Applies the call to every key, each on its own virtual thread, with at most {@link #getMaxConcurrency()} calls
+	 * in flight over all fan-outs of this instance.
+	 * 
+	 * @return The results keyed by the input, in the input order. Duplicate keys are called once per occurrence and
+	 *         the last result wins.
+	 */
+	public <K, V> Map<K, V> invokeAll(Collection<K> keys, Function<? super K, ? extends V> call) {
+
+		try (ExecutorService executor = Executors.newThreadPerTaskExecutor(threadFactory)) {
+
+			CompletionService<V> completion = new ExecutorCompletionService<>(executor);
+			List<Future<V>> futures = new ArrayList<>(keys.size());
+			for (K key : keys) {
+				futures.add(completion.submit(() -> {
+					permits.acquire();
+					try {
+						return call.apply(key);
+					} finally {
+						permits.release();
+					}
+				}));
+			}
+
+			// in completion order, so that the first failure stops the fan-out at once
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					completion.take().get();
+				} catch (ExecutionException e) {
+					executor.shutdownNow();
+					throw unwrap(e);
+				} catch (InterruptedException e) {
+					executor.shutdownNow();
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while waiting for the fan-out of " + keys.size()
+							+ " calls", e);
+				}
+			}
+
+			Map<K, V> results = new LinkedHashMap<>();
+			int i = 0;
+			for (K key : keys) {
+				results.put(key, futures.get(i++).resultNow());
+			}
+			return results;
+		}
+	}
+
+	private static List<String> hostIds(Collection<Host> hosts) {
+		List<String> hostIds = new ArrayList<>(hosts.size());
+		for (Host host : hosts) {
+			hostIds.add(host.getHostId());
+		}
+		return hostIds;
+	}
+
+	private static <V> Map<String, V> byServiceName(Map<Service, V> results) {
+		Map<String, V> byName = new LinkedHashMap<>();
+		for (Map.Entry<Service, V> entry : results.entrySet()) {
+			byName.put(entry.getKey().getName(), entry.getValue());
+		}
+		return byName;
+	}
+
+	private static RuntimeException unwrap(ExecutionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return new IllegalStateException(cause);
+	}
+}
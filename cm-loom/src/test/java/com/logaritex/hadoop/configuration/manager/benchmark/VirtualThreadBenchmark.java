@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+import com.logaritex.hadoop.configuration.manager.PooledHttpService;
+import com.logaritex.hadoop.configuration.manager.domain.Config;
+import com.logaritex.hadoop.configuration.manager.domain.ConfigList;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.loom.VirtualThreadFanOut;
+import com.logaritex.hadoop.configuration.manager.service.ClouderaManager;
+import com.logaritex.hadoop.configuration.manager.service.impl.ClouderaManagerImpl;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Fetches the configuration of every host ({@link com.logaritex.hadoop.configuration.manager.service.HostService#getHostConfig})
+ * with a fixed pool of platform threads and with the {@link VirtualThreadFanOut}, at the same concurrency, against a
+ * local stand-in server that answers after a fixed latency. Reports the wall time, the calls per second and the
+ * platform threads added by the fan-out.
+ *
+ * <br/>
+ * Usage: VirtualThreadBenchmark [hosts] [serverLatencyMs]
+ */
+public class VirtualThreadBenchmark {
+
+	private static final int[] CONCURRENCY = { 16, 256, 1024 };
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	public static void main(String[] args) throws Exception {
+
+		int hostCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		final long latencyMs = args.length > 1 ? Long.parseLong(args[1]) : 20;
+
+		int maxConcurrency = CONCURRENCY[CONCURRENCY.length - 1];
+
+		// the stand-in server closes keep-alive connections beyond 200 idle ones by default
+		System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(maxConcurrency));
+
+		StandInServer server = new StandInServer(configsJson(20), maxConcurrency + 64) {
+			@Override
+			protected void handleRequest(HttpExchange exchange) throws IOException {
+				try {
+					Thread.sleep(latencyMs);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.handleRequest(exchange);
+			}
+		};
+		server.start();
+
+		List<Host> hosts = new ArrayList<Host>();
+		for (int i = 0; i < hostCount; i++) {
+			Host host = new Host();
+			host.setHostId("host-" + i);
+			hosts.add(host);
+		}
+
+		try {
+			// start all server threads up front, so that they are not counted as added by the first runs
+			PooledHttpService warmUp = new PooledHttpService(server.getBaseUrl(), "admin", "admin", maxConcurrency);
+			new VirtualThreadFanOut(new ClouderaManagerImpl(warmUp), maxConcurrency).getHostConfigs(hosts.subList(0,
+					Math.min(hostCount, 2 * maxConcurrency)));
+			warmUp.shutdown();
+
+			for (int concurrency : CONCURRENCY) {
+
+				PooledHttpService httpService = new PooledHttpService(server.getBaseUrl(), "admin", "admin",
+						concurrency);
+				ClouderaManager clouderaManager = new ClouderaManagerImpl(httpService);
+				VirtualThreadFanOut fanOut = new VirtualThreadFanOut(clouderaManager, concurrency);
+
+				// warm up both modes first
+				platformThreads(clouderaManager, hosts.subList(0, hostCount / 10), concurrency);
+				fanOut.getHostConfigs(hosts.subList(0, hostCount / 10));
+
+				System.out.println("concurrency " + concurrency + ", " + hostCount + " hosts, " + latencyMs
+						+ "ms server latency");
+
+				int threads = resetPeakThreadCount();
+				long start = System.nanoTime();
+				platformThreads(clouderaManager, hosts, concurrency);
+				print("fixed platform pool", hostCount, System.nanoTime() - start, threads);
+
+				threads = resetPeakThreadCount();
+				start = System.nanoTime();
+				fanOut.getHostConfigs(hosts);
+				print("virtual threads", hostCount, System.nanoTime() - start, threads);
+
+				httpService.shutdown();
+			}
+		} finally {
+			server.stop();
+		}
+	}
+
+	private static void platformThreads(final ClouderaManager clouderaManager, List<Host> hosts, int threads)
+			throws Exception {
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		List<Future<List<Config>>> futures = new ArrayList<Future<List<Config>>>();
+		for (final Host host : hosts) {
+			futures.add(executor.submit(() -> clouderaManager.getHostService().getHostConfig(host.getHostId())));
+		}
+		for (Future<List<Config>> future : futures) {
+			future.get();
+		}
+
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	private static String configsJson(int configCount) throws IOException {
+		List<Config> configs = new ArrayList<Config>();
+		for (int i = 0; i < configCount; i++) {
+			Config config = new Config();
+			config.setName("config_" + i);
+			config.setValue("value_" + i);
+			configs.add(config);
+		}
+		return new ObjectMapper().writeValueAsString(new ConfigList(configs));
+	}
+
+	private static int resetPeakThreadCount() {
+		THREADS.resetPeakThreadCount();
+		return THREADS.getThreadCount();
+	}
+
+	private static void print(String name, int calls, long elapsedNanos, int threadsBefore) {
+		System.out.println(String.format("%-20s %8.1f ms   %8.1f calls/s   added platform threads %5d", name,
+				elapsedNanos / 1e6, calls / (elapsedNanos / 1e9), THREADS.getPeakThreadCount() - threadsBefore));
+	}
+}
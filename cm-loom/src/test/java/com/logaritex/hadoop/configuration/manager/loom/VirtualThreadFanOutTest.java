@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.loom;
+
+import static junit.framework.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class VirtualThreadFanOutTest {
+
+	private final VirtualThreadFanOut fanOut = new VirtualThreadFanOut(null, 4);
+
+	@Test
+	public void testResultsKeepTheInputOrderAndConcurrencyIsCapped() {
+
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxInFlight = new AtomicInteger();
+
+		List<Integer> keys = new ArrayList<Integer>();
+		for (int i = 0; i < 200; i++) {
+			keys.add(i);
+		}
+
+		Map<Integer, String> results = fanOut.invokeAll(keys, key -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(2);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			inFlight.decrementAndGet();
+			assertTrue(Thread.currentThread().isVirtual());
+			return "v" + key;
+		});
+
+		assertEquals(keys, new ArrayList<Integer>(results.keySet()));
+		assertEquals("v199", results.get(199));
+		assertTrue(maxInFlight.get() <= 4);
+		assertEquals(0, fanOut.getWaiting());
+	}
+
+	@Test
+	public void testFailureIsRethrown() {
+		try {
+			fanOut.invokeAll(Arrays.asList("a", "b", "c"), key -> {
+				if ("b".equals(key)) {
+					throw new IllegalArgumentException(key);
+				}
+				return key;
+			});
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("b", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testFirstFailureInterruptsTheEarlierCalls() {
+
+		final AtomicInteger interrupted = new AtomicInteger();
+		long start = System.nanoTime();
+		try {
+			fanOut.invokeAll(Arrays.asList("slow", "fails"), key -> {
+				if ("fails".equals(key)) {
+					throw new IllegalArgumentException(key);
+				}
+				try {
+					Thread.sleep(10000);
+				} catch (InterruptedException e) {
+					interrupted.incrementAndGet();
+				}
+				return key;
+			});
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("fails", e.getMessage());
+		}
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+		assertEquals(1, interrupted.get());
+	}
+}
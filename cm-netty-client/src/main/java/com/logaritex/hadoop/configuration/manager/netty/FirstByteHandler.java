@@ -0,0 +1,57 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.netty;
+
+import com.logaritex.hadoop.configuration.manager.service.http.RequestTrace;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.util.AttributeKey;
+
+/**
+ * Reports the first byte of a response to the trace of the channel's request. Sits in front of the aggregator, which
+ * only passes the response on once the whole body has arrived.
+ */
+@Sharable
+class FirstByteHandler extends ChannelInboundHandlerAdapter {
+
+	private static final AttributeKey<RequestTrace> TRACE = AttributeKey.valueOf("cm.requestTrace");
+
+	/**
+	 * @param trace
+	 *            Receives the first byte of the next response of the channel, or null when the channel goes back to
+	 *            the pool.
+	 */
+	static void expect(Channel channel, RequestTrace trace) {
+		channel.attr(TRACE).set(trace);
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+		if (msg instanceof HttpResponse) {
+			RequestTrace trace = ctx.channel().attr(TRACE).getAndSet(null);
+			if (trace != null) {
+				trace.firstByteReceived(((HttpResponse) msg).status().code());
+			}
+		}
+		ctx.fireChannelRead(msg);
+	}
+}
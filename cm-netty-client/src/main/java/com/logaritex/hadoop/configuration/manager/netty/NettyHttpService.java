@@ -0,0 +1,617 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.netty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+import com.logaritex.hadoop.configuration.manager.domain.ItemList;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+import com.logaritex.hadoop.configuration.manager.service.StreamingHttpService;
+import com.logaritex.hadoop.configuration.manager.service.http.ContentDecodingInputStream;
+import com.logaritex.hadoop.configuration.manager.service.http.HttpStatusException;
+import com.logaritex.hadoop.configuration.manager.service.http.JsonItemReader;
+import com.logaritex.hadoop.configuration.manager.service.http.RequestListeners;
+import com.logaritex.hadoop.configuration.manager.service.http.RequestTrace;
+import com.logaritex.hadoop.configuration.manager.service.http.SessionStore;
+import com.logaritex.hadoop.configuration.manager.service.http.TransferStatistics;
+import com.logaritex.hadoop.configuration.manager.service.http.UriTemplate;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ScheduledFuture;
+
+/**
+ * {@link HttpService} implementation on the Netty event loop.
+ *
+ * <br/>
+ * Requests are written to a bounded pool of keep-alive channels and the responses are read without blocking a thread
+ * per request, so a few event loop threads keep thousands of requests in flight (see {@link NettyAsyncHttpService}).
+ * Response bodies are aggregated in pooled direct buffers and Jackson parses straight from those buffers (through the
+ * gzip/deflate decoder); the buffers return to the pool right after parsing.
+ *
+ * <br/>
+ * Every response, {@link #getItems} lists included, is aggregated whole before it is parsed: the items are handed to
+ * the callback one by one, but the (compressed) body of the list is held in memory, up to maxContentLength bytes
+ * ({@link #DEFAULT_MAX_CONTENT_LENGTH} by default). A larger response fails the request with a TooLongFrameException.
+ * Unlike the stream based transports this one does not read a list in flat memory; raise maxContentLength for very
+ * large full view lists.
+ *
+ * <br/>
+ * The blocking methods parse on the calling thread; the asynchronous ones parse on the event loop that received the
+ * response. With a {@link SessionStore} set the Cloudera Manager session cookie is reused instead of the Basic
+ * credentials, like in the SimpleHttpService. The lifecycle of every request is reported to the
+ * {@link #getRequestListeners()}. Only http base URLs are supported.
+ *
+ * <br/>
+ * Call {@link #shutdown()} to close the channels (and the event loop, if created by this service).
+ */
+public class NettyHttpService implements StreamingHttpService {
+
+	public static final int DEFAULT_MAX_CONNECTIONS = 100;
+
+	public static final int DEFAULT_REQUEST_TIMEOUT_MS = 5000; // 5 [sec]
+
+	public static final int DEFAULT_MAX_CONTENT_LENGTH = 32 * 1024 * 1024; // 32 [MB]
+
+	private static final int MAX_CLOSED_CHANNEL_RETRIES = 3;
+
+	private static final String APPLICATION_JSON = "application/json";
+
+	private final String baseUrl;
+
+	private final String hostHeader;
+
+	private final String authorization;
+
+	private final EventLoopGroup eventLoopGroup;
+
+	private final boolean ownsEventLoopGroup;
+
+	private final ChannelPool channelPool;
+
+	private final long requestTimeoutMs;
+
+	private final ObjectMapper objectMapper;
+
+	private final JsonItemReader itemReader;
+
+	private volatile SessionStore sessionStore;
+
+	private final TransferStatistics transferStatistics = new TransferStatistics();
+
+	private final RequestListeners requestListeners = new RequestListeners();
+
+	public NettyHttpService(String baseUrl, String username, String password) {
+		this(baseUrl, username, password, DEFAULT_MAX_CONNECTIONS);
+	}
+
+	/**
+	 * @param maxConnections
+	 *            Maximum number of open connections to the server. Further requests wait for a free connection.
+	 */
+	public NettyHttpService(String baseUrl, String username, String password, int maxConnections) {
+		this(baseUrl, username, password, new NioEventLoopGroup(), true, maxConnections, DEFAULT_REQUEST_TIMEOUT_MS,
+				DEFAULT_MAX_CONTENT_LENGTH);
+	}
+
+	/**
+	 * @param baseUrl
+	 *            Cloudera Manager URL (e.g. http://host:7180)
+	 * @param username
+	 *            API user name
+	 * @param password
+	 *            API user password
+	 * @param eventLoopGroup
+	 *            Runs the channels. Owned by the caller, e.g. to share it with other clients.
+	 * @param maxConnections
+	 *            Maximum number of open connections to the server. Further requests wait for a free connection.
+	 * @param requestTimeoutMs
+	 *            Time to wait for a complete response, including the wait for a connection.
+	 * @param maxContentLength
+	 *            Largest accepted response body, in bytes. Every response is held in memory whole, item lists too.
+	 */
+	public NettyHttpService(String baseUrl, String username, String password, EventLoopGroup eventLoopGroup,
+			int maxConnections, int requestTimeoutMs, int maxContentLength) {
+		this(baseUrl, username, password, eventLoopGroup, false, maxConnections, requestTimeoutMs, maxContentLength);
+	}
+
+	private NettyHttpService(String baseUrl, String username, String password, EventLoopGroup eventLoopGroup,
+			boolean ownsEventLoopGroup, int maxConnections, int requestTimeoutMs, final int maxContentLength) {
+
+		URI uri = URI.create(baseUrl);
+		if (!"http".equalsIgnoreCase(uri.getScheme())) {
+			throw new IllegalArgumentException("Only http URLs are supported: " + baseUrl);
+		}
+		int port = uri.getPort() < 0 ? 80 : uri.getPort();
+
+		this.baseUrl = baseUrl;
+		this.hostHeader = uri.getHost() + ":" + port;
+		this.authorization = "Basic "
+				+ Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+		this.eventLoopGroup = eventLoopGroup;
+		this.ownsEventLoopGroup = ownsEventLoopGroup;
+		this.requestTimeoutMs = requestTimeoutMs;
+		this.objectMapper = new ObjectMapper();
+		this.itemReader = new JsonItemReader(objectMapper);
+
+		Bootstrap bootstrap = new Bootstrap().group(eventLoopGroup).channel(NioSocketChannel.class)
+				.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+				.option(ChannelOption.TCP_NODELAY, true)
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, requestTimeoutMs)
+				.remoteAddress(uri.getHost(), port);
+
+		final FirstByteHandler firstByteHandler = new FirstByteHandler();
+		final ResponseHandler responseHandler = new ResponseHandler();
+
+		this.channelPool = new FixedChannelPool(bootstrap, new AbstractChannelPoolHandler() {
+			@Override
+			public void channelCreated(Channel channel) {
+				channel.pipeline().addLast(new HttpClientCodec(), firstByteHandler,
+						new HttpObjectAggregator(maxContentLength), responseHandler);
+			}
+		}, maxConnections);
+	}
+
+	/**
+	 * @return Per endpoint counters of the compressed (wire) and uncompressed response bytes.
+	 */
+	public TransferStatistics getTransferStatistics() {
+		return transferStatistics;
+	}
+
+	/**
+	 * @return The listeners notified of the lifecycle events of every request.
+	 */
+	public RequestListeners getRequestListeners() {
+		return requestListeners;
+	}
+
+	/**
+	 * @return The store of the session cookie, or null if every request is authenticated with Basic auth.
+	 */
+	public SessionStore getSessionStore() {
+		return sessionStore;
+	}
+
+	/**
+	 * Enables the reuse of the Cloudera Manager session instead of sending the credentials with every request.
+	 * 
+	 * @param sessionStore
+	 *            Holds the session cookie, or null to always authenticate with Basic auth.
+	 */
+	public void setSessionStore(SessionStore sessionStore) {
+		this.sessionStore = sessionStore;
+	}
+
+	/**
+	 * Closes the pooled channels, and the event loop if it was created by this service.
+	 */
+	public void shutdown() {
+		channelPool.close();
+		if (ownsEventLoopGroup) {
+			eventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+		}
+	}
+
+	@Override
+	public <R> R get(String url, Class<R> responseType, Object... uriVariables) {
+		return send(url, HttpMethod.GET, null, reader(responseType), uriVariables);
+	}
+
+	@Override
+	public <R> R post(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return send(url, HttpMethod.POST, request, reader(responseType), uriVariables);
+	}
+
+	@Override
+	public <R> R delete(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return send(url, HttpMethod.DELETE, request, reader(responseType), uriVariables);
+	}
+
+	@Override
+	public <R> R put(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return send(url, HttpMethod.PUT, request, reader(responseType), uriVariables);
+	}
+
+	@Override
+	public <T> void getItems(String url, Class<? extends ItemList<T>> listType, ItemCallback<? super T> callback,
+			Object... uriVariables) {
+
+		send(url, HttpMethod.GET, null, body -> {
+			itemReader.read(body, listType, callback);
+			return null;
+		}, uriVariables);
+	}
+
+	<R> CompletableFuture<R> getAsync(String url, Class<R> responseType, Object... uriVariables) {
+		return sendAsync(url, HttpMethod.GET, null, reader(responseType), uriVariables);
+	}
+
+	<R> CompletableFuture<R> postAsync(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return sendAsync(url, HttpMethod.POST, request, reader(responseType), uriVariables);
+	}
+
+	<R> CompletableFuture<R> deleteAsync(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return sendAsync(url, HttpMethod.DELETE, request, reader(responseType), uriVariables);
+	}
+
+	<R> CompletableFuture<R> putAsync(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return sendAsync(url, HttpMethod.PUT, request, reader(responseType), uriVariables);
+	}
+
+	/**
+	 * Waits for the response and parses it on the calling thread.
+	 */
+	private <T> T send(String url, HttpMethod method, Object request, BodyReader<T> reader, Object... uriVariables) {
+
+		RequestTrace trace = requestListeners.start(method.name(), url);
+		try {
+			T result = send(trace, url, method, request, reader, uriVariables);
+			trace.completed();
+			return result;
+		} catch (RuntimeException e) {
+			trace.failed(e);
+			throw e;
+		}
+	}
+
+	private <T> T send(RequestTrace trace, String url, HttpMethod method, Object request, BodyReader<T> reader,
+			Object... uriVariables) {
+
+		URI uri = UriTemplate.of(url).toUri(baseUrl, uriVariables);
+		CompletableFuture<FullHttpResponse> future = exchange(uri, method, serialize(url, request), trace);
+
+		FullHttpResponse response;
+		try {
+			response = future.get();
+		} catch (InterruptedException e) {
+			// a late response still has to go back to the buffer pool
+			future.thenAccept(FullHttpResponse::release);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the response of " + uri, e);
+		} catch (ExecutionException e) {
+			throw unwrap(method, uri, e.getCause());
+		}
+
+		try {
+			return read(url, uri, response, reader, trace);
+		} catch (IOException e) {
+			throw new UncheckedIOException("I/O error on " + method + " request for " + uri, e);
+		} finally {
+			response.release();
+		}
+	}
+
+	/**
+	 * Parses the response on the event loop that received it.
+	 */
+	private <T> CompletableFuture<T> sendAsync(String url, HttpMethod method, Object request,
+			final BodyReader<T> reader, Object... uriVariables) {
+
+		final CompletableFuture<T> result = new CompletableFuture<T>();
+
+		final RequestTrace trace = requestListeners.start(method.name(), url);
+
+		final URI uri;
+		byte[] requestBody;
+		try {
+			uri = UriTemplate.of(url).toUri(baseUrl, uriVariables);
+			requestBody = serialize(url, request);
+		} catch (RuntimeException e) {
+			fail(result, trace, e);
+			return result;
+		}
+
+		// not a dependent stage: the response has to be released even if the result was cancelled
+		exchange(uri, method, requestBody, trace).whenComplete((response, failure) -> {
+			if (failure != null) {
+				fail(result, trace, failure instanceof CompletionException ? failure.getCause() : failure);
+				return;
+			}
+			try {
+				T value = read(url, uri, response, reader, trace);
+				trace.completed();
+				result.complete(value);
+			} catch (IOException e) {
+				fail(result, trace, new UncheckedIOException("I/O error on " + method + " request for " + uri, e));
+			} catch (RuntimeException e) {
+				fail(result, trace, e);
+			} finally {
+				response.release();
+			}
+		});
+
+		return result;
+	}
+
+	/**
+	 * Reports the failure before completing the result, so that the caller sees the result only after the listeners.
+	 */
+	private static void fail(CompletableFuture<?> result, RequestTrace trace, Throwable failure) {
+		trace.failed(failure);
+		result.completeExceptionally(failure);
+	}
+
+	/**
+	 * Sends the request, authenticated by the current session if there is one. A request rejected because its session
+	 * expired is repeated once with Basic auth.
+	 */
+	private CompletableFuture<FullHttpResponse> exchange(final URI uri, final HttpMethod method,
+			final byte[] requestBody, final RequestTrace trace) {
+
+		final SessionStore store = sessionStore;
+		final String session = store == null ? null : store.getSession();
+
+		CompletableFuture<FullHttpResponse> response = write(uri, method, requestBody, session, trace,
+				MAX_CLOSED_CHANNEL_RETRIES);
+
+		if (store == null) {
+			return response;
+		}
+
+		return response.thenCompose(first -> {
+			store.capture(first.headers().getAll(SessionStore.SET_COOKIE));
+			if (session == null || first.status().code() != HttpResponseStatus.UNAUTHORIZED.code()) {
+				return CompletableFuture.completedFuture(first);
+			}
+			first.release();
+			// the session expired; authenticate again with the credentials
+			store.expired(session);
+			return write(uri, method, requestBody, null, trace, MAX_CLOSED_CHANNEL_RETRIES).thenApply(retried -> {
+				store.capture(retried.headers().getAll(SessionStore.SET_COOKIE));
+				return retried;
+			});
+		});
+	}
+
+	/**
+	 * Writes the request to a pooled channel. The returned future completes with the (retained) response, which the
+	 * caller must release.
+	 * 
+	 * <br/>
+	 * A pooled channel may have been closed by the server just before the request was written to it. Idempotent
+	 * requests that lost their channel before any response arrived are therefore repeated on another channel, within
+	 * the request timeout of the first attempt.
+	 */
+	private CompletableFuture<FullHttpResponse> write(URI uri, HttpMethod method, byte[] requestBody, String session,
+			RequestTrace trace, int retries) {
+		long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(requestTimeoutMs);
+		return write(uri, method, requestBody, session, trace, deadlineNanos, retries);
+	}
+
+	private CompletableFuture<FullHttpResponse> write(final URI uri, final HttpMethod method, final byte[] requestBody,
+			final String session, final RequestTrace trace, final long deadlineNanos, final int retries) {
+
+		CompletableFuture<FullHttpResponse> response = write(newRequest(uri, method, requestBody, session), trace,
+				deadlineNanos);
+
+		if (retries == 0 || HttpMethod.POST.equals(method)) {
+			return response;
+		}
+
+		final CompletableFuture<FullHttpResponse> result = new CompletableFuture<FullHttpResponse>();
+		response.whenComplete((first, failure) -> {
+			if (failure == null) {
+				result.complete(first);
+			} else if (failure instanceof ClosedChannelException) {
+				write(uri, method, requestBody, session, trace, deadlineNanos, retries - 1).whenComplete(
+						(retried, retryFailure) -> {
+							if (retryFailure == null) {
+								result.complete(retried);
+							} else {
+								result.completeExceptionally(retryFailure);
+							}
+						});
+			} else {
+				result.completeExceptionally(failure);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * @param deadlineNanos
+	 *            System.nanoTime() by which the response must be complete.
+	 */
+	private CompletableFuture<FullHttpResponse> write(final FullHttpRequest request, final RequestTrace trace,
+			long deadlineNanos) {
+
+		final CompletableFuture<FullHttpResponse> response = new CompletableFuture<FullHttpResponse>();
+
+		long remainingNanos = deadlineNanos - System.nanoTime();
+		if (remainingNanos <= 0) {
+			request.release();
+			response.completeExceptionally(timeout(request));
+			return response;
+		}
+
+		final ScheduledFuture<?> timeout = eventLoopGroup.schedule(() -> {
+			response.completeExceptionally(timeout(request));
+		}, remainingNanos, TimeUnit.NANOSECONDS);
+
+		channelPool.acquire().addListener((Future<Channel> acquired) -> {
+			if (!acquired.isSuccess()) {
+				request.release();
+				response.completeExceptionally(acquired.cause());
+				return;
+			}
+
+			final Channel channel = acquired.getNow();
+			if (response.isDone()) {
+				// timed out while waiting for a connection
+				request.release();
+				channelPool.release(channel);
+				return;
+			}
+
+			ResponseHandler.expect(channel, response);
+			if (trace.isEnabled()) {
+				FirstByteHandler.expect(channel, trace);
+			}
+
+			response.whenComplete((r, failure) -> {
+				timeout.cancel(false);
+				if (failure != null) {
+					// the channel may still receive the response of this request, so it can't be reused
+					channel.close();
+				}
+				ResponseHandler.expect(channel, null);
+				if (trace.isEnabled()) {
+					FirstByteHandler.expect(channel, null);
+				}
+				channelPool.release(channel);
+			});
+
+			channel.writeAndFlush(request).addListener(written -> {
+				if (written.isSuccess()) {
+					trace.headersSent();
+				} else {
+					response.completeExceptionally(written.cause());
+				}
+			});
+		});
+
+		return response;
+	}
+
+	private TimeoutException timeout(FullHttpRequest request) {
+		return new TimeoutException("No response within " + requestTimeoutMs + "ms for " + request.method() + " "
+				+ request.uri());
+	}
+
+	private FullHttpRequest newRequest(URI uri, HttpMethod method, byte[] requestBody, String session) {
+
+		String target = uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+
+		FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, target,
+				requestBody == null ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(requestBody));
+
+		HttpHeaders headers = request.headers();
+		headers.set(HttpHeaderNames.HOST, hostHeader);
+		headers.set(HttpHeaderNames.ACCEPT, APPLICATION_JSON);
+		headers.set(HttpHeaderNames.ACCEPT_ENCODING, ContentDecodingInputStream.GZIP + ", "
+				+ ContentDecodingInputStream.DEFLATE);
+		if (session != null) {
+			headers.set(HttpHeaderNames.COOKIE, session);
+		} else {
+			headers.set(HttpHeaderNames.AUTHORIZATION, authorization);
+		}
+		if (requestBody != null) {
+			headers.set(HttpHeaderNames.CONTENT_TYPE, APPLICATION_JSON);
+			headers.setInt(HttpHeaderNames.CONTENT_LENGTH, requestBody.length);
+		}
+
+		return request;
+	}
+
+	/**
+	 * Checks the status and parses the body straight from the pooled response buffer.
+	 */
+	private <T> T read(String url, URI uri, FullHttpResponse response, BodyReader<T> reader, RequestTrace trace)
+			throws IOException {
+
+		int status = response.status().code();
+		if (status >= 400) {
+			throw new HttpStatusException(status, uri.toString());
+		}
+		if (status == HttpResponseStatus.NO_CONTENT.code() || !response.content().isReadable()) {
+			return null;
+		}
+
+		InputStream wire = new ByteBufInputStream(response.content());
+		ContentDecodingInputStream body = new ContentDecodingInputStream(wire, response.headers().get(
+				HttpHeaderNames.CONTENT_ENCODING));
+		try {
+			T result = reader.read(body);
+			trace.bodyDeserialized();
+			return result;
+		} finally {
+			transferStatistics.record(url, body);
+		}
+	}
+
+	private <R> BodyReader<R> reader(Class<R> responseType) {
+		return body -> responseType == null ? null : objectMapper.readValue(body, responseType);
+	}
+
+	private byte[] serialize(String url, Object request) {
+		if (request == null) {
+			return null;
+		}
+		try {
+			byte[] body = objectMapper.writeValueAsBytes(request);
+			transferStatistics.recordRequest(url, body.length);
+			return body;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write request of type " + request.getClass().getName(), e);
+		}
+	}
+
+	private static RuntimeException unwrap(HttpMethod method, URI uri, Throwable cause) {
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		if (cause instanceof IOException) {
+			return new UncheckedIOException("I/O error on " + method + " request for " + uri, (IOException) cause);
+		}
+		return new IllegalStateException(method + " request for " + uri + " failed", cause);
+	}
+
+	/**
+	 * Deserializes a (decoded) response body.
+	 */
+	private interface BodyReader<T> {
+
+		T read(InputStream body) throws IOException;
+	}
+}
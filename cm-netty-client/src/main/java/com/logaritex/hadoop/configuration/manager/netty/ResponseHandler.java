@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.netty;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.CompletableFuture;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.util.AttributeKey;
+
+/**
+ * Completes the pending request of a channel with the aggregated response. The response buffer is handed over to the
+ * request's future, or released if nobody waits for it any more.
+ */
+@Sharable
+class ResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+	private static final AttributeKey<CompletableFuture<FullHttpResponse>> PENDING = AttributeKey
+			.valueOf("cm.pendingResponse");
+
+	ResponseHandler() {
+		super(false);
+	}
+
+	/**
+	 * @param response
+	 *            Receives the next response of the channel, or null when the channel goes back to the pool.
+	 */
+	static void expect(Channel channel, CompletableFuture<FullHttpResponse> response) {
+		channel.attr(PENDING).set(response);
+	}
+
+	@Override
+	protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+
+		if (!HttpUtil.isKeepAlive(response)) {
+			// close before the channel is released, so that the pool does not hand it out again
+			ctx.close();
+		}
+
+		CompletableFuture<FullHttpResponse> pending = ctx.channel().attr(PENDING).getAndSet(null);
+		if (pending == null || !pending.complete(response)) {
+			response.release();
+		}
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		fail(ctx, new ClosedChannelException());
+		super.channelInactive(ctx);
+	}
+
+	@Override
+	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+		fail(ctx, cause);
+		ctx.close();
+	}
+
+	private static void fail(ChannelHandlerContext ctx, Throwable cause) {
+		CompletableFuture<FullHttpResponse> pending = ctx.channel().attr(PENDING).getAndSet(null);
+		if (pending != null) {
+			pending.completeExceptionally(cause);
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.logaritex.hadoop.configuration.manager.SimpleHttpService;
+import com.logaritex.hadoop.configuration.manager.domain.HostList;
+import com.logaritex.hadoop.configuration.manager.netty.NettyAsyncHttpService;
+import com.logaritex.hadoop.configuration.manager.netty.NettyHttpService;
+import com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl;
+
+/**
+ * Compares the {@link SimpleHttpService} (one blocked thread per request in flight) with the
+ * {@link NettyAsyncHttpService} (requests in flight limited by a semaphore, no thread per request) at 10, 100 and 1000
+ * concurrent requests against a local stand-in server. Reports the throughput, the p50/p99 latency and the peak
+ * number of live threads of the client JVM.
+ *
+ * <br/>
+ * Usage: NettyTransportBenchmark [requestsPerLevel] [hosts]
+ */
+public class NettyTransportBenchmark {
+
+	private static final int[] CONCURRENCY = { 10, 100, 1000 };
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	public static void main(String[] args) throws Exception {
+
+		// the stand-in server closes keep-alive connections beyond 200 idle ones by default
+		System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(CONCURRENCY[CONCURRENCY.length - 1]));
+
+		int requests = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int hosts = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		for (int concurrency : CONCURRENCY) {
+
+			StandInServer server = new StandInServer(TransportBenchmark.hostsJson(hosts), Math.min(concurrency, 200));
+			server.start();
+			int baseline = THREADS.getThreadCount();
+
+			try {
+				SimpleHttpService simple = new SimpleHttpService(server.getBaseUrl(), "admin", "admin");
+				NettyHttpService netty = new NettyHttpService(server.getBaseUrl(), "admin", "admin", concurrency);
+				NettyAsyncHttpService nettyAsync = new NettyAsyncHttpService(netty);
+
+				// warm up both transports first
+				run(nettyAsync, concurrency, requests / 10);
+				TransportBenchmark.run(simple, concurrency, Math.max(1, requests / concurrency / 10));
+				awaitThreadCount(baseline);
+
+				System.out.println("concurrency " + concurrency);
+
+				int threads = resetPeakThreadCount();
+				print("NettyAsyncHttpService", run(nettyAsync, concurrency, requests), threads);
+
+				threads = resetPeakThreadCount();
+				print("SimpleHttpService", TransportBenchmark.run(simple, concurrency, requests / concurrency), threads);
+				awaitThreadCount(baseline);
+
+				netty.shutdown();
+			} finally {
+				server.stop();
+			}
+		}
+	}
+
+	static TransportBenchmark.Result run(NettyAsyncHttpService httpService, int concurrency, int requests)
+			throws InterruptedException {
+
+		final Semaphore inFlight = new Semaphore(concurrency);
+		final CountDownLatch done = new CountDownLatch(requests);
+		final AtomicLong failures = new AtomicLong();
+		final long[] latencies = new long[requests];
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < requests; i++) {
+			inFlight.acquire();
+			final int index = i;
+			final long requestStart = System.nanoTime();
+			httpService.get(HostServiceImpl.HOSTS_PATH, HostList.class).whenComplete((hostList, failure) -> {
+				latencies[index] = System.nanoTime() - requestStart;
+				if (failure != null && failures.incrementAndGet() == 1) {
+					System.out.println("first failure: " + failure);
+				}
+				inFlight.release();
+				done.countDown();
+			});
+		}
+
+		done.await();
+		long elapsed = System.nanoTime() - start;
+
+		if (failures.get() > 0) {
+			System.out.println(failures.get() + " failed requests");
+		}
+
+		Arrays.sort(latencies);
+
+		return new TransportBenchmark.Result(requests, elapsed, latencies[requests / 2],
+				latencies[(int) (requests * 0.99) - 1]);
+	}
+
+	/**
+	 * @return The live threads before the run. The threads added by the run are its peak minus this count.
+	 */
+	private static int resetPeakThreadCount() {
+		THREADS.resetPeakThreadCount();
+		return THREADS.getThreadCount();
+	}
+
+	/**
+	 * Waits for the worker threads of the previous run to terminate.
+	 */
+	private static void awaitThreadCount(int baseline) throws InterruptedException {
+		for (int i = 0; i < 100 && THREADS.getThreadCount() > baseline + 16; i++) {
+			Thread.sleep(50);
+		}
+	}
+
+	private static void print(String name, TransportBenchmark.Result result, int threadsBefore) {
+		System.out.println(String.format("%-22s %10.1f req/s   p50 %8.3f ms   p99 %8.3f ms   added threads %5d",
+				name, result.requests / (result.elapsedNanos / 1e9), result.p50Nanos / 1e6, result.p99Nanos / 1e6,
+				THREADS.getPeakThreadCount() - threadsBefore));
+	}
+}
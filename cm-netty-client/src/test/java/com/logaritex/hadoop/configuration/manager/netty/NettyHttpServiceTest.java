@@ -0,0 +1,260 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.netty;
+
+import static junit.framework.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.logaritex.hadoop.configuration.manager.domain.HostList;
+import com.logaritex.hadoop.configuration.manager.service.http.HttpStatusException;
+import com.logaritex.hadoop.configuration.manager.service.http.RequestEvent;
+import com.logaritex.hadoop.configuration.manager.service.http.RequestListener;
+import com.logaritex.hadoop.configuration.manager.service.http.SessionStore;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.netty.channel.nio.NioEventLoopGroup;
+
+public class NettyHttpServiceTest {
+
+	private static final String HOSTS = "{\"items\":[{\"hostId\":\"h1\"},{\"hostId\":\"h2\"}]}";
+
+	private HttpServer server;
+
+	private NettyHttpService httpService;
+
+	private final AtomicInteger basicRequests = new AtomicInteger();
+
+	private volatile String validSession = "CLOUDERA_MANAGER_SESSIONID=s1";
+
+	@Before
+	public void before() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/api/v1/hosts", this::hosts);
+		server.createContext("/api/v1/missing", exchange -> {
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+		});
+		server.setExecutor(Executors.newFixedThreadPool(4));
+		server.start();
+
+		httpService = new NettyHttpService("http://127.0.0.1:" + server.getAddress().getPort(), "admin", "admin", 2);
+	}
+
+	@After
+	public void after() {
+		httpService.shutdown();
+		server.stop(0);
+	}
+
+	@Test
+	public void testGzipResponseIsDecodedAndCounted() {
+
+		HostList hosts = httpService.get("/api/v1/hosts", HostList.class);
+
+		assertEquals(2, hosts.getItems().size());
+		assertEquals("h2", hosts.getItems().get(1).getHostId());
+
+		assertEquals(1, httpService.getTransferStatistics().getEndpoint("/api/v1/hosts").getCompressedResponses());
+		assertEquals(HOSTS.length(), httpService.getTransferStatistics().getEndpoint("/api/v1/hosts")
+				.getDecodedBytes());
+	}
+
+	@Test
+	public void testAsyncSessionIsReusedAndRenewedAfterExpiry() throws Exception {
+
+		SessionStore sessionStore = new SessionStore();
+		httpService.setSessionStore(sessionStore);
+		NettyAsyncHttpService asyncHttpService = new NettyAsyncHttpService(httpService);
+
+		asyncHttpService.get("/api/v1/hosts", HostList.class).get();
+		asyncHttpService.get("/api/v1/hosts", HostList.class).get();
+		assertEquals(1, basicRequests.get());
+		assertEquals("CLOUDERA_MANAGER_SESSIONID=s1", sessionStore.getSession());
+
+		validSession = "CLOUDERA_MANAGER_SESSIONID=s2";
+
+		assertEquals(2, asyncHttpService.get("/api/v1/hosts", HostList.class).get().getItems().size());
+		assertEquals(2, basicRequests.get());
+		assertEquals(1, sessionStore.getSessionsExpired());
+		assertEquals("CLOUDERA_MANAGER_SESSIONID=s2", sessionStore.getSession());
+	}
+
+	@Test
+	public void testErrorStatusFailsTheRequest() throws Exception {
+
+		try {
+			httpService.get("/api/v1/missing", HostList.class);
+			fail();
+		} catch (HttpStatusException e) {
+			assertEquals(404, e.getStatusCode());
+		}
+
+		try {
+			new NettyAsyncHttpService(httpService).get("/api/v1/missing", HostList.class).get();
+			fail();
+		} catch (ExecutionException e) {
+			assertEquals(404, ((HttpStatusException) e.getCause()).getStatusCode());
+		}
+	}
+
+	@Test
+	public void testClosedChannelRetriesShareTheRequestTimeout() throws Exception {
+
+		// every attempt loses its channel after most of the timeout, so each retry would get a new timeout
+		final AtomicInteger attempts = new AtomicInteger();
+		server.createContext("/api/v1/dropped", exchange -> {
+			attempts.incrementAndGet();
+			try {
+				Thread.sleep(600);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.close();
+		});
+
+		NioEventLoopGroup eventLoopGroup = new NioEventLoopGroup(1);
+		NettyHttpService timed = new NettyHttpService("http://127.0.0.1:" + server.getAddress().getPort(), "admin",
+				"admin", eventLoopGroup, 2, 1000, NettyHttpService.DEFAULT_MAX_CONTENT_LENGTH);
+		try {
+			long start = System.nanoTime();
+			try {
+				timed.get("/api/v1/dropped", HostList.class);
+				fail();
+			} catch (IllegalStateException e) {
+				assertTrue(e.getCause() instanceof TimeoutException);
+			}
+			assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+			assertEquals(2, attempts.get());
+		} finally {
+			timed.shutdown();
+			eventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	public void testRequestsBeyondThePoolSizeWaitForAChannel() throws Exception {
+
+		NettyAsyncHttpService asyncHttpService = new NettyAsyncHttpService(httpService);
+
+		List<CompletableFuture<HostList>> futures = new ArrayList<CompletableFuture<HostList>>();
+		for (int i = 0; i < 50; i++) {
+			futures.add(asyncHttpService.get("/api/v1/hosts", HostList.class));
+		}
+		for (CompletableFuture<HostList> future : futures) {
+			assertEquals(2, future.get().getItems().size());
+		}
+		assertEquals(50, httpService.getTransferStatistics().getEndpoint("/api/v1/hosts").getResponses());
+	}
+
+	@Test
+	public void testRequestLifecycleIsReported() throws Exception {
+
+		final List<String> events = new CopyOnWriteArrayList<String>();
+		final List<RequestEvent> completed = new CopyOnWriteArrayList<RequestEvent>();
+		httpService.getRequestListeners().add(new RequestListener() {
+			public void requestStarted(RequestEvent event) {
+				events.add("started " + event.getUrlTemplate());
+			}
+
+			public void headersSent(RequestEvent event) {
+				events.add("headersSent");
+			}
+
+			public void firstByteReceived(RequestEvent event) {
+				events.add("firstByte " + event.getStatusCode());
+			}
+
+			public void bodyDeserialized(RequestEvent event) {
+				events.add("deserialized");
+			}
+
+			public void requestCompleted(RequestEvent event) {
+				events.add("completed");
+				completed.add(event);
+			}
+
+			public void requestFailed(RequestEvent event, Throwable cause) {
+				events.add("failed " + cause.getClass().getSimpleName());
+			}
+		});
+
+		httpService.get("/api/v1/hosts", HostList.class);
+		assertEquals("[started /api/v1/hosts, headersSent, firstByte 200, deserialized, completed]", events.toString());
+
+		RequestEvent event = completed.get(0);
+		assertTrue(event.getHeadersSentNanos() >= event.getStartNanos());
+		assertTrue(event.getDeserializationNanos() >= 0);
+		assertTrue(event.getElapsedNanos() >= event.getTimeToFirstByteNanos() + event.getDeserializationNanos());
+
+		events.clear();
+		try {
+			new NettyAsyncHttpService(httpService).get("/api/v1/missing", HostList.class).get();
+			fail();
+		} catch (ExecutionException e) {
+			// expected
+		}
+		assertEquals("[started /api/v1/missing, headersSent, firstByte 404, failed HttpStatusException]",
+				events.toString());
+	}
+
+	private void hosts(HttpExchange exchange) throws IOException {
+
+		String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+		if (cookie != null && !cookie.equals(validSession)) {
+			exchange.sendResponseHeaders(401, -1);
+			exchange.close();
+			return;
+		}
+		if (cookie == null) {
+			basicRequests.incrementAndGet();
+			exchange.getResponseHeaders().add("Set-Cookie", validSession + "; Path=/");
+		}
+
+		ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+		GZIPOutputStream gzip = new GZIPOutputStream(gzipped);
+		gzip.write(HOSTS.getBytes(StandardCharsets.UTF_8));
+		gzip.close();
+
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+		exchange.sendResponseHeaders(200, gzipped.size());
+		OutputStream out = exchange.getResponseBody();
+		gzipped.writeTo(out);
+		out.close();
+	}
+}
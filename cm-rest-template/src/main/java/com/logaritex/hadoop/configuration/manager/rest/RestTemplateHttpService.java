@@ -0,0 +1,543 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Collections;
+
+import org.codehaus.jackson.Base64Variants;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonHttpMessageConverter;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpMessageConverterExtractor;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.logaritex.hadoop.configuration.manager.domain.ItemList;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+import com.logaritex.hadoop.configuration.manager.service.StreamingHttpService;
+import com.logaritex.hadoop.configuration.manager.service.http.ContentDecodingInputStream;
+import com.logaritex.hadoop.configuration.manager.service.http.CountingOutputStream;
+import com.logaritex.hadoop.configuration.manager.service.http.HttpStatusException;
+import com.logaritex.hadoop.configuration.manager.service.http.JsonItemReader;
+import com.logaritex.hadoop.configuration.manager.service.http.RequestListeners;
+import com.logaritex.hadoop.configuration.manager.service.http.RequestTrace;
+import com.logaritex.hadoop.configuration.manager.service.http.RevalidationCache;
+import com.logaritex.hadoop.configuration.manager.service.http.RevalidationCache.CachedResponse;
+import com.logaritex.hadoop.configuration.manager.service.http.SessionStore;
+import com.logaritex.hadoop.configuration.manager.service.http.TransferStatistics;
+import com.logaritex.hadoop.configuration.manager.service.http.UriTemplate;
+
+/**
+ * {@link HttpService} implementation based on Spring's RestTemplate, shared by the desktop and the Android transports.
+ * They only differ in the {@link ClientHttpRequestFactory} creating the HTTP connections.
+ * 
+ * <br/>
+ * Responses are requested with gzip/deflate content encoding and are decoded while streamed into the JSON parser,
+ * unless the HTTP client already decoded them into a {@link ContentDecodingInputStream}. The compressed and
+ * uncompressed byte counts are kept per endpoint in the {@link #getTransferStatistics()}.
+ * 
+ * <br/>
+ * Optionally GETs are revalidated against a {@link RevalidationCache}: the cached validators are sent as conditional
+ * request headers and unchanged resources are not deserialized again.
+ * 
+ * <br/>
+ * With a {@link SessionStore} set, the Cloudera Manager session cookie is captured after the first authenticated call
+ * and sent instead of the Basic credentials. A request rejected with 401 Unauthorized because its session expired is
+ * repeated once with Basic auth.
+ * 
+ * <br/>
+ * Error responses (4xx and 5xx) are thrown as {@link HttpStatusException}, like the other transports do.
+ * 
+ * <br/>
+ * The lifecycle of every request is reported to the {@link #getRequestListeners()}.
+ */
+public class RestTemplateHttpService implements StreamingHttpService {
+
+	private static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+	private static final String CONTENT_ENCODING = "Content-Encoding";
+
+	private static final String AUTHORIZATION = "Authorization";
+
+	private final String baseUrl;
+
+	private final HttpHeaders httpHeaders;
+
+	private final String authorization;
+
+	private final RestTemplate restTemplate;
+
+	private final ObjectMapper objectMapper;
+
+	private final JsonItemReader itemReader;
+
+	private volatile RevalidationCache revalidationCache;
+
+	private volatile SessionStore sessionStore;
+
+	private final TransferStatistics transferStatistics = new TransferStatistics();
+
+	private final RequestListeners requestListeners = new RequestListeners();
+
+	/**
+	 * @param baseUrl
+	 *            Cloudera Manager URL (e.g. http://host:7180)
+	 * @param username
+	 *            API user name
+	 * @param password
+	 *            API user password
+	 * @param requestFactory
+	 *            Creates the underlying HTTP connections.
+	 */
+	public RestTemplateHttpService(String baseUrl, String username, String password,
+			ClientHttpRequestFactory requestFactory) {
+		this.baseUrl = baseUrl;
+		httpHeaders = createHttpHeaders();
+		authorization = getBasicAuthHeaderValue(username, password);
+
+		restTemplate = new RestTemplate(requestFactory);
+
+		objectMapper = new ObjectMapper();
+
+		MappingJacksonHttpMessageConverter jsonConverter = new MappingJacksonHttpMessageConverter();
+		jsonConverter.setObjectMapper(objectMapper);
+		restTemplate.getMessageConverters().add(jsonConverter);
+
+		itemReader = new JsonItemReader(objectMapper);
+	}
+
+	/**
+	 * @return Per endpoint counters of the compressed (wire) and uncompressed response bytes.
+	 */
+	public TransferStatistics getTransferStatistics() {
+		return transferStatistics;
+	}
+
+	/**
+	 * @return The listeners notified of the lifecycle events of every request.
+	 */
+	public RequestListeners getRequestListeners() {
+		return requestListeners;
+	}
+
+	/**
+	 * @return The cache the GETs are revalidated against, or null if revalidation is disabled.
+	 */
+	public RevalidationCache getRevalidationCache() {
+		return revalidationCache;
+	}
+
+	/**
+	 * Enables conditional GETs (If-None-Match / If-Modified-Since) for the URL templates of the cache.
+	 * 
+	 * @param revalidationCache
+	 *            The cache to revalidate against, or null to disable revalidation.
+	 */
+	public void setRevalidationCache(RevalidationCache revalidationCache) {
+		this.revalidationCache = revalidationCache;
+	}
+
+	/**
+	 * @return The store of the session cookie, or null if every request is authenticated with Basic auth.
+	 */
+	public SessionStore getSessionStore() {
+		return sessionStore;
+	}
+
+	/**
+	 * Enables the reuse of the Cloudera Manager session instead of sending the credentials with every request.
+	 * 
+	 * @param sessionStore
+	 *            Holds the session cookie, or null to always authenticate with Basic auth.
+	 */
+	public void setSessionStore(SessionStore sessionStore) {
+		this.sessionStore = sessionStore;
+	}
+
+	@Override
+	public <R> R get(String url, Class<R> responseType, Object... uriVariables) {
+		RevalidationCache cache = revalidationCache;
+		if (cache != null && cache.isRevalidated(url)) {
+			return revalidate(cache, url, responseType, uriVariables);
+		}
+		return execute(url, HttpMethod.GET, null, responseType, uriVariables);
+	}
+
+	@Override
+	public <R> R post(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return execute(url, HttpMethod.POST, request, responseType, uriVariables);
+	}
+
+	@Override
+	public <R> R delete(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return execute(url, HttpMethod.DELETE, request, responseType, uriVariables);
+	}
+
+	@Override
+	public <R> R put(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return execute(url, HttpMethod.PUT, request, responseType, uriVariables);
+	}
+
+	@Override
+	public <T> void getItems(String url, final Class<? extends ItemList<T>> listType,
+			final ItemCallback<? super T> callback, Object... uriVariables) {
+
+		exchange(url, HttpMethod.GET, null, null, new ResponseExtractor<Void>() {
+			@Override
+			public Void extractData(ClientHttpResponse response) throws IOException {
+				itemReader.read(response.getBody(), listType, callback);
+				return null;
+			}
+		}, uriVariables);
+	}
+
+	private <R> R execute(String url, HttpMethod method, Object request, Class<R> responseType,
+			Object... uriVariables) {
+
+		return exchange(url, method, request, null, new HttpMessageConverterExtractor<R>(responseType,
+				restTemplate.getMessageConverters()), uriVariables);
+	}
+
+	private <R> R revalidate(final RevalidationCache cache, final String url, final Class<R> responseType,
+			final Object... uriVariables) {
+
+		final CachedResponse cached = cache.lookup(url, responseType, uriVariables);
+
+		HttpHeaders conditionalHeaders = new HttpHeaders();
+		if (cached != null) {
+			if (cached.getETag() != null) {
+				conditionalHeaders.set(RevalidationCache.IF_NONE_MATCH, cached.getETag());
+			}
+			if (cached.getLastModified() != null) {
+				conditionalHeaders.set(RevalidationCache.IF_MODIFIED_SINCE, cached.getLastModified());
+			}
+		}
+
+		return exchange(url, HttpMethod.GET, null, conditionalHeaders, new ResponseExtractor<R>() {
+			@Override
+			public R extractData(ClientHttpResponse response) throws IOException {
+				if (cached != null && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+					return cache.notModified(cached, responseType);
+				}
+				HttpHeaders headers = response.getHeaders();
+				return cache.read(url, responseType, uriVariables, headers.getFirst(RevalidationCache.ETAG),
+						headers.getFirst(RevalidationCache.LAST_MODIFIED), response.getBody(), objectMapper);
+			}
+		}, uriVariables);
+	}
+
+	/**
+	 * Sends the request, authenticated by the current session if there is one, and extracts the decoded response.
+	 * 
+	 * @param request
+	 *            The request content, or null.
+	 * @param requestHeaders
+	 *            Headers of this request in addition to the common ones, or null.
+	 */
+	private <T> T exchange(String url, HttpMethod method, Object request, HttpHeaders requestHeaders,
+			ResponseExtractor<T> extractor, Object... uriVariables) {
+
+		RequestTrace trace = requestListeners.start(method.name(), url);
+		try {
+			T result = exchange(trace, url, method, request, requestHeaders, extractor, uriVariables);
+			trace.completed();
+			return result;
+		} catch (RuntimeException e) {
+			trace.failed(e);
+			throw e;
+		}
+	}
+
+	private <T> T exchange(RequestTrace trace, String url, HttpMethod method, Object request,
+			HttpHeaders requestHeaders, ResponseExtractor<T> extractor, Object... uriVariables) {
+
+		URI uri = uri(url, uriVariables);
+		try {
+			return exchange(trace, url, uri, method, request, requestHeaders, extractor);
+		} catch (HttpStatusCodeException e) {
+			throw new HttpStatusException(e.getStatusCode().value(), uri.toString(), e);
+		}
+	}
+
+	private <T> T exchange(RequestTrace trace, String url, URI uri, HttpMethod method, Object request,
+			HttpHeaders requestHeaders, ResponseExtractor<T> extractor) {
+
+		ResponseExtractor<T> responseExtractor = decoding(url, trace, extractor);
+
+		SessionStore store = sessionStore;
+		if (store == null) {
+			return restTemplate.execute(uri, method,
+					new EntityRequestCallback(url, request, requestHeaders, null, trace), responseExtractor);
+		}
+
+		responseExtractor = capturingSession(store, responseExtractor);
+		String session = store.getSession();
+
+		try {
+			return restTemplate.execute(uri, method, new EntityRequestCallback(url, request, requestHeaders, session,
+					trace), responseExtractor);
+		} catch (HttpClientErrorException e) {
+			if (session == null || e.getStatusCode() != HttpStatus.UNAUTHORIZED) {
+				throw e;
+			}
+			// the session expired; authenticate again with the credentials
+			store.expired(session);
+			return restTemplate.execute(uri, method,
+					new EntityRequestCallback(url, request, requestHeaders, null, trace), responseExtractor);
+		}
+	}
+
+	private static <T> ResponseExtractor<T> capturingSession(final SessionStore store,
+			final ResponseExtractor<T> extractor) {
+		return new ResponseExtractor<T>() {
+			@Override
+			public T extractData(ClientHttpResponse response) throws IOException {
+				store.capture(response.getHeaders().get(SessionStore.SET_COOKIE));
+				return extractor.extractData(response);
+			}
+		};
+	}
+
+	/**
+	 * Expands the URL template with its precompiled {@link UriTemplate}, instead of letting RestTemplate parse it on
+	 * every call.
+	 */
+	private URI uri(String url, Object... uriVariables) {
+		return UriTemplate.of(url).toUri(baseUrl, uriVariables);
+	}
+
+	/**
+	 * Decodes gzip/deflate response bodies while they are streamed into the extractor and records the transferred
+	 * bytes under the endpoint's URL template. A body the HTTP client already decoded (e.g. by the Android client's
+	 * response interceptor) is only recorded.
+	 */
+	private <T> ResponseExtractor<T> decoding(final String url, final RequestTrace trace,
+			final ResponseExtractor<T> extractor) {
+		return new ResponseExtractor<T>() {
+			@Override
+			public T extractData(ClientHttpResponse response) throws IOException {
+				trace.firstByteReceived(response.getRawStatusCode());
+
+				InputStream content = response.getBody();
+				if (content == null) {
+					T result = extractor.extractData(response);
+					trace.bodyDeserialized();
+					return result;
+				}
+
+				ContentDecodingInputStream body;
+				ClientHttpResponse decodedResponse;
+				if (content instanceof ContentDecodingInputStream) {
+					body = (ContentDecodingInputStream) content;
+					decodedResponse = response;
+				} else {
+					body = new ContentDecodingInputStream(content, response.getHeaders().getFirst(CONTENT_ENCODING));
+					decodedResponse = new DecodedClientHttpResponse(response, body);
+				}
+
+				try {
+					T result = extractor.extractData(decodedResponse);
+					trace.bodyDeserialized();
+					return result;
+				} finally {
+					transferStatistics.record(url, body);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Sets the common request headers and the authentication, and writes the (optional) request content with the first
+	 * capable message converter, the way RestTemplate does for a HttpEntity without content type.
+	 */
+	private class EntityRequestCallback implements RequestCallback {
+
+		private final String url;
+
+		private final Object requestBody;
+
+		private final HttpHeaders requestHeaders;
+
+		private final String session;
+
+		private final RequestTrace trace;
+
+		/**
+		 * @param url
+		 *            The URL template the request body bytes are recorded under.
+		 * @param session
+		 *            The session cookie to authenticate with, or null to send the Basic credentials.
+		 * @param trace
+		 *            Notified when the request is ready to be sent. RestTemplate executes it right after this callback.
+		 */
+		public EntityRequestCallback(String url, Object requestBody, HttpHeaders requestHeaders, String session,
+				RequestTrace trace) {
+			this.url = url;
+			this.requestBody = requestBody;
+			this.requestHeaders = requestHeaders;
+			this.session = session;
+			this.trace = trace;
+		}
+
+		@Override
+		public void doWithRequest(ClientHttpRequest request) throws IOException {
+
+			HttpHeaders headers = request.getHeaders();
+			headers.putAll(httpHeaders);
+			if (requestHeaders != null) {
+				headers.putAll(requestHeaders);
+			}
+			if (session != null) {
+				headers.set(SessionStore.COOKIE, session);
+			} else {
+				headers.set(AUTHORIZATION, authorization);
+			}
+
+			if (requestBody != null) {
+				writeBody(request);
+			}
+			trace.headersSent();
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private void writeBody(ClientHttpRequest request) throws IOException {
+
+			Class<?> requestType = requestBody.getClass();
+			for (HttpMessageConverter messageConverter : restTemplate.getMessageConverters()) {
+				if (messageConverter.canWrite(requestType, null)) {
+					CountingOutputMessage outputMessage = new CountingOutputMessage(request);
+					messageConverter.write(requestBody, null, outputMessage);
+					transferStatistics.recordRequest(url, outputMessage.getCount());
+					return;
+				}
+			}
+
+			throw new RestClientException("Could not write request: no suitable HttpMessageConverter found for "
+					+ "request type [" + requestType.getName() + "]");
+		}
+	}
+
+	/**
+	 * Counts the request body bytes written by the message converter.
+	 */
+	private static class CountingOutputMessage implements HttpOutputMessage {
+
+		private final HttpOutputMessage message;
+
+		private CountingOutputStream body;
+
+		public CountingOutputMessage(HttpOutputMessage message) {
+			this.message = message;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return message.getHeaders();
+		}
+
+		@Override
+		public OutputStream getBody() throws IOException {
+			// the body is opened lazily, after the converter has set the content headers
+			if (body == null) {
+				body = new CountingOutputStream(message.getBody());
+			}
+			return body;
+		}
+
+		public long getCount() {
+			return body == null ? 0 : body.getCount();
+		}
+	}
+
+	/**
+	 * Response with the decoded body.
+	 */
+	private static class DecodedClientHttpResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse response;
+
+		private final InputStream body;
+
+		public DecodedClientHttpResponse(ClientHttpResponse response, InputStream body) {
+			this.response = response;
+			this.body = body;
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			return body;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return response.getHeaders();
+		}
+
+		@Override
+		public HttpStatus getStatusCode() throws IOException {
+			return response.getStatusCode();
+		}
+
+		@Override
+		public int getRawStatusCode() throws IOException {
+			return response.getRawStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return response.getStatusText();
+		}
+
+		@Override
+		public void close() {
+			response.close();
+		}
+	}
+
+	private static HttpHeaders createHttpHeaders() {
+
+		HttpHeaders httpHeaders = new HttpHeaders();
+		httpHeaders.set(ACCEPT_ENCODING, ContentDecodingInputStream.GZIP + ", " + ContentDecodingInputStream.DEFLATE);
+		httpHeaders.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+
+		return httpHeaders;
+	}
+
+	private static String getBasicAuthHeaderValue(String username, String password) {
+
+		byte[] bytes = String.format("%s:%s", username, password).getBytes();
+		return String.format("Basic %s", Base64Variants.getDefaultVariant().encode(bytes, false));
+	}
+}
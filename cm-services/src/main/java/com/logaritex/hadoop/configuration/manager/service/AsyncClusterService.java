@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+import com.logaritex.hadoop.configuration.manager.domain.Cluster;
+import com.logaritex.hadoop.configuration.manager.domain.Command;
+
+/**
+ * Non-blocking counterpart of the {@link ClusterService}. Every method returns immediately; the result (or the failure)
+ * is delivered through the returned {@link Future}.
+ */
+public interface AsyncClusterService {
+
+	/**
+	 * @see ClusterService#getAllClusters()
+	 */
+	Future<List<Cluster>> getAllClusters();
+
+	/**
+	 * @see ClusterService#createClusters(Cluster...)
+	 */
+	Future<List<Cluster>> createClusters(Cluster... clusters);
+
+	/**
+	 * @see ClusterService#getCluster(String)
+	 */
+	Future<Cluster> getCluster(String clusterName);
+
+	/**
+	 * @see ClusterService#deleteCluster(String)
+	 */
+	Future<Cluster> deleteCluster(String clusterName);
+
+	/**
+	 * @see ClusterService#getActiveClusterCommands(String)
+	 */
+	Future<List<Command>> getActiveClusterCommands(String clusterName);
+
+	/**
+	 * @see ClusterService#restartCluster(Cluster)
+	 */
+	Future<Command> restartCluster(Cluster cluster);
+
+	/**
+	 * @see ClusterService#stopCluster(Cluster)
+	 */
+	Future<Command> stopCluster(Cluster cluster);
+
+	/**
+	 * @see ClusterService#startCluster(Cluster)
+	 */
+	Future<Command> startCluster(Cluster cluster);
+
+	/**
+	 * @see ClusterService#upgradeServices(Cluster)
+	 */
+	Future<Command> upgradeServices(Cluster cluster);
+}
@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+import com.logaritex.hadoop.configuration.manager.domain.Config;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.Metric;
+
+/**
+ * Non-blocking counterpart of the {@link HostService}. Every method returns immediately; the result (or the failure) is
+ * delivered through the returned {@link Future}.
+ */
+public interface AsyncHostService {
+
+	/**
+	 * @see HostService#create(Host...)
+	 */
+	Future<List<Host>> create(Host... newHosts);
+
+	/**
+	 * @see HostService#update(Host)
+	 */
+	Future<Host> update(Host host);
+
+	/**
+	 * @see HostService#getAllHosts()
+	 */
+	Future<List<Host>> getAllHosts();
+
+	/**
+	 * @see HostService#getHost(String)
+	 */
+	Future<Host> getHost(String hostId);
+
+	/**
+	 * @see HostService#delete(String)
+	 */
+	Future<Host> delete(String hostId);
+
+	/**
+	 * @see HostService#deleteAllHosts()
+	 */
+	Future<List<Host>> deleteAllHosts();
+
+	/**
+	 * @see HostService#getHostConfig(String)
+	 */
+	Future<List<Config>> getHostConfig(String hostId);
+
+	/**
+	 * @see HostService#updateHostConfig(String, Config...)
+	 */
+	Future<List<Config>> updateHostConfig(String hostId, Config... configs);
+
+	/**
+	 * @see HostService#getHostMetrics(String)
+	 */
+	Future<List<Metric>> getHostMetrics(String hostId);
+}
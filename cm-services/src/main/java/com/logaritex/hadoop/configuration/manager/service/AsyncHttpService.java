@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service;
+
+import java.util.concurrent.Future;
+
+/**
+ * Non-blocking counterpart of the {@link HttpService}. Every call returns immediately with a {@link Future} of the
+ * response, so a single thread can keep many requests in flight.
+ * 
+ * The semantics of the url, the request and the uriVariables parameters are the same as for the {@link HttpService}.
+ * Transport failures are reported through the returned future (e.g. {@link Future#get()} throws an
+ * {@link java.util.concurrent.ExecutionException}).
+ */
+public interface AsyncHttpService {
+
+	/**
+	 * Read resource entries
+	 * 
+	 * @param url
+	 *            Resource URL
+	 * @param responseType
+	 *            Type of the result
+	 * @param uriVariables
+	 *            Request parameters
+	 * @return Future of the read resource entries
+	 */
+	<R> Future<R> get(String url, Class<R> responseType, Object... uriVariables);
+
+	/**
+	 * Wraps a HTTP POST request to create entries from the provided responseType.
+	 * 
+	 * @param url
+	 *            Resource URL
+	 * @param request
+	 *            Content being submitted.
+	 * @param responseType
+	 *            Type of the responded types
+	 * @param uriVariables
+	 *            Optional request parameters
+	 * @return Future of the POST operation result
+	 */
+	<R> Future<R> post(String url, Object request, Class<R> responseType, Object... uriVariables);
+
+	/**
+	 * Delete entries
+	 * 
+	 * @param url
+	 *            Resource URL
+	 * @param request
+	 * @param responseType
+	 * @param uriVariables
+	 * @return Future of the deleted entries
+	 */
+	<R> Future<R> delete(String url, Object request, Class<R> responseType, Object... uriVariables);
+
+	/**
+	 * Update or edit entries
+	 * 
+	 * @param url
+	 *            ResourceURL
+	 * @param request
+	 * @param responseType
+	 * @param uriVariables
+	 * @return Future of the updated entries
+	 */
+	<R> Future<R> put(String url, Object request, Class<R> responseType, Object... uriVariables);
+}
@@ -0,0 +1,125 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+import com.logaritex.hadoop.configuration.manager.domain.BulkCommandList;
+import com.logaritex.hadoop.configuration.manager.domain.Command;
+import com.logaritex.hadoop.configuration.manager.domain.Role;
+import com.logaritex.hadoop.configuration.manager.domain.Service;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceConfig;
+import com.logaritex.hadoop.configuration.manager.service.ServiceService.View;
+
+/**
+ * Non-blocking counterpart of the {@link ServiceService}. Every method returns immediately; the result (or the
+ * failure) is delivered through the returned {@link Future}.
+ */
+public interface AsyncServiceService {
+
+	/**
+	 * @see ServiceService#getAllServices(String)
+	 */
+	Future<List<Service>> getAllServices(String clusterName);
+
+	/**
+	 * @see ServiceService#createServices(String, Service...)
+	 */
+	Future<List<Service>> createServices(String clusterName, Service... services);
+
+	/**
+	 * @see ServiceService#deleteService(String, String)
+	 */
+	Future<Service> deleteService(String clusterName, String serviceName);
+
+	/**
+	 * @see ServiceService#getService(String, String)
+	 */
+	Future<Service> getService(String clusterName, String serviceName);
+
+	/**
+	 * @see ServiceService#getServiceConfiguration(Service, View)
+	 */
+	Future<ServiceConfig> getServiceConfiguration(Service service, View view);
+
+	/**
+	 * @see ServiceService#updateServiceConfiguration(Service, ServiceConfig)
+	 */
+	Future<ServiceConfig> updateServiceConfiguration(Service service, ServiceConfig config);
+
+	/**
+	 * @see ServiceService#getActiveServiceCommands(String, String)
+	 */
+	Future<List<Command>> getActiveServiceCommands(String clusterName, String serviceName);
+
+	/**
+	 * @see ServiceService#startService(Service)
+	 */
+	Future<Command> startService(Service service);
+
+	/**
+	 * @see ServiceService#stopService(Service)
+	 */
+	Future<Command> stopService(Service service);
+
+	/**
+	 * @see ServiceService#restartService(Service)
+	 */
+	Future<Command> restartService(Service service);
+
+	/**
+	 * @see ServiceService#getRoleTypes(Service)
+	 */
+	Future<List<String>> getRoleTypes(Service service);
+
+	/**
+	 * @see ServiceService#getRoles(Service)
+	 */
+	Future<List<Role>> getRoles(Service service);
+
+	/**
+	 * @see ServiceService#startRoles(List)
+	 */
+	Future<BulkCommandList> startRoles(List<Role> roles);
+
+	/**
+	 * @see ServiceService#stopRoles(List)
+	 */
+	Future<BulkCommandList> stopRoles(List<Role> roles);
+
+	/**
+	 * @see ServiceService#restartRoles(List)
+	 */
+	Future<BulkCommandList> restartRoles(List<Role> roles);
+
+	/**
+	 * @see ServiceService#refreshRoles(List)
+	 */
+	Future<BulkCommandList> refreshRoles(List<Role> roles);
+
+	/**
+	 * @see ServiceService#zooKeeperInit(Service)
+	 */
+	Future<Command> zooKeeperInit(Service service);
+
+	/**
+	 * @see ServiceService#zooKeeperCleanup(Service)
+	 */
+	Future<Command> zooKeeperCleanup(Service service);
+}
@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+import com.logaritex.hadoop.configuration.manager.domain.User;
+
+/**
+ * Non-blocking counterpart of the {@link UserService}. Every method returns immediately; the result (or the failure) is
+ * delivered through the returned {@link Future}.
+ */
+public interface AsyncUserService {
+
+	/**
+	 * @see UserService#getAllUsers()
+	 */
+	Future<List<User>> getAllUsers();
+
+	/**
+	 * @see UserService#get(String)
+	 */
+	Future<User> get(String userName);
+
+	/**
+	 * @see UserService#create(User...)
+	 */
+	Future<List<User>> create(User... newUsers);
+
+	/**
+	 * @see UserService#delete(String)
+	 */
+	Future<User> delete(String userName);
+
+	/**
+	 * @see UserService#update(User)
+	 */
+	Future<User> update(User user);
+}
@@ -29,6 +29,14 @@ public interface ClusterService {
 	 */
 	List<Cluster> getAllClusters();
 
+	/**
+	 * Streams all known clusters to the callback, one cluster at a time.
+	 * 
+	 * @param callback
+	 *            Receives every cluster
+	 */
+	void getAllClusters(ItemCallback<? super Cluster> callback);
+
 	/**
 	 * Creates a collection of clusters.
 	 * 
@@ -65,6 +73,16 @@ public interface ClusterService {
 	 */
 	List<Command> getActiveClusterCommands(String clusterName);
 
+	/**
+	 * Streams the active cluster commands to the callback, one command at a time.
+	 * 
+	 * @param clusterName
+	 *            The name of the cluster.
+	 * @param callback
+	 *            Receives every active command
+	 */
+	void getActiveClusterCommands(String clusterName, ItemCallback<? super Command> callback);
+
 	/**
 	 * Restart all services in the cluster.
 	 * 
@@ -22,6 +22,7 @@ import java.util.List;
 import com.logaritex.hadoop.configuration.manager.domain.Config;
 import com.logaritex.hadoop.configuration.manager.domain.Host;
 import com.logaritex.hadoop.configuration.manager.domain.Metric;
+import com.logaritex.hadoop.configuration.manager.service.ServiceService.View;
 
 public interface HostService {
 
@@ -57,6 +58,24 @@ public interface HostService {
 	 */
 	List<Host> getAllHosts();
 
+	/**
+	 * Streams all hosts in the system to the callback, one host at a time, without materializing the whole list.
+	 * 
+	 * @param callback
+	 *            Receives every host
+	 */
+	void getAllHosts(ItemCallback<? super Host> callback);
+
+	/**
+	 * Returns all hosts in the system in the given view. The summary view leaves out the role references and health
+	 * checks of every host, which makes it much smaller than the full view returned by {@link #getAllHosts()}.
+	 * 
+	 * @param view
+	 *            The view of the hosts
+	 * @return All hosts in the system
+	 */
+	List<Host> getAllHosts(View view);
+
 	/**
 	 * Returns a specific Host in the system
 	 * 
@@ -91,6 +110,16 @@ public interface HostService {
 	 */
 	List<Config> getHostConfig(String hostId);
 
+	/**
+	 * Streams the configuration parameters of a specific host to the callback, one at a time.
+	 * 
+	 * @param hostId
+	 *            The ID of the host.
+	 * @param callback
+	 *            Receives every host configuration parameter
+	 */
+	void getHostConfig(String hostId, ItemCallback<? super Config> callback);
+
 	/**
 	 * Updates the host configuration with the given values.
 	 * 
@@ -151,4 +180,15 @@ public interface HostService {
 	 * @return List of readings from the monitors.
 	 */
 	List<Metric> getHostMetrics(String hostId);
+
+	/**
+	 * Streams the metric readings for a host to the callback, one metric at a time.
+	 * 
+	 * @param hostId
+	 *            The ID of the host.
+	 * @param callback
+	 *            Receives every metric
+	 * @see #getHostMetrics(String)
+	 */
+	void getHostMetrics(String hostId, ItemCallback<? super Metric> callback);
 }
\ No newline at end of file
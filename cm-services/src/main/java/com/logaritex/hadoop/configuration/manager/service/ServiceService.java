@@ -39,6 +39,16 @@ public interface ServiceService {
 	 */
 	List<Service> getAllServices(String clusterName);
 
+	/**
+	 * Streams all services registered in the cluster to the callback, one service at a time.
+	 * 
+	 * @param clusterName
+	 *            The name of the cluster
+	 * @param callback
+	 *            Receives every service
+	 */
+	void getAllServices(String clusterName, ItemCallback<? super Service> callback);
+
 	/**
 	 * Creates a list of services.
 	 * 
@@ -137,6 +147,18 @@ public interface ServiceService {
 	 */
 	List<Command> getActiveServiceCommands(String clusterName, String serviceName);
 
+	/**
+	 * Streams the active service commands to the callback, one command at a time.
+	 * 
+	 * @param clusterName
+	 *            The name of the cluster.
+	 * @param serviceName
+	 *            The name of the service.
+	 * @param callback
+	 *            Receives every active command
+	 */
+	void getActiveServiceCommands(String clusterName, String serviceName, ItemCallback<? super Command> callback);
+
 	/**
 	 * Start the service
 	 * 
@@ -168,6 +190,16 @@ public interface ServiceService {
 
 	List<Role> getRoles(Service service);
 
+	/**
+	 * Streams the roles of the service to the callback, one role at a time, without materializing the whole list.
+	 * 
+	 * @param service
+	 *            The service to query. Note that the ClusterRef field of the service must be provided as well
+	 * @param callback
+	 *            Receives every role
+	 */
+	void getRoles(Service service, ItemCallback<? super Role> callback);
+
 	BulkCommandList startRoles(List<Role> roles);
 
 	BulkCommandList stopRoles(List<Role> roles);
@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service;
+
+import com.logaritex.hadoop.configuration.manager.domain.ItemList;
+
+/**
+ * {@link HttpService} that can read the items of an {@link ItemList} response incrementally.
+ * 
+ * Instead of materializing the whole list, the response "items" array is parsed one element at a time and every
+ * element is passed to the callback, so the memory footprint stays flat regardless of the list size.
+ */
+public interface StreamingHttpService extends HttpService {
+
+	/**
+	 * Read the items of a list resource, one at a time.
+	 * 
+	 * @param url
+	 *            Resource URL
+	 * @param listType
+	 *            Type of the list response. Defines the type of the items.
+	 * @param callback
+	 *            Receives every item of the list
+	 * @param uriVariables
+	 *            Request parameters
+	 */
+	<T> void getItems(String url, Class<? extends ItemList<T>> listType, ItemCallback<? super T> callback,
+			Object... uriVariables);
+}
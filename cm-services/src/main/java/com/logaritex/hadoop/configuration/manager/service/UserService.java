@@ -30,6 +30,14 @@ public interface UserService {
 	 */
 	List<User> getAllUsers();
 
+	/**
+	 * Streams the users configured in the system to the callback, one user at a time.
+	 * 
+	 * @param callback
+	 *            Receives every user
+	 */
+	void getAllUsers(ItemCallback<? super User> callback);
+
 	/**
 	 * Returns detailed information about a user.
 	 * 
@@ -0,0 +1,259 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that adapts to the measured latency with additive increase / multiplicative decrease (AIMD).
+ * 
+ * The lowest latency of a recent window is the baseline of the server without queueing. It is kept per URL template,
+ * because the requests sharing a limit differ widely in cost (e.g. a single host against the full host list). While
+ * responses stay within {@code tolerance} times the baseline of their template, the limit grows by up to one per round
+ * trip (1/limit per response, and only while at least half of the limit is in use). A slower response, or a request
+ * that failed because of overload, means requests are queueing on the server and the limit is multiplied by
+ * {@code backoffRatio}, at most once per round trip. A baseline is renewed every {@link #BASELINE_WINDOW} responses of
+ * its template so that it follows lasting changes of the server speed.
+ * 
+ * <br/>
+ * {@link #acquire()} blocks while the in-flight requests are at the limit, which pushes back on the callers.
+ */
+public class AimdLimiter {
+
+	public static final double DEFAULT_TOLERANCE = 2.0;
+
+	public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+	static final int BASELINE_WINDOW = 500;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition available = lock.newCondition();
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final double tolerance;
+
+	private final double backoffRatio;
+
+	private double limit;
+
+	private int inFlight;
+
+	private int waiting;
+
+	private final Map<String, Baseline> baselines = new HashMap<String, Baseline>();
+
+	private long lastDecreaseNanos;
+
+	public AimdLimiter(int initialLimit, int minLimit, int maxLimit) {
+		this(initialLimit, minLimit, maxLimit, DEFAULT_TOLERANCE, DEFAULT_BACKOFF_RATIO);
+	}
+
+	/**
+	 * @param initialLimit
+	 *            Concurrency limit to start with.
+	 * @param minLimit
+	 *            The limit never drops below this.
+	 * @param maxLimit
+	 *            The limit never grows above this.
+	 * @param tolerance
+	 *            Latencies up to this multiple of the baseline are considered not queued.
+	 * @param backoffRatio
+	 *            The limit is multiplied by this (0..1) when queueing is detected.
+	 */
+	public AimdLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoffRatio) {
+		this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.tolerance = tolerance;
+		this.backoffRatio = backoffRatio;
+		// long ago, so the first overload is not ignored
+		this.lastDecreaseNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+	}
+
+	/**
+	 * Waits until a request can be sent within the current limit.
+	 */
+	public void acquire() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			waiting++;
+			try {
+				while (inFlight >= (int) limit) {
+					available.await();
+				}
+			} finally {
+				waiting--;
+			}
+			inFlight++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Releases the permit of a completed request and adjusts the limit, for a limiter whose requests all have the same
+	 * cost.
+	 * 
+	 * @see #release(String, long, boolean)
+	 */
+	public void release(long latencyNanos, boolean overloaded) {
+		release("", latencyNanos, overloaded);
+	}
+
+	/**
+	 * Releases the permit of a completed request and adjusts the limit.
+	 * 
+	 * @param urlTemplate
+	 *            URL template of the request. Its latency is compared with the baseline of the same template.
+	 * @param latencyNanos
+	 *            Latency of the request.
+	 * @param overloaded
+	 *            True if the request failed because the server is overloaded (e.g. timeout or 503).
+	 */
+	public void release(String urlTemplate, long latencyNanos, boolean overloaded) {
+		lock.lock();
+		try {
+			// grow only when the limit is the bottleneck, not while the callers send less than it allows
+			boolean limitUsed = inFlight * 2 >= limit;
+			inFlight--;
+
+			long baselineNanos = baseline(urlTemplate).update(latencyNanos);
+
+			if (overloaded || latencyNanos > baselineNanos * tolerance) {
+				long now = System.nanoTime();
+				// one decrease per round trip: the responses of the same overload period count once
+				if (now - lastDecreaseNanos > latencyNanos) {
+					limit = Math.max(minLimit, limit * backoffRatio);
+					lastDecreaseNanos = now;
+				}
+			} else if (limitUsed) {
+				limit = Math.min(maxLimit, limit + 1 / limit);
+			}
+
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private Baseline baseline(String urlTemplate) {
+		Baseline baseline = baselines.get(urlTemplate);
+		if (baseline == null) {
+			baseline = new Baseline();
+			baselines.put(urlTemplate, baseline);
+		}
+		return baseline;
+	}
+
+	/**
+	 * @return Current concurrency limit.
+	 */
+	public int getLimit() {
+		lock.lock();
+		try {
+			return (int) limit;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return Number of requests in flight.
+	 */
+	public int getInFlight() {
+		lock.lock();
+		try {
+			return inFlight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return Number of callers waiting for a permit.
+	 */
+	public int getWaiting() {
+		lock.lock();
+		try {
+			return waiting;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return Lowest recently observed latency of the requests released without a URL template, or -1 if nothing is
+	 *         observed yet.
+	 */
+	public long getBaseline(TimeUnit unit) {
+		return getBaseline("", unit);
+	}
+
+	/**
+	 * @return Lowest recently observed latency of the URL template, or -1 if nothing is observed yet.
+	 */
+	public long getBaseline(String urlTemplate, TimeUnit unit) {
+		lock.lock();
+		try {
+			Baseline baseline = baselines.get(urlTemplate);
+			return baseline == null ? -1 : unit.convert(baseline.nanos, TimeUnit.NANOSECONDS);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Lowest latency of a URL template, renewed every {@link AimdLimiter#BASELINE_WINDOW} responses. Guarded by the
+	 * lock of the limiter.
+	 */
+	private static class Baseline {
+
+		private long nanos = Long.MAX_VALUE;
+
+		private long windowMinNanos = Long.MAX_VALUE;
+
+		private int windowSamples;
+
+		/**
+		 * @return The baseline including the latency.
+		 */
+		long update(long latencyNanos) {
+			windowMinNanos = Math.min(windowMinNanos, latencyNanos);
+			nanos = Math.min(nanos, latencyNanos);
+			if (++windowSamples >= BASELINE_WINDOW) {
+				nanos = windowMinNanos;
+				windowMinNanos = Long.MAX_VALUE;
+				windowSamples = 0;
+			}
+			return nanos;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "AimdLimiter [limit=" + getLimit() + ", inFlight=" + getInFlight() + ", waiting=" + getWaiting() + "]";
+	}
+}
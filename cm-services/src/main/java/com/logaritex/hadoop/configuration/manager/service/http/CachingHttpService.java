@@ -0,0 +1,348 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.logaritex.hadoop.configuration.manager.domain.ItemList;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+
+/**
+ * {@link HttpService} decorator that caches GET results for a configurable time per URL template.
+ * 
+ * Caching is opt-in: only the templates registered with {@link #setTimeToLive(String, long, TimeUnit)} are cached
+ * (e.g. ClusterServiceImpl.CLUSTERS_PATH or ServiceServiceImpl.ROLE_TYPES). The cache is a bounded LRU. Every entry
+ * is weighed by a {@link Weigher}, by default one unit plus one unit per list item, and the least recently used
+ * entries are evicted once the total weight exceeds the configured maximum.
+ * 
+ * <br/>
+ * A POST, PUT or DELETE invalidates the cached GETs of the mutated path, of the paths under it and of the paths above
+ * it. For example, a command posted to /api/v1/clusters/c1/services/hdfs1/commands/restart drops the cached
+ * /api/v1/clusters/c1/services/hdfs1 and /api/v1/clusters/c1/services/hdfs1/roles entries. Query strings are ignored
+ * for the comparison.
+ * 
+ * <br/>
+ * Cached results are shared between callers. The domain objects are mutable and must be treated as read-only.
+ * Item streaming is not cached.
+ */
+public class CachingHttpService extends ForwardingHttpService {
+
+	public static final int DEFAULT_MAX_WEIGHT = 100000;
+
+	/**
+	 * Computes the weight of a cached value relative to the other entries.
+	 */
+	public interface Weigher {
+
+		int weigh(Object value);
+	}
+
+	/**
+	 * Weighs list responses by their number of items, every other response by one.
+	 */
+	public static final Weigher ITEM_COUNT_WEIGHER = new Weigher() {
+		@Override
+		public int weigh(Object value) {
+			if (value instanceof ItemList) {
+				ItemList<?> itemList = (ItemList<?>) value;
+				return 1 + (itemList.getItems() == null ? 0 : itemList.getItems().size());
+			}
+			return 1;
+		}
+	};
+
+	private final ConcurrentMap<String, Long> timeToLiveNanos = new ConcurrentHashMap<String, Long>();
+
+	private final LinkedHashMap<CacheKey, CacheEntry> entries = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f,
+			true);
+
+	private final long maxWeight;
+
+	private final Weigher weigher;
+
+	private long weight;
+
+	// changes on every invalidation; GETs started before an invalidation do not store their (possibly stale) result
+	private long generation;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	private final AtomicLong invalidations = new AtomicLong();
+
+	public CachingHttpService(HttpService delegate) {
+		this(delegate, DEFAULT_MAX_WEIGHT, ITEM_COUNT_WEIGHER);
+	}
+
+	/**
+	 * @param delegate
+	 *            The service to cache the GETs of.
+	 * @param maxWeight
+	 *            Maximum total weight of the cached entries.
+	 * @param weigher
+	 *            Weighs the cached values.
+	 */
+	public CachingHttpService(HttpService delegate, long maxWeight, Weigher weigher) {
+		super(delegate);
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Enables caching of the GETs of an URL template.
+	 * 
+	 * @param urlTemplate
+	 *            The URL template exactly as passed to the get calls (e.g. ClusterServiceImpl.CLUSTERS_PATH).
+	 * @param timeToLive
+	 *            How long a result is served from the cache. Zero or negative disables caching of the template.
+	 */
+	public void setTimeToLive(String urlTemplate, long timeToLive, TimeUnit unit) {
+		if (timeToLive > 0) {
+			timeToLiveNanos.put(urlTemplate, unit.toNanos(timeToLive));
+		} else {
+			timeToLiveNanos.remove(urlTemplate);
+		}
+	}
+
+	@Override
+	public <R> R get(String url, Class<R> responseType, Object... uriVariables) {
+
+		Long timeToLive = timeToLiveNanos.get(url);
+		if (timeToLive == null) {
+			return delegate.get(url, responseType, uriVariables);
+		}
+
+		String expandedUrl = UriTemplate.of(url).expand(uriVariables);
+		CacheKey key = new CacheKey(expandedUrl, responseType);
+
+		long startGeneration;
+
+		synchronized (entries) {
+			CacheEntry entry = entries.get(key);
+			if (entry != null) {
+				if (entry.expiresAt - System.nanoTime() > 0) {
+					hits.incrementAndGet();
+					return responseType.cast(entry.value);
+				}
+				remove(key);
+			}
+			startGeneration = generation;
+		}
+
+		misses.incrementAndGet();
+
+		R result = delegate.get(url, responseType, uriVariables);
+
+		if (result != null) {
+			int resultWeight = weigher.weigh(result);
+			if (resultWeight <= maxWeight) {
+				synchronized (entries) {
+					if (startGeneration == generation) {
+						remove(key);
+						entries.put(key, new CacheEntry(result, path(expandedUrl), System.nanoTime() + timeToLive,
+								resultWeight));
+						weight += resultWeight;
+						evict();
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	public <R> R post(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		try {
+			return delegate.post(url, request, responseType, uriVariables);
+		} finally {
+			invalidate(UriTemplate.of(url).expand(uriVariables));
+		}
+	}
+
+	@Override
+	public <R> R delete(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		try {
+			return delegate.delete(url, request, responseType, uriVariables);
+		} finally {
+			invalidate(UriTemplate.of(url).expand(uriVariables));
+		}
+	}
+
+	@Override
+	public <R> R put(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		try {
+			return delegate.put(url, request, responseType, uriVariables);
+		} finally {
+			invalidate(UriTemplate.of(url).expand(uriVariables));
+		}
+	}
+
+	/**
+	 * Removes the cached entries of the path, of the paths under it and of the paths above it.
+	 * 
+	 * @param url
+	 *            Expanded URL (e.g. /api/v1/clusters/c1). The query string, if any, is ignored.
+	 */
+	public void invalidate(String url) {
+
+		String path = path(url);
+
+		synchronized (entries) {
+			generation++;
+			Iterator<Map.Entry<CacheKey, CacheEntry>> it = entries.entrySet().iterator();
+			while (it.hasNext()) {
+				CacheEntry entry = it.next().getValue();
+				if (isPrefix(path, entry.path) || isPrefix(entry.path, path)) {
+					it.remove();
+					weight -= entry.weight;
+					invalidations.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes all cached entries.
+	 */
+	public void invalidateAll() {
+		synchronized (entries) {
+			generation++;
+			invalidations.addAndGet(entries.size());
+			entries.clear();
+			weight = 0;
+		}
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	public long getInvalidations() {
+		return invalidations.get();
+	}
+
+	/**
+	 * @return Total weight of the cached entries.
+	 */
+	public long getWeight() {
+		synchronized (entries) {
+			return weight;
+		}
+	}
+
+	public int getSize() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	private void remove(CacheKey key) {
+		CacheEntry removed = entries.remove(key);
+		if (removed != null) {
+			weight -= removed.weight;
+		}
+	}
+
+	private void evict() {
+		Iterator<CacheEntry> it = entries.values().iterator();
+		while (weight > maxWeight && it.hasNext()) {
+			CacheEntry eldest = it.next();
+			it.remove();
+			weight -= eldest.weight;
+			evictions.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @return True if the path equals the prefix or continues it with a new path segment.
+	 */
+	private static boolean isPrefix(String prefix, String path) {
+		return path.startsWith(prefix)
+				&& (path.length() == prefix.length() || path.charAt(prefix.length()) == '/' || prefix.endsWith("/"));
+	}
+
+	private static String path(String url) {
+		int query = url.indexOf('?');
+		return query < 0 ? url : url.substring(0, query);
+	}
+
+	private static class CacheKey {
+
+		private final String url;
+
+		private final Class<?> responseType;
+
+		CacheKey(String url, Class<?> responseType) {
+			this.url = url;
+			this.responseType = responseType;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * url.hashCode() + responseType.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return url.equals(other.url) && responseType.equals(other.responseType);
+		}
+	}
+
+	private static class CacheEntry {
+
+		final Object value;
+
+		final String path;
+
+		final long expiresAt;
+
+		final int weight;
+
+		CacheEntry(Object value, String path, long expiresAt, int weight) {
+			this.value = value;
+			this.path = path;
+			this.expiresAt = expiresAt;
+			this.weight = weight;
+		}
+	}
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+
+/**
+ * {@link HttpService} decorator that collapses identical concurrent GET requests into a single call (single-flight).
+ * 
+ * While a GET for the same URL template, URI variables and response type is in flight, later callers do not send a
+ * request of their own; they wait for the in-flight one and receive the same deserialized result (or the same
+ * exception). Once the call completes the next GET goes to the server again, so nothing is cached.
+ * 
+ * <br/>
+ * Note that coalesced callers share the result instance. The domain objects are mutable and must be treated as
+ * read-only by callers that use this service.
+ * 
+ * <br/>
+ * POST, PUT, DELETE and item streaming are forwarded unchanged.
+ */
+public class CoalescingHttpService extends ForwardingHttpService {
+
+	private final ConcurrentMap<RequestKey, FutureTask<Object>> inFlight = new ConcurrentHashMap<RequestKey, FutureTask<Object>>();
+
+	private final AtomicLong requests = new AtomicLong();
+
+	private final AtomicLong coalescedRequests = new AtomicLong();
+
+	public CoalescingHttpService(HttpService delegate) {
+		super(delegate);
+	}
+
+	@Override
+	public <R> R get(final String url, final Class<R> responseType, final Object... uriVariables) {
+
+		requests.incrementAndGet();
+
+		RequestKey key = new RequestKey(url, responseType, uriVariables);
+
+		FutureTask<Object> call = new FutureTask<Object>(new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				return delegate.get(url, responseType, uriVariables);
+			}
+		});
+
+		FutureTask<Object> leader = inFlight.putIfAbsent(key, call);
+
+		if (leader == null) {
+			try {
+				call.run();
+			} finally {
+				inFlight.remove(key, call);
+			}
+			return responseType.cast(await(call));
+		}
+
+		coalescedRequests.incrementAndGet();
+
+		return responseType.cast(await(leader));
+	}
+
+	/**
+	 * @return Number of GET requests received from the callers.
+	 */
+	public long getRequests() {
+		return requests.get();
+	}
+
+	/**
+	 * @return Number of GET requests that joined an in-flight call instead of being sent to the server.
+	 */
+	public long getCoalescedRequests() {
+		return coalescedRequests.get();
+	}
+
+	/**
+	 * @return Number of GET requests sent to the server.
+	 */
+	public long getExecutedRequests() {
+		return getRequests() - getCoalescedRequests();
+	}
+
+	private static Object await(FutureTask<Object> call) {
+
+		boolean interrupted = false;
+
+		try {
+			while (true) {
+				try {
+					return call.get();
+				} catch (InterruptedException e) {
+					// the shared call keeps running for the other callers; wait for it and restore the flag
+					interrupted = true;
+				}
+			}
+		} catch (ExecutionException e) {
+			throw Futures.unwrap(e);
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
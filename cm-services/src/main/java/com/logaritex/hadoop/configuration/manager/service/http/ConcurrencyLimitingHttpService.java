@@ -0,0 +1,186 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import com.logaritex.hadoop.configuration.manager.domain.ItemList;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+
+/**
+ * {@link HttpService} decorator that keeps the number of concurrent requests to the Cloudera Manager server at what it
+ * can serve without queueing.
+ * 
+ * Every {@link EndpointGroup} (metrics, commands, config and the rest) has its own {@link AimdLimiter}, whose limit
+ * follows the measured latency of the group's requests. Callers above the limit block until a request of the group
+ * completes, so a fan-out of metric reads slows down instead of overloading the server, without holding back the
+ * other groups. The latency of a request is compared with the baseline of its own URL template, so cheap and
+ * expensive requests can share a group.
+ * 
+ * <br/>
+ * Only failures that indicate overload (see {@link #isOverload(Throwable)}) lower the limit. An error answer such as
+ * 404 counts like any other response.
+ */
+public class ConcurrencyLimitingHttpService extends ForwardingHttpService {
+
+	public static final int DEFAULT_INITIAL_LIMIT = 10;
+
+	public static final int DEFAULT_MIN_LIMIT = 1;
+
+	public static final int DEFAULT_MAX_LIMIT = 100;
+
+	private final Map<EndpointGroup, AimdLimiter> limiters;
+
+	public ConcurrencyLimitingHttpService(HttpService delegate) {
+		this(delegate, Collections.<EndpointGroup, AimdLimiter> emptyMap());
+	}
+
+	/**
+	 * @param delegate
+	 *            The service to limit.
+	 * @param limiters
+	 *            Limiters of the endpoint groups. Groups without a limiter get one with the default limits.
+	 */
+	public ConcurrencyLimitingHttpService(HttpService delegate, Map<EndpointGroup, AimdLimiter> limiters) {
+		super(delegate);
+		this.limiters = new EnumMap<EndpointGroup, AimdLimiter>(EndpointGroup.class);
+		for (EndpointGroup group : EndpointGroup.values()) {
+			AimdLimiter limiter = limiters.get(group);
+			if (limiter == null) {
+				limiter = new AimdLimiter(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+			}
+			this.limiters.put(group, limiter);
+		}
+	}
+
+	/**
+	 * @return The limiter of the endpoint group.
+	 */
+	public AimdLimiter getLimiter(EndpointGroup group) {
+		return limiters.get(group);
+	}
+
+	@Override
+	public <R> R get(String url, Class<R> responseType, Object... uriVariables) {
+		AimdLimiter limiter = acquire(url);
+		long start = System.nanoTime();
+		boolean overloaded = false;
+		try {
+			return delegate.get(url, responseType, uriVariables);
+		} catch (RuntimeException e) {
+			overloaded = isOverload(e);
+			throw e;
+		} finally {
+			limiter.release(url, System.nanoTime() - start, overloaded);
+		}
+	}
+
+	@Override
+	public <R> R post(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		AimdLimiter limiter = acquire(url);
+		long start = System.nanoTime();
+		boolean overloaded = false;
+		try {
+			return delegate.post(url, request, responseType, uriVariables);
+		} catch (RuntimeException e) {
+			overloaded = isOverload(e);
+			throw e;
+		} finally {
+			limiter.release(url, System.nanoTime() - start, overloaded);
+		}
+	}
+
+	@Override
+	public <R> R delete(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		AimdLimiter limiter = acquire(url);
+		long start = System.nanoTime();
+		boolean overloaded = false;
+		try {
+			return delegate.delete(url, request, responseType, uriVariables);
+		} catch (RuntimeException e) {
+			overloaded = isOverload(e);
+			throw e;
+		} finally {
+			limiter.release(url, System.nanoTime() - start, overloaded);
+		}
+	}
+
+	@Override
+	public <R> R put(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		AimdLimiter limiter = acquire(url);
+		long start = System.nanoTime();
+		boolean overloaded = false;
+		try {
+			return delegate.put(url, request, responseType, uriVariables);
+		} catch (RuntimeException e) {
+			overloaded = isOverload(e);
+			throw e;
+		} finally {
+			limiter.release(url, System.nanoTime() - start, overloaded);
+		}
+	}
+
+	@Override
+	public <T> void getItems(String url, Class<? extends ItemList<T>> listType, ItemCallback<? super T> callback,
+			Object... uriVariables) {
+		AimdLimiter limiter = acquire(url);
+		long start = System.nanoTime();
+		boolean overloaded = false;
+		try {
+			super.getItems(url, listType, callback, uriVariables);
+		} catch (RuntimeException e) {
+			overloaded = isOverload(e);
+			throw e;
+		} finally {
+			limiter.release(url, System.nanoTime() - start, overloaded);
+		}
+	}
+
+	/**
+	 * @return True if the failure indicates an overloaded server: a timeout, an I/O error, 429 (Too Many Requests) or
+	 *         a 5xx status. Other errors, such as 404, are regular answers of a server that keeps up.
+	 */
+	static boolean isOverload(Throwable failure) {
+		for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+			if (cause instanceof HttpStatusException) {
+				int statusCode = ((HttpStatusException) cause).getStatusCode();
+				return statusCode == 429 || statusCode >= 500;
+			}
+			if (cause instanceof IOException || cause instanceof TimeoutException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private AimdLimiter acquire(String url) {
+		AimdLimiter limiter = limiters.get(EndpointGroup.of(url));
+		try {
+			limiter.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting to send " + url, e);
+		}
+		return limiter;
+	}
+}
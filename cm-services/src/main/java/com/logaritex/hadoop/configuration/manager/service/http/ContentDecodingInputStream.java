@@ -0,0 +1,199 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decodes a gzip or deflate encoded HTTP response body while it is read, and counts the bytes received on the wire and
+ * the decoded bytes.
+ * 
+ * Bodies with no (or an unsupported) content encoding are passed through unchanged. The decoder is created lazily on
+ * the first read, so wrapping an unread response costs nothing.
+ * 
+ * Instances are not thread safe; a response body is read by a single thread.
+ */
+public class ContentDecodingInputStream extends InputStream {
+
+	public static final String GZIP = "gzip";
+
+	public static final String DEFLATE = "deflate";
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final CountingInputStream wire;
+
+	private final String contentEncoding;
+
+	private InputStream decoded;
+
+	private long decodedBytes;
+
+	/**
+	 * @param wire
+	 *            The response body as received from the server.
+	 * @param contentEncoding
+	 *            The value of the Content-Encoding response header. May be null.
+	 */
+	public ContentDecodingInputStream(InputStream wire, String contentEncoding) {
+		this.wire = new CountingInputStream(wire);
+		this.contentEncoding = contentEncoding == null ? null : contentEncoding.trim().toLowerCase();
+	}
+
+	/**
+	 * @return True if the body is gzip or deflate encoded.
+	 */
+	public boolean isCompressed() {
+		return isGzip() || isDeflate();
+	}
+
+	/**
+	 * @return Number of bytes read from the wire so far.
+	 */
+	public long getWireBytes() {
+		return wire.count;
+	}
+
+	/**
+	 * @return Number of decoded bytes returned to the reader so far.
+	 */
+	public long getDecodedBytes() {
+		return decodedBytes;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = decoded().read();
+		if (b >= 0) {
+			decodedBytes++;
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int n = decoded().read(b, off, len);
+		if (n > 0) {
+			decodedBytes += n;
+		}
+		return n;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return decoded().available();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (decoded != null) {
+			decoded.close();
+		} else {
+			wire.close();
+		}
+	}
+
+	private InputStream decoded() throws IOException {
+		if (decoded == null) {
+			if (isGzip()) {
+				decoded = new GZIPInputStream(wire, BUFFER_SIZE);
+			} else if (isDeflate()) {
+				decoded = inflater(wire);
+			} else {
+				decoded = wire;
+			}
+		}
+		return decoded;
+	}
+
+	private boolean isGzip() {
+		return GZIP.equals(contentEncoding) || "x-gzip".equals(contentEncoding);
+	}
+
+	private boolean isDeflate() {
+		return DEFLATE.equals(contentEncoding);
+	}
+
+	/**
+	 * HTTP "deflate" is meant to be zlib wrapped, but some servers send raw deflate data. Peek at the zlib header to
+	 * tell them apart.
+	 */
+	private static InputStream inflater(InputStream in) throws IOException {
+
+		PushbackInputStream pushback = new PushbackInputStream(in, 2);
+
+		int cmf = pushback.read();
+		int flg = pushback.read();
+
+		if (flg >= 0) {
+			pushback.unread(flg);
+		}
+		if (cmf >= 0) {
+			pushback.unread(cmf);
+		}
+
+		boolean zlibWrapped = cmf >= 0 && flg >= 0 && (cmf & 0x0F) == 8 && ((cmf << 8) + flg) % 31 == 0;
+
+		return new InflaterInputStream(pushback, new Inflater(!zlibWrapped), BUFFER_SIZE);
+	}
+
+	private static class CountingInputStream extends FilterInputStream {
+
+		private long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+/**
+ * Coarse classification of the Cloudera Manager endpoints by their cost and the server resources they use, so that
+ * they can be throttled independently.
+ */
+public enum EndpointGroup {
+
+	/**
+	 * Host, service and role metrics (/metrics).
+	 */
+	METRICS,
+
+	/**
+	 * Command submission and command listings (/commands, /roleCommands).
+	 */
+	COMMANDS,
+
+	/**
+	 * Configuration reads and updates (/config).
+	 */
+	CONFIG,
+
+	/**
+	 * Everything else: clusters, services, roles, hosts, users.
+	 */
+	DEFAULT;
+
+	/**
+	 * @param urlTemplate
+	 *            The endpoint URL template (e.g. /api/v1/hosts/{hostId}/metrics).
+	 * @return The group of the endpoint.
+	 */
+	public static EndpointGroup of(String urlTemplate) {
+		int query = urlTemplate.indexOf('?');
+		String path = query < 0 ? urlTemplate : urlTemplate.substring(0, query);
+
+		if (path.contains("/metrics")) {
+			return METRICS;
+		}
+		if (path.contains("/commands") || path.contains("/roleCommands")) {
+			return COMMANDS;
+		}
+		if (path.contains("/config")) {
+			return CONFIG;
+		}
+		return DEFAULT;
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.logaritex.hadoop.configuration.manager.service.AsyncHttpService;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+
+/**
+ * {@link AsyncHttpService} that runs the calls of a blocking {@link HttpService} on an {@link ExecutorService}.
+ * 
+ * The number of requests in flight is bounded by the executor's threads (and by the connections of the underlying
+ * transport). The executor is owned by the caller and is not shut down by this service.
+ * 
+ * The calls run with the {@link RequestPriority} of the submitting thread.
+ */
+public class ExecutorAsyncHttpService implements AsyncHttpService {
+
+	private final HttpService http;
+
+	private final ExecutorService executor;
+
+	public ExecutorAsyncHttpService(HttpService httpService, ExecutorService executor) {
+		this.http = httpService;
+		this.executor = executor;
+	}
+
+	@Override
+	public <R> Future<R> get(final String url, final Class<R> responseType, final Object... uriVariables) {
+		return executor.submit(prioritized(new Callable<R>() {
+			@Override
+			public R call() throws Exception {
+				return http.get(url, responseType, uriVariables);
+			}
+		}));
+	}
+
+	@Override
+	public <R> Future<R> post(final String url, final Object request, final Class<R> responseType,
+			final Object... uriVariables) {
+		return executor.submit(prioritized(new Callable<R>() {
+			@Override
+			public R call() throws Exception {
+				return http.post(url, request, responseType, uriVariables);
+			}
+		}));
+	}
+
+	@Override
+	public <R> Future<R> delete(final String url, final Object request, final Class<R> responseType,
+			final Object... uriVariables) {
+		return executor.submit(prioritized(new Callable<R>() {
+			@Override
+			public R call() throws Exception {
+				return http.delete(url, request, responseType, uriVariables);
+			}
+		}));
+	}
+
+	@Override
+	public <R> Future<R> put(final String url, final Object request, final Class<R> responseType,
+			final Object... uriVariables) {
+		return executor.submit(prioritized(new Callable<R>() {
+			@Override
+			public R call() throws Exception {
+				return http.put(url, request, responseType, uriVariables);
+			}
+		}));
+	}
+
+	/**
+	 * Runs the call with the request priority of the submitting thread.
+	 */
+	private static <R> Callable<R> prioritized(final Callable<R> call) {
+
+		final RequestPriority priority = RequestPriority.current();
+		if (priority == null) {
+			return call;
+		}
+
+		return new Callable<R>() {
+			@Override
+			public R call() throws Exception {
+				RequestPriority previous = priority.enter();
+				try {
+					return call.call();
+				} finally {
+					RequestPriority.restore(previous);
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import com.logaritex.hadoop.configuration.manager.domain.ItemList;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+import com.logaritex.hadoop.configuration.manager.service.StreamingHttpService;
+
+/**
+ * Base class for {@link HttpService} decorators. Forwards all calls to the wrapped service; subclasses override the
+ * calls they add behavior to.
+ * 
+ * Item streaming is forwarded to the wrapped service when it supports it (see {@link ItemStreams}), so decorators can
+ * be stacked without losing the streaming mode of the transport.
+ */
+public abstract class ForwardingHttpService implements StreamingHttpService {
+
+	protected final HttpService delegate;
+
+	protected ForwardingHttpService(HttpService delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @return The wrapped service.
+	 */
+	public HttpService getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public <R> R get(String url, Class<R> responseType, Object... uriVariables) {
+		return delegate.get(url, responseType, uriVariables);
+	}
+
+	@Override
+	public <R> R post(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return delegate.post(url, request, responseType, uriVariables);
+	}
+
+	@Override
+	public <R> R delete(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return delegate.delete(url, request, responseType, uriVariables);
+	}
+
+	@Override
+	public <R> R put(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return delegate.put(url, request, responseType, uriVariables);
+	}
+
+	@Override
+	public <T> void getItems(String url, Class<? extends ItemList<T>> listType, ItemCallback<? super T> callback,
+			Object... uriVariables) {
+		ItemStreams.getItems(delegate, url, listType, callback, uriVariables);
+	}
+}
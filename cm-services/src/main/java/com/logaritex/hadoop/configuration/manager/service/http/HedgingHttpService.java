@@ -0,0 +1,295 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+
+/**
+ * {@link HttpService} decorator that hedges slow GET requests to cut the tail latency.
+ * 
+ * A GET that has not completed after the configured percentile (e.g. p95) of the recently observed latencies of its URL
+ * template is sent a second time. The first response wins and the other request is cancelled. The recorded latencies
+ * are the ones the callers observed, hedged or not, so the slow requests that trigger hedges keep counting in the
+ * percentile. The additional load is capped by a hedge budget: every request earns a fraction ({@code maxHedgeRatio})
+ * of a hedge and at most {@code maxHedgeBurst} unused hedges are kept, so a burst of slow responses can not double the
+ * load on an already struggling server.
+ * 
+ * <br/>
+ * Both the original and the hedged request run on the given executor, which must provide at least two threads per
+ * concurrent caller to hedge effectively. Until enough latencies are observed requests are not hedged and run on the
+ * calling thread. Cancellation interrupts the losing request; whether that aborts the transfer depends on the
+ * transport.
+ * 
+ * <br/>
+ * Only GETs are hedged. POST, PUT, DELETE and item streaming are forwarded unchanged.
+ */
+public class HedgingHttpService extends ForwardingHttpService {
+
+	public static final double DEFAULT_PERCENTILE = 0.95;
+
+	public static final double DEFAULT_MAX_HEDGE_RATIO = 0.05;
+
+	public static final int DEFAULT_MAX_HEDGE_BURST = 10;
+
+	public static final long DEFAULT_MIN_DELAY_MS = 5;
+
+	public static final int DEFAULT_WINDOW_SIZE = 1024;
+
+	private final ExecutorService executor;
+
+	private final ConcurrentMap<String, LatencyWindow> latencies = new ConcurrentHashMap<String, LatencyWindow>();
+
+	private final double percentile;
+
+	private final long minDelayNanos;
+
+	private final double maxHedgeRatio;
+
+	private final int maxHedgeBurst;
+
+	private double hedgeBudget;
+
+	private long lastHedgeRequests;
+
+	private final AtomicLong requests = new AtomicLong();
+
+	private final AtomicLong hedges = new AtomicLong();
+
+	private final AtomicLong hedgesWon = new AtomicLong();
+
+	public HedgingHttpService(HttpService delegate, ExecutorService executor) {
+		this(delegate, executor, DEFAULT_PERCENTILE, DEFAULT_MAX_HEDGE_RATIO, DEFAULT_MAX_HEDGE_BURST,
+				DEFAULT_MIN_DELAY_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @param delegate
+	 *            The service to hedge the GETs of.
+	 * @param executor
+	 *            Runs the original and the hedged requests. Owned by the caller.
+	 * @param percentile
+	 *            Latency percentile (0..1) of the recent GETs of the same URL template after which a request is
+	 *            hedged.
+	 * @param maxHedgeRatio
+	 *            Maximum fraction of the GETs that may be hedged.
+	 * @param maxHedgeBurst
+	 *            Maximum number of hedges that can be sent in a row.
+	 * @param minDelay
+	 *            Lower bound of the hedge delay.
+	 */
+	public HedgingHttpService(HttpService delegate, ExecutorService executor, double percentile,
+			double maxHedgeRatio, int maxHedgeBurst, long minDelay, TimeUnit unit) {
+		super(delegate);
+		this.executor = executor;
+		this.percentile = percentile;
+		this.maxHedgeRatio = maxHedgeRatio;
+		this.maxHedgeBurst = maxHedgeBurst;
+		this.minDelayNanos = unit.toNanos(minDelay);
+	}
+
+	@Override
+	public <R> R get(String url, Class<R> responseType, Object... uriVariables) {
+
+		requests.incrementAndGet();
+
+		LatencyWindow window = getLatencies(url);
+		long start = System.nanoTime();
+		R result = get(window.getPercentile(), url, responseType, uriVariables);
+		window.record(System.nanoTime() - start);
+		return result;
+	}
+
+	private <R> R get(long percentileNanos, String url, Class<R> responseType, Object... uriVariables) {
+
+		if (percentileNanos < 0) {
+			// not enough samples yet
+			return delegate.get(url, responseType, uriVariables);
+		}
+
+		CompletionService<Object> completion = new ExecutorCompletionService<Object>(executor);
+
+		Future<Object> primary = completion.submit(attempt(url, responseType, uriVariables));
+		Future<Object> hedge = null;
+
+		try {
+			Future<Object> first = completion.poll(Math.max(percentileNanos, minDelayNanos), TimeUnit.NANOSECONDS);
+
+			if (first == null) {
+				if (acquireHedge()) {
+					hedges.incrementAndGet();
+					hedge = completion.submit(attempt(url, responseType, uriVariables));
+				}
+				first = completion.take();
+			}
+
+			try {
+				return responseType.cast(result(first, hedge));
+			} catch (ExecutionException e) {
+				if (hedge == null) {
+					throw Futures.unwrap(e);
+				}
+				// the other request may still succeed
+			}
+
+			try {
+				return responseType.cast(result(completion.take(), hedge));
+			} catch (ExecutionException e) {
+				throw Futures.unwrap(e);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for " + url, e);
+		} finally {
+			primary.cancel(true);
+			if (hedge != null) {
+				hedge.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * @return Number of GET requests received from the callers.
+	 */
+	public long getRequests() {
+		return requests.get();
+	}
+
+	/**
+	 * @return Number of hedged (duplicate) GET requests sent.
+	 */
+	public long getHedges() {
+		return hedges.get();
+	}
+
+	/**
+	 * @return Number of hedged requests that answered before the original request.
+	 */
+	public long getHedgesWon() {
+		return hedgesWon.get();
+	}
+
+	/**
+	 * @return Current delay after which a GET of the URL template is hedged, or -1 while not enough latencies are
+	 *         observed.
+	 */
+	public long getHedgeDelay(String urlTemplate, TimeUnit unit) {
+		LatencyWindow window = latencies.get(urlTemplate);
+		long percentileNanos = window == null ? -1 : window.getPercentile();
+		return percentileNanos < 0 ? -1 : unit.convert(Math.max(percentileNanos, minDelayNanos), TimeUnit.NANOSECONDS);
+	}
+
+	private Object result(Future<Object> future, Future<Object> hedge) throws InterruptedException,
+			ExecutionException {
+		Object result = future.get();
+		if (future == hedge) {
+			hedgesWon.incrementAndGet();
+		}
+		return result;
+	}
+
+	private synchronized boolean acquireHedge() {
+		hedgeBudget = Math.min(hedgeBudget + maxHedgeRatio * requestsSinceLastHedge(), maxHedgeBurst);
+		if (hedgeBudget >= 1) {
+			hedgeBudget -= 1;
+			return true;
+		}
+		return false;
+	}
+
+	// called with the lock held
+	private long requestsSinceLastHedge() {
+		long current = requests.get();
+		long delta = current - lastHedgeRequests;
+		lastHedgeRequests = current;
+		return delta;
+	}
+
+	private LatencyWindow getLatencies(String urlTemplate) {
+		LatencyWindow window = latencies.get(urlTemplate);
+		if (window == null) {
+			LatencyWindow newWindow = new LatencyWindow(DEFAULT_WINDOW_SIZE, percentile);
+			window = latencies.putIfAbsent(urlTemplate, newWindow);
+			if (window == null) {
+				window = newWindow;
+			}
+		}
+		return window;
+	}
+
+	private Callable<Object> attempt(final String url, final Class<?> responseType, final Object... uriVariables) {
+		return new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				return delegate.get(url, responseType, uriVariables);
+			}
+		};
+	}
+
+	/**
+	 * Sliding window of the most recent latencies. The percentile is recomputed every {@link #RECOMPUTE_INTERVAL}
+	 * samples rather than on every request.
+	 */
+	static class LatencyWindow {
+
+		static final int MIN_SAMPLES = 100;
+
+		static final int RECOMPUTE_INTERVAL = 64;
+
+		private final long[] samples;
+
+		private final double percentile;
+
+		private long count;
+
+		private volatile long percentileNanos = -1;
+
+		LatencyWindow(int size, double percentile) {
+			this.samples = new long[size];
+			this.percentile = percentile;
+		}
+
+		synchronized void record(long latencyNanos) {
+			samples[(int) (count % samples.length)] = latencyNanos;
+			count++;
+			if (count >= MIN_SAMPLES && count % RECOMPUTE_INTERVAL == 0) {
+				long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+				Arrays.sort(sorted);
+				percentileNanos = sorted[(int) Math.min(sorted.length - 1, Math.floor(percentile * sorted.length))];
+			}
+		}
+
+		/**
+		 * @return The latency percentile in nanoseconds or -1 if not enough samples are recorded.
+		 */
+		long getPercentile() {
+			return percentileNanos;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+/**
+ * Thrown by the transports when the Cloudera Manager server answers with an error status (4xx or 5xx).
+ */
+public class HttpStatusException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int statusCode;
+
+	private final String url;
+
+	/**
+	 * @param statusCode
+	 *            The HTTP status code of the response.
+	 * @param url
+	 *            The expanded request URL.
+	 */
+	public HttpStatusException(int statusCode, String url) {
+		this(statusCode, url, null);
+	}
+
+	/**
+	 * @param statusCode
+	 *            The HTTP status code of the response.
+	 * @param url
+	 *            The expanded request URL.
+	 * @param cause
+	 *            The transport specific error, or null.
+	 */
+	public HttpStatusException(int statusCode, String url, Throwable cause) {
+		super(statusCode + " response for " + url, cause);
+		this.statusCode = statusCode;
+		this.url = url;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+}
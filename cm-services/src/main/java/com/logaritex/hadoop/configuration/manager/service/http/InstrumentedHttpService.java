@@ -0,0 +1,325 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.logaritex.hadoop.configuration.manager.domain.ItemList;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+import com.logaritex.hadoop.configuration.manager.service.http.TransferStatistics.EndpointTransfer;
+
+/**
+ * {@link HttpService} decorator that measures every endpoint from the client side: a {@link LatencyHistogram}, the
+ * request and error counts and the number of requests in flight.
+ * 
+ * <br/>
+ * Endpoints are identified by their URL template (e.g. HostServiceImpl.HOST_METRICS_PATH), not by the expanded URL,
+ * so the number of endpoints stays bounded; all HTTP methods of a template share its counters. The request and
+ * response byte counts come from the {@link TransferStatistics} of the transport, if given.
+ * 
+ * <br/>
+ * Recording allocates nothing once an endpoint is known. The counters are read live through
+ * {@link #getEndpoint(String)} or copied with {@link #snapshot()}.
+ */
+public class InstrumentedHttpService extends ForwardingHttpService {
+
+	private final TransferStatistics transferStatistics;
+
+	private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<String, EndpointMetrics>();
+
+	public InstrumentedHttpService(HttpService delegate) {
+		this(delegate, null);
+	}
+
+	/**
+	 * @param delegate
+	 *            The service to measure.
+	 * @param transferStatistics
+	 *            The byte counters of the transport (e.g. SimpleHttpService.getTransferStatistics()), or null.
+	 */
+	public InstrumentedHttpService(HttpService delegate, TransferStatistics transferStatistics) {
+		super(delegate);
+		this.transferStatistics = transferStatistics;
+	}
+
+	/**
+	 * @return The live counters of the endpoint. Created on first use.
+	 */
+	public EndpointMetrics getEndpoint(String urlTemplate) {
+		EndpointMetrics endpoint = endpoints.get(urlTemplate);
+		if (endpoint == null) {
+			EndpointMetrics newEndpoint = new EndpointMetrics();
+			endpoint = endpoints.putIfAbsent(urlTemplate, newEndpoint);
+			if (endpoint == null) {
+				endpoint = newEndpoint;
+			}
+		}
+		return endpoint;
+	}
+
+	/**
+	 * @return Live view of all endpoint counters, keyed by URL template.
+	 */
+	public Map<String, EndpointMetrics> getEndpoints() {
+		return Collections.unmodifiableMap(endpoints);
+	}
+
+	/**
+	 * @return A copy of the counters of all endpoints, sorted by URL template.
+	 */
+	public Map<String, EndpointSnapshot> snapshot() {
+		Map<String, EndpointSnapshot> snapshot = new TreeMap<String, EndpointSnapshot>();
+		for (Map.Entry<String, EndpointMetrics> entry : endpoints.entrySet()) {
+			String urlTemplate = entry.getKey();
+			EndpointTransfer transfer = transferStatistics == null ? null : transferStatistics
+					.getEndpoints().get(urlTemplate);
+			snapshot.put(urlTemplate, new EndpointSnapshot(urlTemplate, entry.getValue(), transfer));
+		}
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	/**
+	 * Clears the latencies and the request and error counts of all endpoints. Requests in flight are still counted.
+	 * The byte counts belong to the transport and are not reset.
+	 */
+	public void reset() {
+		for (EndpointMetrics endpoint : endpoints.values()) {
+			endpoint.reset();
+		}
+	}
+
+	@Override
+	public <R> R get(String url, Class<R> responseType, Object... uriVariables) {
+		EndpointMetrics endpoint = getEndpoint(url);
+		long start = endpoint.start();
+		boolean failed = true;
+		try {
+			R result = delegate.get(url, responseType, uriVariables);
+			failed = false;
+			return result;
+		} finally {
+			endpoint.complete(start, failed);
+		}
+	}
+
+	@Override
+	public <R> R post(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		EndpointMetrics endpoint = getEndpoint(url);
+		long start = endpoint.start();
+		boolean failed = true;
+		try {
+			R result = delegate.post(url, request, responseType, uriVariables);
+			failed = false;
+			return result;
+		} finally {
+			endpoint.complete(start, failed);
+		}
+	}
+
+	@Override
+	public <R> R delete(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		EndpointMetrics endpoint = getEndpoint(url);
+		long start = endpoint.start();
+		boolean failed = true;
+		try {
+			R result = delegate.delete(url, request, responseType, uriVariables);
+			failed = false;
+			return result;
+		} finally {
+			endpoint.complete(start, failed);
+		}
+	}
+
+	@Override
+	public <R> R put(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		EndpointMetrics endpoint = getEndpoint(url);
+		long start = endpoint.start();
+		boolean failed = true;
+		try {
+			R result = delegate.put(url, request, responseType, uriVariables);
+			failed = false;
+			return result;
+		} finally {
+			endpoint.complete(start, failed);
+		}
+	}
+
+	@Override
+	public <T> void getItems(String url, Class<? extends ItemList<T>> listType, ItemCallback<? super T> callback,
+			Object... uriVariables) {
+		EndpointMetrics endpoint = getEndpoint(url);
+		long start = endpoint.start();
+		boolean failed = true;
+		try {
+			super.getItems(url, listType, callback, uriVariables);
+			failed = false;
+		} finally {
+			endpoint.complete(start, failed);
+		}
+	}
+
+	/**
+	 * Live counters of a single endpoint.
+	 */
+	public static class EndpointMetrics {
+
+		private final LatencyHistogram latency = new LatencyHistogram();
+
+		private final AtomicLong requests = new AtomicLong();
+
+		private final AtomicLong errors = new AtomicLong();
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		long start() {
+			requests.incrementAndGet();
+			inFlight.incrementAndGet();
+			return System.nanoTime();
+		}
+
+		void complete(long start, boolean failed) {
+			latency.record(System.nanoTime() - start);
+			inFlight.decrementAndGet();
+			if (failed) {
+				errors.incrementAndGet();
+			}
+		}
+
+		void reset() {
+			latency.reset();
+			requests.set(0);
+			errors.set(0);
+		}
+
+		/**
+		 * @return Latencies of the completed (successful or failed) requests.
+		 */
+		public LatencyHistogram getLatency() {
+			return latency;
+		}
+
+		/**
+		 * @return Number of requests started.
+		 */
+		public long getRequests() {
+			return requests.get();
+		}
+
+		/**
+		 * @return Number of requests that failed with an exception.
+		 */
+		public long getErrors() {
+			return errors.get();
+		}
+
+		/**
+		 * @return Number of requests in flight.
+		 */
+		public int getInFlight() {
+			return inFlight.get();
+		}
+	}
+
+	/**
+	 * Immutable copy of the counters of a single endpoint.
+	 */
+	public static class EndpointSnapshot {
+
+		private final String urlTemplate;
+
+		private final long requests;
+
+		private final long errors;
+
+		private final int inFlight;
+
+		private final LatencyHistogram.Snapshot latency;
+
+		private final long requestBytes;
+
+		private final long responseWireBytes;
+
+		private final long responseBytes;
+
+		EndpointSnapshot(String urlTemplate, EndpointMetrics endpoint, EndpointTransfer transfer) {
+			this.urlTemplate = urlTemplate;
+			this.requests = endpoint.getRequests();
+			this.errors = endpoint.getErrors();
+			this.inFlight = endpoint.getInFlight();
+			this.latency = endpoint.getLatency().snapshot();
+			this.requestBytes = transfer == null ? 0 : transfer.getRequestBytes();
+			this.responseWireBytes = transfer == null ? 0 : transfer.getWireBytes();
+			this.responseBytes = transfer == null ? 0 : transfer.getDecodedBytes();
+		}
+
+		public String getUrlTemplate() {
+			return urlTemplate;
+		}
+
+		public long getRequests() {
+			return requests;
+		}
+
+		public long getErrors() {
+			return errors;
+		}
+
+		public int getInFlight() {
+			return inFlight;
+		}
+
+		public LatencyHistogram.Snapshot getLatency() {
+			return latency;
+		}
+
+		/**
+		 * @return Request body bytes sent, or zero without transfer statistics.
+		 */
+		public long getRequestBytes() {
+			return requestBytes;
+		}
+
+		/**
+		 * @return Response body bytes received on the wire (compressed size), or zero without transfer statistics.
+		 */
+		public long getResponseWireBytes() {
+			return responseWireBytes;
+		}
+
+		/**
+		 * @return Decoded response body bytes, or zero without transfer statistics.
+		 */
+		public long getResponseBytes() {
+			return responseBytes;
+		}
+
+		@Override
+		public String toString() {
+			return "EndpointSnapshot [urlTemplate=" + urlTemplate + ", requests=" + requests + ", errors=" + errors
+					+ ", inFlight=" + inFlight + ", latency=(" + latency + "), requestBytes=" + requestBytes
+					+ ", responseWireBytes=" + responseWireBytes + ", responseBytes=" + responseBytes + "]";
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import com.logaritex.hadoop.configuration.manager.domain.ItemList;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+import com.logaritex.hadoop.configuration.manager.service.StreamingHttpService;
+
+/**
+ * Helpers for reading list resources item by item over any {@link HttpService}.
+ */
+public final class ItemStreams {
+
+	private ItemStreams() {
+	}
+
+	/**
+	 * Passes the items of a list resource to the callback. Streams the response when the service is a
+	 * {@link StreamingHttpService}; otherwise reads the whole list first and then iterates over it.
+	 */
+	public static <T> void getItems(HttpService http, String url, Class<? extends ItemList<T>> listType,
+			ItemCallback<? super T> callback, Object... uriVariables) {
+
+		if (http instanceof StreamingHttpService) {
+			((StreamingHttpService) http).getItems(url, listType, callback, uriVariables);
+			return;
+		}
+
+		ItemList<T> itemList = http.get(url, listType, uriVariables);
+
+		if (itemList == null || itemList.getItems() == null) {
+			return;
+		}
+
+		for (T item : itemList.getItems()) {
+			callback.onItem(item);
+		}
+	}
+}
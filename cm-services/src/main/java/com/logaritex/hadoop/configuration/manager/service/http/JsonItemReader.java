@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.type.JavaType;
+
+import com.logaritex.hadoop.configuration.manager.domain.ItemList;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+
+/**
+ * Reads the "items" array of an {@link ItemList} JSON document element by element.
+ * 
+ * Only one item is held in memory at a time. All other fields of the document are skipped.
+ */
+public class JsonItemReader {
+
+	private static final String ITEMS_FIELD = "items";
+
+	private final ObjectMapper objectMapper;
+
+	private final ConcurrentMap<Class<?>, JavaType> itemTypes = new ConcurrentHashMap<Class<?>, JavaType>();
+
+	public JsonItemReader() {
+		this(new ObjectMapper());
+	}
+
+	public JsonItemReader(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Parses the list document and passes every item to the callback.
+	 * 
+	 * @param in
+	 *            JSON document. Closed when done.
+	 * @param listType
+	 *            Type of the list document. Defines the type of the items.
+	 * @param callback
+	 *            Receives the items
+	 * @return The number of items read
+	 */
+	public <T> int read(InputStream in, Class<? extends ItemList<T>> listType, ItemCallback<? super T> callback)
+			throws IOException {
+
+		JsonParser parser = objectMapper.getJsonFactory().createJsonParser(in);
+		try {
+			return read(parser, itemType(listType), callback);
+		} finally {
+			parser.close();
+		}
+	}
+
+	private <T> int read(JsonParser parser, JavaType itemType, ItemCallback<? super T> callback) throws IOException {
+
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			return 0;
+		}
+
+		int count = 0;
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+
+			if (ITEMS_FIELD.equals(fieldName) && token == JsonToken.START_ARRAY) {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					T item = objectMapper.<T> readValue(parser, itemType);
+					callback.onItem(item);
+					count++;
+				}
+			} else {
+				parser.skipChildren();
+			}
+		}
+
+		return count;
+	}
+
+	private JavaType itemType(Class<?> listType) {
+		JavaType itemType = itemTypes.get(listType);
+		if (itemType == null) {
+			JavaType[] typeParameters = objectMapper.getTypeFactory().findTypeParameters(listType, ItemList.class);
+			if (typeParameters == null || typeParameters.length != 1) {
+				throw new IllegalArgumentException("Can not resolve the item type of: " + listType.getName());
+			}
+			itemType = typeParameters[0];
+			itemTypes.putIfAbsent(listType, itemType);
+		}
+		return itemType;
+	}
+}
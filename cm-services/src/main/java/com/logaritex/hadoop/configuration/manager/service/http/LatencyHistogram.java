@@ -0,0 +1,190 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent latency histogram with log-linear buckets, in the manner of the HdrHistogram.
+ * 
+ * <br/>
+ * Values are recorded with microsecond resolution. Every power of two range is split into {@link #SUB_BUCKETS}/2
+ * linear buckets, so the percentiles are exact to within 1/64 (~1.6%) of the value, from 1 microsecond up to
+ * {@link #MAX_VALUE_MICROS}; larger values are counted in the top bucket. Recording is a few atomic increments on a
+ * preallocated array: it allocates nothing and takes no lock.
+ * 
+ * <br/>
+ * A {@link #snapshot()} taken while values are recorded may miss some of them, but is otherwise consistent.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 7;
+
+	/**
+	 * Linear buckets below the first power of two range; every following range has half as many.
+	 */
+	public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+	private static final int MAX_VALUE_BITS = 36;
+
+	/**
+	 * Largest value that is told apart, about 19 hours.
+	 */
+	public static final long MAX_VALUE_MICROS = (1L << MAX_VALUE_BITS) - 1;
+
+	private static final int BUCKETS = bucketIndex(MAX_VALUE_MICROS) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong sumMicros = new AtomicLong();
+
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	/**
+	 * @param nanos
+	 *            The latency to record, in nanoseconds.
+	 */
+	public void record(long nanos) {
+		long micros = Math.min(Math.max(nanos / 1000, 0), MAX_VALUE_MICROS);
+
+		counts.incrementAndGet(bucketIndex(micros));
+		count.incrementAndGet();
+		sumMicros.addAndGet(micros);
+
+		long max = maxMicros.get();
+		while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+			max = maxMicros.get();
+		}
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Clears all recorded values.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.set(0);
+		sumMicros.set(0);
+		maxMicros.set(0);
+	}
+
+	/**
+	 * @return A copy of the current counts, to compute percentiles from.
+	 */
+	public Snapshot snapshot() {
+		long[] copy = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			copy[i] = counts.get(i);
+			total += copy[i];
+		}
+		return new Snapshot(copy, total, sumMicros.get(), maxMicros.get());
+	}
+
+	static int bucketIndex(long micros) {
+		if (micros < SUB_BUCKETS) {
+			return (int) micros;
+		}
+		// micros >> shift falls in [HALF_SUB_BUCKETS, SUB_BUCKETS)
+		int shift = 63 - Long.numberOfLeadingZeros(micros) - (SUB_BUCKET_BITS - 1);
+		return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (micros >> shift) - HALF_SUB_BUCKETS;
+	}
+
+	/**
+	 * @return The highest value that falls in the bucket.
+	 */
+	static long bucketUpperBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+		long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * Immutable copy of the histogram. All values are in nanoseconds.
+	 */
+	public static class Snapshot {
+
+		private final long[] counts;
+
+		private final long count;
+
+		private final long sumMicros;
+
+		private final long maxMicros;
+
+		Snapshot(long[] counts, long count, long sumMicros, long maxMicros) {
+			this.counts = counts;
+			this.count = count;
+			this.sumMicros = sumMicros;
+			this.maxMicros = maxMicros;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getMeanNanos() {
+			return count == 0 ? 0 : sumMicros * 1000 / count;
+		}
+
+		public long getMaxNanos() {
+			return maxMicros * 1000;
+		}
+
+		/**
+		 * @param percentile
+		 *            Percentile between 0 and 100, e.g. 99.9
+		 * @return The value below or at which the given percentage of the recorded values fall. Zero if nothing was
+		 *         recorded.
+		 */
+		public long getPercentileNanos(double percentile) {
+			if (count == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return Math.min(bucketUpperBound(i), maxMicros) * 1000;
+				}
+			}
+			return maxMicros * 1000;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("count=%d, mean=%.3fms, p50=%.3fms, p99=%.3fms, p99.9=%.3fms, max=%.3fms", count,
+					getMeanNanos() / 1e6, getPercentileNanos(50) / 1e6, getPercentileNanos(99) / 1e6,
+					getPercentileNanos(99.9) / 1e6, getMaxNanos() / 1e6);
+		}
+	}
+}
@@ -0,0 +1,259 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.logaritex.hadoop.configuration.manager.domain.ItemList;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+
+/**
+ * {@link HttpService} decorator that shares a fixed transport capacity (the number of requests in flight) between
+ * {@link RequestPriority#INTERACTIVE} and {@link RequestPriority#BULK} requests.
+ * 
+ * The priority of a request is the {@link RequestPriority#current()} priority of the calling thread, or the default
+ * priority of the service. While requests wait for capacity, a freed slot goes to the oldest interactive request, so
+ * an operator's call overtakes thousands of queued metric reads. To protect the bulk requests from starvation, every
+ * {@code bulkShare}-th slot goes to the oldest bulk request when both classes are waiting.
+ * 
+ * <br/>
+ * The capacity should match what the wrapped transport can serve concurrently (e.g. its connection pool size), so
+ * that requests queue here, where they can be reordered, instead of in the transport.
+ */
+public class PrioritySchedulingHttpService extends ForwardingHttpService {
+
+	public static final int DEFAULT_BULK_SHARE = 10;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Map<RequestPriority, Queue<Waiter>> queues = new EnumMap<RequestPriority, Queue<Waiter>>(
+			RequestPriority.class);
+
+	private final Map<RequestPriority, AtomicLong> completed = new EnumMap<RequestPriority, AtomicLong>(
+			RequestPriority.class);
+
+	private final int capacity;
+
+	private final int bulkShare;
+
+	private final RequestPriority defaultPriority;
+
+	private int inFlight;
+
+	private int interactiveGrants;
+
+	public PrioritySchedulingHttpService(HttpService delegate, int capacity) {
+		this(delegate, capacity, DEFAULT_BULK_SHARE, RequestPriority.INTERACTIVE);
+	}
+
+	/**
+	 * @param delegate
+	 *            The service to schedule the requests of.
+	 * @param capacity
+	 *            Maximum number of requests in flight.
+	 * @param bulkShare
+	 *            When both classes wait, one of every bulkShare slots goes to a bulk request.
+	 * @param defaultPriority
+	 *            Priority of the requests of threads without a {@link RequestPriority#current()} priority.
+	 */
+	public PrioritySchedulingHttpService(HttpService delegate, int capacity, int bulkShare,
+			RequestPriority defaultPriority) {
+		super(delegate);
+		this.capacity = capacity;
+		this.bulkShare = bulkShare;
+		this.defaultPriority = defaultPriority;
+		for (RequestPriority priority : RequestPriority.values()) {
+			queues.put(priority, new ArrayDeque<Waiter>());
+			completed.put(priority, new AtomicLong());
+		}
+	}
+
+	@Override
+	public <R> R get(String url, Class<R> responseType, Object... uriVariables) {
+		RequestPriority priority = acquire(url);
+		try {
+			return delegate.get(url, responseType, uriVariables);
+		} finally {
+			release(priority);
+		}
+	}
+
+	@Override
+	public <R> R post(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		RequestPriority priority = acquire(url);
+		try {
+			return delegate.post(url, request, responseType, uriVariables);
+		} finally {
+			release(priority);
+		}
+	}
+
+	@Override
+	public <R> R delete(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		RequestPriority priority = acquire(url);
+		try {
+			return delegate.delete(url, request, responseType, uriVariables);
+		} finally {
+			release(priority);
+		}
+	}
+
+	@Override
+	public <R> R put(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		RequestPriority priority = acquire(url);
+		try {
+			return delegate.put(url, request, responseType, uriVariables);
+		} finally {
+			release(priority);
+		}
+	}
+
+	@Override
+	public <T> void getItems(String url, Class<? extends ItemList<T>> listType, ItemCallback<? super T> callback,
+			Object... uriVariables) {
+		RequestPriority priority = acquire(url);
+		try {
+			super.getItems(url, listType, callback, uriVariables);
+		} finally {
+			release(priority);
+		}
+	}
+
+	/**
+	 * @return Number of requests of the priority class waiting for capacity.
+	 */
+	public int getWaiting(RequestPriority priority) {
+		lock.lock();
+		try {
+			return queues.get(priority).size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return Number of requests in flight.
+	 */
+	public int getInFlight() {
+		lock.lock();
+		try {
+			return inFlight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return Number of completed requests of the priority class.
+	 */
+	public long getCompleted(RequestPriority priority) {
+		return completed.get(priority).get();
+	}
+
+	private RequestPriority acquire(String url) {
+
+		RequestPriority priority = RequestPriority.current();
+		if (priority == null) {
+			priority = defaultPriority;
+		}
+
+		lock.lock();
+		try {
+			if (inFlight < capacity && queues.get(RequestPriority.INTERACTIVE).isEmpty()
+					&& queues.get(RequestPriority.BULK).isEmpty()) {
+				inFlight++;
+				return priority;
+			}
+
+			Waiter waiter = new Waiter(lock.newCondition());
+			queues.get(priority).add(waiter);
+
+			try {
+				while (!waiter.granted) {
+					waiter.condition.await();
+				}
+			} catch (InterruptedException e) {
+				if (waiter.granted) {
+					// hand the slot on to the next waiter
+					inFlight--;
+					dispatch();
+				} else {
+					queues.get(priority).remove(waiter);
+				}
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting to send " + url, e);
+			}
+
+			return priority;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void release(RequestPriority priority) {
+		completed.get(priority).incrementAndGet();
+		lock.lock();
+		try {
+			inFlight--;
+			dispatch();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// called with the lock held
+	private void dispatch() {
+		while (inFlight < capacity) {
+			Queue<Waiter> interactive = queues.get(RequestPriority.INTERACTIVE);
+			Queue<Waiter> bulk = queues.get(RequestPriority.BULK);
+
+			Waiter next;
+			if (!interactive.isEmpty() && (bulk.isEmpty() || interactiveGrants < bulkShare - 1)) {
+				next = interactive.poll();
+				interactiveGrants++;
+			} else if (!bulk.isEmpty()) {
+				next = bulk.poll();
+				interactiveGrants = 0;
+			} else {
+				return;
+			}
+
+			inFlight++;
+			next.granted = true;
+			next.condition.signal();
+		}
+	}
+
+	private static class Waiter {
+
+		final Condition condition;
+
+		boolean granted;
+
+		Waiter(Condition condition) {
+			this.condition = condition;
+		}
+	}
+}
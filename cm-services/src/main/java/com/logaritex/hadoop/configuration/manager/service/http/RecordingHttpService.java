@@ -0,0 +1,351 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+
+import com.logaritex.hadoop.configuration.manager.domain.ItemList;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+
+/**
+ * {@link HttpService} decorator that appends every exchange with the wrapped transport to a log file, to be served
+ * later by a {@link ReplayHttpService}, e.g. for reproducible load tests without a Cloudera Manager server.
+ * 
+ * <br/>
+ * The log is a compact binary file: per exchange the method, the URL template, the expanded path, the latency and the
+ * response as JSON without null fields (or the failure). Request bodies are not recorded. Streamed item lists are
+ * recorded as an ItemList document.
+ * 
+ * <br/>
+ * Writes are buffered: call {@link #close()} (or {@link #flush()}) before replaying the log.
+ */
+public class RecordingHttpService extends ForwardingHttpService implements Closeable {
+
+	private static final String GET = "GET";
+
+	private static final String POST = "POST";
+
+	private static final String PUT = "PUT";
+
+	private static final String DELETE = "DELETE";
+
+	/**
+	 * Longest failure message recorded, in characters. Longer messages are truncated.
+	 */
+	static final int MAX_MESSAGE_LENGTH = 16 * 1024;
+
+	private final ObjectMapper objectMapper;
+
+	private final DataOutputStream out;
+
+	private long recordCount;
+
+	private long recordingFailures;
+
+	private Exception lastRecordingFailure;
+
+	/**
+	 * @param delegate
+	 *            The transport to record.
+	 * @param log
+	 *            The log file. Exchanges are appended to an existing log.
+	 */
+	public RecordingHttpService(HttpService delegate, File log) throws IOException {
+		super(delegate);
+
+		this.objectMapper = new ObjectMapper();
+		this.objectMapper.setSerializationInclusion(JsonSerialize.Inclusion.NON_NULL);
+
+		boolean empty = log.length() == 0;
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(log, true), 64 * 1024));
+		if (empty) {
+			out.writeInt(RequestLog.MAGIC);
+			out.writeShort(RequestLog.VERSION);
+		}
+	}
+
+	/**
+	 * @return The number of exchanges recorded by this service.
+	 */
+	public synchronized long getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * @return The number of exchanges that could not be recorded. They are missing from the log.
+	 */
+	public synchronized long getRecordingFailures() {
+		return recordingFailures;
+	}
+
+	/**
+	 * @return Why the last exchange could not be recorded, or null.
+	 */
+	public synchronized Exception getLastRecordingFailure() {
+		return lastRecordingFailure;
+	}
+
+	@Override
+	public <R> R get(String url, Class<R> responseType, Object... uriVariables) {
+		long start = System.nanoTime();
+		R response;
+		try {
+			response = delegate.get(url, responseType, uriVariables);
+		} catch (RuntimeException e) {
+			record(GET, url, uriVariables, start, e);
+			throw e;
+		}
+		record(GET, url, uriVariables, start, response);
+		return response;
+	}
+
+	@Override
+	public <R> R post(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		long start = System.nanoTime();
+		R response;
+		try {
+			response = delegate.post(url, request, responseType, uriVariables);
+		} catch (RuntimeException e) {
+			record(POST, url, uriVariables, start, e);
+			throw e;
+		}
+		record(POST, url, uriVariables, start, response);
+		return response;
+	}
+
+	@Override
+	public <R> R delete(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		long start = System.nanoTime();
+		R response;
+		try {
+			response = delegate.delete(url, request, responseType, uriVariables);
+		} catch (RuntimeException e) {
+			record(DELETE, url, uriVariables, start, e);
+			throw e;
+		}
+		record(DELETE, url, uriVariables, start, response);
+		return response;
+	}
+
+	@Override
+	public <R> R put(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		long start = System.nanoTime();
+		R response;
+		try {
+			response = delegate.put(url, request, responseType, uriVariables);
+		} catch (RuntimeException e) {
+			record(PUT, url, uriVariables, start, e);
+			throw e;
+		}
+		record(PUT, url, uriVariables, start, response);
+		return response;
+	}
+
+	@Override
+	public <T> void getItems(String url, Class<? extends ItemList<T>> listType, ItemCallback<? super T> callback,
+			Object... uriVariables) {
+
+		long start = System.nanoTime();
+		ItemRecorder<T> recorder = new ItemRecorder<T>(callback);
+		try {
+			super.getItems(url, listType, recorder, uriVariables);
+		} catch (RuntimeException e) {
+			if (e != recorder.callbackFailure) {
+				record(GET, url, uriVariables, start, e);
+				throw e;
+			}
+			// the caller stopped at an item: record the list up to it, so that a replay stops there too
+			recordItems(url, uriVariables, start, recorder);
+			throw e;
+		}
+		recordItems(url, uriVariables, start, recorder);
+	}
+
+	/**
+	 * Writes the buffered exchanges to the log file.
+	 */
+	public synchronized void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Flushes and closes the log file. The wrapped transport is not closed.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+
+	private void record(String method, String url, Object[] uriVariables, long start, Object response) {
+		long latency = System.nanoTime() - start;
+		byte[] body;
+		try {
+			body = response == null ? null : objectMapper.writeValueAsBytes(response);
+		} catch (IOException e) {
+			recordingFailed(method, url, e);
+			return;
+		}
+		write(method, url, uriVariables, latency, body, null);
+	}
+
+	private <T> void recordItems(String url, Object[] uriVariables, long start, ItemRecorder<T> recorder) {
+		long latency = System.nanoTime() - start;
+		byte[] body = recorder.finish();
+		if (body == null) {
+			recordingFailed(GET, url, recorder.recordingFailure);
+			return;
+		}
+		write(GET, url, uriVariables, latency, body, null);
+	}
+
+	private void record(String method, String url, Object[] uriVariables, long start, RuntimeException failure) {
+		write(method, url, uriVariables, System.nanoTime() - start, null, failure);
+	}
+
+	/**
+	 * Appends the exchange to the log. The record is built in memory first and appended with a single write, so a
+	 * record that can not be encoded leaves the log unchanged. Recording errors are counted, not thrown: the caller
+	 * gets the result of the live exchange either way.
+	 */
+	private void write(String method, String url, Object[] uriVariables, long latencyNanos, byte[] body,
+			RuntimeException failure) {
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(body == null ? 256 : body.length + 256);
+		try {
+			DataOutputStream record = new DataOutputStream(buffer);
+			record.writeUTF(method);
+			record.writeUTF(url);
+			record.writeUTF(UriTemplate.of(url).expand(uriVariables));
+			record.writeLong(latencyNanos);
+			if (failure != null) {
+				record.writeByte(RequestLog.FAILED);
+				record.writeInt(failure instanceof HttpStatusException ? ((HttpStatusException) failure)
+						.getStatusCode() : 0);
+				record.writeUTF(truncate(String.valueOf(failure.getMessage())));
+			} else if (body == null) {
+				record.writeByte(RequestLog.EMPTY);
+			} else {
+				record.writeByte(RequestLog.BODY);
+				record.writeInt(body.length);
+				record.write(body);
+			}
+		} catch (IOException e) {
+			recordingFailed(method, url, e);
+			return;
+		} catch (RuntimeException e) {
+			recordingFailed(method, url, e);
+			return;
+		}
+
+		synchronized (this) {
+			try {
+				buffer.writeTo(out);
+				recordCount++;
+			} catch (IOException e) {
+				recordingFailed(method, url, e);
+			}
+		}
+	}
+
+	private synchronized void recordingFailed(String method, String url, Exception cause) {
+		recordingFailures++;
+		lastRecordingFailure = new IllegalStateException("Failed to record " + method + " " + url, cause);
+	}
+
+	/**
+	 * Shortens the message to {@link #MAX_MESSAGE_LENGTH} characters, whose modified UTF-8 encoding always fits the 64
+	 * KB limit of writeUTF.
+	 */
+	private static String truncate(String message) {
+		return message.length() <= MAX_MESSAGE_LENGTH ? message : message.substring(0, MAX_MESSAGE_LENGTH);
+	}
+
+	/**
+	 * Passes the items to the caller's callback and writes them to an ItemList document. A failure to write an item
+	 * stops the recording, not the exchange; a failure of the callback is kept apart from the failures of the
+	 * exchange.
+	 */
+	private class ItemRecorder<T> implements ItemCallback<T> {
+
+		private final ItemCallback<? super T> callback;
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		private JsonGenerator generator;
+
+		private IOException recordingFailure;
+
+		private RuntimeException callbackFailure;
+
+		ItemRecorder(ItemCallback<? super T> callback) {
+			this.callback = callback;
+			try {
+				generator = objectMapper.getJsonFactory().createJsonGenerator(body);
+				generator.writeStartObject();
+				generator.writeArrayFieldStart("items");
+			} catch (IOException e) {
+				recordingFailure = e;
+			}
+		}
+
+		@Override
+		public void onItem(T item) {
+			if (recordingFailure == null) {
+				try {
+					objectMapper.writeValue(generator, item);
+				} catch (IOException e) {
+					recordingFailure = e;
+				}
+			}
+			try {
+				callback.onItem(item);
+			} catch (RuntimeException e) {
+				callbackFailure = e;
+				throw e;
+			}
+		}
+
+		/**
+		 * @return The recorded ItemList document, or null if the recording failed.
+		 */
+		byte[] finish() {
+			if (recordingFailure == null) {
+				try {
+					generator.writeEndArray();
+					generator.writeEndObject();
+					generator.close();
+					return body.toByteArray();
+				} catch (IOException e) {
+					recordingFailure = e;
+				}
+			}
+			return null;
+		}
+	}
+}
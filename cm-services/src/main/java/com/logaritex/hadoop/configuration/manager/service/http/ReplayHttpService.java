@@ -0,0 +1,309 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+import com.logaritex.hadoop.configuration.manager.domain.ItemList;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+import com.logaritex.hadoop.configuration.manager.service.StreamingHttpService;
+
+/**
+ * {@link HttpService} that serves the exchanges recorded by a {@link RecordingHttpService}, without any network.
+ * 
+ * <br/>
+ * The log is memory-mapped and indexed once; responses are deserialized straight from the mapped file, so the client
+ * side cost (JSON binding) is the same as with a real transport. Requests are matched by method and expanded path.
+ * The recorded exchanges of a request are served in their recorded order and start over when exhausted, so a short
+ * recording can drive a long load test. Recorded failures are thrown again: an {@link HttpStatusException} if the
+ * status was known, an IllegalStateException otherwise.
+ * 
+ * <br/>
+ * Optionally the recorded latencies are replayed too: a call returns no earlier than its recorded latency (times the
+ * latency scale) after it started.
+ */
+public class ReplayHttpService implements StreamingHttpService {
+
+	private static final String GET = "GET";
+
+	private static final String POST = "POST";
+
+	private static final String PUT = "PUT";
+
+	private static final String DELETE = "DELETE";
+
+	private final ByteBuffer log;
+
+	private final Map<String, Replay> replays;
+
+	private final double latencyScale;
+
+	private final ObjectMapper objectMapper;
+
+	private final JsonItemReader itemReader;
+
+	private final int exchangeCount;
+
+	/**
+	 * Serves the recorded responses as fast as possible.
+	 */
+	public ReplayHttpService(File log) throws IOException {
+		this(log, 0);
+	}
+
+	/**
+	 * @param log
+	 *            A log written by the {@link RecordingHttpService}.
+	 * @param latencyScale
+	 *            Factor applied to the recorded latencies: 0 to replay as fast as possible, 1 for the recorded
+	 *            latencies, 0.5 for a server twice as fast.
+	 */
+	public ReplayHttpService(File log, double latencyScale) throws IOException {
+		if (latencyScale < 0) {
+			throw new IllegalArgumentException("latencyScale must not be negative: " + latencyScale);
+		}
+		this.log = map(log);
+		this.latencyScale = latencyScale;
+		this.objectMapper = new ObjectMapper();
+		this.itemReader = new JsonItemReader(objectMapper);
+
+		Map<String, List<Exchange>> exchanges = index(this.log);
+		Map<String, Replay> replays = new HashMap<String, Replay>(exchanges.size() * 2);
+		int count = 0;
+		for (Map.Entry<String, List<Exchange>> entry : exchanges.entrySet()) {
+			replays.put(entry.getKey(), new Replay(entry.getValue()));
+			count += entry.getValue().size();
+		}
+		this.replays = Collections.unmodifiableMap(replays);
+		this.exchangeCount = count;
+	}
+
+	/**
+	 * @return The number of exchanges in the log.
+	 */
+	public int getExchangeCount() {
+		return exchangeCount;
+	}
+
+	@Override
+	public <R> R get(String url, Class<R> responseType, Object... uriVariables) {
+		return replay(GET, url, responseType, uriVariables);
+	}
+
+	@Override
+	public <R> R post(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return replay(POST, url, responseType, uriVariables);
+	}
+
+	@Override
+	public <R> R delete(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return replay(DELETE, url, responseType, uriVariables);
+	}
+
+	@Override
+	public <R> R put(String url, Object request, Class<R> responseType, Object... uriVariables) {
+		return replay(PUT, url, responseType, uriVariables);
+	}
+
+	@Override
+	public <T> void getItems(String url, Class<? extends ItemList<T>> listType, ItemCallback<? super T> callback,
+			Object... uriVariables) {
+
+		long start = System.nanoTime();
+		Exchange exchange = next(start, GET, url, uriVariables);
+		try {
+			if (exchange.outcome == RequestLog.BODY) {
+				itemReader.read(body(exchange), listType, callback);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to read the recorded items of " + exchange.path, e);
+		}
+		awaitLatency(start, exchange);
+	}
+
+	private <R> R replay(String method, String url, Class<R> responseType, Object... uriVariables) {
+
+		long start = System.nanoTime();
+		Exchange exchange = next(start, method, url, uriVariables);
+
+		R response = null;
+		if (exchange.outcome == RequestLog.BODY && responseType != null) {
+			try {
+				response = objectMapper.readValue(body(exchange), responseType);
+			} catch (IOException e) {
+				throw new IllegalStateException("Failed to read the recorded response of " + method + " "
+						+ exchange.path, e);
+			}
+		}
+		awaitLatency(start, exchange);
+		return response;
+	}
+
+	/**
+	 * @return The next recorded exchange of the request. Throws the recorded failure, if it failed.
+	 */
+	private Exchange next(long start, String method, String url, Object... uriVariables) {
+		String path = UriTemplate.of(url).expand(uriVariables);
+		Replay replay = replays.get(RequestLog.key(method, path));
+		if (replay == null) {
+			throw new IllegalStateException("No recorded exchange for " + method + " " + path);
+		}
+		Exchange exchange = replay.next();
+		if (exchange.outcome == RequestLog.FAILED) {
+			awaitLatency(start, exchange);
+			if (exchange.statusCode > 0) {
+				throw new HttpStatusException(exchange.statusCode, path);
+			}
+			throw new IllegalStateException("Recorded failure of " + method + " " + path + ": " + exchange.message);
+		}
+		return exchange;
+	}
+
+	private ByteBufferInputStream body(Exchange exchange) {
+		ByteBuffer body = log.duplicate();
+		body.limit(exchange.offset + exchange.length);
+		body.position(exchange.offset);
+		return new ByteBufferInputStream(body);
+	}
+
+	private void awaitLatency(long start, Exchange exchange) {
+		if (latencyScale == 0) {
+			return;
+		}
+		long deadline = start + (long) (exchange.latencyNanos * latencyScale);
+		for (long remaining = deadline - System.nanoTime(); remaining > 0; remaining = deadline - System.nanoTime()) {
+			LockSupport.parkNanos(remaining);
+			if (Thread.currentThread().isInterrupted()) {
+				throw new IllegalStateException("Interrupted while replaying the latency of " + exchange.path);
+			}
+		}
+	}
+
+	private static ByteBuffer map(File log) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(log, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Request log larger than 2GB: " + log);
+			}
+			// the mapping stays valid after the file is closed
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			file.close();
+		}
+	}
+
+	private static Map<String, List<Exchange>> index(ByteBuffer log) throws IOException {
+
+		ByteBuffer buffer = log.duplicate();
+		DataInputStream in = new DataInputStream(new ByteBufferInputStream(buffer));
+
+		if (buffer.remaining() < 6 || in.readInt() != RequestLog.MAGIC) {
+			throw new IOException("Not a request log");
+		}
+		short version = in.readShort();
+		if (version != RequestLog.VERSION) {
+			throw new IOException("Unsupported request log version: " + version);
+		}
+
+		Map<String, List<Exchange>> exchanges = new HashMap<String, List<Exchange>>();
+		while (buffer.hasRemaining()) {
+			String method = in.readUTF();
+			in.readUTF(); // URL template
+			String path = in.readUTF();
+
+			Exchange exchange = new Exchange(path, in.readLong(), in.readByte());
+			if (exchange.outcome == RequestLog.BODY) {
+				exchange.length = in.readInt();
+				exchange.offset = buffer.position();
+				buffer.position(exchange.offset + exchange.length);
+			} else if (exchange.outcome == RequestLog.FAILED) {
+				exchange.statusCode = in.readInt();
+				exchange.message = in.readUTF();
+			}
+
+			String key = RequestLog.key(method, path);
+			List<Exchange> list = exchanges.get(key);
+			if (list == null) {
+				list = new ArrayList<Exchange>();
+				exchanges.put(key, list);
+			}
+			list.add(exchange);
+		}
+		return exchanges;
+	}
+
+	/**
+	 * The recorded exchanges of a request, served round robin.
+	 */
+	private static class Replay {
+
+		private final Exchange[] exchanges;
+
+		private final AtomicInteger next = new AtomicInteger();
+
+		public Replay(List<Exchange> exchanges) {
+			this.exchanges = exchanges.toArray(new Exchange[exchanges.size()]);
+		}
+
+		public Exchange next() {
+			return exchanges[(next.getAndIncrement() & Integer.MAX_VALUE) % exchanges.length];
+		}
+	}
+
+	/**
+	 * Index entry of a recorded exchange. The response body stays in the mapped log.
+	 */
+	private static class Exchange {
+
+		final String path;
+
+		final long latencyNanos;
+
+		final byte outcome;
+
+		int offset;
+
+		int length;
+
+		int statusCode;
+
+		String message;
+
+		public Exchange(String path, long latencyNanos, byte outcome) {
+			this.path = path;
+			this.latencyNanos = latencyNanos;
+			this.outcome = outcome;
+		}
+	}
+}
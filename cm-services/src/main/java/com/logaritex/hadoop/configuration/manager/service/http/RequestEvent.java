@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The state of a traced request, passed to every {@link RequestListener} event.
+ * 
+ * <br/>
+ * The timestamps are {@link System#nanoTime()} values, zero until the request reaches the respective point. The time
+ * to the first byte covers the network and the server; the deserialization time covers reading and binding the body.
+ */
+public class RequestEvent {
+
+	private final String method;
+
+	private final String urlTemplate;
+
+	private final long startNanos;
+
+	private volatile long headersSentNanos;
+
+	private volatile long firstByteNanos;
+
+	private volatile long deserializedNanos;
+
+	private volatile long endNanos;
+
+	private volatile int statusCode;
+
+	private Map<Object, Object> attributes;
+
+	RequestEvent(String method, String urlTemplate, long startNanos) {
+		this.method = method;
+		this.urlTemplate = urlTemplate;
+		this.startNanos = startNanos;
+	}
+
+	/**
+	 * @return The HTTP method, e.g. GET
+	 */
+	public String getMethod() {
+		return method;
+	}
+
+	/**
+	 * @return The URL template of the request (e.g. HostServiceImpl.HOST_METRICS_PATH), not the expanded URL.
+	 */
+	public String getUrlTemplate() {
+		return urlTemplate;
+	}
+
+	/**
+	 * @return The response status, or zero if no response was received (yet).
+	 */
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	public long getStartNanos() {
+		return startNanos;
+	}
+
+	public long getHeadersSentNanos() {
+		return headersSentNanos;
+	}
+
+	public long getFirstByteNanos() {
+		return firstByteNanos;
+	}
+
+	public long getDeserializedNanos() {
+		return deserializedNanos;
+	}
+
+	public long getEndNanos() {
+		return endNanos;
+	}
+
+	/**
+	 * @return Time from the start to the response headers, or -1 if no response was received.
+	 */
+	public long getTimeToFirstByteNanos() {
+		return firstByteNanos == 0 ? -1 : firstByteNanos - startNanos;
+	}
+
+	/**
+	 * @return Time from the response headers until the body was deserialized, or -1 if it was not.
+	 */
+	public long getDeserializationNanos() {
+		return firstByteNanos == 0 || deserializedNanos == 0 ? -1 : deserializedNanos - firstByteNanos;
+	}
+
+	/**
+	 * @return Time from the start to the completion or failure, or -1 if the request is still running.
+	 */
+	public long getElapsedNanos() {
+		return endNanos == 0 ? -1 : endNanos - startNanos;
+	}
+
+	/**
+	 * @return A value stored by a listener, e.g. its trace span, or null.
+	 */
+	public synchronized Object getAttribute(Object key) {
+		return attributes == null ? null : attributes.get(key);
+	}
+
+	/**
+	 * Stores a value for the later events of this request, e.g. the trace span opened in requestStarted.
+	 */
+	public synchronized void setAttribute(Object key, Object value) {
+		if (attributes == null) {
+			attributes = new HashMap<Object, Object>(4);
+		}
+		attributes.put(key, value);
+	}
+
+	void headersSent(long nanos) {
+		this.headersSentNanos = nanos;
+	}
+
+	void firstByteReceived(long nanos, int statusCode) {
+		this.firstByteNanos = nanos;
+		this.statusCode = statusCode;
+	}
+
+	void bodyDeserialized(long nanos) {
+		this.deserializedNanos = nanos;
+	}
+
+	void ended(long nanos) {
+		this.endNanos = nanos;
+	}
+
+	@Override
+	public String toString() {
+		return "RequestEvent [method=" + method + ", urlTemplate=" + urlTemplate + ", statusCode=" + statusCode
+				+ ", timeToFirstByte=" + getTimeToFirstByteNanos() + "ns, deserialization="
+				+ getDeserializationNanos() + "ns, elapsed=" + getElapsedNanos() + "ns]";
+	}
+}
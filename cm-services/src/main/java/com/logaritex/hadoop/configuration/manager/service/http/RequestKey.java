@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Identifies a GET by its URL template, URI variable values and response type.
+ */
+class RequestKey {
+
+	private final String url;
+
+	private final Class<?> responseType;
+
+	private final List<Object> uriVariables;
+
+	private final int hashCode;
+
+	RequestKey(String url, Class<?> responseType, Object[] uriVariables) {
+		this.url = url;
+		this.responseType = responseType;
+		this.uriVariables = Arrays.asList(uriVariables);
+		this.hashCode = 31 * (31 * url.hashCode() + responseType.hashCode()) + this.uriVariables.hashCode();
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof RequestKey)) {
+			return false;
+		}
+		RequestKey other = (RequestKey) obj;
+		return url.equals(other.url) && responseType.equals(other.responseType)
+				&& uriVariables.equals(other.uriVariables);
+	}
+
+	@Override
+	public String toString() {
+		return url + " " + uriVariables;
+	}
+}
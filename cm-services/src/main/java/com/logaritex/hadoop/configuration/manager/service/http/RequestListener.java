@@ -0,0 +1,68 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+/**
+ * Receives the lifecycle events of the requests sent by a transport, e.g. to feed a tracing or profiling system.
+ * Register it with the transport's {@link RequestListeners}.
+ * 
+ * <br/>
+ * The events of a request arrive in this order, each at most once per attempt: {@link #requestStarted},
+ * {@link #headersSent}, {@link #firstByteReceived}, {@link #bodyDeserialized}, and finally either
+ * {@link #requestCompleted} or {@link #requestFailed}. Events of a failed attempt may be missing, and a request
+ * repeated by the transport (e.g. after its session expired) reports headersSent and firstByteReceived again.
+ * 
+ * <br/>
+ * The listener is called on the thread that drives the request, which for the non-blocking transports is an event loop
+ * thread: it must not block. Exceptions thrown by a listener are ignored.
+ */
+public interface RequestListener {
+
+	/**
+	 * The request is about to be sent.
+	 */
+	void requestStarted(RequestEvent event);
+
+	/**
+	 * The request headers (and body, if any) were handed to the connection.
+	 */
+	void headersSent(RequestEvent event);
+
+	/**
+	 * The response status and headers were received.
+	 */
+	void firstByteReceived(RequestEvent event);
+
+	/**
+	 * The response body was read and bound to the response type.
+	 */
+	void bodyDeserialized(RequestEvent event);
+
+	/**
+	 * The request succeeded.
+	 */
+	void requestCompleted(RequestEvent event);
+
+	/**
+	 * The request failed.
+	 * 
+	 * @param cause
+	 *            The exception thrown to the caller.
+	 */
+	void requestFailed(RequestEvent event, Throwable cause);
+}
@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.util.Arrays;
+
+/**
+ * The {@link RequestListener}s of a transport. Listeners can be added and removed at any time; a request reports to
+ * the listeners registered when it started.
+ */
+public class RequestListeners {
+
+	private static final RequestListener[] EMPTY = new RequestListener[0];
+
+	private volatile RequestListener[] listeners = EMPTY;
+
+	public synchronized void add(RequestListener listener) {
+		RequestListener[] current = listeners;
+		RequestListener[] updated = Arrays.copyOf(current, current.length + 1);
+		updated[current.length] = listener;
+		listeners = updated;
+	}
+
+	/**
+	 * @return True if the listener was registered.
+	 */
+	public synchronized boolean remove(RequestListener listener) {
+		RequestListener[] current = listeners;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i] == listener) {
+				RequestListener[] updated = new RequestListener[current.length - 1];
+				System.arraycopy(current, 0, updated, 0, i);
+				System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+				listeners = updated;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean isEmpty() {
+		return listeners.length == 0;
+	}
+
+	/**
+	 * Reports the start of a request to the registered listeners.
+	 * 
+	 * @param method
+	 *            The HTTP method.
+	 * @param urlTemplate
+	 *            The URL template of the request, not the expanded URL.
+	 * @return The trace to report the later events of the request to. {@link RequestTrace#NONE} if there are no
+	 *         listeners.
+	 */
+	public RequestTrace start(String method, String urlTemplate) {
+		RequestListener[] current = listeners;
+		if (current.length == 0) {
+			return RequestTrace.NONE;
+		}
+		RequestTrace trace = new RequestTrace(current, new RequestEvent(method, urlTemplate, System.nanoTime()));
+		trace.started();
+		return trace;
+	}
+}
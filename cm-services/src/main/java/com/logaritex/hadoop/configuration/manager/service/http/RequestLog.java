@@ -0,0 +1,47 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+/**
+ * Format of the request log written by the {@link RecordingHttpService} and read by the {@link ReplayHttpService}.
+ * 
+ * <br/>
+ * The log starts with the {@link #MAGIC} int and the {@link #VERSION} short. Every exchange follows in the
+ * DataOutput encoding: method (UTF), URL template (UTF), expanded path (UTF), latency in nanoseconds (long) and
+ * the outcome (byte). A {@link #BODY} is followed by the length (int) and the JSON bytes of the response, a
+ * {@link #FAILED} exchange by the HTTP status, or zero, (int) and the error message (UTF).
+ */
+final class RequestLog {
+
+	static final int MAGIC = 0x434d524c; // CMRL
+
+	static final short VERSION = 1;
+
+	static final byte BODY = 0;
+
+	static final byte EMPTY = 1;
+
+	static final byte FAILED = 2;
+
+	private RequestLog() {
+	}
+
+	static String key(String method, String path) {
+		return method + " " + path;
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+/**
+ * Scheduling class of a request, see {@link PrioritySchedulingHttpService}.
+ */
+public enum RequestPriority {
+
+	/**
+	 * Calls a user is waiting for (e.g. getService, startService). Served first.
+	 */
+	INTERACTIVE,
+
+	/**
+	 * Background work such as inventory crawls and metric polling. Served when no interactive call waits, but never
+	 * starved completely.
+	 */
+	BULK;
+
+	private static final ThreadLocal<RequestPriority> CURRENT = new ThreadLocal<RequestPriority>();
+
+	/**
+	 * @return The priority of the requests sent by the current thread, or null if it is not set.
+	 */
+	public static RequestPriority current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Sets the priority of the requests sent by the current thread. Restore the previous priority when done:
+	 * 
+	 * <pre>
+	 * RequestPriority previous = RequestPriority.BULK.enter();
+	 * try {
+	 * 	hostService.getHostMetrics(hostId);
+	 * } finally {
+	 * 	RequestPriority.restore(previous);
+	 * }
+	 * </pre>
+	 * 
+	 * @return The previous priority of the thread, or null.
+	 */
+	public RequestPriority enter() {
+		RequestPriority previous = CURRENT.get();
+		CURRENT.set(this);
+		return previous;
+	}
+
+	/**
+	 * Restores the priority returned by {@link #enter()}.
+	 */
+	public static void restore(RequestPriority previous) {
+		if (previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previous);
+		}
+	}
+}
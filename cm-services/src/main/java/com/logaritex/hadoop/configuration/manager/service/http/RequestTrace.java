@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+/**
+ * Dispatches the lifecycle events of a single request to the {@link RequestListener}s registered when it started.
+ * Called by the transports at the respective points of the request.
+ * 
+ * <br/>
+ * Without listeners the transport gets the shared {@link #NONE} trace: every call returns right away, without reading
+ * the clock or allocating.
+ */
+public final class RequestTrace {
+
+	/**
+	 * Trace of a request nobody listens to.
+	 */
+	public static final RequestTrace NONE = new RequestTrace(null, null);
+
+	private final RequestListener[] listeners;
+
+	private final RequestEvent event;
+
+	RequestTrace(RequestListener[] listeners, RequestEvent event) {
+		this.listeners = listeners;
+		this.event = event;
+	}
+
+	/**
+	 * @return False for the {@link #NONE} trace. Lets a transport skip preparing events nobody receives.
+	 */
+	public boolean isEnabled() {
+		return listeners != null;
+	}
+
+	void started() {
+		for (RequestListener listener : listeners) {
+			try {
+				listener.requestStarted(event);
+			} catch (RuntimeException e) {
+				// a failing listener must not fail the request
+			}
+		}
+	}
+
+	public void headersSent() {
+		if (listeners == null) {
+			return;
+		}
+		event.headersSent(System.nanoTime());
+		for (RequestListener listener : listeners) {
+			try {
+				listener.headersSent(event);
+			} catch (RuntimeException e) {
+				// a failing listener must not fail the request
+			}
+		}
+	}
+
+	/**
+	 * @param statusCode
+	 *            The response status.
+	 */
+	public void firstByteReceived(int statusCode) {
+		if (listeners == null) {
+			return;
+		}
+		event.firstByteReceived(System.nanoTime(), statusCode);
+		for (RequestListener listener : listeners) {
+			try {
+				listener.firstByteReceived(event);
+			} catch (RuntimeException e) {
+				// a failing listener must not fail the request
+			}
+		}
+	}
+
+	public void bodyDeserialized() {
+		if (listeners == null) {
+			return;
+		}
+		event.bodyDeserialized(System.nanoTime());
+		for (RequestListener listener : listeners) {
+			try {
+				listener.bodyDeserialized(event);
+			} catch (RuntimeException e) {
+				// a failing listener must not fail the request
+			}
+		}
+	}
+
+	public void completed() {
+		if (listeners == null) {
+			return;
+		}
+		event.ended(System.nanoTime());
+		for (RequestListener listener : listeners) {
+			try {
+				listener.requestCompleted(event);
+			} catch (RuntimeException e) {
+				// a failing listener must not fail the request
+			}
+		}
+	}
+
+	public void failed(Throwable cause) {
+		if (listeners == null) {
+			return;
+		}
+		event.ended(System.nanoTime());
+		for (RequestListener listener : listeners) {
+			try {
+				listener.requestFailed(event, cause);
+			} catch (RuntimeException e) {
+				// a failing listener must not fail the request
+			}
+		}
+	}
+}
@@ -0,0 +1,293 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Keeps the last deserialized GET result per request together with its validators, so that transports can revalidate
+ * instead of downloading and deserializing an unchanged resource again.
+ * 
+ * <br/>
+ * A transport that supports revalidation asks for the {@link CachedResponse} before sending a GET and adds its
+ * validators as If-None-Match (ETag) and If-Modified-Since (Last-Modified) headers. On a 304 Not Modified answer it
+ * returns the cached object ({@link #notModified(CachedResponse, Class)}); on any other answer it passes the body to
+ * {@link #read(String, Class, Object[], String, String, InputStream, ObjectMapper)}.
+ * 
+ * <br/>
+ * When the server sends no validators, or ignores them, the body is hashed instead: if the hash matches the cached
+ * one the cached object is returned without deserializing the body again.
+ * 
+ * <br/>
+ * Only GETs of the registered URL templates are revalidated, because their bodies are buffered for hashing and kept
+ * deserialized: register the small, frequently polled resources, not the full view lists, which would lose the flat
+ * memory profile of the item by item reads. At least one template is required; revalidating all GETs is an explicit
+ * opt-in with {@link #forAllGets(int)}. The entries are kept in a LRU map of bounded size. Cached objects are shared
+ * between callers and must be treated as read-only.
+ */
+public class RevalidationCache {
+
+	public static final String ETAG = "ETag";
+
+	public static final String LAST_MODIFIED = "Last-Modified";
+
+	public static final String IF_NONE_MATCH = "If-None-Match";
+
+	public static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	private static final String DIGEST_ALGORITHM = "MD5";
+
+	private final Map<RequestKey, CachedResponse> entries;
+
+	private final Set<String> urlTemplates;
+
+	private final boolean allGets;
+
+	private final AtomicLong notModifiedResponses = new AtomicLong();
+
+	private final AtomicLong unchangedResponses = new AtomicLong();
+
+	private final AtomicLong modifiedResponses = new AtomicLong();
+
+	public RevalidationCache(String... urlTemplates) {
+		this(DEFAULT_MAX_ENTRIES, urlTemplates);
+	}
+
+	/**
+	 * @param maxEntries
+	 *            Maximum number of cached responses.
+	 * @param urlTemplates
+	 *            The URL templates to revalidate (e.g. ServiceServiceImpl.SERVICE_CONFING). At least one.
+	 */
+	public RevalidationCache(int maxEntries, String... urlTemplates) {
+		this(maxEntries, false, urlTemplates);
+		if (urlTemplates.length == 0) {
+			throw new IllegalArgumentException("No URL template to revalidate, use forAllGets() for all GETs");
+		}
+	}
+
+	private RevalidationCache(final int maxEntries, boolean allGets, String... urlTemplates) {
+		this.urlTemplates = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(urlTemplates)));
+		this.allGets = allGets;
+		this.entries = new LinkedHashMap<RequestKey, CachedResponse>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<RequestKey, CachedResponse> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * @return A cache that revalidates every GET, buffering and keeping up to DEFAULT_MAX_ENTRIES responses however
+	 *         large they are.
+	 */
+	public static RevalidationCache forAllGets() {
+		return forAllGets(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param maxEntries
+	 *            Maximum number of cached responses.
+	 * @return A cache that revalidates every GET, buffering and keeping up to maxEntries responses however large they
+	 *         are.
+	 */
+	public static RevalidationCache forAllGets(int maxEntries) {
+		return new RevalidationCache(maxEntries, true);
+	}
+
+	/**
+	 * @return True if GETs of the URL template are revalidated.
+	 */
+	public boolean isRevalidated(String url) {
+		return allGets || urlTemplates.contains(url);
+	}
+
+	/**
+	 * @return The cached response of the request, or null if there is none.
+	 */
+	public CachedResponse lookup(String url, Class<?> responseType, Object... uriVariables) {
+		synchronized (entries) {
+			return entries.get(new RequestKey(url, responseType, uriVariables));
+		}
+	}
+
+	/**
+	 * Handles a 304 Not Modified response.
+	 * 
+	 * @return The cached object.
+	 */
+	public <R> R notModified(CachedResponse cached, Class<R> responseType) {
+		notModifiedResponses.incrementAndGet();
+		return responseType.cast(cached.value);
+	}
+
+	/**
+	 * Handles a full response. Deserializes the body, unless its content is the same as the one of the cached
+	 * response, and caches the result with the new validators.
+	 * 
+	 * @param eTag
+	 *            The ETag response header, or null.
+	 * @param lastModified
+	 *            The Last-Modified response header, or null.
+	 * @param body
+	 *            The (decoded) response body. Read fully, not closed.
+	 * @param objectMapper
+	 *            Deserializes the body.
+	 * @return The deserialized or the cached object.
+	 */
+	public <R> R read(String url, Class<R> responseType, Object[] uriVariables, String eTag, String lastModified,
+			InputStream body, ObjectMapper objectMapper) throws IOException {
+
+		byte[] content = readFully(body);
+
+		if (content.length == 0) {
+			return null;
+		}
+
+		byte[] digest = digest(content);
+
+		RequestKey key = new RequestKey(url, responseType, uriVariables);
+
+		CachedResponse cached;
+		synchronized (entries) {
+			cached = entries.get(key);
+		}
+
+		Object value;
+		if (cached != null && Arrays.equals(cached.digest, digest)) {
+			unchangedResponses.incrementAndGet();
+			value = cached.value;
+		} else {
+			modifiedResponses.incrementAndGet();
+			value = objectMapper.readValue(content, responseType);
+		}
+
+		synchronized (entries) {
+			entries.put(key, new CachedResponse(value, eTag, lastModified, digest));
+		}
+
+		return responseType.cast(value);
+	}
+
+	/**
+	 * Removes all cached responses.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	public int getSize() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * @return Number of 304 Not Modified responses answered from the cache.
+	 */
+	public long getNotModifiedResponses() {
+		return notModifiedResponses.get();
+	}
+
+	/**
+	 * @return Number of full responses whose content matched the cached one and were not deserialized.
+	 */
+	public long getUnchangedResponses() {
+		return unchangedResponses.get();
+	}
+
+	/**
+	 * @return Number of full responses that were deserialized.
+	 */
+	public long getModifiedResponses() {
+		return modifiedResponses.get();
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] digest(byte[] content) {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(content);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * The last deserialized result of a request and its validators.
+	 */
+	public static class CachedResponse {
+
+		private final Object value;
+
+		private final String eTag;
+
+		private final String lastModified;
+
+		private final byte[] digest;
+
+		CachedResponse(Object value, String eTag, String lastModified, byte[] digest) {
+			this.value = value;
+			this.eTag = eTag;
+			this.lastModified = lastModified;
+			this.digest = digest;
+		}
+
+		/**
+		 * @return The ETag validator, or null if the server did not send one.
+		 */
+		public String getETag() {
+			return eTag;
+		}
+
+		/**
+		 * @return The Last-Modified validator, or null if the server did not send one.
+		 */
+		public String getLastModified() {
+			return lastModified;
+		}
+	}
+}
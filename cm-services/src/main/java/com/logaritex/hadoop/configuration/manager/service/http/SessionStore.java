@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the Cloudera Manager session cookie for the transports, so that requests can be authenticated by the session
+ * instead of sending Basic credentials that the server verifies against its user store every time.
+ * 
+ * <br/>
+ * The transports send Basic auth while there is no session, capture the session cookie from the Set-Cookie headers
+ * of the responses, and then send the cookie instead. When the server answers 401 to a request with the session
+ * cookie, the session is expired and the request is repeated with Basic auth, which opens a new session.
+ */
+public class SessionStore {
+
+	public static final String DEFAULT_SESSION_COOKIE = "CLOUDERA_MANAGER_SESSIONID";
+
+	public static final String COOKIE = "Cookie";
+
+	public static final String SET_COOKIE = "Set-Cookie";
+
+	private final String cookieName;
+
+	private final AtomicReference<String> session = new AtomicReference<String>();
+
+	private final AtomicLong sessionsOpened = new AtomicLong();
+
+	private final AtomicLong sessionsExpired = new AtomicLong();
+
+	public SessionStore() {
+		this(DEFAULT_SESSION_COOKIE);
+	}
+
+	/**
+	 * @param cookieName
+	 *            Name of the session cookie.
+	 */
+	public SessionStore(String cookieName) {
+		this.cookieName = cookieName;
+	}
+
+	/**
+	 * @return The Cookie header value of the current session (name=value), or null if there is no session.
+	 */
+	public String getSession() {
+		return session.get();
+	}
+
+	/**
+	 * Takes the session cookie from the Set-Cookie headers of a response, if present.
+	 * 
+	 * @param setCookieHeaders
+	 *            The Set-Cookie response headers. May be null.
+	 */
+	public void capture(List<String> setCookieHeaders) {
+		if (setCookieHeaders == null) {
+			return;
+		}
+		for (String setCookie : setCookieHeaders) {
+			int end = setCookie.indexOf(';');
+			String cookie = (end < 0 ? setCookie : setCookie.substring(0, end)).trim();
+			if (cookie.startsWith(cookieName) && cookie.length() > cookieName.length()
+					&& cookie.charAt(cookieName.length()) == '=') {
+				if (cookie.length() == cookieName.length() + 1) {
+					// the server deleted the cookie
+					session.set(null);
+				} else if (!cookie.equals(session.getAndSet(cookie))) {
+					sessionsOpened.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Forgets the session after the server rejected it. Has no effect if another request already replaced it.
+	 * 
+	 * @param rejectedSession
+	 *            The Cookie header value that was rejected.
+	 */
+	public void expired(String rejectedSession) {
+		if (session.compareAndSet(rejectedSession, null)) {
+			sessionsExpired.incrementAndGet();
+		}
+	}
+
+	public void clear() {
+		session.set(null);
+	}
+
+	/**
+	 * @return Number of new sessions captured.
+	 */
+	public long getSessionsOpened() {
+		return sessionsOpened.get();
+	}
+
+	/**
+	 * @return Number of sessions rejected by the server.
+	 */
+	public long getSessionsExpired() {
+		return sessionsExpired.get();
+	}
+}
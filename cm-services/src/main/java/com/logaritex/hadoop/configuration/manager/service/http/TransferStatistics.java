@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per endpoint counters of the response bytes received on the wire and of the decoded (uncompressed) bytes, and of the
+ * request body bytes sent.
+ * 
+ * Endpoints are identified by their URL template (e.g. /api/v1/hosts/{hostId}), not by the expanded URL, so the number
+ * of counters stays bounded.
+ */
+public class TransferStatistics {
+
+	private final ConcurrentMap<String, EndpointTransfer> endpoints = new ConcurrentHashMap<String, EndpointTransfer>();
+
+	/**
+	 * Adds the bytes read so far from the response body to the endpoint's counters.
+	 * 
+	 * @param urlTemplate
+	 *            The endpoint URL template.
+	 * @param body
+	 *            The (fully read) response body.
+	 */
+	public void record(String urlTemplate, ContentDecodingInputStream body) {
+		getEndpoint(urlTemplate).record(body.isCompressed(), body.getWireBytes(), body.getDecodedBytes());
+	}
+
+	/**
+	 * Adds the bytes of a request body to the endpoint's counters.
+	 * 
+	 * @param urlTemplate
+	 *            The endpoint URL template.
+	 * @param bytes
+	 *            Size of the request body as sent.
+	 */
+	public void recordRequest(String urlTemplate, long bytes) {
+		getEndpoint(urlTemplate).requestBytes.addAndGet(bytes);
+	}
+
+	/**
+	 * @return The counters of the endpoint. Created on first use.
+	 */
+	public EndpointTransfer getEndpoint(String urlTemplate) {
+		EndpointTransfer endpoint = endpoints.get(urlTemplate);
+		if (endpoint == null) {
+			EndpointTransfer newEndpoint = new EndpointTransfer();
+			endpoint = endpoints.putIfAbsent(urlTemplate, newEndpoint);
+			if (endpoint == null) {
+				endpoint = newEndpoint;
+			}
+		}
+		return endpoint;
+	}
+
+	/**
+	 * @return Live view of all endpoint counters, keyed by URL template.
+	 */
+	public Map<String, EndpointTransfer> getEndpoints() {
+		return Collections.unmodifiableMap(endpoints);
+	}
+
+	public void reset() {
+		endpoints.clear();
+	}
+
+	@Override
+	public String toString() {
+		return "TransferStatistics " + endpoints;
+	}
+
+	/**
+	 * Transfer counters of a single endpoint.
+	 */
+	public static class EndpointTransfer {
+
+		private final AtomicLong responses = new AtomicLong();
+
+		private final AtomicLong compressedResponses = new AtomicLong();
+
+		private final AtomicLong wireBytes = new AtomicLong();
+
+		private final AtomicLong decodedBytes = new AtomicLong();
+
+		private final AtomicLong requestBytes = new AtomicLong();
+
+		void record(boolean compressed, long wire, long decoded) {
+			responses.incrementAndGet();
+			if (compressed) {
+				compressedResponses.incrementAndGet();
+			}
+			wireBytes.addAndGet(wire);
+			decodedBytes.addAndGet(decoded);
+		}
+
+		/**
+		 * @return Number of responses received.
+		 */
+		public long getResponses() {
+			return responses.get();
+		}
+
+		/**
+		 * @return Number of gzip or deflate encoded responses.
+		 */
+		public long getCompressedResponses() {
+			return compressedResponses.get();
+		}
+
+		/**
+		 * @return Response body bytes received on the wire (compressed size).
+		 */
+		public long getWireBytes() {
+			return wireBytes.get();
+		}
+
+		/**
+		 * @return Response body bytes after decoding (uncompressed size).
+		 */
+		public long getDecodedBytes() {
+			return decodedBytes.get();
+		}
+
+		/**
+		 * @return Request body bytes sent.
+		 */
+		public long getRequestBytes() {
+			return requestBytes.get();
+		}
+
+		/**
+		 * @return Bandwidth saved by the content encoding.
+		 */
+		public long getSavedBytes() {
+			return getDecodedBytes() - getWireBytes();
+		}
+
+		@Override
+		public String toString() {
+			return "EndpointTransfer [responses=" + responses + ", compressedResponses=" + compressedResponses
+					+ ", wireBytes=" + wireBytes + ", decodedBytes=" + decodedBytes + ", requestBytes=" + requestBytes
+					+ "]";
+		}
+	}
+}
@@ -0,0 +1,242 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Precompiled URL template such as /api/v1/clusters/{clusterName}/services/{serviceName}/config?view={view}.
+ * 
+ * The template is parsed once into its literal parts and variable slots. Expansion appends the parts and the
+ * percent-encoded variable values to a per-thread buffer, so a call allocates only the resulting String. Variables are
+ * bound by position, like the uriVariables of the {@link com.logaritex.hadoop.configuration.manager.service.HttpService}
+ * calls; a null value expands to the empty string.
+ * 
+ * <br/>
+ * Values in the path are encoded as path segments (a '/' in a value is escaped) and values in the query as query
+ * parameter values ('&', '=' and '+' are escaped). Non ASCII characters are UTF-8 encoded.
+ * 
+ * <br/>
+ * Use {@link #of(String)} to share the compiled instance of a template; the service path constants are compiled on
+ * their first use and then reused.
+ */
+public final class UriTemplate {
+
+	static final int MAX_CACHED_TEMPLATES = 1024;
+
+	private static final int MAX_BUFFER_SIZE = 4096;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+	private static final boolean[] PATH_SEGMENT = new boolean[128];
+
+	private static final boolean[] QUERY_VALUE = new boolean[128];
+
+	static {
+		String unreserved = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-._~";
+		String segment = unreserved + "!$&'()*+,;=:@";
+		String query = unreserved + "!$'()*,;:@/?";
+		for (int i = 0; i < segment.length(); i++) {
+			PATH_SEGMENT[segment.charAt(i)] = true;
+		}
+		for (int i = 0; i < query.length(); i++) {
+			QUERY_VALUE[query.charAt(i)] = true;
+		}
+	}
+
+	private static final ConcurrentMap<String, UriTemplate> TEMPLATES = new ConcurrentHashMap<String, UriTemplate>();
+
+	private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder(256);
+		}
+	};
+
+	private final String template;
+
+	// literals[i] precedes variable i; the last literal follows the last variable
+	private final String[] literals;
+
+	private final String[] variableNames;
+
+	private final boolean[] inQuery;
+
+	private final int expandedLength;
+
+	private UriTemplate(String template) {
+		this.template = template;
+
+		List<String> literalList = new ArrayList<String>();
+		List<String> nameList = new ArrayList<String>();
+		List<Boolean> queryList = new ArrayList<Boolean>();
+
+		int queryStart = template.indexOf('?');
+		int position = 0;
+
+		while (true) {
+			int open = template.indexOf('{', position);
+			int close = open < 0 ? -1 : template.indexOf('}', open);
+			if (close < 0) {
+				break;
+			}
+			literalList.add(template.substring(position, open));
+			nameList.add(template.substring(open + 1, close));
+			queryList.add(queryStart >= 0 && open > queryStart);
+			position = close + 1;
+		}
+		literalList.add(template.substring(position));
+
+		this.literals = literalList.toArray(new String[literalList.size()]);
+		this.variableNames = nameList.toArray(new String[nameList.size()]);
+		this.inQuery = new boolean[queryList.size()];
+		for (int i = 0; i < inQuery.length; i++) {
+			inQuery[i] = queryList.get(i);
+		}
+
+		int length = 0;
+		for (String literal : literals) {
+			length += literal.length();
+		}
+		this.expandedLength = length + 16 * variableNames.length;
+	}
+
+	/**
+	 * @return The shared compiled instance of the template.
+	 */
+	public static UriTemplate of(String template) {
+		UriTemplate compiled = TEMPLATES.get(template);
+		if (compiled == null) {
+			compiled = new UriTemplate(template);
+			// templates are constants; do not let callers that pass expanded URLs grow the cache without bounds
+			if (TEMPLATES.size() < MAX_CACHED_TEMPLATES) {
+				UriTemplate existing = TEMPLATES.putIfAbsent(template, compiled);
+				if (existing != null) {
+					compiled = existing;
+				}
+			}
+		}
+		return compiled;
+	}
+
+	/**
+	 * @return A new compiled template that is not shared.
+	 */
+	public static UriTemplate compile(String template) {
+		return new UriTemplate(template);
+	}
+
+	public String getTemplate() {
+		return template;
+	}
+
+	/**
+	 * @return The variable names in order of appearance.
+	 */
+	public List<String> getVariableNames() {
+		return Collections.unmodifiableList(Arrays.asList(variableNames));
+	}
+
+	/**
+	 * @return The expanded and encoded template.
+	 */
+	public String expand(Object... uriVariables) {
+		return expandUnder("", uriVariables);
+	}
+
+	/**
+	 * @param baseUrl
+	 *            Prepended as is (e.g. http://host:7180).
+	 * @return The URI of the expanded template under the base URL.
+	 */
+	public URI toUri(String baseUrl, Object... uriVariables) {
+		return URI.create(expandUnder(baseUrl, uriVariables));
+	}
+
+	private String expandUnder(String baseUrl, Object[] uriVariables) {
+		StringBuilder buffer = BUFFER.get();
+		buffer.setLength(0);
+		buffer.ensureCapacity(baseUrl.length() + expandedLength);
+		buffer.append(baseUrl);
+		appendTo(buffer, uriVariables);
+		String expanded = buffer.toString();
+		if (buffer.capacity() > MAX_BUFFER_SIZE) {
+			BUFFER.remove();
+		}
+		return expanded;
+	}
+
+	/**
+	 * Appends the expanded and encoded template.
+	 */
+	public StringBuilder appendTo(StringBuilder out, Object... uriVariables) {
+
+		if (uriVariables.length < variableNames.length) {
+			throw new IllegalArgumentException("Not enough variable values available to expand '"
+					+ variableNames[uriVariables.length] + "' of " + template);
+		}
+
+		for (int i = 0; i < variableNames.length; i++) {
+			out.append(literals[i]);
+			Object value = uriVariables[i];
+			if (value != null) {
+				encode(out, value.toString(), inQuery[i] ? QUERY_VALUE : PATH_SEGMENT);
+			}
+		}
+		out.append(literals[variableNames.length]);
+
+		return out;
+	}
+
+	private static void encode(StringBuilder out, String value, boolean[] allowed) {
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 128 && allowed[c]) {
+				out.append(c);
+			} else if (c < 128) {
+				appendEscaped(out, c);
+			} else {
+				int codePoint = value.codePointAt(i);
+				int chars = Character.charCount(codePoint);
+				for (byte b : value.substring(i, i + chars).getBytes(UTF_8)) {
+					appendEscaped(out, b & 0xFF);
+				}
+				i += chars - 1;
+			}
+		}
+	}
+
+	private static void appendEscaped(StringBuilder out, int b) {
+		out.append('%').append(HEX[b >> 4]).append(HEX[b & 0xF]);
+	}
+
+	@Override
+	public String toString() {
+		return template;
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.impl;
+
+import com.logaritex.hadoop.configuration.manager.service.AsyncClouderaManager;
+import com.logaritex.hadoop.configuration.manager.service.AsyncClusterService;
+import com.logaritex.hadoop.configuration.manager.service.AsyncHostService;
+import com.logaritex.hadoop.configuration.manager.service.AsyncHttpService;
+import com.logaritex.hadoop.configuration.manager.service.AsyncServiceService;
+import com.logaritex.hadoop.configuration.manager.service.AsyncUserService;
+
+public class AsyncClouderaManagerImpl implements AsyncClouderaManager {
+
+	private final AsyncHttpService httpService;
+
+	private AsyncClusterService clusterService;
+
+	private AsyncHostService hostService;
+
+	private AsyncUserService userService;
+
+	private AsyncServiceService serviceService;
+
+	public AsyncClouderaManagerImpl(AsyncHttpService httpService) {
+		this.httpService = httpService;
+	}
+
+	@Override
+	public AsyncClusterService getClusterService() {
+		if (clusterService == null) {
+			clusterService = new AsyncClusterServiceImpl(httpService);
+		}
+
+		return clusterService;
+	}
+
+	@Override
+	public AsyncHostService getHostService() {
+		if (hostService == null) {
+			hostService = new AsyncHostServiceImpl(httpService);
+		}
+
+		return hostService;
+	}
+
+	@Override
+	public AsyncUserService getUserService() {
+		if (userService == null) {
+			userService = new AsyncUserServiceImpl(httpService);
+		}
+		return userService;
+	}
+
+	@Override
+	public AsyncServiceService getServiceService() {
+		if (serviceService == null) {
+			serviceService = new AsyncServiceServiceImpl(httpService);
+		}
+		return serviceService;
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.impl;
+
+import static com.logaritex.hadoop.configuration.manager.service.impl.ClusterServiceImpl.CLUSTERS_PATH;
+import static com.logaritex.hadoop.configuration.manager.service.impl.ClusterServiceImpl.CLUSTER_COMMANDS_ACTION_PATH;
+import static com.logaritex.hadoop.configuration.manager.service.impl.ClusterServiceImpl.CLUSTER_COMMANDS_PATH;
+import static com.logaritex.hadoop.configuration.manager.service.impl.ClusterServiceImpl.CLUSTER_PATH;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import com.logaritex.hadoop.configuration.manager.domain.Cluster;
+import com.logaritex.hadoop.configuration.manager.domain.ClusterList;
+import com.logaritex.hadoop.configuration.manager.domain.Command;
+import com.logaritex.hadoop.configuration.manager.domain.CommandList;
+import com.logaritex.hadoop.configuration.manager.service.AsyncClusterService;
+import com.logaritex.hadoop.configuration.manager.service.AsyncHttpService;
+
+public class AsyncClusterServiceImpl implements AsyncClusterService {
+
+	private enum ClusterCommand {
+		start, stop, restart, upgradeServices;
+	};
+
+	private final AsyncHttpService http;
+
+	public AsyncClusterServiceImpl(AsyncHttpService httpService) {
+		this.http = httpService;
+	}
+
+	@Override
+	public Future<List<Cluster>> getAllClusters() {
+		return FutureAdapter.itemsOrEmpty(http.get(CLUSTERS_PATH, ClusterList.class));
+	}
+
+	@Override
+	public Future<List<Cluster>> createClusters(Cluster... clusters) {
+		return FutureAdapter.itemsOrEmpty(http.post(CLUSTERS_PATH, new ClusterList(Arrays.asList(clusters)),
+				ClusterList.class));
+	}
+
+	@Override
+	public Future<Cluster> getCluster(String clusterName) {
+		return http.get(CLUSTER_PATH, Cluster.class, clusterName);
+	}
+
+	@Override
+	public Future<Cluster> deleteCluster(String clusterName) {
+		return http.delete(CLUSTER_PATH, null, Cluster.class, clusterName);
+	}
+
+	@Override
+	public Future<List<Command>> getActiveClusterCommands(String clusterName) {
+		return FutureAdapter.itemsOrEmpty(http.get(CLUSTER_COMMANDS_PATH, CommandList.class, clusterName));
+	}
+
+	@Override
+	public Future<Command> restartCluster(Cluster cluster) {
+		return executeCommand(cluster, ClusterCommand.restart);
+	}
+
+	@Override
+	public Future<Command> stopCluster(Cluster cluster) {
+		return executeCommand(cluster, ClusterCommand.stop);
+	}
+
+	@Override
+	public Future<Command> startCluster(Cluster cluster) {
+		return executeCommand(cluster, ClusterCommand.start);
+	}
+
+	@Override
+	public Future<Command> upgradeServices(Cluster cluster) {
+		return executeCommand(cluster, ClusterCommand.upgradeServices);
+	}
+
+	private Future<Command> executeCommand(Cluster cluster, ClusterCommand action) {
+		return http.post(CLUSTER_COMMANDS_ACTION_PATH, null, Command.class, cluster.getName(), action.name());
+	}
+}
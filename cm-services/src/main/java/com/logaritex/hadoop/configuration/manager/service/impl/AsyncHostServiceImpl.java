@@ -0,0 +1,99 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.impl;
+
+import static com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl.HOSTS_PATH;
+import static com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl.HOST_CONFIG_PATH;
+import static com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl.HOST_METRICS_PATH;
+import static com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl.HOST_PATH;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import com.logaritex.hadoop.configuration.manager.domain.Config;
+import com.logaritex.hadoop.configuration.manager.domain.ConfigList;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.HostList;
+import com.logaritex.hadoop.configuration.manager.domain.Metric;
+import com.logaritex.hadoop.configuration.manager.domain.MetricList;
+import com.logaritex.hadoop.configuration.manager.service.AsyncHostService;
+import com.logaritex.hadoop.configuration.manager.service.AsyncHttpService;
+
+public class AsyncHostServiceImpl implements AsyncHostService {
+
+	private final AsyncHttpService http;
+
+	public AsyncHostServiceImpl(AsyncHttpService httpService) {
+		this.http = httpService;
+	}
+
+	@Override
+	public Future<List<Host>> create(Host... newHosts) {
+		return FutureAdapter.itemsOrEmpty(http.post(HOSTS_PATH, new HostList(Arrays.asList(newHosts)),
+				HostList.class));
+	}
+
+	@Override
+	public Future<Host> update(Host host) {
+		return http.put(HOST_PATH, host, Host.class, host.getHostId());
+	}
+
+	@Override
+	public Future<List<Host>> getAllHosts() {
+		return FutureAdapter.itemsOrEmpty(http.get(HOSTS_PATH, HostList.class));
+	}
+
+	@Override
+	public Future<Host> getHost(String hostId) {
+		return http.get(HOST_PATH, Host.class, hostId);
+	}
+
+	@Override
+	public Future<Host> delete(String hostId) {
+		return http.delete(HOST_PATH, null, Host.class, hostId);
+	}
+
+	@Override
+	public Future<List<Host>> deleteAllHosts() {
+		return FutureAdapter.itemsOrEmpty(http.delete(HOSTS_PATH, null, HostList.class));
+	}
+
+	//
+	// Host Configuration
+	//
+
+	@Override
+	public Future<List<Config>> getHostConfig(String hostId) {
+		return FutureAdapter.itemsOrNull(http.get(HOST_CONFIG_PATH, ConfigList.class, hostId));
+	}
+
+	@Override
+	public Future<List<Config>> updateHostConfig(String hostId, Config... configs) {
+		return FutureAdapter.itemsOrNull(http.put(HOST_CONFIG_PATH, new ConfigList(Arrays.asList(configs)),
+				ConfigList.class, hostId));
+	}
+
+	//
+	// Host Metrics
+	//
+	@Override
+	public Future<List<Metric>> getHostMetrics(String hostId) {
+		return FutureAdapter.itemsOrEmpty(http.get(HOST_METRICS_PATH, MetricList.class, hostId));
+	}
+}
@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.impl;
+
+import static com.logaritex.hadoop.configuration.manager.service.impl.ServiceServiceImpl.ROLES;
+import static com.logaritex.hadoop.configuration.manager.service.impl.ServiceServiceImpl.ROLE_COMMAND;
+import static com.logaritex.hadoop.configuration.manager.service.impl.ServiceServiceImpl.ROLE_TYPES;
+import static com.logaritex.hadoop.configuration.manager.service.impl.ServiceServiceImpl.SERVICES_URL;
+import static com.logaritex.hadoop.configuration.manager.service.impl.ServiceServiceImpl.SERVICE_COMMANDS_ACTION_URL;
+import static com.logaritex.hadoop.configuration.manager.service.impl.ServiceServiceImpl.SERVICE_COMMANDS_URL;
+import static com.logaritex.hadoop.configuration.manager.service.impl.ServiceServiceImpl.SERVICE_CONFING;
+import static com.logaritex.hadoop.configuration.manager.service.impl.ServiceServiceImpl.SERVICE_URL;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import com.logaritex.hadoop.configuration.manager.domain.BulkCommandList;
+import com.logaritex.hadoop.configuration.manager.domain.Command;
+import com.logaritex.hadoop.configuration.manager.domain.CommandList;
+import com.logaritex.hadoop.configuration.manager.domain.Role;
+import com.logaritex.hadoop.configuration.manager.domain.RoleList;
+import com.logaritex.hadoop.configuration.manager.domain.RoleNames;
+import com.logaritex.hadoop.configuration.manager.domain.RoleTypeList;
+import com.logaritex.hadoop.configuration.manager.domain.Service;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceConfig;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceList;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceRef;
+import com.logaritex.hadoop.configuration.manager.service.AsyncHttpService;
+import com.logaritex.hadoop.configuration.manager.service.AsyncServiceService;
+import com.logaritex.hadoop.configuration.manager.service.ServiceService.RoleCommand;
+import com.logaritex.hadoop.configuration.manager.service.ServiceService.ServiceCommand;
+import com.logaritex.hadoop.configuration.manager.service.ServiceService.View;
+
+public class AsyncServiceServiceImpl implements AsyncServiceService {
+
+	private final AsyncHttpService http;
+
+	public AsyncServiceServiceImpl(AsyncHttpService httpService) {
+		this.http = httpService;
+	}
+
+	@Override
+	public Future<List<Service>> getAllServices(String clusterName) {
+		return FutureAdapter.itemsOrEmpty(http.get(SERVICES_URL, ServiceList.class, clusterName));
+	}
+
+	@Override
+	public Future<List<Service>> createServices(String clusterName, Service... services) {
+		return FutureAdapter.itemsOrEmpty(http.post(SERVICES_URL, new ServiceList(Arrays.asList(services)),
+				ServiceList.class, clusterName));
+	}
+
+	@Override
+	public Future<Service> deleteService(String clusterName, String serviceName) {
+		return http.delete(SERVICE_URL, null, Service.class, clusterName, serviceName);
+	}
+
+	@Override
+	public Future<Service> getService(String clusterName, String serviceName) {
+		return http.get(SERVICE_URL, Service.class, clusterName, serviceName);
+	}
+
+	@Override
+	public Future<ServiceConfig> getServiceConfiguration(Service service, View view) {
+		return serviceConfigOrNull(http.get(SERVICE_CONFING, ServiceConfig.class, service.getClusterRef()
+				.getClusterName(), service.getName(), view.name()));
+	}
+
+	@Override
+	public Future<ServiceConfig> updateServiceConfiguration(Service service, ServiceConfig config) {
+		return serviceConfigOrNull(http.put(SERVICE_CONFING, config, ServiceConfig.class, service.getClusterRef()
+				.getClusterName(), service.getName(), View.full.name()));
+	}
+
+	@Override
+	public Future<List<Command>> getActiveServiceCommands(String clusterName, String serviceName) {
+		return FutureAdapter.itemsOrEmpty(http.get(SERVICE_COMMANDS_URL, CommandList.class, clusterName,
+				serviceName));
+	}
+
+	@Override
+	public Future<Command> startService(Service service) {
+		return executeActionCommand(service, ServiceCommand.start);
+	}
+
+	@Override
+	public Future<Command> stopService(Service service) {
+		return executeActionCommand(service, ServiceCommand.stop);
+	}
+
+	@Override
+	public Future<Command> restartService(Service service) {
+		return executeActionCommand(service, ServiceCommand.restart);
+	}
+
+	@Override
+	public Future<Command> zooKeeperCleanup(Service service) {
+		return executeActionCommand(service, ServiceCommand.zooKeeperCleanup);
+	}
+
+	@Override
+	public Future<Command> zooKeeperInit(Service service) {
+		return executeActionCommand(service, ServiceCommand.zooKeeperInit);
+	}
+
+	private Future<Command> executeActionCommand(Service service, ServiceCommand command) {
+		return http.post(SERVICE_COMMANDS_ACTION_URL, null, Command.class, service.getClusterRef().getClusterName(),
+				service.getName(), command.name());
+	}
+
+	//
+	// Roles
+	//
+	@Override
+	public Future<List<String>> getRoleTypes(Service service) {
+		return FutureAdapter.itemsOrNull(http.get(ROLE_TYPES, RoleTypeList.class, service.getClusterRef()
+				.getClusterName(), service.getName()));
+	}
+
+	@Override
+	public Future<List<Role>> getRoles(Service service) {
+		return FutureAdapter.itemsOrNull(http.get(ROLES, RoleList.class, service.getClusterRef().getClusterName(),
+				service.getName()));
+	}
+
+	@Override
+	public Future<BulkCommandList> startRoles(List<Role> roles) {
+		return rolesCommand(roles, RoleCommand.start);
+	}
+
+	@Override
+	public Future<BulkCommandList> stopRoles(List<Role> roles) {
+		return rolesCommand(roles, RoleCommand.stop);
+	}
+
+	@Override
+	public Future<BulkCommandList> restartRoles(List<Role> roles) {
+		return rolesCommand(roles, RoleCommand.restart);
+	}
+
+	@Override
+	public Future<BulkCommandList> refreshRoles(List<Role> roles) {
+		return rolesCommand(roles, RoleCommand.refresh);
+	}
+
+	private Future<BulkCommandList> rolesCommand(List<Role> roles, RoleCommand command) {
+		if (roles != null && roles.size() > 0) {
+			ServiceRef serviceRef = roles.get(0).getServiceRef();
+			RoleNames roleNames = RoleNames.fromRoles(roles);
+
+			return http.post(ROLE_COMMAND, roleNames, BulkCommandList.class, serviceRef.getClusterName(),
+					serviceRef.getServiceName(), command.name());
+		}
+
+		return FutureAdapter.completed(null);
+	}
+
+	private static Future<ServiceConfig> serviceConfigOrNull(Future<ServiceConfig> future) {
+		return new FutureAdapter<ServiceConfig, ServiceConfig>(future) {
+			@Override
+			protected ServiceConfig adapt(ServiceConfig serviceConfig) {
+				if (serviceConfig == null || serviceConfig.getItems() == null) {
+					return null;
+				}
+				return serviceConfig;
+			}
+		};
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.impl;
+
+import static com.logaritex.hadoop.configuration.manager.service.impl.UserServiceImpl.USERS_PATH;
+import static com.logaritex.hadoop.configuration.manager.service.impl.UserServiceImpl.USER_PATH;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import com.logaritex.hadoop.configuration.manager.domain.User;
+import com.logaritex.hadoop.configuration.manager.domain.UserList;
+import com.logaritex.hadoop.configuration.manager.service.AsyncHttpService;
+import com.logaritex.hadoop.configuration.manager.service.AsyncUserService;
+
+public class AsyncUserServiceImpl implements AsyncUserService {
+
+	private final AsyncHttpService http;
+
+	public AsyncUserServiceImpl(AsyncHttpService http) {
+		this.http = http;
+	}
+
+	@Override
+	public Future<List<User>> getAllUsers() {
+		return FutureAdapter.itemsOrEmpty(http.get(USERS_PATH, UserList.class));
+	}
+
+	@Override
+	public Future<User> get(String userName) {
+		return http.get(USER_PATH, User.class, userName);
+	}
+
+	@Override
+	public Future<List<User>> create(User... newUsers) {
+		return FutureAdapter.itemsOrEmpty(http.post(USERS_PATH, new UserList(Arrays.asList(newUsers)),
+				UserList.class));
+	}
+
+	@Override
+	public Future<User> delete(String userName) {
+		return http.delete(USER_PATH, null, User.class, userName);
+	}
+
+	@Override
+	public Future<User> update(User user) {
+		return http.put(USER_PATH, user, User.class, user.getName());
+	}
+}
@@ -27,13 +27,15 @@ import com.logaritex.hadoop.configuration.manager.domain.Command;
 import com.logaritex.hadoop.configuration.manager.domain.CommandList;
 import com.logaritex.hadoop.configuration.manager.service.ClusterService;
 import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+import com.logaritex.hadoop.configuration.manager.service.http.ItemStreams;
 
 public class ClusterServiceImpl implements ClusterService {
 
-	private static final String CLUSTERS_PATH = "/api/v1/clusters";
-	private static final String CLUSTER_PATH = "/api/v1/clusters/{clusterName}";
-	private static final String CLUSTER_COMMANDS_PATH = "/api/v1/clusters/{clusterName}/commands";
-	private static final String CLUSTER_COMMANDS_ACTION_PATH = "/api/v1/clusters/{clusterName}/commands/{action}";
+	public static final String CLUSTERS_PATH = "/api/v1/clusters";
+	public static final String CLUSTER_PATH = "/api/v1/clusters/{clusterName}";
+	public static final String CLUSTER_COMMANDS_PATH = "/api/v1/clusters/{clusterName}/commands";
+	public static final String CLUSTER_COMMANDS_ACTION_PATH = "/api/v1/clusters/{clusterName}/commands/{action}";
 
 	private enum ClusterCommand {
 		start, stop, restart, upgradeServices;
@@ -57,6 +59,11 @@ public class ClusterServiceImpl implements ClusterService {
 		return clusterItems.getItems();
 	}
 
+	@Override
+	public void getAllClusters(ItemCallback<? super Cluster> callback) {
+		ItemStreams.getItems(http, CLUSTERS_PATH, ClusterList.class, callback);
+	}
+
 	@Override
 	public List<Cluster> createClusters(Cluster... clusters) {
 
@@ -91,6 +98,11 @@ public class ClusterServiceImpl implements ClusterService {
 		return commandList.getItems();
 	}
 
+	@Override
+	public void getActiveClusterCommands(String clusterName, ItemCallback<? super Command> callback) {
+		ItemStreams.getItems(http, CLUSTER_COMMANDS_PATH, CommandList.class, callback, clusterName);
+	}
+
 	@Override
 	public Command restartCluster(Cluster cluster) {
 		return executeCommand(cluster, ClusterCommand.restart);
@@ -113,6 +125,6 @@ public class ClusterServiceImpl implements ClusterService {
 
 	private Command executeCommand(Cluster cluster, ClusterCommand action) {
 		return http.post(CLUSTER_COMMANDS_ACTION_PATH, null, Command.class,
-				cluster.getName(), ClusterCommand.upgradeServices.name());
+				cluster.getName(), action.name());
 	}
 }
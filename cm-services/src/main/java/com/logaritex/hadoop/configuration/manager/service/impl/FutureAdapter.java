@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.logaritex.hadoop.configuration.manager.domain.ItemList;
+
+/**
+ * Lazily converts the result of a source {@link Future} when it is retrieved. Used by the async services to apply
+ * the same result post-processing as their blocking counterparts without an extra thread.
+ */
+abstract class FutureAdapter<S, T> implements Future<T> {
+
+	private final Future<S> source;
+
+	FutureAdapter(Future<S> source) {
+		this.source = source;
+	}
+
+	protected abstract T adapt(S result);
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		return source.cancel(mayInterruptIfRunning);
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return source.isCancelled();
+	}
+
+	@Override
+	public boolean isDone() {
+		return source.isDone();
+	}
+
+	@Override
+	public T get() throws InterruptedException, ExecutionException {
+		return adapt(source.get());
+	}
+
+	@Override
+	public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		return adapt(source.get(timeout, unit));
+	}
+
+	/**
+	 * @return Future of the list items, or of an empty list if the response has no items.
+	 */
+	static <T> Future<List<T>> itemsOrEmpty(Future<? extends ItemList<T>> future) {
+		return new FutureAdapter<ItemList<T>, List<T>>(upcast(future)) {
+			@Override
+			protected List<T> adapt(ItemList<T> itemList) {
+				if (itemList == null || itemList.getItems() == null) {
+					return new ArrayList<T>();
+				}
+				return itemList.getItems();
+			}
+		};
+	}
+
+	/**
+	 * @return Future of the list items, or of null if the response has no items.
+	 */
+	static <T> Future<List<T>> itemsOrNull(Future<? extends ItemList<T>> future) {
+		return new FutureAdapter<ItemList<T>, List<T>>(upcast(future)) {
+			@Override
+			protected List<T> adapt(ItemList<T> itemList) {
+				if (itemList == null) {
+					return null;
+				}
+				return itemList.getItems();
+			}
+		};
+	}
+
+	/**
+	 * @return Already completed future of the given value.
+	 */
+	static <T> Future<T> completed(final T value) {
+		return new Future<T>() {
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+				return false;
+			}
+
+			@Override
+			public boolean isCancelled() {
+				return false;
+			}
+
+			@Override
+			public boolean isDone() {
+				return true;
+			}
+
+			@Override
+			public T get() {
+				return value;
+			}
+
+			@Override
+			public T get(long timeout, TimeUnit unit) {
+				return value;
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Future<T> upcast(Future<? extends T> future) {
+		return (Future<T>) future;
+	}
+}
@@ -29,13 +29,17 @@ import com.logaritex.hadoop.configuration.manager.domain.Metric;
 import com.logaritex.hadoop.configuration.manager.domain.MetricList;
 import com.logaritex.hadoop.configuration.manager.service.HostService;
 import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+import com.logaritex.hadoop.configuration.manager.service.ServiceService.View;
+import com.logaritex.hadoop.configuration.manager.service.http.ItemStreams;
 
 public class HostServiceImpl implements HostService {
 
-	private final static String HOSTS_PATH = "/api/v1/hosts?view=full";
-	private final static String HOST_PATH = "/api/v1/hosts/{hostId}";
-	private final static String HOST_CONFIG_PATH = "/api/v1/hosts/{hostId}/config";
-	private final static String HOST_METRICS_PATH = "/api/v1/hosts/{hostId}/metrics";
+	public static final String HOSTS_PATH = "/api/v1/hosts?view=full";
+	public static final String HOSTS_VIEW_PATH = "/api/v1/hosts?view={view}";
+	public static final String HOST_PATH = "/api/v1/hosts/{hostId}";
+	public static final String HOST_CONFIG_PATH = "/api/v1/hosts/{hostId}/config";
+	public static final String HOST_METRICS_PATH = "/api/v1/hosts/{hostId}/metrics";
 
 	private final HttpService http;
 
@@ -73,6 +77,23 @@ public class HostServiceImpl implements HostService {
 		return hostList.getItems();
 	}
 
+	@Override
+	public void getAllHosts(ItemCallback<? super Host> callback) {
+		ItemStreams.getItems(http, HOSTS_PATH, HostList.class, callback);
+	}
+
+	@Override
+	public List<Host> getAllHosts(View view) {
+
+		HostList hostList = http.get(HOSTS_VIEW_PATH, HostList.class, view.name());
+
+		if (hostList == null || hostList.getItems() == null) {
+			return new ArrayList<Host>();
+		}
+
+		return hostList.getItems();
+	}
+
 	@Override
 	public Host getHost(String hostId) {
 		return http.get(HOST_PATH, Host.class, hostId);
@@ -111,6 +132,11 @@ public class HostServiceImpl implements HostService {
 		return null;
 	}
 
+	@Override
+	public void getHostConfig(String hostId, ItemCallback<? super Config> callback) {
+		ItemStreams.getItems(http, HOST_CONFIG_PATH, ConfigList.class, callback, hostId);
+	}
+
 	@Override
 	public List<Config> updateHostConfig(String hostId, Config... configs) {
 
@@ -138,4 +164,9 @@ public class HostServiceImpl implements HostService {
 
 		return metricList.getItems();
 	}
+
+	@Override
+	public void getHostMetrics(String hostId, ItemCallback<? super Metric> callback) {
+		ItemStreams.getItems(http, HOST_METRICS_PATH, MetricList.class, callback, hostId);
+	}
 }
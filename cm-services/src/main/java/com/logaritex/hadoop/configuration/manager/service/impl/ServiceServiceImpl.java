@@ -33,19 +33,21 @@ import com.logaritex.hadoop.configuration.manager.domain.ServiceConfig;
 import com.logaritex.hadoop.configuration.manager.domain.ServiceList;
 import com.logaritex.hadoop.configuration.manager.domain.ServiceRef;
 import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
 import com.logaritex.hadoop.configuration.manager.service.ServiceService;
+import com.logaritex.hadoop.configuration.manager.service.http.ItemStreams;
 
 public class ServiceServiceImpl implements ServiceService {
 
-	private static final String SERVICES_URL = "/api/v1/clusters/{clusterName}/services";
-	private static final String SERVICE_URL = "/api/v1/clusters/{clusterName}/services/{serviceName}";
-	private static final String SERVICE_CONFING = "/api/v1/clusters/{clusterName}/services/{serviceName}/config?view={view}";
-	private static final String SERVICE_COMMANDS_URL = "/api/v1/clusters/{clusterName}/services/{serviceName}/commands";
-	private static final String SERVICE_COMMANDS_ACTION_URL = "/api/v1/clusters/{clusterName}/services/{serviceName}/commands/{command}";
+	public static final String SERVICES_URL = "/api/v1/clusters/{clusterName}/services";
+	public static final String SERVICE_URL = "/api/v1/clusters/{clusterName}/services/{serviceName}";
+	public static final String SERVICE_CONFING = "/api/v1/clusters/{clusterName}/services/{serviceName}/config?view={view}";
+	public static final String SERVICE_COMMANDS_URL = "/api/v1/clusters/{clusterName}/services/{serviceName}/commands";
+	public static final String SERVICE_COMMANDS_ACTION_URL = "/api/v1/clusters/{clusterName}/services/{serviceName}/commands/{command}";
 
-	private static final String ROLES = "/api/v1/clusters/{clusterName}/services/{serviceName}/roles";
-	private static final String ROLE_TYPES = "/api/v1/clusters/{clusterName}/services/{serviceName}/roleTypes";
-	private static final String ROLE_COMMAND = "/api/v1/clusters/{clusterName}/services/{serviceName}/roleCommands/{command}";
+	public static final String ROLES = "/api/v1/clusters/{clusterName}/services/{serviceName}/roles";
+	public static final String ROLE_TYPES = "/api/v1/clusters/{clusterName}/services/{serviceName}/roleTypes";
+	public static final String ROLE_COMMAND = "/api/v1/clusters/{clusterName}/services/{serviceName}/roleCommands/{command}";
 
 	private final HttpService http;
 
@@ -65,6 +67,11 @@ public class ServiceServiceImpl implements ServiceService {
 		return serviceItems.getItems();
 	}
 
+	@Override
+	public void getAllServices(String clusterName, ItemCallback<? super Service> callback) {
+		ItemStreams.getItems(http, SERVICES_URL, ServiceList.class, callback, clusterName);
+	}
+
 	@Override
 	public List<Service> createServices(String clusterName, Service... services) {
 
@@ -125,6 +132,11 @@ public class ServiceServiceImpl implements ServiceService {
 		return commandList.getItems();
 	}
 
+	@Override
+	public void getActiveServiceCommands(String clusterName, String serviceName, ItemCallback<? super Command> callback) {
+		ItemStreams.getItems(http, SERVICE_COMMANDS_URL, CommandList.class, callback, clusterName, serviceName);
+	}
+
 	@Override
 	public Command startService(Service service) {
 		return executeActionCommand(service, ServiceCommand.start);
@@ -184,6 +196,12 @@ public class ServiceServiceImpl implements ServiceService {
 		return roleList.getItems();
 	}
 
+	@Override
+	public void getRoles(Service service, ItemCallback<? super Role> callback) {
+		ItemStreams.getItems(http, ROLES, RoleList.class, callback, service.getClusterRef().getClusterName(),
+				service.getName());
+	}
+
 	@Override
 	public BulkCommandList startRoles(List<Role> roles) {
 		return rolesCommand(roles, RoleCommand.start);
@@ -24,13 +24,15 @@ import java.util.List;
 import com.logaritex.hadoop.configuration.manager.domain.User;
 import com.logaritex.hadoop.configuration.manager.domain.UserList;
 import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
 import com.logaritex.hadoop.configuration.manager.service.UserService;
+import com.logaritex.hadoop.configuration.manager.service.http.ItemStreams;
 
 public class UserServiceImpl implements UserService {
 
-	private final static String USERS_PATH = "/api/v1/users";
+	public static final String USERS_PATH = "/api/v1/users";
 
-	private final static String USER_PATH = USERS_PATH + "/{userName}";
+	public static final String USER_PATH = USERS_PATH + "/{userName}";
 
 	private final HttpService http;
 
@@ -52,6 +54,11 @@ public class UserServiceImpl implements UserService {
 		return userList.getItems();
 	}
 
+	@Override
+	public void getAllUsers(ItemCallback<? super User> callback) {
+		ItemStreams.getItems(http, USERS_PATH, UserList.class, callback);
+	}
+
 	@Override
 	public User get(String userName) {
 		return http.get(USER_PATH, User.class, userName);
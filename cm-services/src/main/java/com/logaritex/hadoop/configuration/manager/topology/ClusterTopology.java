@@ -0,0 +1,318 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.topology;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.logaritex.hadoop.configuration.manager.domain.Cluster;
+import com.logaritex.hadoop.configuration.manager.domain.HealthSummary;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.Role;
+import com.logaritex.hadoop.configuration.manager.domain.Role.RoleState;
+import com.logaritex.hadoop.configuration.manager.domain.Service;
+
+/**
+ * Immutable, indexed view of the clusters, services, roles and hosts of a {@link TopologySnapshot}.
+ * 
+ * <br/>
+ * All indexes are built once, when the topology is created, so lookups by host id, service, role type, health,
+ * role state and rack are hash lookups returning the k matching elements without scanning the inventory. The returned
+ * lists are unmodifiable and empty (never null) when nothing matches. The domain objects are shared with the snapshot
+ * and must not be modified.
+ */
+public final class ClusterTopology {
+
+	private final TopologySnapshot snapshot;
+
+	private final Map<String, Cluster> clusters;
+
+	private final Map<String, Service> services;
+
+	private final List<Role> roles;
+
+	private final Map<String, Role> rolesByName;
+
+	private final Map<String, List<Role>> rolesByHost;
+
+	private final Map<String, List<Role>> rolesByService;
+
+	private final Map<String, List<Role>> rolesByServiceName;
+
+	private final Map<String, List<Role>> rolesByType;
+
+	private final Map<HealthSummary, List<Role>> rolesByHealth;
+
+	private final Map<RoleState, List<Role>> rolesByState;
+
+	private final Map<String, Map<HealthSummary, List<Role>>> rolesByTypeAndHealth;
+
+	private final Map<String, List<Role>> rolesByRack;
+
+	private final Map<String, List<Host>> hostsByRack;
+
+	private final Map<HealthSummary, List<Host>> hostsByHealth;
+
+	private ClusterTopology(TopologySnapshot snapshot) {
+		this.snapshot = snapshot;
+
+		Map<String, Cluster> clusterIndex = new LinkedHashMap<String, Cluster>();
+		Map<String, Service> serviceIndex = new LinkedHashMap<String, Service>();
+		List<Role> allRoles = new ArrayList<Role>();
+		Map<String, Role> roleIndex = new HashMap<String, Role>();
+
+		Map<String, List<Role>> byHost = new HashMap<String, List<Role>>();
+		Map<String, List<Role>> byService = new HashMap<String, List<Role>>();
+		Map<String, List<Role>> byServiceName = new HashMap<String, List<Role>>();
+		Map<String, List<Role>> byType = new HashMap<String, List<Role>>();
+		Map<HealthSummary, List<Role>> byHealth = new EnumMap<HealthSummary, List<Role>>(HealthSummary.class);
+		Map<RoleState, List<Role>> byState = new EnumMap<RoleState, List<Role>>(RoleState.class);
+		Map<String, Map<HealthSummary, List<Role>>> byTypeAndHealth = new HashMap<String, Map<HealthSummary, List<Role>>>();
+		Map<String, List<Role>> byRack = new HashMap<String, List<Role>>();
+
+		Map<String, List<Host>> hostsRack = new HashMap<String, List<Host>>();
+		Map<HealthSummary, List<Host>> hostsHealth = new EnumMap<HealthSummary, List<Host>>(HealthSummary.class);
+
+		for (Host host : snapshot.getHosts()) {
+			add(hostsRack, host.getRackId(), host);
+			add(hostsHealth, host.getHealthSummary(), host);
+		}
+
+		for (Cluster cluster : snapshot.getClusters()) {
+			clusterIndex.put(cluster.getName(), cluster);
+
+			for (Service service : snapshot.getServices(cluster.getName())) {
+				String serviceKey = TopologySnapshot.key(cluster.getName(), service.getName());
+				serviceIndex.put(serviceKey, service);
+
+				for (Role role : snapshot.getRoles(cluster.getName(), service.getName())) {
+					allRoles.add(role);
+					roleIndex.put(TopologySnapshot.key(serviceKey, role.getName()), role);
+
+					add(byService, serviceKey, role);
+					add(byServiceName, service.getName(), role);
+					add(byType, role.getType(), role);
+					add(byHealth, role.getHealthSummary(), role);
+					add(byState, role.getRoleState(), role);
+
+					Map<HealthSummary, List<Role>> typeHealth = byTypeAndHealth.get(role.getType());
+					if (typeHealth == null) {
+						typeHealth = new EnumMap<HealthSummary, List<Role>>(HealthSummary.class);
+						byTypeAndHealth.put(role.getType(), typeHealth);
+					}
+					add(typeHealth, role.getHealthSummary(), role);
+
+					if (role.getHostRef() != null) {
+						String hostId = role.getHostRef().getHostId();
+						add(byHost, hostId, role);
+
+						Host host = snapshot.getHost(hostId);
+						if (host != null) {
+							add(byRack, host.getRackId(), role);
+						}
+					}
+				}
+			}
+		}
+
+		this.clusters = Collections.unmodifiableMap(clusterIndex);
+		this.services = Collections.unmodifiableMap(serviceIndex);
+		this.roles = Collections.unmodifiableList(allRoles);
+		this.rolesByName = roleIndex;
+		this.rolesByHost = freeze(byHost);
+		this.rolesByService = freeze(byService);
+		this.rolesByServiceName = freeze(byServiceName);
+		this.rolesByType = freeze(byType);
+		this.rolesByHealth = freeze(byHealth);
+		this.rolesByState = freeze(byState);
+		for (Map.Entry<String, Map<HealthSummary, List<Role>>> entry : byTypeAndHealth.entrySet()) {
+			entry.setValue(freeze(entry.getValue()));
+		}
+		this.rolesByTypeAndHealth = byTypeAndHealth;
+		this.rolesByRack = freeze(byRack);
+		this.hostsByRack = freeze(hostsRack);
+		this.hostsByHealth = freeze(hostsHealth);
+	}
+
+	/**
+	 * Indexes the snapshot. Takes O(roles + hosts).
+	 */
+	public static ClusterTopology of(TopologySnapshot snapshot) {
+		return new ClusterTopology(snapshot);
+	}
+
+	/**
+	 * @return The snapshot this topology indexes.
+	 */
+	public TopologySnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	// clusters and services
+
+	public Collection<Cluster> getClusters() {
+		return clusters.values();
+	}
+
+	public Cluster getCluster(String clusterName) {
+		return clusters.get(clusterName);
+	}
+
+	public Collection<Service> getServices() {
+		return services.values();
+	}
+
+	public List<Service> getServices(String clusterName) {
+		return snapshot.getServices(clusterName);
+	}
+
+	public Service getService(String clusterName, String serviceName) {
+		return services.get(TopologySnapshot.key(clusterName, serviceName));
+	}
+
+	// roles
+
+	public List<Role> getRoles() {
+		return roles;
+	}
+
+	public int getRoleCount() {
+		return roles.size();
+	}
+
+	public Role getRole(String clusterName, String serviceName, String roleName) {
+		return rolesByName.get(TopologySnapshot.key(TopologySnapshot.key(clusterName, serviceName), roleName));
+	}
+
+	/**
+	 * @return The roles running on the host.
+	 */
+	public List<Role> getRolesOnHost(String hostId) {
+		return get(rolesByHost, hostId);
+	}
+
+	/**
+	 * @return The roles of the service of the cluster.
+	 */
+	public List<Role> getRolesOfService(String clusterName, String serviceName) {
+		return get(rolesByService, TopologySnapshot.key(clusterName, serviceName));
+	}
+
+	/**
+	 * @return The roles of the services with this name in all clusters.
+	 */
+	public List<Role> getRolesOfService(String serviceName) {
+		return get(rolesByServiceName, serviceName);
+	}
+
+	/**
+	 * @return The roles of the type (e.g. DATANODE) in all clusters.
+	 */
+	public List<Role> getRolesByType(String roleType) {
+		return get(rolesByType, roleType);
+	}
+
+	public List<Role> getRolesByHealth(HealthSummary healthSummary) {
+		return get(rolesByHealth, healthSummary);
+	}
+
+	public List<Role> getRolesByState(RoleState roleState) {
+		return get(rolesByState, roleState);
+	}
+
+	/**
+	 * @return The roles of the type in the given health, e.g. all DATANODE roles in BAD health.
+	 */
+	public List<Role> getRolesByType(String roleType, HealthSummary healthSummary) {
+		Map<HealthSummary, List<Role>> typeHealth = rolesByTypeAndHealth.get(roleType);
+		return (typeHealth == null) ? Collections.<Role> emptyList() : get(typeHealth, healthSummary);
+	}
+
+	/**
+	 * @return The roles running on the hosts of the rack.
+	 */
+	public List<Role> getRolesInRack(String rackId) {
+		return get(rolesByRack, rackId);
+	}
+
+	// hosts
+
+	public Collection<Host> getHosts() {
+		return snapshot.getHosts();
+	}
+
+	public Host getHost(String hostId) {
+		return snapshot.getHost(hostId);
+	}
+
+	/**
+	 * @return The host the role runs on or null if the host is not known.
+	 */
+	public Host getHost(Role role) {
+		return (role.getHostRef() == null) ? null : snapshot.getHost(role.getHostRef().getHostId());
+	}
+
+	public Set<String> getRacks() {
+		return hostsByRack.keySet();
+	}
+
+	public List<Host> getHostsInRack(String rackId) {
+		return get(hostsByRack, rackId);
+	}
+
+	public List<Host> getHostsByHealth(HealthSummary healthSummary) {
+		return get(hostsByHealth, healthSummary);
+	}
+
+	@Override
+	public String toString() {
+		return "ClusterTopology [clusters=" + clusters.size() + ", services=" + services.size() + ", roles="
+				+ roles.size() + ", hosts=" + snapshot.getHosts().size() + ", racks=" + hostsByRack.size() + "]";
+	}
+
+	private static <K, V> void add(Map<K, List<V>> index, K key, V value) {
+		if (key == null) {
+			return;
+		}
+		List<V> values = index.get(key);
+		if (values == null) {
+			values = new ArrayList<V>(4);
+			index.put(key, values);
+		}
+		values.add(value);
+	}
+
+	private static <K, V> Map<K, List<V>> freeze(Map<K, List<V>> index) {
+		for (Map.Entry<K, List<V>> entry : index.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+		return Collections.unmodifiableMap(index);
+	}
+
+	private static <K, V> List<V> get(Map<K, List<V>> index, K key) {
+		List<V> values = index.get(key);
+		return (values == null) ? Collections.<V> emptyList() : values;
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.topology;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall time and number of requests of every phase of a topology crawl. Phases that run concurrently (the host list
+ * is fetched while the services are crawled) overlap, so the total can be less than the sum of the phases.
+ */
+public class CrawlTimings {
+
+	public enum Phase {
+		/**
+		 * All clusters.
+		 */
+		CLUSTERS,
+		/**
+		 * The services of every cluster.
+		 */
+		SERVICES,
+		/**
+		 * The roles and the full configuration of every service.
+		 */
+		SERVICE_DETAILS,
+		/**
+		 * The hosts: the full host list, or every host referenced by a role.
+		 */
+		HOSTS;
+	}
+
+	private final long[] nanos;
+
+	private final int[] requests;
+
+	private final long totalNanos;
+
+	CrawlTimings(long[] nanos, int[] requests, long totalNanos) {
+		this.nanos = nanos.clone();
+		this.requests = requests.clone();
+		this.totalNanos = totalNanos;
+	}
+
+	public long getNanos(Phase phase) {
+		return nanos[phase.ordinal()];
+	}
+
+	public int getRequests(Phase phase) {
+		return requests[phase.ordinal()];
+	}
+
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	public int getTotalRequests() {
+		int total = 0;
+		for (int phaseRequests : requests) {
+			total += phaseRequests;
+		}
+		return total;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("CrawlTimings [");
+		for (Phase phase : Phase.values()) {
+			sb.append(phase).append('=').append(TimeUnit.NANOSECONDS.toMillis(getNanos(phase))).append("ms/")
+					.append(getRequests(phase)).append(", ");
+		}
+		return sb.append("total=").append(TimeUnit.NANOSECONDS.toMillis(totalNanos)).append("ms/")
+				.append(getTotalRequests()).append(']').toString();
+	}
+}
@@ -0,0 +1,545 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.topology;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.logaritex.hadoop.configuration.manager.domain.Cluster;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.Role;
+import com.logaritex.hadoop.configuration.manager.domain.RoleRef;
+import com.logaritex.hadoop.configuration.manager.domain.Service;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceConfig;
+import com.logaritex.hadoop.configuration.manager.service.ClouderaManager;
+import com.logaritex.hadoop.configuration.manager.service.ServiceService.View;
+import com.logaritex.hadoop.configuration.manager.topology.CrawlTimings.Phase;
+
+/**
+ * Reads the whole topology (clusters, services, roles, service configurations and hosts) into a
+ * {@link TopologySnapshot}, issuing the independent calls of every phase in parallel.
+ * 
+ * <br/>
+ * The phases run in order: the clusters, then the services of all clusters, then the roles and the full configuration
+ * of all services. The hosts are fetched with one full view host list call that runs concurrently with the other
+ * phases, or, with {@link #setFetchAllHosts(boolean)} off, with one call per host referenced by a role once the roles
+ * are known. {@link #refresh(TopologySnapshot)} updates an earlier snapshot, refetching only the services and hosts
+ * that changed.
+ * 
+ * <br/>
+ * The calls run on the given executor, which is owned by the caller and is not shut down by the crawler. At most
+ * maxConcurrency calls are in flight at any time, however many threads the executor has.
+ */
+public class TopologyCrawler {
+
+	public static final int DEFAULT_MAX_CONCURRENCY = 8;
+
+	private final ClouderaManager cm;
+
+	private final ExecutorService executor;
+
+	private final int maxConcurrency;
+
+	private final Semaphore permits;
+
+	private volatile boolean fetchAllHosts = true;
+
+	public TopologyCrawler(ClouderaManager cm, ExecutorService executor) {
+		this(cm, executor, DEFAULT_MAX_CONCURRENCY);
+	}
+
+	/**
+	 * @param cm
+	 *            The services to crawl with.
+	 * @param executor
+	 *            Runs the calls.
+	 * @param maxConcurrency
+	 *            Maximum number of calls in flight.
+	 */
+	public TopologyCrawler(ClouderaManager cm, ExecutorService executor, int maxConcurrency) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+		}
+		this.cm = cm;
+		this.executor = executor;
+		this.maxConcurrency = maxConcurrency;
+		this.permits = new Semaphore(maxConcurrency);
+	}
+
+	/**
+	 * @param fetchAllHosts
+	 *            If true (the default) all hosts are read with a single host list call. Otherwise every host
+	 *            referenced by a role is read on its own, and hosts without roles are left out.
+	 */
+	public void setFetchAllHosts(boolean fetchAllHosts) {
+		this.fetchAllHosts = fetchAllHosts;
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	/**
+	 * @return The topology as it is now.
+	 * @throws RuntimeException
+	 *             The failure of the first call that failed. The other calls of the crawl are cancelled.
+	 */
+	public TopologySnapshot crawl() {
+		return crawl(null);
+	}
+
+	/**
+	 * Brings a snapshot up to date, refetching only what changed.
+	 * 
+	 * <br/>
+	 * The clusters, the services of all clusters and the summary view host list are read again; they are cheap. The
+	 * roles and configuration of a service are only refetched when the service is new or its serviceState,
+	 * healthSummary or configStale changed. A host is only refetched when it is new, gone or its healthSummary changed;
+	 * a host whose lastHeartbeat is all that changed is updated from the summary without a call. The roles of the
+	 * services that run a role on a refetched host (before or after the refresh) are refetched as well, so the role
+	 * health and state follow the host. The role lists, service configurations and hosts of everything else are shared
+	 * with the previous snapshot.
+	 * 
+	 * <br/>
+	 * Changes that leave both the service and the host summaries untouched (e.g. a role restarted while the service
+	 * and host health stayed the same) are only seen once the service or one of its hosts changes, or by a full
+	 * {@link #crawl()}.
+	 * 
+	 * @param previous
+	 *            Snapshot to refresh, from {@link #crawl()} or an earlier refresh. Not modified.
+	 * @return A new snapshot of the topology as it is now.
+	 * @throws RuntimeException
+	 *             The failure of the first call that failed. The other calls of the refresh are cancelled.
+	 */
+	public TopologySnapshot refresh(TopologySnapshot previous) {
+		if (previous == null) {
+			throw new IllegalArgumentException("No snapshot to refresh");
+		}
+		return crawl(previous);
+	}
+
+	/**
+	 * @param previous
+	 *            Snapshot to refresh or null for a full crawl.
+	 */
+	private TopologySnapshot crawl(TopologySnapshot previous) {
+
+		long crawlStart = System.nanoTime();
+		long[] nanos = new long[Phase.values().length];
+		int[] requests = new int[Phase.values().length];
+
+		Batch<List<Host>> hostListBatch = new Batch<List<Host>>();
+		Batch<List<Cluster>> clustersBatch = new Batch<List<Cluster>>();
+		Batch<List<Service>> servicesBatch = new Batch<List<Service>>();
+		Batch<List<Role>> rolesBatch = new Batch<List<Role>>();
+		Batch<ServiceConfig> configsBatch = new Batch<ServiceConfig>();
+		Batch<Host> hostsBatch = new Batch<Host>();
+		Batch<Host> addedHostsBatch = new Batch<Host>();
+
+		try {
+			if (previous != null) {
+				hostListBatch.submit(new Callable<List<Host>>() {
+					@Override
+					public List<Host> call() throws Exception {
+						return cm.getHostService().getAllHosts(View.summary);
+					}
+				});
+			} else if (fetchAllHosts) {
+				hostListBatch.submit(new Callable<List<Host>>() {
+					@Override
+					public List<Host> call() throws Exception {
+						return cm.getHostService().getAllHosts();
+					}
+				});
+			}
+
+			// clusters, through a batch like every other call so it takes a permit too
+			long start = System.nanoTime();
+			clustersBatch.submit(new Callable<List<Cluster>>() {
+				@Override
+				public List<Cluster> call() throws Exception {
+					return cm.getClusterService().getAllClusters();
+				}
+			});
+			List<Cluster> clusters = clustersBatch.await().get(0);
+			nanos[Phase.CLUSTERS.ordinal()] = System.nanoTime() - start;
+			requests[Phase.CLUSTERS.ordinal()] = 1;
+
+			// services of all clusters
+			start = System.nanoTime();
+			for (final Cluster cluster : clusters) {
+				servicesBatch.submit(new Callable<List<Service>>() {
+					@Override
+					public List<Service> call() throws Exception {
+						return cm.getServiceService().getAllServices(cluster.getName());
+					}
+				});
+			}
+
+			// refresh: the changed hosts are read while the services are
+			Map<String, Host> hosts = new LinkedHashMap<String, Host>();
+			List<String> refetched = new ArrayList<String>();
+			if (previous != null) {
+				Set<String> listed = new HashSet<String>();
+				for (Host summary : hostListBatch.await().get(0)) {
+					final String hostId = summary.getHostId();
+					listed.add(hostId);
+
+					Host host = previous.getHost(hostId);
+					if (host == null && !fetchAllHosts) {
+						continue; // read below if a role runs on it
+					} else if (host == null || host.getHealthSummary() != summary.getHealthSummary()) {
+						refetched.add(hostId);
+						hosts.put(hostId, null); // keeps the list order
+						hostsBatch.submit(new Callable<Host>() {
+							@Override
+							public Host call() throws Exception {
+								return cm.getHostService().getHost(hostId);
+							}
+						});
+					} else if (!equal(host.getLastHeartbeat(), summary.getLastHeartbeat())) {
+						// the summary lacks only what did not change
+						summary.setRoleRefs(host.getRoleRefs());
+						summary.setHealthChecks(host.getHealthChecks());
+						hosts.put(hostId, summary);
+					} else {
+						hosts.put(hostId, host);
+					}
+				}
+				for (Host host : previous.getHosts()) {
+					if (!listed.contains(host.getHostId())) {
+						refetched.add(host.getHostId()); // gone, its roles moved or went with it
+					}
+				}
+			}
+
+			List<List<Service>> serviceLists = servicesBatch.await();
+			nanos[Phase.SERVICES.ordinal()] = System.nanoTime() - start;
+			requests[Phase.SERVICES.ordinal()] = clusters.size();
+
+			// services with a role on a refetched host
+			Set<String> hostChanged = new HashSet<String>();
+			if (previous != null) {
+				List<Host> refetchedHosts = hostsBatch.await();
+				for (int i = 0; i < refetchedHosts.size(); i++) {
+					if (refetchedHosts.get(i) != null) {
+						hosts.put(refetched.get(i), refetchedHosts.get(i));
+						addServiceKeys(refetchedHosts.get(i), hostChanged);
+					} else {
+						hosts.remove(refetched.get(i));
+					}
+				}
+				for (String hostId : refetched) {
+					addServiceKeys(previous.getHost(hostId), hostChanged);
+				}
+				addServiceKeys(previous, new HashSet<String>(refetched), hostChanged);
+
+				nanos[Phase.HOSTS.ordinal()] = System.nanoTime() - hostListBatch.getStartNanos();
+				requests[Phase.HOSTS.ordinal()] = 1 + hostsBatch.size();
+			}
+
+			Map<String, List<Service>> services = new LinkedHashMap<String, List<Service>>();
+			for (int i = 0; i < clusters.size(); i++) {
+				services.put(clusters.get(i).getName(), serviceLists.get(i));
+			}
+
+			// roles and configuration of all (changed) services
+			start = System.nanoTime();
+			Map<String, List<Role>> roles = new HashMap<String, List<Role>>();
+			Map<String, ServiceConfig> serviceConfigs = new HashMap<String, ServiceConfig>();
+			List<String> fetchedRoles = new ArrayList<String>();
+			List<String> fetchedConfigs = new ArrayList<String>();
+
+			for (List<Service> clusterServices : serviceLists) {
+				for (final Service service : clusterServices) {
+					String clusterName = service.getClusterRef().getClusterName();
+					String key = TopologySnapshot.key(clusterName, service.getName());
+					boolean changed = previous == null
+							|| changed(previous.getService(clusterName, service.getName()), service);
+
+					if (changed || hostChanged.contains(key)) {
+						fetchedRoles.add(key);
+						rolesBatch.submit(new Callable<List<Role>>() {
+							@Override
+							public List<Role> call() throws Exception {
+								return cm.getServiceService().getRoles(service);
+							}
+						});
+					} else {
+						roles.put(key, previous.getRoles(clusterName, service.getName()));
+					}
+
+					if (changed) {
+						fetchedConfigs.add(key);
+						configsBatch.submit(new Callable<ServiceConfig>() {
+							@Override
+							public ServiceConfig call() throws Exception {
+								return cm.getServiceService().getServiceConfiguration(service, View.full);
+							}
+						});
+					} else {
+						serviceConfigs.put(key, previous.getServiceConfig(clusterName, service.getName()));
+					}
+				}
+			}
+			List<List<Role>> fetchedRoleLists = rolesBatch.await();
+			List<ServiceConfig> fetchedConfigList = configsBatch.await();
+			nanos[Phase.SERVICE_DETAILS.ordinal()] = System.nanoTime() - start;
+			requests[Phase.SERVICE_DETAILS.ordinal()] = rolesBatch.size() + configsBatch.size();
+
+			for (int i = 0; i < fetchedRoles.size(); i++) {
+				roles.put(fetchedRoles.get(i), fetchedRoleLists.get(i));
+			}
+			for (int i = 0; i < fetchedConfigs.size(); i++) {
+				serviceConfigs.put(fetchedConfigs.get(i), fetchedConfigList.get(i));
+			}
+
+			// hosts
+			if (previous != null) {
+				// the known hosts are read above, only hosts that got their first role are left
+				if (!fetchAllHosts) {
+					Set<String> referenced = referencedHosts(roles);
+					hosts.keySet().retainAll(referenced);
+
+					List<String> added = new ArrayList<String>();
+					for (final String hostId : referenced) {
+						if (!hosts.containsKey(hostId)) {
+							added.add(hostId);
+							addedHostsBatch.submit(new Callable<Host>() {
+								@Override
+								public Host call() throws Exception {
+									return cm.getHostService().getHost(hostId);
+								}
+							});
+						}
+					}
+					List<Host> addedHosts = addedHostsBatch.await();
+					for (int i = 0; i < added.size(); i++) {
+						if (addedHosts.get(i) != null) {
+							hosts.put(added.get(i), addedHosts.get(i));
+						}
+					}
+					requests[Phase.HOSTS.ordinal()] += added.size();
+				}
+
+			} else if (fetchAllHosts) {
+				for (Host host : hostListBatch.await().get(0)) {
+					hosts.put(host.getHostId(), host);
+				}
+				nanos[Phase.HOSTS.ordinal()] = hostListBatch.getElapsedNanos();
+				requests[Phase.HOSTS.ordinal()] = 1;
+
+			} else {
+				start = System.nanoTime();
+				for (final String hostId : referencedHosts(roles)) {
+					hostsBatch.submit(new Callable<Host>() {
+						@Override
+						public Host call() throws Exception {
+							return cm.getHostService().getHost(hostId);
+						}
+					});
+				}
+				for (Host host : hostsBatch.await()) {
+					hosts.put(host.getHostId(), host);
+				}
+				nanos[Phase.HOSTS.ordinal()] = System.nanoTime() - start;
+				requests[Phase.HOSTS.ordinal()] = hostsBatch.size();
+			}
+
+			return new TopologySnapshot(clusters, services, roles, serviceConfigs, hosts, new CrawlTimings(nanos,
+					requests, System.nanoTime() - crawlStart));
+
+		} finally {
+			// no-ops unless the crawl failed
+			hostListBatch.cancel();
+			clustersBatch.cancel();
+			servicesBatch.cancel();
+			rolesBatch.cancel();
+			configsBatch.cancel();
+			hostsBatch.cancel();
+			addedHostsBatch.cancel();
+		}
+	}
+
+	/**
+	 * @return True if the roles and configuration of the service must be refetched.
+	 */
+	private static boolean changed(Service previous, Service service) {
+		return previous == null || previous.getServiceState() != service.getServiceState()
+				|| previous.getHealthSummary() != service.getHealthSummary()
+				|| previous.isConfigStale() != service.isConfigStale();
+	}
+
+	private static boolean equal(Object a, Object b) {
+		return (a == null) ? b == null : a.equals(b);
+	}
+
+	private static Set<String> referencedHosts(Map<String, List<Role>> roles) {
+		Set<String> hostIds = new LinkedHashSet<String>();
+		for (List<Role> serviceRoles : roles.values()) {
+			for (Role role : serviceRoles) {
+				if (role.getHostRef() != null) {
+					hostIds.add(role.getHostRef().getHostId());
+				}
+			}
+		}
+		return hostIds;
+	}
+
+	/**
+	 * Adds the keys of the services with a role on the host.
+	 */
+	private static void addServiceKeys(Host host, Set<String> keys) {
+		if (host != null && host.getRoleRefs() != null) {
+			for (RoleRef roleRef : host.getRoleRefs()) {
+				keys.add(TopologySnapshot.key(roleRef.getClusterName(), roleRef.getServiceName()));
+			}
+		}
+	}
+
+	/**
+	 * Adds the keys of the services of the snapshot with a role on one of the hosts.
+	 */
+	private static void addServiceKeys(TopologySnapshot snapshot, Set<String> hostIds, Set<String> keys) {
+		for (Cluster cluster : snapshot.getClusters()) {
+			for (Service service : snapshot.getServices(cluster.getName())) {
+				for (Role role : snapshot.getRoles(cluster.getName(), service.getName())) {
+					if (role.getHostRef() != null && hostIds.contains(role.getHostRef().getHostId())) {
+						keys.add(TopologySnapshot.key(cluster.getName(), service.getName()));
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calls submitted together and awaited in submission order. A permit of the crawler's semaphore is taken before
+	 * every submit and released when the call completes, bounding the calls in flight over all batches.
+	 */
+	private class Batch<T> {
+
+		private final List<Future<T>> futures = new ArrayList<Future<T>>();
+
+		private volatile long startNanos;
+
+		private volatile long endNanos;
+
+		void submit(final Callable<T> call) {
+			if (futures.isEmpty()) {
+				startNanos = System.nanoTime();
+			}
+
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while crawling the topology", e);
+			}
+
+			// the permit is released by the call, or by done() if the call is cancelled before it started
+			final AtomicBoolean claimed = new AtomicBoolean();
+			FutureTask<T> task = new FutureTask<T>(new Callable<T>() {
+				@Override
+				public T call() throws Exception {
+					if (!claimed.compareAndSet(false, true)) {
+						return null;
+					}
+					try {
+						return call.call();
+					} finally {
+						permits.release();
+					}
+				}
+			}) {
+				@Override
+				protected void done() {
+					endNanos = System.nanoTime();
+					if (claimed.compareAndSet(false, true)) {
+						permits.release();
+					}
+				}
+			};
+
+			try {
+				executor.execute(task);
+			} catch (RejectedExecutionException e) {
+				permits.release();
+				throw e;
+			}
+			futures.add(task);
+		}
+
+		List<T> await() {
+			List<T> results = new ArrayList<T>(futures.size());
+			try {
+				for (Future<T> future : futures) {
+					results.add(future.get());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while crawling the topology", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IllegalStateException(cause);
+			}
+			return results;
+		}
+
+		long getStartNanos() {
+			return startNanos;
+		}
+
+		int size() {
+			return futures.size();
+		}
+
+		/**
+		 * @return Time from the first submit to the completion of the last call to complete.
+		 */
+		long getElapsedNanos() {
+			return endNanos - startNanos;
+		}
+
+		void cancel() {
+			for (Future<T> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+}
@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.topology;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link ClusterTopology} for many concurrent readers while a background thread refreshes it.
+ * 
+ * <br/>
+ * Copy-on-write: a topology is never modified once published, a refresh builds a new one and publishes it with a
+ * single atomic reference update. Readers take no lock, {@link #get()} is a single volatile read, and keep a consistent
+ * view for as long as they hold on to the returned topology, whatever is published in the meantime. Readers that need
+ * several lookups to agree should call {@link #get()} once and run all of them on the result.
+ */
+public class TopologyHolder {
+
+	public static final int DEFAULT_FULL_CRAWL_INTERVAL = 60;
+
+	public static final long DEFAULT_MAX_INCREMENTAL_AGE_MS = TimeUnit.HOURS.toMillis(1);
+
+	private final AtomicReference<Version> current = new AtomicReference<Version>();
+
+	private volatile int fullCrawlInterval = DEFAULT_FULL_CRAWL_INTERVAL;
+
+	private volatile long maxIncrementalAgeMillis = DEFAULT_MAX_INCREMENTAL_AGE_MS;
+
+	public TopologyHolder() {
+	}
+
+	public TopologyHolder(ClusterTopology topology) {
+		publish(topology);
+	}
+
+	/**
+	 * @param refreshes
+	 *            Number of incremental refreshes after which {@link #refresh(TopologyCrawler)} crawls the whole
+	 *            topology again. 0 crawls on every refresh.
+	 */
+	public void setFullCrawlInterval(int refreshes) {
+		if (refreshes < 0) {
+			throw new IllegalArgumentException("refreshes must not be negative: " + refreshes);
+		}
+		this.fullCrawlInterval = refreshes;
+	}
+
+	/**
+	 * @param maxAge
+	 *            Time since the last full crawl after which {@link #refresh(TopologyCrawler)} crawls the whole
+	 *            topology again, however few refreshes ran since.
+	 */
+	public void setMaxIncrementalAge(long maxAge, TimeUnit unit) {
+		this.maxIncrementalAgeMillis = unit.toMillis(maxAge);
+	}
+
+	/**
+	 * @return The current topology, or null if none was published yet.
+	 */
+	public ClusterTopology get() {
+		Version version = current.get();
+		return (version == null) ? null : version.topology;
+	}
+
+	/**
+	 * @return Number of topologies published so far. Increments by one with every publish.
+	 */
+	public long getVersion() {
+		Version version = current.get();
+		return (version == null) ? 0 : version.number;
+	}
+
+	/**
+	 * @return When the current topology was published (System.currentTimeMillis()), 0 if none was published yet.
+	 */
+	public long getPublishedMillis() {
+		Version version = current.get();
+		return (version == null) ? 0 : version.publishedMillis;
+	}
+
+	/**
+	 * Makes the topology the current one, unconditionally.
+	 */
+	public void publish(ClusterTopology topology) {
+		if (topology == null) {
+			throw new IllegalArgumentException("Can not publish a null topology");
+		}
+		while (true) {
+			Version version = current.get();
+			if (current.compareAndSet(version, new Version(topology, version, false))) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Makes the topology the current one unless another one was published since expected was read, so concurrent
+	 * refreshers can not replace a newer topology with an older one.
+	 * 
+	 * @return True if the topology was published.
+	 */
+	public boolean compareAndPublish(ClusterTopology expected, ClusterTopology topology) {
+		if (topology == null) {
+			throw new IllegalArgumentException("Can not publish a null topology");
+		}
+		Version version = current.get();
+		if (((version == null) ? null : version.topology) != expected) {
+			return false;
+		}
+		return current.compareAndSet(version, new Version(topology, version, false));
+	}
+
+	/**
+	 * Crawls the topology, incrementally if a topology was published before, and publishes the result.
+	 * 
+	 * <br/>
+	 * An incremental refresh misses the changes that leave the service and host summaries untouched, so the whole
+	 * topology is crawled again every {@link #setFullCrawlInterval(int) fullCrawlInterval} refreshes, or once the last
+	 * full crawl is older than {@link #setMaxIncrementalAge(long, TimeUnit) maxIncrementalAge}, whichever comes first.
+	 * A topology published with {@link #publish(ClusterTopology)} or {@link #compareAndPublish} counts as a full crawl.
+	 * 
+	 * @return The published topology, or the newer one published concurrently by someone else.
+	 * @see TopologyCrawler#refresh(TopologySnapshot)
+	 */
+	public ClusterTopology refresh(TopologyCrawler crawler) {
+		Version version = current.get();
+
+		boolean full = version == null || version.incrementalRefreshes >= fullCrawlInterval
+				|| System.currentTimeMillis() - version.crawledMillis >= maxIncrementalAgeMillis;
+
+		TopologySnapshot snapshot = full ? crawler.crawl() : crawler.refresh(version.topology.getSnapshot());
+		ClusterTopology topology = ClusterTopology.of(snapshot);
+
+		return current.compareAndSet(version, new Version(topology, version, !full)) ? topology : get();
+	}
+
+	/**
+	 * @return Number of incremental refreshes since the current topology was last fully crawled, 0 if none was
+	 *         published yet.
+	 */
+	public int getIncrementalRefreshes() {
+		Version version = current.get();
+		return (version == null) ? 0 : version.incrementalRefreshes;
+	}
+
+	@Override
+	public String toString() {
+		return "TopologyHolder [version=" + getVersion() + ", topology=" + get() + "]";
+	}
+
+	/**
+	 * A published topology and its version number, swapped together so they are always read consistently.
+	 */
+	private static final class Version {
+
+		final ClusterTopology topology;
+
+		final long number;
+
+		final long publishedMillis;
+
+		/**
+		 * Refreshes since the last full crawl, and when that crawl was published.
+		 */
+		final int incrementalRefreshes;
+
+		final long crawledMillis;
+
+		Version(ClusterTopology topology, Version previous, boolean incremental) {
+			this.topology = topology;
+			this.number = (previous == null) ? 1 : previous.number + 1;
+			this.publishedMillis = System.currentTimeMillis();
+			this.incrementalRefreshes = incremental ? previous.incrementalRefreshes + 1 : 0;
+			this.crawledMillis = incremental ? previous.crawledMillis : publishedMillis;
+		}
+	}
+}
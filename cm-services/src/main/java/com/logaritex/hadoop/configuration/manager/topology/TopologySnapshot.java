@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.topology;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.logaritex.hadoop.configuration.manager.domain.Cluster;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.Role;
+import com.logaritex.hadoop.configuration.manager.domain.Service;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceConfig;
+
+/**
+ * The clusters, services, roles, service configurations and hosts read by one {@link TopologyCrawler#crawl()}.
+ * 
+ * <br/>
+ * The collections are unmodifiable and never change after the crawl. The domain objects are shared and must not be
+ * modified either: a refreshed snapshot shares the role lists, service configurations and hosts that did not change
+ * with the snapshot it was refreshed from.
+ */
+public class TopologySnapshot {
+
+	private final List<Cluster> clusters;
+
+	private final Map<String, List<Service>> services;
+
+	private final Map<String, Service> servicesByKey;
+
+	private final Map<String, List<Role>> roles;
+
+	private final Map<String, ServiceConfig> serviceConfigs;
+
+	private final Map<String, Host> hosts;
+
+	private final CrawlTimings timings;
+
+	/**
+	 * @param clusters
+	 *            All clusters
+	 * @param services
+	 *            Services by cluster name
+	 * @param roles
+	 *            Roles by service, keyed by {@link #key(String, String)}
+	 * @param serviceConfigs
+	 *            Service configurations by service, keyed by {@link #key(String, String)}
+	 * @param hosts
+	 *            Hosts by host id
+	 * @param timings
+	 *            How long the crawl took
+	 */
+	TopologySnapshot(List<Cluster> clusters, Map<String, List<Service>> services, Map<String, List<Role>> roles,
+			Map<String, ServiceConfig> serviceConfigs, Map<String, Host> hosts, CrawlTimings timings) {
+		this.clusters = Collections.unmodifiableList(clusters);
+		this.services = Collections.unmodifiableMap(services);
+		Map<String, Service> serviceIndex = new HashMap<String, Service>();
+		for (Map.Entry<String, List<Service>> clusterServices : services.entrySet()) {
+			for (Service service : clusterServices.getValue()) {
+				serviceIndex.put(key(clusterServices.getKey(), service.getName()), service);
+			}
+		}
+		this.servicesByKey = serviceIndex;
+		this.roles = Collections.unmodifiableMap(roles);
+		this.serviceConfigs = Collections.unmodifiableMap(serviceConfigs);
+		this.hosts = Collections.unmodifiableMap(hosts);
+		this.timings = timings;
+	}
+
+	public List<Cluster> getClusters() {
+		return clusters;
+	}
+
+	/**
+	 * @return The services of the cluster, empty for an unknown cluster.
+	 */
+	public List<Service> getServices(String clusterName) {
+		List<Service> clusterServices = services.get(clusterName);
+		return (clusterServices == null) ? Collections.<Service> emptyList() : clusterServices;
+	}
+
+	/**
+	 * @return The service or null if there is no such service.
+	 */
+	public Service getService(String clusterName, String serviceName) {
+		return servicesByKey.get(key(clusterName, serviceName));
+	}
+
+	/**
+	 * @return The roles of the service, empty for an unknown service.
+	 */
+	public List<Role> getRoles(String clusterName, String serviceName) {
+		List<Role> serviceRoles = roles.get(key(clusterName, serviceName));
+		return (serviceRoles == null) ? Collections.<Role> emptyList() : serviceRoles;
+	}
+
+	/**
+	 * @return The full view configuration of the service or null for an unknown service.
+	 */
+	public ServiceConfig getServiceConfig(String clusterName, String serviceName) {
+		return serviceConfigs.get(key(clusterName, serviceName));
+	}
+
+	public Collection<Host> getHosts() {
+		return hosts.values();
+	}
+
+	public Host getHost(String hostId) {
+		return hosts.get(hostId);
+	}
+
+	public CrawlTimings getTimings() {
+		return timings;
+	}
+
+	static String key(String clusterName, String serviceName) {
+		return clusterName + '/' + serviceName;
+	}
+
+	@Override
+	public String toString() {
+		return "TopologySnapshot [clusters=" + clusters.size() + ", services=" + roles.size() + ", hosts="
+				+ hosts.size() + ", timings=" + timings + "]";
+	}
+}
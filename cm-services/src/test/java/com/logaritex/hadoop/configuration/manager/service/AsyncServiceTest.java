@@ -0,0 +1,179 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service;
+
+import static java.util.Arrays.*;
+import static junit.framework.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.logaritex.hadoop.configuration.manager.domain.BulkCommandList;
+import com.logaritex.hadoop.configuration.manager.domain.Cluster;
+import com.logaritex.hadoop.configuration.manager.domain.ClusterRef;
+import com.logaritex.hadoop.configuration.manager.domain.Command;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.HostList;
+import com.logaritex.hadoop.configuration.manager.domain.Metric;
+import com.logaritex.hadoop.configuration.manager.domain.MetricList;
+import com.logaritex.hadoop.configuration.manager.domain.Role;
+import com.logaritex.hadoop.configuration.manager.domain.RoleNames;
+import com.logaritex.hadoop.configuration.manager.domain.Service;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceConfig;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceRef;
+import com.logaritex.hadoop.configuration.manager.domain.User;
+import com.logaritex.hadoop.configuration.manager.service.ServiceService.View;
+import com.logaritex.hadoop.configuration.manager.service.http.ExecutorAsyncHttpService;
+import com.logaritex.hadoop.configuration.manager.service.impl.AsyncClouderaManagerImpl;
+import com.logaritex.hadoop.configuration.manager.service.impl.ClusterServiceImpl;
+import com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl;
+import com.logaritex.hadoop.configuration.manager.service.impl.ServiceServiceImpl;
+import com.logaritex.hadoop.configuration.manager.service.impl.UserServiceImpl;
+
+public class AsyncServiceTest {
+
+	HttpService httpService = mock(HttpService.class);
+
+	ExecutorService executor = Executors.newSingleThreadExecutor();
+
+	AsyncClouderaManager cm = new AsyncClouderaManagerImpl(new ExecutorAsyncHttpService(httpService, executor));
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testGetAllHosts() throws Exception {
+
+		Host host = new Host();
+		host.setHostId("host1");
+		when(httpService.get(HostServiceImpl.HOSTS_PATH, HostList.class)).thenReturn(new HostList(asList(host)));
+
+		List<Host> hosts = cm.getHostService().getAllHosts().get();
+
+		assertEquals(1, hosts.size());
+		assertSame(host, hosts.get(0));
+	}
+
+	@Test
+	public void testGetHostMetricsWithoutItemsIsEmpty() throws Exception {
+
+		when(httpService.get(HostServiceImpl.HOST_METRICS_PATH, MetricList.class, "host1")).thenReturn(null);
+
+		List<Metric> metrics = cm.getHostService().getHostMetrics("host1").get();
+
+		assertNotNull(metrics);
+		assertTrue(metrics.isEmpty());
+		verify(httpService).get(HostServiceImpl.HOST_METRICS_PATH, MetricList.class, "host1");
+	}
+
+	@Test
+	public void testGetServiceConfigurationSendsView() throws Exception {
+
+		cm.getServiceService().getServiceConfiguration(service("cluster1", "hdfs1"), View.summary).get();
+
+		verify(httpService).get(ServiceServiceImpl.SERVICE_CONFING, ServiceConfig.class, "cluster1", "hdfs1",
+				"summary");
+	}
+
+	@Test
+	public void testStartRolesPostsRoleNames() throws Exception {
+
+		cm.getServiceService().startRoles(asList(role("cluster1", "hdfs1", "hdfs1-DATANODE-1"))).get();
+
+		verify(httpService).post(eq(ServiceServiceImpl.ROLE_COMMAND), any(RoleNames.class),
+				eq(BulkCommandList.class), eq("cluster1"), eq("hdfs1"), eq("start"));
+	}
+
+	@Test
+	public void testRoleCommandWithoutRolesSendsNothing() throws Exception {
+
+		assertNull(cm.getServiceService().restartRoles(Collections.<Role> emptyList()).get());
+
+		verifyZeroInteractions(httpService);
+	}
+
+	@Test
+	public void testStopClusterSendsAction() throws Exception {
+
+		Cluster cluster = new Cluster();
+		cluster.setName("cluster1");
+
+		cm.getClusterService().stopCluster(cluster).get();
+
+		verify(httpService).post(ClusterServiceImpl.CLUSTER_COMMANDS_ACTION_PATH, null, Command.class, "cluster1",
+				"stop");
+	}
+
+	@Test
+	public void testGetUser() throws Exception {
+
+		User admin = new User("admin", null, asList("ROLE_ADMIN"));
+		when(httpService.get(UserServiceImpl.USER_PATH, User.class, "admin")).thenReturn(admin);
+
+		assertSame(admin, cm.getUserService().get("admin").get());
+	}
+
+	@Test
+	public void testFailurePropagatesThroughFuture() throws Exception {
+
+		IllegalStateException failure = new IllegalStateException("CM is down");
+		when(httpService.get(HostServiceImpl.HOSTS_PATH, HostList.class)).thenThrow(failure);
+
+		Future<List<Host>> hosts = cm.getHostService().getAllHosts();
+
+		try {
+			hosts.get();
+			fail("Expected the failure of the call");
+		} catch (ExecutionException e) {
+			assertSame(failure, e.getCause());
+		}
+		assertTrue(hosts.isDone());
+	}
+
+	private static Service service(String clusterName, String serviceName) {
+		ClusterRef clusterRef = new ClusterRef();
+		clusterRef.setClusterName(clusterName);
+
+		Service service = new Service();
+		service.setName(serviceName);
+		service.setClusterRef(clusterRef);
+		return service;
+	}
+
+	private static Role role(String clusterName, String serviceName, String roleName) {
+		ServiceRef serviceRef = new ServiceRef();
+		serviceRef.setClusterName(clusterName);
+		serviceRef.setServiceName(serviceName);
+
+		Role role = new Role();
+		role.setName(roleName);
+		role.setServiceRef(serviceRef);
+		return role;
+	}
+}
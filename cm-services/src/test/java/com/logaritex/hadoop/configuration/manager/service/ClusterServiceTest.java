@@ -11,6 +11,7 @@ import static org.mockito.Mockito.*;
 import com.logaritex.hadoop.configuration.manager.domain.Cluster;
 import com.logaritex.hadoop.configuration.manager.domain.Cluster.ClusterVersion;
 import com.logaritex.hadoop.configuration.manager.domain.ClusterList;
+import com.logaritex.hadoop.configuration.manager.domain.Command;
 import com.logaritex.hadoop.configuration.manager.service.impl.ClusterServiceImpl;
 
 public class ClusterServiceTest {
@@ -37,4 +38,22 @@ public class ClusterServiceTest {
 		assertEquals(clusters.length, createdClusters.size());
 	}
 
+	@Test
+	public void testClusterCommandsSendTheirAction() throws Exception {
+
+		ClusterServiceImpl clusterService = new ClusterServiceImpl(httpService);
+
+		Cluster cluster = new Cluster();
+		cluster.setName("default");
+
+		clusterService.startCluster(cluster);
+		clusterService.stopCluster(cluster);
+		clusterService.restartCluster(cluster);
+		clusterService.upgradeServices(cluster);
+
+		for (String action : asList("start", "stop", "restart", "upgradeServices")) {
+			verify(httpService).post("/api/v1/clusters/{clusterName}/commands/{action}", null, Command.class,
+					"default", action);
+		}
+	}
 }
@@ -0,0 +1,182 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import static junit.framework.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.service.HostService;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.impl.ClouderaManagerImpl;
+import com.logaritex.hadoop.configuration.manager.service.impl.ClusterServiceImpl;
+import com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl;
+import com.logaritex.hadoop.configuration.manager.service.impl.ServiceServiceImpl;
+
+public class AimdLimiterTest {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+	@Test
+	public void testLimitGrowsWhileLatencyIsStableAndShrinksOnQueueing() throws Exception {
+
+		AimdLimiter limiter = new AimdLimiter(2, 1, 10);
+
+		for (int round = 0; round < 20; round++) {
+			roundTrip(limiter, FAST);
+		}
+		assertEquals(10, limiter.getLimit());
+		assertEquals(1, limiter.getBaseline(TimeUnit.MILLISECONDS));
+
+		roundTrip(limiter, SLOW);
+		assertEquals(9, limiter.getLimit());
+
+		limiter.acquire();
+		limiter.release(SLOW, true);
+		assertTrue(limiter.getLimit() <= 9);
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	public void testLatencyIsComparedWithTheBaselineOfItsTemplate() throws Exception {
+
+		AimdLimiter limiter = new AimdLimiter(10, 1, 100);
+
+		for (int i = 0; i < 20; i++) {
+			limiter.acquire();
+			limiter.release(HostServiceImpl.HOST_PATH, FAST, false);
+			limiter.acquire();
+			limiter.release(HostServiceImpl.HOSTS_PATH, SLOW, false);
+		}
+		assertEquals(10, limiter.getLimit());
+		assertEquals(1, limiter.getBaseline(HostServiceImpl.HOST_PATH, TimeUnit.MILLISECONDS));
+		assertEquals(100, limiter.getBaseline(HostServiceImpl.HOSTS_PATH, TimeUnit.MILLISECONDS));
+
+		limiter.acquire();
+		limiter.release(HostServiceImpl.HOST_PATH, SLOW, false);
+		assertEquals(9, limiter.getLimit());
+	}
+
+	@Test
+	public void testCallersBlockAtTheLimit() throws Exception {
+
+		final AimdLimiter limiter = new AimdLimiter(1, 1, 1);
+		limiter.acquire();
+
+		Thread waiter = new Thread() {
+			@Override
+			public void run() {
+				try {
+					limiter.acquire();
+				} catch (InterruptedException e) {
+					// test ends
+				}
+			}
+		};
+		waiter.start();
+
+		while (limiter.getWaiting() == 0) {
+			Thread.sleep(1);
+		}
+		assertEquals(1, limiter.getInFlight());
+
+		limiter.release(FAST, false);
+		waiter.join(5000);
+
+		assertFalse(waiter.isAlive());
+		assertEquals(1, limiter.getInFlight());
+		assertEquals(0, limiter.getWaiting());
+	}
+
+	@Test
+	public void testEndpointGroups() {
+		assertEquals(EndpointGroup.METRICS, EndpointGroup.of(HostServiceImpl.HOST_METRICS_PATH));
+		assertEquals(EndpointGroup.CONFIG, EndpointGroup.of(HostServiceImpl.HOST_CONFIG_PATH));
+		assertEquals(EndpointGroup.CONFIG, EndpointGroup.of(ServiceServiceImpl.SERVICE_CONFING));
+		assertEquals(EndpointGroup.COMMANDS, EndpointGroup.of(ServiceServiceImpl.ROLE_COMMAND));
+		assertEquals(EndpointGroup.COMMANDS, EndpointGroup.of(ClusterServiceImpl.CLUSTER_COMMANDS_ACTION_PATH));
+		assertEquals(EndpointGroup.DEFAULT, EndpointGroup.of(HostServiceImpl.HOSTS_PATH));
+	}
+
+	@Test
+	public void testOnlyOverloadFailuresShrinkTheLimit() {
+
+		HttpService httpService = mock(HttpService.class);
+		when(httpService.get(HostServiceImpl.HOST_PATH, Host.class, "missing")).thenThrow(
+				new HttpStatusException(404, "/api/v1/hosts/missing"));
+		when(httpService.get(HostServiceImpl.HOST_PATH, Host.class, "busy")).thenThrow(
+				new HttpStatusException(503, "/api/v1/hosts/busy"));
+
+		// a tolerance no latency jitter exceeds, so that only the failures can change the limit
+		AimdLimiter limiter = new AimdLimiter(10, 1, 100, 1000000, 0.9);
+		HostService hostService = new ClouderaManagerImpl(new ConcurrencyLimitingHttpService(httpService,
+				Collections.singletonMap(EndpointGroup.DEFAULT, limiter))).getHostService();
+
+		for (int i = 0; i < 20; i++) {
+			try {
+				hostService.getHost("missing");
+				fail();
+			} catch (HttpStatusException e) {
+				assertEquals(404, e.getStatusCode());
+			}
+		}
+		assertEquals(10, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+
+		try {
+			hostService.getHost("busy");
+			fail();
+		} catch (HttpStatusException e) {
+			assertEquals(503, e.getStatusCode());
+		}
+		assertEquals(9, limiter.getLimit());
+	}
+
+	@Test
+	public void testOverloadFailures() {
+		assertTrue(ConcurrencyLimitingHttpService.isOverload(new HttpStatusException(429, "/")));
+		assertTrue(ConcurrencyLimitingHttpService.isOverload(new HttpStatusException(502, "/")));
+		assertTrue(ConcurrencyLimitingHttpService.isOverload(new IllegalStateException(new SocketTimeoutException())));
+		assertTrue(ConcurrencyLimitingHttpService.isOverload(new IllegalStateException(new TimeoutException())));
+		assertFalse(ConcurrencyLimitingHttpService.isOverload(new HttpStatusException(404, "/")));
+		assertFalse(ConcurrencyLimitingHttpService.isOverload(new HttpStatusException(400, "/")));
+		assertFalse(ConcurrencyLimitingHttpService.isOverload(new IllegalArgumentException()));
+	}
+
+	/**
+	 * Fills the current limit and completes all requests with the given latency.
+	 */
+	private static void roundTrip(AimdLimiter limiter, long latencyNanos) throws InterruptedException {
+		int limit = limiter.getLimit();
+		for (int i = 0; i < limit; i++) {
+			limiter.acquire();
+		}
+		for (int i = 0; i < limit; i++) {
+			limiter.release(latencyNanos, false);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import static junit.framework.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.logaritex.hadoop.configuration.manager.domain.Cluster;
+import com.logaritex.hadoop.configuration.manager.domain.ClusterList;
+import com.logaritex.hadoop.configuration.manager.domain.RoleTypeList;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.impl.ClusterServiceImpl;
+import com.logaritex.hadoop.configuration.manager.service.impl.ServiceServiceImpl;
+
+public class CachingHttpServiceTest {
+
+	private final HttpService httpService = mock(HttpService.class);
+
+	@Test
+	public void testCachesConfiguredTemplatesOnly() throws Exception {
+
+		CachingHttpService caching = new CachingHttpService(httpService);
+		caching.setTimeToLive(ClusterServiceImpl.CLUSTERS_PATH, 1, TimeUnit.MINUTES);
+
+		when(httpService.get(ClusterServiceImpl.CLUSTERS_PATH, ClusterList.class)).thenReturn(clusters(2));
+
+		assertSame(caching.get(ClusterServiceImpl.CLUSTERS_PATH, ClusterList.class),
+				caching.get(ClusterServiceImpl.CLUSTERS_PATH, ClusterList.class));
+		verify(httpService, times(1)).get(ClusterServiceImpl.CLUSTERS_PATH, ClusterList.class);
+
+		caching.get(ClusterServiceImpl.CLUSTER_PATH, Cluster.class, "c1");
+		caching.get(ClusterServiceImpl.CLUSTER_PATH, Cluster.class, "c1");
+		verify(httpService, times(2)).get(ClusterServiceImpl.CLUSTER_PATH, Cluster.class, "c1");
+
+		assertEquals(1, caching.getHits());
+		assertEquals(1, caching.getMisses());
+		assertEquals(3, caching.getWeight());
+	}
+
+	@Test
+	public void testExpiredEntriesAreReloaded() throws Exception {
+
+		CachingHttpService caching = new CachingHttpService(httpService);
+		caching.setTimeToLive(ClusterServiceImpl.CLUSTERS_PATH, 1, TimeUnit.NANOSECONDS);
+
+		when(httpService.get(ClusterServiceImpl.CLUSTERS_PATH, ClusterList.class)).thenReturn(clusters(1));
+
+		caching.get(ClusterServiceImpl.CLUSTERS_PATH, ClusterList.class);
+		Thread.sleep(1);
+		caching.get(ClusterServiceImpl.CLUSTERS_PATH, ClusterList.class);
+
+		verify(httpService, times(2)).get(ClusterServiceImpl.CLUSTERS_PATH, ClusterList.class);
+	}
+
+	@Test
+	public void testMutationInvalidatesPathsUnderAndAbove() throws Exception {
+
+		CachingHttpService caching = new CachingHttpService(httpService);
+		caching.setTimeToLive(ClusterServiceImpl.CLUSTERS_PATH, 1, TimeUnit.MINUTES);
+		caching.setTimeToLive(ServiceServiceImpl.ROLE_TYPES, 1, TimeUnit.MINUTES);
+
+		when(httpService.get(ClusterServiceImpl.CLUSTERS_PATH, ClusterList.class)).thenReturn(clusters(1));
+		when(httpService.get(ServiceServiceImpl.ROLE_TYPES, RoleTypeList.class, "c1", "hdfs1")).thenReturn(
+				roleTypes("NAMENODE"));
+		when(httpService.get(ServiceServiceImpl.ROLE_TYPES, RoleTypeList.class, "c1", "hbase1")).thenReturn(
+				roleTypes("MASTER"));
+
+		caching.get(ClusterServiceImpl.CLUSTERS_PATH, ClusterList.class);
+		caching.get(ServiceServiceImpl.ROLE_TYPES, RoleTypeList.class, "c1", "hdfs1");
+		caching.get(ServiceServiceImpl.ROLE_TYPES, RoleTypeList.class, "c1", "hbase1");
+		assertEquals(3, caching.getSize());
+
+		caching.delete(ServiceServiceImpl.SERVICE_URL, null, Object.class, "c1", "hdfs1");
+
+		// the cluster list (above) and the hdfs1 role types (under) are gone, hbase1 is unrelated
+		assertEquals(1, caching.getSize());
+		assertEquals(2, caching.getInvalidations());
+
+		caching.get(ServiceServiceImpl.ROLE_TYPES, RoleTypeList.class, "c1", "hbase1");
+		verify(httpService, times(1)).get(ServiceServiceImpl.ROLE_TYPES, RoleTypeList.class, "c1", "hbase1");
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntriesAreEvictedByWeight() throws Exception {
+
+		CachingHttpService caching = new CachingHttpService(httpService, 10, CachingHttpService.ITEM_COUNT_WEIGHER);
+		caching.setTimeToLive(ClusterServiceImpl.CLUSTER_PATH, 1, TimeUnit.MINUTES);
+		caching.setTimeToLive(ClusterServiceImpl.CLUSTERS_PATH, 1, TimeUnit.MINUTES);
+
+		when(httpService.get(ClusterServiceImpl.CLUSTER_PATH, Cluster.class, "c1")).thenReturn(new Cluster());
+		when(httpService.get(ClusterServiceImpl.CLUSTER_PATH, Cluster.class, "c2")).thenReturn(new Cluster());
+		when(httpService.get(ClusterServiceImpl.CLUSTERS_PATH, ClusterList.class)).thenReturn(clusters(8));
+
+		caching.get(ClusterServiceImpl.CLUSTER_PATH, Cluster.class, "c1");
+		caching.get(ClusterServiceImpl.CLUSTER_PATH, Cluster.class, "c2");
+		caching.get(ClusterServiceImpl.CLUSTER_PATH, Cluster.class, "c1"); // c2 is now the eldest
+
+		caching.get(ClusterServiceImpl.CLUSTERS_PATH, ClusterList.class); // weight 9
+
+		assertEquals(1, caching.getEvictions());
+		assertEquals(10, caching.getWeight());
+
+		caching.get(ClusterServiceImpl.CLUSTER_PATH, Cluster.class, "c1");
+		caching.get(ClusterServiceImpl.CLUSTER_PATH, Cluster.class, "c2");
+		verify(httpService, times(1)).get(ClusterServiceImpl.CLUSTER_PATH, Cluster.class, "c1");
+		verify(httpService, times(2)).get(ClusterServiceImpl.CLUSTER_PATH, Cluster.class, "c2");
+	}
+
+	private static ClusterList clusters(int count) {
+		ClusterList clusters = new ClusterList();
+		clusters.setItems(new ArrayList<Cluster>());
+		for (int i = 0; i < count; i++) {
+			clusters.getItems().add(new Cluster());
+		}
+		return clusters;
+	}
+
+	private static RoleTypeList roleTypes(String... roleTypes) {
+		RoleTypeList roleTypeList = new RoleTypeList();
+		roleTypeList.setItems(Arrays.asList(roleTypes));
+		return roleTypeList;
+	}
+}
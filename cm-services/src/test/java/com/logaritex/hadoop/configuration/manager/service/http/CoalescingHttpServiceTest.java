@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import static junit.framework.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.logaritex.hadoop.configuration.manager.domain.HostList;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+
+public class CoalescingHttpServiceTest {
+
+	private final HttpService httpService = mock(HttpService.class);
+
+	private final CoalescingHttpService coalescing = new CoalescingHttpService(httpService);
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testConcurrentGetsShareOneCall() throws Exception {
+
+		final HostList hosts = new HostList();
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		when(httpService.get("/api/v1/hosts", HostList.class)).thenAnswer(new Answer<HostList>() {
+			@Override
+			public HostList answer(InvocationOnMock invocation) throws Throwable {
+				entered.countDown();
+				release.await();
+				return hosts;
+			}
+		});
+
+		List<Future<HostList>> results = new ArrayList<Future<HostList>>();
+
+		results.add(executor.submit(getHosts()));
+		assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+		for (int i = 0; i < 4; i++) {
+			results.add(executor.submit(getHosts()));
+		}
+
+		while (coalescing.getCoalescedRequests() < 4) {
+			Thread.sleep(1);
+		}
+
+		release.countDown();
+
+		for (Future<HostList> result : results) {
+			assertSame(hosts, result.get(5, TimeUnit.SECONDS));
+		}
+
+		verify(httpService, times(1)).get("/api/v1/hosts", HostList.class);
+		assertEquals(5, coalescing.getRequests());
+		assertEquals(1, coalescing.getExecutedRequests());
+
+		// the call is no longer in flight, the next GET goes to the server again
+		coalescing.get("/api/v1/hosts", HostList.class);
+		verify(httpService, times(2)).get("/api/v1/hosts", HostList.class);
+	}
+
+	@Test
+	public void testDifferentVariablesAreNotCoalesced() throws Exception {
+
+		when(httpService.get("/api/v1/hosts/{hostId}", HostList.class, "h1")).thenReturn(new HostList());
+		when(httpService.get("/api/v1/hosts/{hostId}", HostList.class, "h2")).thenReturn(new HostList());
+
+		coalescing.get("/api/v1/hosts/{hostId}", HostList.class, "h1");
+		coalescing.get("/api/v1/hosts/{hostId}", HostList.class, "h2");
+
+		assertEquals(0, coalescing.getCoalescedRequests());
+		verify(httpService).get("/api/v1/hosts/{hostId}", HostList.class, "h1");
+		verify(httpService).get("/api/v1/hosts/{hostId}", HostList.class, "h2");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFailureIsRethrown() throws Exception {
+
+		when(httpService.get("/api/v1/hosts", HostList.class)).thenThrow(new IllegalArgumentException("boom"));
+
+		coalescing.get("/api/v1/hosts", HostList.class);
+	}
+
+	private Callable<HostList> getHosts() {
+		return new Callable<HostList>() {
+			@Override
+			public HostList call() throws Exception {
+				return coalescing.get("/api/v1/hosts", HostList.class);
+			}
+		};
+	}
+}
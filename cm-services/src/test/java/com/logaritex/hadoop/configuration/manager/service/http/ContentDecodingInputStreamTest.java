@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import static junit.framework.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+public class ContentDecodingInputStreamTest {
+
+	private static final String JSON = "{\"items\":[{\"hostId\":\"host-1\"},{\"hostId\":\"host-2\"},"
+			+ "{\"hostId\":\"host-3\"},{\"hostId\":\"host-4\"}]}";
+
+	@Test
+	public void testGzip() throws Exception {
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+		gzip.write(JSON.getBytes("UTF-8"));
+		gzip.close();
+
+		ContentDecodingInputStream in = new ContentDecodingInputStream(new ByteArrayInputStream(
+				compressed.toByteArray()), "gzip");
+
+		assertTrue(in.isCompressed());
+		assertEquals(JSON, read(in));
+		assertEquals(compressed.size(), in.getWireBytes());
+		assertEquals(JSON.length(), in.getDecodedBytes());
+	}
+
+	@Test
+	public void testZlibAndRawDeflate() throws Exception {
+
+		for (boolean raw : new boolean[] { false, true }) {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			DeflaterOutputStream deflate = new DeflaterOutputStream(compressed, new Deflater(
+					Deflater.DEFAULT_COMPRESSION, raw));
+			deflate.write(JSON.getBytes("UTF-8"));
+			deflate.close();
+
+			ContentDecodingInputStream in = new ContentDecodingInputStream(new ByteArrayInputStream(
+					compressed.toByteArray()), "Deflate");
+
+			assertEquals(JSON, read(in));
+			assertEquals(JSON.length(), in.getDecodedBytes());
+		}
+	}
+
+	@Test
+	public void testIdentity() throws Exception {
+
+		ContentDecodingInputStream in = new ContentDecodingInputStream(new ByteArrayInputStream(
+				JSON.getBytes("UTF-8")), null);
+
+		assertFalse(in.isCompressed());
+		assertEquals(JSON, read(in));
+		assertEquals(in.getWireBytes(), in.getDecodedBytes());
+	}
+
+	private static String read(InputStream in) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[7];
+		int n;
+		while ((n = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, n);
+		}
+		in.close();
+		return out.toString("UTF-8");
+	}
+}
@@ -0,0 +1,179 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import static junit.framework.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.logaritex.hadoop.configuration.manager.domain.ClusterList;
+import com.logaritex.hadoop.configuration.manager.domain.HostList;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+
+public class HedgingHttpServiceTest {
+
+	private static final int WARM_UP = 200;
+
+	private final HttpService httpService = mock(HttpService.class);
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testSlowRequestIsHedged() throws Exception {
+
+		HedgingHttpService hedging = new HedgingHttpService(httpService, executor);
+
+		final HostList fast = new HostList();
+		final HostList slow = new HostList();
+
+		final AtomicBoolean stall = new AtomicBoolean();
+
+		// after the warm up the next request stalls, the one after it (the hedge) answers at once
+		when(httpService.get("/api/v1/hosts", HostList.class)).thenAnswer(new Answer<HostList>() {
+			@Override
+			public HostList answer(InvocationOnMock invocation) throws Throwable {
+				if (stall.compareAndSet(true, false)) {
+					Thread.sleep(10000);
+					return slow;
+				}
+				return fast;
+			}
+		});
+
+		warmUp(hedging);
+
+		// a warm up request that happened to stall (e.g. a GC pause) may have been hedged already
+		long hedges = hedging.getHedges();
+		long hedgesWon = hedging.getHedgesWon();
+		stall.set(true);
+
+		long start = System.nanoTime();
+		assertSame(fast, hedging.get("/api/v1/hosts", HostList.class));
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+		assertEquals(hedges + 1, hedging.getHedges());
+		assertEquals(hedgesWon + 1, hedging.getHedgesWon());
+		assertEquals(WARM_UP + 1, hedging.getRequests());
+	}
+
+	@Test
+	public void testNoHedgesWithoutBudget() throws Exception {
+
+		HedgingHttpService hedging = new HedgingHttpService(httpService, executor,
+				HedgingHttpService.DEFAULT_PERCENTILE, 0, 0, 1, TimeUnit.MILLISECONDS);
+
+		when(httpService.get("/api/v1/hosts", HostList.class)).thenAnswer(new Answer<HostList>() {
+			@Override
+			public HostList answer(InvocationOnMock invocation) throws Throwable {
+				if (calls.incrementAndGet() > WARM_UP) {
+					Thread.sleep(50);
+				}
+				return new HostList();
+			}
+		});
+
+		warmUp(hedging);
+
+		hedging.get("/api/v1/hosts", HostList.class);
+
+		assertEquals(0, hedging.getHedges());
+		assertEquals(WARM_UP + 1, calls.get());
+	}
+
+	@Test
+	public void testEachTemplateHasItsOwnHedgeDelay() throws Exception {
+
+		HedgingHttpService hedging = new HedgingHttpService(httpService, executor);
+
+		when(httpService.get("/api/v1/hosts", HostList.class)).thenReturn(new HostList());
+		when(httpService.get("/api/v1/clusters", ClusterList.class)).thenAnswer(new Answer<ClusterList>() {
+			@Override
+			public ClusterList answer(InvocationOnMock invocation) throws Throwable {
+				calls.incrementAndGet();
+				Thread.sleep(20);
+				return new ClusterList();
+			}
+		});
+
+		warmUp(hedging);
+		long hedges = hedging.getHedges();
+
+		// the cheap host lists must not make every cluster list look slow
+		for (int i = 0; i < 5; i++) {
+			hedging.get("/api/v1/clusters", ClusterList.class);
+		}
+
+		assertEquals(hedges, hedging.getHedges());
+		assertEquals(5, calls.get());
+		assertEquals(-1, hedging.getHedgeDelay("/api/v1/clusters", TimeUnit.NANOSECONDS));
+	}
+
+	@Test
+	public void testHedgedRequestsKeepTheirLatency() throws Exception {
+
+		HedgingHttpService hedging = new HedgingHttpService(httpService, executor,
+				HedgingHttpService.DEFAULT_PERCENTILE, 1, 1000, 1, TimeUnit.MILLISECONDS);
+
+		// every tenth request is slow: 50ms during the warm up, far slower afterwards so it is always hedged
+		when(httpService.get("/api/v1/hosts", HostList.class)).thenAnswer(new Answer<HostList>() {
+			@Override
+			public HostList answer(InvocationOnMock invocation) throws Throwable {
+				int call = calls.incrementAndGet();
+				if (call % 10 == 0) {
+					Thread.sleep(call <= WARM_UP ? 50 : 10000);
+				}
+				return new HostList();
+			}
+		});
+
+		warmUp(hedging);
+		assertTrue(hedging.getHedgeDelay("/api/v1/hosts", TimeUnit.MILLISECONDS) >= 45);
+
+		for (int i = 0; i < 2 * WARM_UP; i++) {
+			hedging.get("/api/v1/hosts", HostList.class);
+		}
+
+		// the hedged requests took the hedge delay for their callers, so the delay does not drift down
+		assertTrue(hedging.getHedges() > 0);
+		assertTrue(hedging.getHedgeDelay("/api/v1/hosts", TimeUnit.MILLISECONDS) >= 45);
+	}
+
+	private void warmUp(HedgingHttpService hedging) {
+		for (int i = 0; i < WARM_UP; i++) {
+			hedging.get("/api/v1/hosts", HostList.class);
+		}
+		assertTrue(hedging.getHedgeDelay("/api/v1/hosts", TimeUnit.NANOSECONDS) > 0);
+	}
+}
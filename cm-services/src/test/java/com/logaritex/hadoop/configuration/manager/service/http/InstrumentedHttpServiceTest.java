@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import static junit.framework.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Map;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.MetricList;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.http.InstrumentedHttpService.EndpointSnapshot;
+import com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl;
+
+public class InstrumentedHttpServiceTest {
+
+	private final HttpService httpService = mock(HttpService.class);
+
+	@Test
+	public void testEndpointsAreKeyedByTemplate() {
+
+		TransferStatistics transferStatistics = new TransferStatistics();
+		final InstrumentedHttpService instrumented = new InstrumentedHttpService(httpService, transferStatistics);
+
+		when(httpService.get(HostServiceImpl.HOST_METRICS_PATH, MetricList.class, "h1")).thenAnswer(
+				new Answer<MetricList>() {
+					@Override
+					public MetricList answer(InvocationOnMock invocation) throws Throwable {
+						assertEquals(1, instrumented.getEndpoint(HostServiceImpl.HOST_METRICS_PATH).getInFlight());
+						return new MetricList();
+					}
+				});
+		when(httpService.get(HostServiceImpl.HOST_METRICS_PATH, MetricList.class, "h2")).thenThrow(
+				new HttpStatusException(500, HostServiceImpl.HOST_METRICS_PATH));
+		transferStatistics.recordRequest(HostServiceImpl.HOST_PATH, 42);
+
+		instrumented.get(HostServiceImpl.HOST_METRICS_PATH, MetricList.class, "h1");
+		try {
+			instrumented.get(HostServiceImpl.HOST_METRICS_PATH, MetricList.class, "h2");
+			fail();
+		} catch (HttpStatusException e) {
+			// expected
+		}
+		instrumented.put(HostServiceImpl.HOST_PATH, new Host(), Host.class, "h1");
+
+		Map<String, EndpointSnapshot> snapshot = instrumented.snapshot();
+		assertEquals(2, snapshot.size());
+
+		EndpointSnapshot metrics = snapshot.get(HostServiceImpl.HOST_METRICS_PATH);
+		assertEquals(2, metrics.getRequests());
+		assertEquals(1, metrics.getErrors());
+		assertEquals(0, metrics.getInFlight());
+		assertEquals(2, metrics.getLatency().getCount());
+
+		assertEquals(42, snapshot.get(HostServiceImpl.HOST_PATH).getRequestBytes());
+
+		instrumented.reset();
+		assertEquals(0, instrumented.getEndpoint(HostServiceImpl.HOST_METRICS_PATH).getRequests());
+		assertEquals(0, instrumented.getEndpoint(HostServiceImpl.HOST_METRICS_PATH).getLatency().getCount());
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import static junit.framework.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.HostList;
+import com.logaritex.hadoop.configuration.manager.domain.RoleTypeList;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+
+public class JsonItemReaderTest {
+
+	private final JsonItemReader itemReader = new JsonItemReader();
+
+	@Test
+	public void testReadItemsInOrder() throws Exception {
+
+		String json = "{\"totalResults\":{\"nested\":[1,2]},\"items\":[{\"hostId\":\"h1\",\"rackId\":\"/r1\"},"
+				+ "{\"hostId\":\"h2\",\"roleRefs\":[{\"roleName\":\"dn\"}]}],\"trailer\":\"x\"}";
+
+		final List<Host> hosts = new ArrayList<Host>();
+
+		int count = itemReader.read(new ByteArrayInputStream(json.getBytes("UTF-8")), HostList.class,
+				new ItemCallback<Host>() {
+					@Override
+					public void onItem(Host host) {
+						hosts.add(host);
+					}
+				});
+
+		assertEquals(2, count);
+		assertEquals("h1", hosts.get(0).getHostId());
+		assertEquals("/r1", hosts.get(0).getRackId());
+		assertEquals("h2", hosts.get(1).getHostId());
+		assertEquals("dn", hosts.get(1).getRoleRefs().get(0).getRoleName());
+	}
+
+	@Test
+	public void testReadScalarItems() throws Exception {
+
+		final List<String> roleTypes = new ArrayList<String>();
+
+		itemReader.read(new ByteArrayInputStream("{\"items\":[\"NAMENODE\",\"DATANODE\"]}".getBytes("UTF-8")),
+				RoleTypeList.class, new ItemCallback<String>() {
+					@Override
+					public void onItem(String roleType) {
+						roleTypes.add(roleType);
+					}
+				});
+
+		assertEquals(2, roleTypes.size());
+		assertEquals("DATANODE", roleTypes.get(1));
+	}
+
+	@Test
+	public void testNoItems() throws Exception {
+
+		ItemCallback<Host> failing = new ItemCallback<Host>() {
+			@Override
+			public void onItem(Host host) {
+				fail("unexpected item " + host);
+			}
+		};
+
+		assertEquals(0, itemReader.read(new ByteArrayInputStream("{}".getBytes("UTF-8")), HostList.class, failing));
+		assertEquals(0, itemReader.read(new ByteArrayInputStream("{\"items\":[]}".getBytes("UTF-8")),
+				HostList.class, failing));
+	}
+}
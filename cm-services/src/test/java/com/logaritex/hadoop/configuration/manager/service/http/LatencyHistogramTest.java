@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import static junit.framework.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testPercentilesAreWithinTheBucketPrecision() {
+
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 10000; i++) {
+			histogram.record(TimeUnit.MICROSECONDS.toNanos(i * 100));
+		}
+
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(10000, snapshot.getCount());
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), snapshot.getMaxNanos());
+		assertEquals(TimeUnit.MICROSECONDS.toNanos(500050), snapshot.getMeanNanos());
+
+		assertWithin(TimeUnit.MILLISECONDS.toNanos(500), snapshot.getPercentileNanos(50));
+		assertWithin(TimeUnit.MILLISECONDS.toNanos(990), snapshot.getPercentileNanos(99));
+		assertWithin(TimeUnit.MICROSECONDS.toNanos(999100), snapshot.getPercentileNanos(99.9));
+		assertEquals(snapshot.getMaxNanos(), snapshot.getPercentileNanos(100));
+
+		histogram.reset();
+		assertEquals(0, histogram.snapshot().getPercentileNanos(99));
+	}
+
+	@Test
+	public void testBucketsCoverTheRangeWithoutGaps() {
+		long previousUpperBound = -1;
+		for (int i = 0; LatencyHistogram.bucketUpperBound(i) < LatencyHistogram.MAX_VALUE_MICROS; i++) {
+			long upperBound = LatencyHistogram.bucketUpperBound(i);
+			assertEquals(i, LatencyHistogram.bucketIndex(previousUpperBound + 1));
+			assertEquals(i, LatencyHistogram.bucketIndex(upperBound));
+			previousUpperBound = upperBound;
+		}
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		// values are reported as the upper bound of their bucket, at most 1/64 above the exact value
+		assertTrue("expected " + expected + " got " + actual, actual >= expected && actual <= expected + expected / 64);
+	}
+}
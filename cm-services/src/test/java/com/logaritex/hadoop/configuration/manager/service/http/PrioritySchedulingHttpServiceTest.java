@@ -0,0 +1,146 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import static junit.framework.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+
+public class PrioritySchedulingHttpServiceTest {
+
+	private final HttpService httpService = mock(HttpService.class);
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final List<String> sent = Collections.synchronizedList(new ArrayList<String>());
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testInteractiveRequestsOvertakeQueuedBulkRequests() throws Exception {
+
+		PrioritySchedulingHttpService scheduling = scheduling(10);
+
+		submit(scheduling, RequestPriority.BULK, "blocker");
+		awaitSent(1);
+
+		submit(scheduling, RequestPriority.BULK, "b1");
+		awaitWaiting(scheduling, RequestPriority.BULK, 1);
+		submit(scheduling, RequestPriority.BULK, "b2");
+		awaitWaiting(scheduling, RequestPriority.BULK, 2);
+		submit(scheduling, RequestPriority.INTERACTIVE, "i1");
+		awaitWaiting(scheduling, RequestPriority.INTERACTIVE, 1);
+
+		release.countDown();
+		awaitSent(4);
+
+		assertEquals(Arrays.asList("blocker", "i1", "b1", "b2"), sent);
+	}
+
+	@Test
+	public void testBulkRequestsAreNotStarved() throws Exception {
+
+		PrioritySchedulingHttpService scheduling = scheduling(2);
+
+		submit(scheduling, RequestPriority.INTERACTIVE, "blocker");
+		awaitSent(1);
+
+		submit(scheduling, RequestPriority.BULK, "b1");
+		awaitWaiting(scheduling, RequestPriority.BULK, 1);
+		for (int i = 1; i <= 3; i++) {
+			submit(scheduling, RequestPriority.INTERACTIVE, "i" + i);
+			awaitWaiting(scheduling, RequestPriority.INTERACTIVE, i);
+		}
+
+		release.countDown();
+		awaitSent(5);
+
+		assertEquals(Arrays.asList("blocker", "i1", "b1", "i2", "i3"), sent);
+		assertEquals(4, scheduling.getCompleted(RequestPriority.INTERACTIVE));
+	}
+
+	private PrioritySchedulingHttpService scheduling(int bulkShare) {
+
+		when(httpService.get(anyString(), eq(String.class))).thenAnswer(new Answer<String>() {
+			@Override
+			public String answer(InvocationOnMock invocation) throws Throwable {
+				String url = (String) invocation.getArguments()[0];
+				sent.add(url);
+				if (url.equals("blocker")) {
+					release.await();
+				}
+				return url;
+			}
+		});
+
+		return new PrioritySchedulingHttpService(httpService, 1, bulkShare, RequestPriority.INTERACTIVE);
+	}
+
+	private void submit(final PrioritySchedulingHttpService scheduling, final RequestPriority priority,
+			final String url) {
+		executor.submit(new Runnable() {
+			@Override
+			public void run() {
+				RequestPriority previous = priority.enter();
+				try {
+					scheduling.get(url, String.class);
+				} finally {
+					RequestPriority.restore(previous);
+				}
+			}
+		});
+	}
+
+	private void awaitSent(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (sent.size() < count && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertEquals(count, sent.size());
+	}
+
+	private static void awaitWaiting(PrioritySchedulingHttpService scheduling, RequestPriority priority, int count)
+			throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (scheduling.getWaiting(priority) < count && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertEquals(count, scheduling.getWaiting(priority));
+	}
+}
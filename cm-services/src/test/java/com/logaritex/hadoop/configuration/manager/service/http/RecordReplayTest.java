@@ -0,0 +1,249 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import static junit.framework.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.HostList;
+import com.logaritex.hadoop.configuration.manager.service.HostService;
+import com.logaritex.hadoop.configuration.manager.service.HttpService;
+import com.logaritex.hadoop.configuration.manager.service.ItemCallback;
+import com.logaritex.hadoop.configuration.manager.service.impl.ClouderaManagerImpl;
+import com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl;
+
+public class RecordReplayTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final HttpService httpService = mock(HttpService.class);
+
+	@Test
+	public void testRecordedExchangesAreReplayed() throws Exception {
+
+		File log = record();
+
+		ReplayHttpService replay = new ReplayHttpService(log);
+		assertEquals(4, replay.getExchangeCount());
+
+		HostService hostService = new ClouderaManagerImpl(replay).getHostService();
+
+		assertEquals("host-1.cluster.local", hostService.getHost("h1").getHostname());
+
+		final List<String> hostIds = new ArrayList<String>();
+		hostService.getAllHosts(new ItemCallback<Host>() {
+			@Override
+			public void onItem(Host item) {
+				hostIds.add(item.getHostId());
+			}
+		});
+		assertEquals(Arrays.asList("h1", "h2"), hostIds);
+
+		try {
+			hostService.getHost("missing");
+			fail();
+		} catch (HttpStatusException e) {
+			assertEquals(404, e.getStatusCode());
+			assertEquals("/api/v1/hosts/missing", e.getUrl());
+		}
+
+		try {
+			hostService.getHost("h2");
+			fail();
+		} catch (IllegalStateException e) {
+			// not recorded
+		}
+
+		// the recorded exchanges of a request start over
+		assertEquals(2, hostService.getAllHosts().size());
+		assertEquals(2, hostService.getAllHosts().size());
+	}
+
+	@Test
+	public void testRecordedLatencyIsReplayed() throws Exception {
+
+		File log = record();
+
+		HostService hostService = new ClouderaManagerImpl(new ReplayHttpService(log, 1)).getHostService();
+
+		long start = System.nanoTime();
+		hostService.getHost("h1");
+		assertTrue(System.nanoTime() - start >= 20 * 1000000L);
+	}
+
+	@Test
+	public void testLongFailureMessageKeepsTheLogReadable() throws Exception {
+
+		char[] message = new char[100 * 1024];
+		Arrays.fill(message, '\u00e9');
+		when(httpService.get(HostServiceImpl.HOST_PATH, Host.class, "h1")).thenThrow(
+				new IllegalStateException(new String(message)));
+		when(httpService.get(HostServiceImpl.HOST_PATH, Host.class, "h2")).thenReturn(host(2));
+
+		File log = folder.newFile("cm.log");
+		RecordingHttpService recording = new RecordingHttpService(httpService, log);
+		HostService hostService = new ClouderaManagerImpl(recording).getHostService();
+		try {
+			hostService.getHost("h1");
+			fail();
+		} catch (IllegalStateException e) {
+			// recorded
+		}
+		hostService.getHost("h2");
+		recording.close();
+		assertEquals(2, recording.getRecordCount());
+
+		ReplayHttpService replay = new ReplayHttpService(log);
+		assertEquals(2, replay.getExchangeCount());
+
+		hostService = new ClouderaManagerImpl(replay).getHostService();
+		try {
+			hostService.getHost("h1");
+			fail();
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().length() > RecordingHttpService.MAX_MESSAGE_LENGTH);
+		}
+		assertEquals("h2", hostService.getHost("h2").getHostId());
+	}
+
+	@Test
+	public void testRecordingFailureKeepsTheLiveResult() throws Exception {
+
+		Object response = new Object();
+		when(httpService.post("/api/v1/commands", null, Object.class)).thenReturn(response);
+		when(httpService.post("/api/v1/failing", null, Object.class)).thenThrow(
+				new HttpStatusException(500, "/api/v1/failing"));
+
+		RecordingHttpService recording = new RecordingHttpService(httpService, folder.newFile("cm.log"));
+
+		// an Object has no properties and can not be serialized
+		assertSame(response, recording.post("/api/v1/commands", null, Object.class));
+		verify(httpService, times(1)).post("/api/v1/commands", null, Object.class);
+		assertEquals(0, recording.getRecordCount());
+		assertEquals(1, recording.getRecordingFailures());
+		assertNotNull(recording.getLastRecordingFailure());
+
+		// nor does a closed log change the outcome of the exchange
+		recording.close();
+		try {
+			recording.post("/api/v1/failing", null, Object.class);
+			fail();
+		} catch (HttpStatusException e) {
+			assertEquals(500, e.getStatusCode());
+		}
+	}
+
+	@Test
+	public void testCallbackFailureIsNotRecordedAsAServerFailure() throws Exception {
+
+		when(httpService.get(HostServiceImpl.HOSTS_PATH, HostList.class)).thenReturn(
+				new HostList(Arrays.asList(host(1), host(2), host(3))));
+
+		File log = folder.newFile("cm.log");
+		RecordingHttpService recording = new RecordingHttpService(httpService, log);
+		List<String> live = getHostIdsUntil("h2", new ClouderaManagerImpl(recording).getHostService());
+		recording.close();
+
+		assertEquals(Arrays.asList("h1", "h2"), live);
+		assertEquals(1, recording.getRecordCount());
+		assertEquals(0, recording.getRecordingFailures());
+
+		List<String> replayed = getHostIdsUntil("h2", new ClouderaManagerImpl(new ReplayHttpService(log))
+				.getHostService());
+		assertEquals(live, replayed);
+	}
+
+	/**
+	 * Streams the hosts with a callback that fails on the given host.
+	 */
+	private static List<String> getHostIdsUntil(final String failingHostId, HostService hostService) {
+		final List<String> hostIds = new ArrayList<String>();
+		try {
+			hostService.getAllHosts(new ItemCallback<Host>() {
+				@Override
+				public void onItem(Host item) {
+					hostIds.add(item.getHostId());
+					if (failingHostId.equals(item.getHostId())) {
+						throw new IllegalArgumentException(failingHostId);
+					}
+				}
+			});
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals(failingHostId, e.getMessage());
+		}
+		return hostIds;
+	}
+
+	private File record() throws Exception {
+
+		when(httpService.get(HostServiceImpl.HOST_PATH, Host.class, "h1")).thenAnswer(new Answer<Host>() {
+			@Override
+			public Host answer(InvocationOnMock invocation) throws Throwable {
+				Thread.sleep(20);
+				return host(1);
+			}
+		});
+		when(httpService.get(HostServiceImpl.HOST_PATH, Host.class, "missing")).thenThrow(
+				new HttpStatusException(404, "/api/v1/hosts/missing"));
+		when(httpService.get(HostServiceImpl.HOSTS_PATH, HostList.class)).thenReturn(
+				new HostList(Arrays.asList(host(1), host(2))));
+
+		File log = folder.newFile("cm.log");
+		RecordingHttpService recording = new RecordingHttpService(httpService, log);
+		HostService hostService = new ClouderaManagerImpl(recording).getHostService();
+
+		hostService.getHost("h1");
+		try {
+			hostService.getHost("missing");
+			fail();
+		} catch (HttpStatusException e) {
+			// recorded
+		}
+		hostService.getAllHosts(new ItemCallback<Host>() {
+			@Override
+			public void onItem(Host item) {
+			}
+		});
+		hostService.getAllHosts();
+
+		recording.close();
+		assertEquals(4, recording.getRecordCount());
+		return log;
+	}
+
+	private static Host host(int i) {
+		Host host = new Host();
+		host.setHostId("h" + i);
+		host.setHostname("host-" + i + ".cluster.local");
+		return host;
+	}
+}
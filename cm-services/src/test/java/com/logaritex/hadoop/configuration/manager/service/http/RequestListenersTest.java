@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import static junit.framework.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RequestListenersTest {
+
+	private final RequestListeners listeners = new RequestListeners();
+
+	@Test
+	public void testNoListenersYieldTheSharedTrace() {
+		assertSame(RequestTrace.NONE, listeners.start("GET", "/api/v1/hosts"));
+		assertFalse(RequestTrace.NONE.isEnabled());
+
+		// must not fail without an event
+		RequestTrace.NONE.firstByteReceived(200);
+		RequestTrace.NONE.failed(new IllegalStateException());
+	}
+
+	@Test
+	public void testEventsReachTheListenersOfTheirRequest() {
+
+		final List<String> events = new ArrayList<String>();
+		RequestListener failing = new RequestListenerAdapter() {
+			@Override
+			public void requestStarted(RequestEvent event) {
+				throw new IllegalStateException("ignored");
+			}
+		};
+		RequestListener recording = new RequestListenerAdapter() {
+			@Override
+			public void requestStarted(RequestEvent event) {
+				events.add("started " + event.getMethod() + " " + event.getUrlTemplate());
+			}
+
+			@Override
+			public void firstByteReceived(RequestEvent event) {
+				events.add("firstByte " + event.getStatusCode());
+			}
+
+			@Override
+			public void requestCompleted(RequestEvent event) {
+				events.add("completed");
+			}
+		};
+		listeners.add(failing);
+		listeners.add(recording);
+
+		RequestTrace trace = listeners.start("GET", "/api/v1/hosts/{hostId}");
+		assertTrue(listeners.remove(failing));
+		assertTrue(listeners.remove(recording));
+		assertTrue(listeners.isEmpty());
+
+		// the listeners removed after the start still receive the request's events
+		trace.headersSent();
+		trace.firstByteReceived(200);
+		trace.bodyDeserialized();
+		trace.completed();
+
+		assertEquals("[started GET /api/v1/hosts/{hostId}, firstByte 200, completed]", events.toString());
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import static junit.framework.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import com.logaritex.hadoop.configuration.manager.domain.HostList;
+import com.logaritex.hadoop.configuration.manager.service.http.RevalidationCache.CachedResponse;
+
+public class RevalidationCacheTest {
+
+	private static final String HOSTS = "/api/v1/hosts";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final RevalidationCache cache = new RevalidationCache(HOSTS);
+
+	@Test
+	public void testValidatorsAreKeptAndNotModifiedReturnsCachedObject() throws Exception {
+
+		assertNull(cache.lookup(HOSTS, HostList.class));
+
+		HostList hosts = cache.read(HOSTS, HostList.class, new Object[0], "\"v1\"", null, body("h1"), objectMapper);
+
+		CachedResponse cached = cache.lookup(HOSTS, HostList.class);
+		assertEquals("\"v1\"", cached.getETag());
+		assertNull(cached.getLastModified());
+
+		assertSame(hosts, cache.notModified(cached, HostList.class));
+		assertEquals(1, cache.getNotModifiedResponses());
+	}
+
+	@Test
+	public void testUnchangedContentIsNotDeserializedAgain() throws Exception {
+
+		HostList first = cache.read(HOSTS, HostList.class, new Object[0], null, null, body("h1"), objectMapper);
+		HostList second = cache.read(HOSTS, HostList.class, new Object[0], null, null, body("h1"), objectMapper);
+		HostList changed = cache.read(HOSTS, HostList.class, new Object[0], null, null, body("h2"), objectMapper);
+
+		assertSame(first, second);
+		assertNotSame(first, changed);
+		assertEquals("h2", changed.getItems().get(0).getHostId());
+		assertEquals(1, cache.getUnchangedResponses());
+		assertEquals(2, cache.getModifiedResponses());
+	}
+
+	@Test
+	public void testRegisteredTemplatesOnly() {
+		assertTrue(cache.isRevalidated(HOSTS));
+		assertFalse(cache.isRevalidated("/api/v1/users"));
+		assertTrue(RevalidationCache.forAllGets().isRevalidated("/api/v1/users"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAtLeastOneTemplate() {
+		new RevalidationCache();
+	}
+
+	private static InputStream body(String hostId) throws Exception {
+		return new ByteArrayInputStream(("{\"items\":[{\"hostId\":\"" + hostId + "\"}]}").getBytes("UTF-8"));
+	}
+}
@@ -0,0 +1,61 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import static junit.framework.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class SessionStoreTest {
+
+	private final SessionStore store = new SessionStore();
+
+	@Test
+	public void testSessionCookieIsCaptured() {
+
+		assertNull(store.getSession());
+
+		store.capture(Arrays.asList("other=1; Path=/", "CLOUDERA_MANAGER_SESSIONID=abc; Path=/; HttpOnly"));
+		assertEquals("CLOUDERA_MANAGER_SESSIONID=abc", store.getSession());
+
+		// the same session again is not a new one
+		store.capture(Arrays.asList("CLOUDERA_MANAGER_SESSIONID=abc; Path=/"));
+		assertEquals(1, store.getSessionsOpened());
+
+		// a deleted cookie ends the session
+		store.capture(Arrays.asList("CLOUDERA_MANAGER_SESSIONID=; Max-Age=0"));
+		assertNull(store.getSession());
+	}
+
+	@Test
+	public void testOnlyTheRejectedSessionIsExpired() {
+
+		store.capture(Arrays.asList("CLOUDERA_MANAGER_SESSIONID=old"));
+		store.expired("CLOUDERA_MANAGER_SESSIONID=old");
+		assertNull(store.getSession());
+		assertEquals(1, store.getSessionsExpired());
+
+		// a late rejection of the old session must not drop the renewed one
+		store.capture(Arrays.asList("CLOUDERA_MANAGER_SESSIONID=new"));
+		store.expired("CLOUDERA_MANAGER_SESSIONID=old");
+		assertEquals("CLOUDERA_MANAGER_SESSIONID=new", store.getSession());
+		assertEquals(1, store.getSessionsExpired());
+	}
+}
@@ -0,0 +1,67 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.service.http;
+
+import static junit.framework.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.logaritex.hadoop.configuration.manager.service.ServiceService.View;
+import com.logaritex.hadoop.configuration.manager.service.impl.ClusterServiceImpl;
+import com.logaritex.hadoop.configuration.manager.service.impl.HostServiceImpl;
+import com.logaritex.hadoop.configuration.manager.service.impl.ServiceServiceImpl;
+
+public class UriTemplateTest {
+
+	@Test
+	public void testExpand() {
+
+		UriTemplate template = UriTemplate.of(ServiceServiceImpl.SERVICE_CONFING);
+
+		assertEquals(Arrays.asList("clusterName", "serviceName", "view"), template.getVariableNames());
+		assertEquals("/api/v1/clusters/c1/services/hdfs1/config?view=full", template.expand("c1", "hdfs1", View.full));
+		assertEquals("http://cm:7180/api/v1/clusters/c1/services/hdfs1/config?view=full", template.toUri(
+				"http://cm:7180", "c1", "hdfs1", View.full).toString());
+		assertSame(template, UriTemplate.of(ServiceServiceImpl.SERVICE_CONFING));
+	}
+
+	@Test
+	public void testPercentEncoding() {
+
+		assertEquals("/api/v1/clusters/Cluster%201%20-%20CDH4%2Fprod", UriTemplate.of(ClusterServiceImpl.CLUSTER_PATH)
+				.expand("Cluster 1 - CDH4/prod"));
+
+		assertEquals("/api/v1/clusters/a&b=c/services/%C3%A9t%C3%A9/config?view=a%26b%3Dc%2Bd/e",
+				UriTemplate.of(ServiceServiceImpl.SERVICE_CONFING).expand("a&b=c", "été", "a&b=c+d/e"));
+
+		// supplementary characters are encoded as one UTF-8 sequence
+		assertEquals("/api/v1/hosts/%F0%9F%98%80", UriTemplate.of(HostServiceImpl.HOST_PATH).expand("😀"));
+	}
+
+	@Test
+	public void testNullValueExpandsToEmpty() {
+		assertEquals("/api/v1/hosts/", UriTemplate.of(HostServiceImpl.HOST_PATH).expand((Object) null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMissingVariable() {
+		UriTemplate.of(ServiceServiceImpl.SERVICE_URL).expand("c1");
+	}
+}
@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.topology;
+
+import static junit.framework.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.logaritex.hadoop.configuration.manager.domain.Cluster;
+import com.logaritex.hadoop.configuration.manager.domain.ClusterRef;
+import com.logaritex.hadoop.configuration.manager.domain.HealthSummary;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.HostRef;
+import com.logaritex.hadoop.configuration.manager.domain.Role;
+import com.logaritex.hadoop.configuration.manager.domain.Role.RoleState;
+import com.logaritex.hadoop.configuration.manager.domain.Service;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceConfig;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceRef;
+
+public class ClusterTopologyTest {
+
+	private static final String[] ROLE_TYPES = { "DATANODE", "TASKTRACKER", "REGIONSERVER", "GATEWAY", "SERVER" };
+
+	@Test
+	public void testIndexes() {
+		// 2 clusters x 5 services, 1,000 hosts in 10 racks, 5 roles per host
+		ClusterTopology topology = ClusterTopology.of(snapshot(2, 5, 1000, 5));
+
+		assertEquals(2, topology.getClusters().size());
+		assertEquals(10, topology.getServices().size());
+		assertEquals(5000, topology.getRoleCount());
+
+		List<Role> onHost = topology.getRolesOnHost("host-7");
+		assertEquals(5, onHost.size());
+		for (Role role : onHost) {
+			assertEquals("host-7", role.getHostRef().getHostId());
+		}
+
+		assertEquals(1000, topology.getRolesByType("DATANODE").size());
+		assertEquals(500, topology.getRolesOfService("cluster0", "service0").size());
+		assertEquals(1000, topology.getRolesOfService("service0").size());
+		assertNotNull(topology.getRole("cluster1", "service2", "role-2-host-7"));
+
+		// every 10th role is BAD and STOPPED
+		assertEquals(500, topology.getRolesByHealth(HealthSummary.BAD).size());
+		assertEquals(500, topology.getRolesByState(RoleState.STOPPED).size());
+
+		List<Role> badDataNodes = topology.getRolesByType("DATANODE", HealthSummary.BAD);
+		assertFalse(badDataNodes.isEmpty());
+		for (Role role : badDataNodes) {
+			assertEquals("DATANODE", role.getType());
+			assertEquals(HealthSummary.BAD, role.getHealthSummary());
+		}
+
+		assertEquals(10, topology.getRacks().size());
+		assertEquals(100, topology.getHostsInRack("/rack3").size());
+		assertEquals(500, topology.getRolesInRack("/rack3").size());
+		assertEquals("/rack0", topology.getHost(topology.getRolesOnHost("host-7").get(0)).getRackId());
+	}
+
+	@Test
+	public void testUnknownKeysAreEmpty() {
+		ClusterTopology topology = ClusterTopology.of(snapshot(1, 1, 10, 1));
+
+		assertTrue(topology.getRolesOnHost("no-such-host").isEmpty());
+		assertTrue(topology.getRolesByType("NO_SUCH_TYPE", HealthSummary.BAD).isEmpty());
+		assertTrue(topology.getRolesByState(RoleState.BUSY).isEmpty());
+		assertTrue(topology.getHostsInRack("/no-such-rack").isEmpty());
+		assertNull(topology.getService("cluster0", "no-such-service"));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testIndexesAreImmutable() {
+		ClusterTopology.of(snapshot(1, 1, 10, 1)).getRolesByType("DATANODE").clear();
+	}
+
+	static TopologySnapshot snapshot(int clusterCount, int servicesPerCluster, int hostCount, int rolesPerHost) {
+
+		List<Cluster> clusters = new ArrayList<Cluster>();
+		Map<String, List<Service>> services = new LinkedHashMap<String, List<Service>>();
+		Map<String, List<Role>> roles = new HashMap<String, List<Role>>();
+		Map<String, ServiceConfig> serviceConfigs = new HashMap<String, ServiceConfig>();
+		Map<String, Host> hosts = new LinkedHashMap<String, Host>();
+
+		for (int h = 0; h < hostCount; h++) {
+			Host host = new Host();
+			host.setHostId("host-" + h);
+			host.setRackId("/rack" + (h / (hostCount / 10 + (hostCount < 10 ? 1 : 0))));
+			host.setHealthSummary(HealthSummary.GOOD);
+			hosts.put(host.getHostId(), host);
+		}
+
+		int roleIndex = 0;
+		for (int c = 0; c < clusterCount; c++) {
+			Cluster cluster = new Cluster();
+			cluster.setName("cluster" + c);
+			clusters.add(cluster);
+
+			List<Service> clusterServices = new ArrayList<Service>();
+			for (int s = 0; s < servicesPerCluster; s++) {
+				ClusterRef clusterRef = new ClusterRef();
+				clusterRef.setClusterName(cluster.getName());
+
+				Service service = new Service();
+				service.setName("service" + s);
+				service.setClusterRef(clusterRef);
+				clusterServices.add(service);
+				roles.put(TopologySnapshot.key(cluster.getName(), service.getName()), new ArrayList<Role>());
+			}
+			services.put(cluster.getName(), clusterServices);
+		}
+
+		// host h belongs to cluster h % clusterCount and runs role r of service r % servicesPerCluster
+		for (int h = 0; h < hostCount; h++) {
+			String clusterName = "cluster" + (h % clusterCount);
+			for (int r = 0; r < rolesPerHost; r++, roleIndex++) {
+				String serviceName = "service" + (r % servicesPerCluster);
+
+				ServiceRef serviceRef = new ServiceRef();
+				serviceRef.setClusterName(clusterName);
+				serviceRef.setServiceName(serviceName);
+				HostRef hostRef = new HostRef();
+				hostRef.setHostId("host-" + h);
+
+				boolean bad = roleIndex % 10 == 0;
+
+				Role role = new Role();
+				role.setName("role-" + r + "-host-" + h);
+				role.setType(ROLE_TYPES[r % ROLE_TYPES.length]);
+				role.setServiceRef(serviceRef);
+				role.setHostRef(hostRef);
+				role.setHealthSummary(bad ? HealthSummary.BAD : HealthSummary.GOOD);
+				role.setRoleState(bad ? RoleState.STOPPED : RoleState.STARTED);
+				roles.get(TopologySnapshot.key(clusterName, serviceName)).add(role);
+			}
+		}
+
+		return new TopologySnapshot(clusters, services, roles, serviceConfigs, hosts, new CrawlTimings(
+				new long[CrawlTimings.Phase.values().length], new int[CrawlTimings.Phase.values().length], 0));
+	}
+}
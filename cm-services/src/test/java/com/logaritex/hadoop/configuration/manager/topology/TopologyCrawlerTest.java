@@ -0,0 +1,379 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.topology;
+
+import static junit.framework.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.logaritex.hadoop.configuration.manager.domain.Cluster;
+import com.logaritex.hadoop.configuration.manager.domain.ClusterRef;
+import com.logaritex.hadoop.configuration.manager.domain.HealthSummary;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.HostRef;
+import com.logaritex.hadoop.configuration.manager.domain.Role;
+import com.logaritex.hadoop.configuration.manager.domain.Role.RoleState;
+import com.logaritex.hadoop.configuration.manager.domain.RoleRef;
+import com.logaritex.hadoop.configuration.manager.domain.Service;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceConfig;
+import com.logaritex.hadoop.configuration.manager.service.ClouderaManager;
+import com.logaritex.hadoop.configuration.manager.service.ClusterService;
+import com.logaritex.hadoop.configuration.manager.service.HostService;
+import com.logaritex.hadoop.configuration.manager.service.ServiceService;
+import com.logaritex.hadoop.configuration.manager.service.ServiceService.View;
+import com.logaritex.hadoop.configuration.manager.topology.CrawlTimings.Phase;
+
+public class TopologyCrawlerTest {
+
+	private final ClouderaManager cm = mock(ClouderaManager.class);
+
+	private final ClusterService clusterService = mock(ClusterService.class);
+
+	private final ServiceService serviceService = mock(ServiceService.class);
+
+	private final HostService hostService = mock(HostService.class);
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(16);
+
+	private final List<Service> services = new ArrayList<Service>();
+
+	@Before
+	public void before() {
+		when(cm.getClusterService()).thenReturn(clusterService);
+		when(cm.getServiceService()).thenReturn(serviceService);
+		when(cm.getHostService()).thenReturn(hostService);
+
+		when(clusterService.getAllClusters()).thenReturn(Arrays.asList(cluster("cluster1")));
+
+		for (int i = 0; i < 10; i++) {
+			Service service = service("cluster1", "service" + i);
+			services.add(service);
+			when(serviceService.getRoles(service)).thenReturn(
+					Arrays.asList(role(service.getName() + "-role", "host" + (i % 3))));
+			when(serviceService.getServiceConfiguration(service, View.full)).thenReturn(new ServiceConfig());
+		}
+		when(serviceService.getAllServices("cluster1")).thenReturn(services);
+
+		when(hostService.getAllHosts()).thenReturn(Arrays.asList(host("host0"), host("host1"), host("host2"),
+				host("host3")));
+		for (int i = 0; i < 4; i++) {
+			when(hostService.getHost("host" + i)).thenReturn(host("host" + i));
+		}
+	}
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testCrawl() {
+		TopologySnapshot snapshot = new TopologyCrawler(cm, executor).crawl();
+
+		assertEquals(1, snapshot.getClusters().size());
+		assertEquals(10, snapshot.getServices("cluster1").size());
+		assertEquals("service3-role", snapshot.getRoles("cluster1", "service3").get(0).getName());
+		assertNotNull(snapshot.getServiceConfig("cluster1", "service3"));
+		assertEquals(4, snapshot.getHosts().size());
+
+		CrawlTimings timings = snapshot.getTimings();
+		assertEquals(1, timings.getRequests(Phase.CLUSTERS));
+		assertEquals(1, timings.getRequests(Phase.SERVICES));
+		assertEquals(20, timings.getRequests(Phase.SERVICE_DETAILS));
+		assertEquals(1, timings.getRequests(Phase.HOSTS));
+		assertEquals(23, timings.getTotalRequests());
+		assertTrue(timings.getTotalNanos() >= timings.getNanos(Phase.SERVICE_DETAILS));
+
+		verify(hostService, never()).getHost(anyString());
+	}
+
+	@Test
+	public void testCrawlReferencedHosts() {
+		TopologyCrawler crawler = new TopologyCrawler(cm, executor);
+		crawler.setFetchAllHosts(false);
+
+		TopologySnapshot snapshot = crawler.crawl();
+
+		// host3 runs no role
+		assertEquals(3, snapshot.getHosts().size());
+		assertNull(snapshot.getHost("host3"));
+		assertEquals(3, snapshot.getTimings().getRequests(Phase.HOSTS));
+
+		verify(hostService, never()).getAllHosts();
+	}
+
+	@Test
+	public void testConcurrencyIsCapped() {
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxInFlight = new AtomicInteger();
+
+		for (Service service : services) {
+			when(serviceService.getRoles(service)).thenAnswer(new Answer<List<Role>>() {
+				@Override
+				public List<Role> answer(InvocationOnMock invocation) throws Throwable {
+					int current = inFlight.incrementAndGet();
+					synchronized (maxInFlight) {
+						maxInFlight.set(Math.max(maxInFlight.get(), current));
+					}
+					Thread.sleep(20);
+					inFlight.decrementAndGet();
+					return new ArrayList<Role>();
+				}
+			});
+		}
+
+		new TopologyCrawler(cm, executor, 3).crawl();
+
+		assertTrue(maxInFlight.get() > 1);
+		assertTrue(maxInFlight.get() <= 3);
+	}
+
+	@Test
+	public void testClustersCallTakesAPermit() {
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxInFlight = new AtomicInteger();
+
+		// the host list runs concurrently with the clusters call unless the permits keep them apart
+		when(hostService.getAllHosts()).thenAnswer(new Answer<List<Host>>() {
+			@Override
+			public List<Host> answer(InvocationOnMock invocation) throws Throwable {
+				track(inFlight, maxInFlight);
+				return Arrays.asList(host("host0"), host("host1"), host("host2"), host("host3"));
+			}
+		});
+		when(clusterService.getAllClusters()).thenAnswer(new Answer<List<Cluster>>() {
+			@Override
+			public List<Cluster> answer(InvocationOnMock invocation) throws Throwable {
+				track(inFlight, maxInFlight);
+				return Arrays.asList(cluster("cluster1"));
+			}
+		});
+
+		TopologySnapshot snapshot = new TopologyCrawler(cm, executor, 1).crawl();
+
+		assertEquals(1, snapshot.getClusters().size());
+		assertEquals(1, maxInFlight.get());
+	}
+
+	@Test
+	public void testCancelledCallsKeepTheirPermitsUntilTheyReturn() {
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxInFlight = new AtomicInteger();
+
+		for (Service service : services) {
+			// the last call is still running when the crawl fails
+			final long latencyMs = service == services.get(9) ? 500 : 20;
+			when(serviceService.getRoles(service)).thenAnswer(new Answer<List<Role>>() {
+				@Override
+				public List<Role> answer(InvocationOnMock invocation) throws Throwable {
+					int current = inFlight.incrementAndGet();
+					synchronized (maxInFlight) {
+						maxInFlight.set(Math.max(maxInFlight.get(), current));
+					}
+					// a blocking call that does not respond to the interrupt of the cancel
+					long end = System.nanoTime() + latencyMs * 1000000L;
+					while (System.nanoTime() < end) {
+						try {
+							Thread.sleep(10);
+						} catch (InterruptedException e) {
+							// keep going
+						}
+					}
+					inFlight.decrementAndGet();
+					return new ArrayList<Role>();
+				}
+			});
+		}
+		when(serviceService.getServiceConfiguration(services.get(1), View.full)).thenThrow(
+				new IllegalStateException("boom")).thenReturn(new ServiceConfig());
+
+		TopologyCrawler crawler = new TopologyCrawler(cm, executor, 2);
+		try {
+			crawler.crawl();
+			fail("Failure expected");
+		} catch (IllegalStateException e) {
+			assertEquals("boom", e.getMessage());
+		}
+
+		// the calls of the failed crawl that ignore the cancel still hold their permits
+		crawler.crawl();
+
+		assertTrue(maxInFlight.get() <= 2);
+	}
+
+	@Test
+	public void testFailureIsRethrown() {
+		when(serviceService.getServiceConfiguration(services.get(5), View.full)).thenThrow(
+				new IllegalStateException("boom"));
+
+		try {
+			new TopologyCrawler(cm, executor).crawl();
+			fail("Failure expected");
+		} catch (IllegalStateException e) {
+			assertEquals("boom", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testRefreshFetchesOnlyWhatChanged() {
+		TopologyCrawler crawler = new TopologyCrawler(cm, executor);
+		TopologySnapshot snapshot = crawler.crawl();
+
+		// service3 turned CONCERNING
+		List<Service> refreshedServices = new ArrayList<Service>();
+		for (Service service : services) {
+			Service copy = service(service.getClusterRef().getClusterName(), service.getName());
+			if (copy.getName().equals("service3")) {
+				copy.setHealthSummary(HealthSummary.CONCERNING);
+				when(serviceService.getRoles(copy)).thenReturn(Arrays.asList(role("service3-new-role", "host0")));
+			}
+			refreshedServices.add(copy);
+		}
+		when(serviceService.getAllServices("cluster1")).thenReturn(refreshedServices);
+
+		// host1 turned BAD, host2 sent a heartbeat, host4 is new
+		Host host1 = host("host1");
+		host1.setHealthSummary(HealthSummary.BAD);
+		Host host2 = host("host2");
+		host2.setLastHeartbeat("2012-10-17T10:01:00.000Z");
+		when(hostService.getAllHosts(View.summary)).thenReturn(
+				Arrays.asList(host("host0"), host1, host2, host("host3"), host("host4")));
+		when(hostService.getHost("host1")).thenReturn(host1);
+		when(hostService.getHost("host4")).thenReturn(host("host4"));
+
+		TopologySnapshot refreshed = crawler.refresh(snapshot);
+
+		assertEquals("service3-new-role", refreshed.getRoles("cluster1", "service3").get(0).getName());
+		assertEquals(HealthSummary.CONCERNING, refreshed.getService("cluster1", "service3").getHealthSummary());
+		assertSame(snapshot.getRoles("cluster1", "service0"), refreshed.getRoles("cluster1", "service0"));
+		assertSame(snapshot.getServiceConfig("cluster1", "service0"), refreshed.getServiceConfig("cluster1",
+				"service0"));
+
+		assertEquals(5, refreshed.getHosts().size());
+		assertSame(snapshot.getHost("host0"), refreshed.getHost("host0"));
+		assertEquals(HealthSummary.BAD, refreshed.getHost("host1").getHealthSummary());
+		assertEquals("2012-10-17T10:01:00.000Z", refreshed.getHost("host2").getLastHeartbeat());
+		assertSame(snapshot.getHost("host2").getRoleRefs(), refreshed.getHost("host2").getRoleRefs());
+
+		CrawlTimings timings = refreshed.getTimings();
+		// roles and configuration of service3, roles of service1, service4 and service7 that run on host1
+		assertEquals(5, timings.getRequests(Phase.SERVICE_DETAILS));
+		// summary list, host1 and the new host4
+		assertEquals(3, timings.getRequests(Phase.HOSTS));
+
+		verify(hostService, never()).getHost("host2");
+		verify(serviceService, times(1)).getRoles(services.get(0));
+	}
+
+	@Test
+	public void testRefreshRereadsTheRolesOfChangedHosts() {
+		TopologyCrawler crawler = new TopologyCrawler(cm, executor);
+		TopologySnapshot snapshot = crawler.crawl();
+
+		// no service changed, but host0 turned BAD with the roles of service0 on it, and the new host4 runs a role
+		// of service5
+		Role stopped = role("service0-role", "host0");
+		stopped.setRoleState(RoleState.STOPPED);
+		when(serviceService.getRoles(services.get(0))).thenReturn(Arrays.asList(stopped));
+		when(serviceService.getRoles(services.get(5))).thenReturn(
+				Arrays.asList(role("service5-role", "host2"), role("service5-new-role", "host4")));
+
+		Host host0 = host("host0");
+		host0.setHealthSummary(HealthSummary.BAD);
+		Host host4 = host("host4");
+		host4.setRoleRefs(Arrays.asList(roleRef("cluster1", "service5", "service5-new-role")));
+		when(hostService.getAllHosts(View.summary)).thenReturn(
+				Arrays.asList(host0, host("host1"), host("host2"), host("host3"), host("host4")));
+		when(hostService.getHost("host0")).thenReturn(host0);
+		when(hostService.getHost("host4")).thenReturn(host4);
+
+		TopologySnapshot refreshed = crawler.refresh(snapshot);
+
+		assertEquals(RoleState.STOPPED, refreshed.getRoles("cluster1", "service0").get(0).getRoleState());
+		assertEquals(2, refreshed.getRoles("cluster1", "service5").size());
+		assertSame(snapshot.getRoles("cluster1", "service1"), refreshed.getRoles("cluster1", "service1"));
+		assertSame(snapshot.getServiceConfig("cluster1", "service0"), refreshed.getServiceConfig("cluster1",
+				"service0"));
+
+		// roles of service0, service3, service6 and service9 on host0, and of service5 on host4
+		assertEquals(5, refreshed.getTimings().getRequests(Phase.SERVICE_DETAILS));
+		verify(serviceService, times(1)).getServiceConfiguration(services.get(0), View.full);
+	}
+
+	private static void track(AtomicInteger inFlight, AtomicInteger maxInFlight) throws InterruptedException {
+		int current = inFlight.incrementAndGet();
+		synchronized (maxInFlight) {
+			maxInFlight.set(Math.max(maxInFlight.get(), current));
+		}
+		Thread.sleep(50);
+		inFlight.decrementAndGet();
+	}
+
+	private static Cluster cluster(String name) {
+		Cluster cluster = new Cluster();
+		cluster.setName(name);
+		return cluster;
+	}
+
+	private static Service service(String clusterName, String name) {
+		ClusterRef clusterRef = new ClusterRef();
+		clusterRef.setClusterName(clusterName);
+
+		Service service = new Service();
+		service.setName(name);
+		service.setClusterRef(clusterRef);
+		return service;
+	}
+
+	private static Role role(String name, String hostId) {
+		HostRef hostRef = new HostRef();
+		hostRef.setHostId(hostId);
+
+		Role role = new Role();
+		role.setName(name);
+		role.setHostRef(hostRef);
+		return role;
+	}
+
+	private static RoleRef roleRef(String clusterName, String serviceName, String roleName) {
+		RoleRef roleRef = new RoleRef();
+		roleRef.setClusterName(clusterName);
+		roleRef.setServiceName(serviceName);
+		roleRef.setRoleName(roleName);
+		return roleRef;
+	}
+
+	private static Host host(String hostId) {
+		Host host = new Host();
+		host.setHostId(hostId);
+		return host;
+	}
+}
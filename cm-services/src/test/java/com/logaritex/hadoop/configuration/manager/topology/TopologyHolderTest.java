@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.topology;
+
+import static junit.framework.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TopologyHolderTest {
+
+	@Test
+	public void testPublish() {
+		TopologyHolder holder = new TopologyHolder();
+		assertNull(holder.get());
+		assertEquals(0, holder.getVersion());
+
+		ClusterTopology first = ClusterTopology.of(ClusterTopologyTest.snapshot(1, 2, 10, 2));
+		ClusterTopology second = ClusterTopology.of(ClusterTopologyTest.snapshot(1, 2, 20, 2));
+
+		holder.publish(first);
+		assertSame(first, holder.get());
+		assertEquals(1, holder.getVersion());
+
+		holder.publish(second);
+		assertSame(second, holder.get());
+		assertEquals(2, holder.getVersion());
+	}
+
+	@Test
+	public void testCompareAndPublishRejectsStaleUpdates() {
+		ClusterTopology first = ClusterTopology.of(ClusterTopologyTest.snapshot(1, 2, 10, 2));
+		ClusterTopology second = ClusterTopology.of(ClusterTopologyTest.snapshot(1, 2, 20, 2));
+		ClusterTopology stale = ClusterTopology.of(ClusterTopologyTest.snapshot(1, 2, 30, 2));
+
+		TopologyHolder holder = new TopologyHolder(first);
+
+		assertTrue(holder.compareAndPublish(first, second));
+		assertFalse(holder.compareAndPublish(first, stale));
+		assertSame(second, holder.get());
+		assertEquals(2, holder.getVersion());
+	}
+
+	@Test
+	public void testRefreshCrawlsFirstAndThenRefreshes() {
+		TopologySnapshot crawled = ClusterTopologyTest.snapshot(1, 2, 10, 2);
+		TopologySnapshot refreshed = ClusterTopologyTest.snapshot(1, 2, 11, 2);
+
+		TopologyCrawler crawler = mock(TopologyCrawler.class);
+		when(crawler.crawl()).thenReturn(crawled);
+		when(crawler.refresh(crawled)).thenReturn(refreshed);
+
+		TopologyHolder holder = new TopologyHolder();
+
+		assertSame(crawled, holder.refresh(crawler).getSnapshot());
+		assertSame(refreshed, holder.refresh(crawler).getSnapshot());
+		assertSame(refreshed, holder.get().getSnapshot());
+		verify(crawler, times(1)).crawl();
+	}
+
+	@Test
+	public void testRefreshCrawlsFullyEveryFullCrawlInterval() {
+		TopologySnapshot crawled = ClusterTopologyTest.snapshot(1, 2, 10, 2);
+		TopologySnapshot refreshed = ClusterTopologyTest.snapshot(1, 2, 11, 2);
+
+		TopologyCrawler crawler = mock(TopologyCrawler.class);
+		when(crawler.crawl()).thenReturn(crawled);
+		when(crawler.refresh(any(TopologySnapshot.class))).thenReturn(refreshed);
+
+		TopologyHolder holder = new TopologyHolder();
+		holder.setFullCrawlInterval(2);
+
+		assertSame(crawled, holder.refresh(crawler).getSnapshot());
+		assertSame(refreshed, holder.refresh(crawler).getSnapshot());
+		assertSame(refreshed, holder.refresh(crawler).getSnapshot());
+		assertEquals(2, holder.getIncrementalRefreshes());
+
+		// the third refresh crawls the whole topology again
+		assertSame(crawled, holder.refresh(crawler).getSnapshot());
+		assertEquals(0, holder.getIncrementalRefreshes());
+		assertEquals(4, holder.getVersion());
+		verify(crawler, times(2)).crawl();
+		verify(crawler, times(2)).refresh(any(TopologySnapshot.class));
+	}
+
+	@Test
+	public void testRefreshCrawlsFullyOnceTheLastCrawlIsTooOld() throws Exception {
+		TopologySnapshot crawled = ClusterTopologyTest.snapshot(1, 2, 10, 2);
+		TopologySnapshot refreshed = ClusterTopologyTest.snapshot(1, 2, 11, 2);
+
+		TopologyCrawler crawler = mock(TopologyCrawler.class);
+		when(crawler.crawl()).thenReturn(crawled);
+		when(crawler.refresh(any(TopologySnapshot.class))).thenReturn(refreshed);
+
+		TopologyHolder holder = new TopologyHolder();
+		holder.setMaxIncrementalAge(200, TimeUnit.MILLISECONDS);
+
+		assertSame(crawled, holder.refresh(crawler).getSnapshot());
+		assertSame(refreshed, holder.refresh(crawler).getSnapshot());
+
+		Thread.sleep(250);
+
+		assertSame(crawled, holder.refresh(crawler).getSnapshot());
+		verify(crawler, times(2)).crawl();
+		verify(crawler, times(1)).refresh(any(TopologySnapshot.class));
+	}
+
+	@Test
+	public void testPublishedTopologyCountsAsFullCrawl() {
+		TopologySnapshot published = ClusterTopologyTest.snapshot(1, 2, 10, 2);
+		TopologySnapshot refreshed = ClusterTopologyTest.snapshot(1, 2, 11, 2);
+
+		TopologyCrawler crawler = mock(TopologyCrawler.class);
+		when(crawler.refresh(published)).thenReturn(refreshed);
+
+		TopologyHolder holder = new TopologyHolder(ClusterTopology.of(published));
+		holder.setFullCrawlInterval(1);
+
+		assertSame(refreshed, holder.refresh(crawler).getSnapshot());
+		assertEquals(1, holder.getIncrementalRefreshes());
+		verify(crawler, never()).crawl();
+	}
+}
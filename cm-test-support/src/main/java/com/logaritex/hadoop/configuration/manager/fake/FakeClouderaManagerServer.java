@@ -0,0 +1,860 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.fake;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.codehaus.jackson.JsonProcessingException;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+
+import com.logaritex.hadoop.configuration.manager.domain.BulkCommandList;
+import com.logaritex.hadoop.configuration.manager.domain.Cluster;
+import com.logaritex.hadoop.configuration.manager.domain.ClusterList;
+import com.logaritex.hadoop.configuration.manager.domain.ClusterRef;
+import com.logaritex.hadoop.configuration.manager.domain.Command;
+import com.logaritex.hadoop.configuration.manager.domain.CommandList;
+import com.logaritex.hadoop.configuration.manager.domain.Config;
+import com.logaritex.hadoop.configuration.manager.domain.ConfigList;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.HostList;
+import com.logaritex.hadoop.configuration.manager.domain.MetricList;
+import com.logaritex.hadoop.configuration.manager.domain.Role;
+import com.logaritex.hadoop.configuration.manager.domain.Role.RoleState;
+import com.logaritex.hadoop.configuration.manager.domain.RoleList;
+import com.logaritex.hadoop.configuration.manager.domain.RoleNames;
+import com.logaritex.hadoop.configuration.manager.domain.RoleRef;
+import com.logaritex.hadoop.configuration.manager.domain.RoleTypeConfig;
+import com.logaritex.hadoop.configuration.manager.domain.RoleTypeList;
+import com.logaritex.hadoop.configuration.manager.domain.Service;
+import com.logaritex.hadoop.configuration.manager.domain.Service.ServiceState;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceConfig;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceList;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceRef;
+import com.logaritex.hadoop.configuration.manager.domain.User;
+import com.logaritex.hadoop.configuration.manager.domain.UserList;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process fake of the Cloudera Manager server. Implements the /api/v1 endpoints used by the service
+ * implementations (clusters, services, roles, service and host configuration, host metrics, commands and users) on top
+ * of a {@link SyntheticTopology}.
+ * 
+ * <br/>
+ * Like the real server it answers Basic authenticated requests with a CLOUDERA_MANAGER_SESSIONID session cookie,
+ * returns the summary view of hosts and service configurations unless view=full is asked for, and changes the
+ * service and role states on start, stop and restart commands. Commands complete immediately.
+ * 
+ * <br/>
+ * Latency ({@link #setLatency(long, long)}) and error responses ({@link #setFailureRate(double)}) can be injected to
+ * load test the clients.
+ */
+public class FakeClouderaManagerServer {
+
+	public static final String API_PATH = "/api/v1";
+
+	public static final String SESSION_COOKIE = "CLOUDERA_MANAGER_SESSIONID";
+
+	public static final int DEFAULT_THREADS = 32;
+
+	public static final int DEFAULT_FAILURE_STATUS = 503;
+
+	static {
+		// avoid the Nagle / delayed-ACK stall on small responses
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private final SyntheticTopology topology;
+
+	private final HttpServer server;
+
+	private final ExecutorService executor;
+
+	private final ObjectMapper objectMapper;
+
+	private final Set<String> sessions = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	private volatile long latencyMs;
+
+	private volatile long latencyJitterMs;
+
+	private volatile double failureRate;
+
+	private volatile int failureStatus = DEFAULT_FAILURE_STATUS;
+
+	private volatile boolean gzip;
+
+	private final AtomicLong requests = new AtomicLong();
+
+	private final AtomicLong failures = new AtomicLong();
+
+	private final AtomicLong bytesReceived = new AtomicLong();
+
+	private final AtomicLong bytesSent = new AtomicLong();
+
+	public FakeClouderaManagerServer(SyntheticTopology topology) throws IOException {
+		this(topology, 0, DEFAULT_THREADS);
+	}
+
+	/**
+	 * @param topology
+	 *            The state served.
+	 * @param port
+	 *            Local port to listen on, 0 for any free port.
+	 * @param threads
+	 *            Number of request handling threads. Injected latency holds a thread for its duration, so this also
+	 *            bounds the number of concurrent requests served.
+	 */
+	public FakeClouderaManagerServer(SyntheticTopology topology, int port, int threads) throws IOException {
+		this.topology = topology;
+		this.objectMapper = new ObjectMapper();
+		this.objectMapper.setSerializationInclusion(JsonSerialize.Inclusion.NON_NULL);
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+		this.executor = Executors.newFixedThreadPool(threads);
+
+		server.setExecutor(executor);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				handleRequest(exchange);
+			}
+		});
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	/**
+	 * @return URL to create the clients with, e.g. http://127.0.0.1:52341
+	 */
+	public String getBaseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	public SyntheticTopology getTopology() {
+		return topology;
+	}
+
+	/**
+	 * @param latencyMs
+	 *            Time added to every request.
+	 * @param jitterMs
+	 *            Upper bound of a uniformly distributed random time added on top.
+	 */
+	public void setLatency(long latencyMs, long jitterMs) {
+		this.latencyMs = latencyMs;
+		this.latencyJitterMs = jitterMs;
+	}
+
+	/**
+	 * @param failureRate
+	 *            Fraction of the requests answered with the failure status instead of being served.
+	 */
+	public void setFailureRate(double failureRate) {
+		this.failureRate = failureRate;
+	}
+
+	/**
+	 * @param failureStatus
+	 *            HTTP status of the injected failures. Defaults to 503.
+	 */
+	public void setFailureStatus(int failureStatus) {
+		this.failureStatus = failureStatus;
+	}
+
+	/**
+	 * @param gzip
+	 *            If true, responses are gzip encoded for clients that accept it.
+	 */
+	public void setGzip(boolean gzip) {
+		this.gzip = gzip;
+	}
+
+	/**
+	 * Invalidates all open sessions, as a server restart or session timeout would.
+	 */
+	public void expireSessions() {
+		sessions.clear();
+	}
+
+	public long getRequestCount() {
+		return requests.get();
+	}
+
+	/**
+	 * @return Number of injected failures.
+	 */
+	public long getFailureCount() {
+		return failures.get();
+	}
+
+	/**
+	 * @return Request body bytes received.
+	 */
+	public long getBytesReceived() {
+		return bytesReceived.get();
+	}
+
+	/**
+	 * @return Response body bytes sent, as written on the wire (after gzip encoding).
+	 */
+	public long getBytesSent() {
+		return bytesSent.get();
+	}
+
+	public void resetStatistics() {
+		requests.set(0);
+		failures.set(0);
+		bytesReceived.set(0);
+		bytesSent.set(0);
+	}
+
+	protected void handleRequest(HttpExchange exchange) throws IOException {
+		try {
+			requests.incrementAndGet();
+
+			byte[] requestBody = read(exchange.getRequestBody());
+			bytesReceived.addAndGet(requestBody.length);
+
+			if (!authenticate(exchange)) {
+				sendError(exchange, 401, "Authentication required");
+				return;
+			}
+
+			delay();
+
+			if (failureRate > 0 && Math.random() < failureRate) {
+				failures.incrementAndGet();
+				sendError(exchange, failureStatus, "Injected failure");
+				return;
+			}
+
+			String path = exchange.getRequestURI().getPath();
+			if (!path.startsWith(API_PATH + "/")) {
+				throw new ApiException(404, "Unknown path: " + path);
+			}
+
+			String[] segments = path.substring(API_PATH.length() + 1).split("/");
+			boolean fullView = "view=full".equals(exchange.getRequestURI().getQuery());
+
+			send(exchange, 200, route(exchange.getRequestMethod(), segments, fullView, requestBody));
+
+		} catch (ApiException e) {
+			sendError(exchange, e.status, e.getMessage());
+		} catch (JsonProcessingException e) {
+			sendError(exchange, 400, "Invalid request body: " + e.getMessage());
+		} catch (RuntimeException e) {
+			sendError(exchange, 500, String.valueOf(e));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private Object route(String method, String[] segments, boolean fullView, byte[] body) throws IOException {
+
+		String resource = segments[0];
+
+		if ("clusters".equals(resource)) {
+			return routeClusters(method, segments, fullView, body);
+		} else if ("hosts".equals(resource)) {
+			return routeHosts(method, segments, fullView, body);
+		} else if ("users".equals(resource)) {
+			return routeUsers(method, segments, body);
+		}
+		throw notFound(segments);
+	}
+
+	private Object routeClusters(String method, String[] segments, boolean fullView, byte[] body) throws IOException {
+
+		if (segments.length == 1) {
+			if ("GET".equals(method)) {
+				return new ClusterList(topology.getClusters());
+			} else if ("POST".equals(method)) {
+				ClusterList clusterList = objectMapper.readValue(body, ClusterList.class);
+				for (Cluster cluster : clusterList.getItems()) {
+					topology.putCluster(cluster);
+				}
+				return clusterList;
+			}
+			throw methodNotAllowed(method, segments);
+		}
+
+		String clusterName = segments[1];
+		Cluster cluster = topology.getCluster(clusterName);
+		if (cluster == null) {
+			throw new ApiException(404, "Cluster '" + clusterName + "' not found.");
+		}
+
+		if (segments.length == 2) {
+			if ("GET".equals(method)) {
+				return cluster;
+			} else if ("DELETE".equals(method)) {
+				return topology.removeCluster(clusterName);
+			}
+			throw methodNotAllowed(method, segments);
+		}
+
+		if ("commands".equals(segments[2])) {
+			if (segments.length == 3 && "GET".equals(method)) {
+				return new CommandList();
+			} else if (segments.length == 4 && "POST".equals(method)) {
+				return command(segments[3]);
+			}
+			throw notFound(segments);
+		}
+
+		if (!"services".equals(segments[2])) {
+			throw notFound(segments);
+		}
+
+		if (segments.length == 3) {
+			if ("GET".equals(method)) {
+				return new ServiceList(topology.getServices(clusterName));
+			} else if ("POST".equals(method)) {
+				ServiceList serviceList = objectMapper.readValue(body, ServiceList.class);
+				for (Service service : serviceList.getItems()) {
+					ClusterRef clusterRef = new ClusterRef();
+					clusterRef.setClusterName(clusterName);
+					service.setClusterRef(clusterRef);
+					topology.putService(service);
+				}
+				return serviceList;
+			}
+			throw methodNotAllowed(method, segments);
+		}
+
+		return routeService(method, segments, fullView, body, clusterName);
+	}
+
+	private Object routeService(String method, String[] segments, boolean fullView, byte[] body, String clusterName)
+			throws IOException {
+
+		String serviceName = segments[3];
+		Service service = topology.getService(clusterName, serviceName);
+		if (service == null) {
+			throw new ApiException(404, "Service '" + serviceName + "' not found in cluster '" + clusterName + "'.");
+		}
+
+		if (segments.length == 4) {
+			if ("GET".equals(method)) {
+				return service;
+			} else if ("DELETE".equals(method)) {
+				return topology.removeService(clusterName, serviceName);
+			}
+			throw methodNotAllowed(method, segments);
+		}
+
+		String resource = segments[4];
+
+		if ("config".equals(resource) && segments.length == 5) {
+			if ("GET".equals(method)) {
+				ServiceConfig serviceConfig = topology.getServiceConfig(clusterName, serviceName);
+				if (serviceConfig == null) {
+					serviceConfig = new ServiceConfig();
+					serviceConfig.setItems(new ArrayList<Config>());
+					serviceConfig.setRoleTypeConfigs(new ArrayList<RoleTypeConfig>());
+				}
+				return fullView ? serviceConfig : summary(serviceConfig);
+			} else if ("PUT".equals(method)) {
+				ServiceConfig update = objectMapper.readValue(body, ServiceConfig.class);
+				ServiceConfig serviceConfig = merge(topology.getServiceConfig(clusterName, serviceName), update);
+				topology.putServiceConfig(clusterName, serviceName, serviceConfig);
+				return summary(serviceConfig);
+			}
+			throw methodNotAllowed(method, segments);
+		}
+
+		if ("commands".equals(resource)) {
+			if (segments.length == 5 && "GET".equals(method)) {
+				return new CommandList();
+			} else if (segments.length == 6 && "POST".equals(method)) {
+				String commandName = segments[5];
+				ServiceState state = serviceState(commandName);
+				if (state != null) {
+					topology.putService(withState(service, state));
+				}
+				Command command = command(commandName);
+				command.setServiceRef(serviceRef(clusterName, serviceName));
+				return command;
+			}
+			throw notFound(segments);
+		}
+
+		if ("roles".equals(resource) && segments.length == 5 && "GET".equals(method)) {
+			RoleList roleList = new RoleList();
+			roleList.setItems(topology.getRoles(clusterName, serviceName));
+			return roleList;
+		}
+
+		if ("roleTypes".equals(resource) && segments.length == 5 && "GET".equals(method)) {
+			RoleTypeList roleTypeList = new RoleTypeList();
+			roleTypeList.setItems(topology.getRoleTypes(clusterName, serviceName));
+			return roleTypeList;
+		}
+
+		if ("roleCommands".equals(resource) && segments.length == 6 && "POST".equals(method)) {
+			RoleNames roleNames = objectMapper.readValue(body, RoleNames.class);
+			return roleCommands(segments[5], clusterName, serviceName, roleNames.getItems());
+		}
+
+		throw notFound(segments);
+	}
+
+	private Object routeHosts(String method, String[] segments, boolean fullView, byte[] body) throws IOException {
+
+		if (segments.length == 1) {
+			if ("GET".equals(method)) {
+				List<Host> hosts = topology.getHosts();
+				if (!fullView) {
+					for (int i = 0; i < hosts.size(); i++) {
+						hosts.set(i, summary(hosts.get(i)));
+					}
+				}
+				return new HostList(hosts);
+			} else if ("POST".equals(method)) {
+				HostList hostList = objectMapper.readValue(body, HostList.class);
+				for (Host host : hostList.getItems()) {
+					if (host.getRoleRefs() == null) {
+						host.setRoleRefs(new ArrayList<RoleRef>());
+					}
+					topology.putHost(host);
+				}
+				return hostList;
+			} else if ("DELETE".equals(method)) {
+				List<Host> hosts = topology.getHosts();
+				for (Host host : hosts) {
+					topology.removeHost(host.getHostId());
+				}
+				return new HostList(hosts);
+			}
+			throw methodNotAllowed(method, segments);
+		}
+
+		String hostId = segments[1];
+		Host host = topology.getHost(hostId);
+		if (host == null) {
+			throw new ApiException(404, "Host '" + hostId + "' not found.");
+		}
+
+		if (segments.length == 2) {
+			if ("GET".equals(method)) {
+				return host;
+			} else if ("PUT".equals(method)) {
+				Host update = objectMapper.readValue(body, Host.class);
+				update.setHostId(hostId);
+				if (update.getRoleRefs() == null) {
+					update.setRoleRefs(host.getRoleRefs());
+				}
+				topology.putHost(update);
+				return update;
+			} else if ("DELETE".equals(method)) {
+				return topology.removeHost(hostId);
+			}
+			throw methodNotAllowed(method, segments);
+		}
+
+		if ("config".equals(segments[2]) && segments.length == 3) {
+			if ("GET".equals(method)) {
+				List<Config> configs = topology.getHostConfig(hostId);
+				return new ConfigList(fullView ? configs : summary(configs));
+			} else if ("PUT".equals(method)) {
+				ConfigList update = objectMapper.readValue(body, ConfigList.class);
+				List<Config> configs = merge(topology.getHostConfig(hostId), update.getItems());
+				topology.putHostConfig(hostId, configs);
+				return new ConfigList(summary(configs));
+			}
+			throw methodNotAllowed(method, segments);
+		}
+
+		if ("metrics".equals(segments[2]) && segments.length == 3 && "GET".equals(method)) {
+			MetricList metricList = new MetricList();
+			metricList.setItems(topology.getHostMetrics(hostId));
+			return metricList;
+		}
+
+		throw notFound(segments);
+	}
+
+	private Object routeUsers(String method, String[] segments, byte[] body) throws IOException {
+
+		if (segments.length == 1) {
+			if ("GET".equals(method)) {
+				return new UserList(topology.getUsers());
+			} else if ("POST".equals(method)) {
+				UserList userList = objectMapper.readValue(body, UserList.class);
+				for (User user : userList.getItems()) {
+					// like the real server, never return passwords
+					user.setPassword(null);
+					topology.putUser(user);
+				}
+				return userList;
+			}
+			throw methodNotAllowed(method, segments);
+		}
+
+		String userName = segments[1];
+		User user = topology.getUser(userName);
+		if (user == null || segments.length > 2) {
+			throw new ApiException(404, "User '" + userName + "' not found.");
+		}
+
+		if ("GET".equals(method)) {
+			return user;
+		} else if ("PUT".equals(method)) {
+			User update = objectMapper.readValue(body, User.class);
+			update.setName(userName);
+			update.setPassword(null);
+			topology.putUser(update);
+			return update;
+		} else if ("DELETE".equals(method)) {
+			return topology.removeUser(userName);
+		}
+		throw methodNotAllowed(method, segments);
+	}
+
+	private BulkCommandList roleCommands(String commandName, String clusterName, String serviceName,
+			List<String> roleNames) {
+
+		RoleState state = roleState(commandName);
+
+		List<Command> commands = new ArrayList<Command>();
+		List<String> errors = new ArrayList<String>();
+
+		for (String roleName : roleNames) {
+			Role role = topology.getRole(clusterName, serviceName, roleName);
+			if (role == null) {
+				errors.add("Role '" + roleName + "' not found in service '" + serviceName + "'.");
+				continue;
+			}
+			if (state != null) {
+				topology.putRole(withState(role, state));
+			}
+
+			RoleRef roleRef = new RoleRef();
+			roleRef.setClusterName(clusterName);
+			roleRef.setServiceName(serviceName);
+			roleRef.setRoleName(roleName);
+
+			Command command = command(commandName);
+			command.setRoleRef(roleRef);
+			commands.add(command);
+		}
+
+		BulkCommandList bulkCommandList = new BulkCommandList();
+		bulkCommandList.setItems(commands);
+		bulkCommandList.setErrors(errors);
+		return bulkCommandList;
+	}
+
+	private Command command(String name) {
+		String now = SyntheticTopology.createDateFormat().format(new Date());
+
+		Command command = new Command();
+		command.setId(topology.nextCommandId());
+		command.setName(name);
+		command.setStartTime(now);
+		command.setEndTime(now);
+		command.setActive(false);
+		command.setSuccess(true);
+		command.setResultMessage("Command '" + name + "' completed.");
+		return command;
+	}
+
+	private boolean authenticate(HttpExchange exchange) {
+
+		String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+		if (cookie != null && sessions.contains(cookie.trim())) {
+			return true;
+		}
+
+		if (exchange.getRequestHeaders().getFirst("Authorization") == null) {
+			return false;
+		}
+
+		String session = SESSION_COOKIE + "=" + UUID.randomUUID();
+		sessions.add(session);
+		exchange.getResponseHeaders().add("Set-Cookie", session + "; Path=/; HttpOnly");
+		return true;
+	}
+
+	private void delay() {
+		long delayMs = latencyMs;
+		if (latencyJitterMs > 0) {
+			delayMs += (long) (Math.random() * latencyJitterMs);
+		}
+		if (delayMs > 0) {
+			try {
+				TimeUnit.MILLISECONDS.sleep(delayMs);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void send(HttpExchange exchange, int status, Object entity) throws IOException {
+
+		byte[] responseBody = objectMapper.writeValueAsBytes(entity);
+
+		String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		if (gzip && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+			responseBody = gzip(responseBody);
+		}
+
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, responseBody.length);
+		bytesSent.addAndGet(responseBody.length);
+
+		OutputStream out = exchange.getResponseBody();
+		out.write(responseBody);
+		out.close();
+	}
+
+	private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+		Map<String, String> error = new LinkedHashMap<String, String>();
+		error.put("message", message);
+		send(exchange, status, error);
+	}
+
+	private static ServiceConfig summary(ServiceConfig serviceConfig) {
+		ServiceConfig summary = new ServiceConfig();
+		summary.setItems(summary(serviceConfig.getItems()));
+
+		List<RoleTypeConfig> roleTypeConfigs = new ArrayList<RoleTypeConfig>();
+		if (serviceConfig.getRoleTypeConfigs() != null) {
+			for (RoleTypeConfig roleTypeConfig : serviceConfig.getRoleTypeConfigs()) {
+				RoleTypeConfig roleTypeSummary = new RoleTypeConfig();
+				roleTypeSummary.setRoleType(roleTypeConfig.getRoleType());
+				roleTypeSummary.setItems(summary(roleTypeConfig.getItems()));
+				roleTypeConfigs.add(roleTypeSummary);
+			}
+		}
+		summary.setRoleTypeConfigs(roleTypeConfigs);
+		return summary;
+	}
+
+	/**
+	 * The summary view only has the name and value of the parameters that are set.
+	 */
+	private static List<Config> summary(List<Config> configs) {
+		List<Config> summary = new ArrayList<Config>();
+		if (configs != null) {
+			for (Config config : configs) {
+				if (config.getValue() != null) {
+					Config value = new Config();
+					value.setName(config.getName());
+					value.setValue(config.getValue());
+					summary.add(value);
+				}
+			}
+		}
+		return summary;
+	}
+
+	/**
+	 * The summary view of a host has no role references and health checks.
+	 */
+	private static Host summary(Host host) {
+		Host summary = new Host();
+		summary.setHostId(host.getHostId());
+		summary.setIpAddress(host.getIpAddress());
+		summary.setHostname(host.getHostname());
+		summary.setRackId(host.getRackId());
+		summary.setLastHeartbeat(host.getLastHeartbeat());
+		summary.setHealthSummary(host.getHealthSummary());
+		summary.setHostUrl(host.getHostUrl());
+		return summary;
+	}
+
+	private static ServiceConfig merge(ServiceConfig serviceConfig, ServiceConfig update) {
+		ServiceConfig merged = new ServiceConfig();
+		merged.setItems(merge((serviceConfig == null) ? null : serviceConfig.getItems(), update.getItems()));
+
+		Map<String, RoleTypeConfig> roleTypeConfigs = new LinkedHashMap<String, RoleTypeConfig>();
+		if (serviceConfig != null && serviceConfig.getRoleTypeConfigs() != null) {
+			for (RoleTypeConfig roleTypeConfig : serviceConfig.getRoleTypeConfigs()) {
+				roleTypeConfigs.put(roleTypeConfig.getRoleType(), roleTypeConfig);
+			}
+		}
+		if (update.getRoleTypeConfigs() != null) {
+			for (RoleTypeConfig roleTypeUpdate : update.getRoleTypeConfigs()) {
+				RoleTypeConfig roleTypeConfig = roleTypeConfigs.get(roleTypeUpdate.getRoleType());
+				RoleTypeConfig mergedRoleType = new RoleTypeConfig();
+				mergedRoleType.setRoleType(roleTypeUpdate.getRoleType());
+				mergedRoleType.setItems(merge((roleTypeConfig == null) ? null : roleTypeConfig.getItems(),
+						roleTypeUpdate.getItems()));
+				roleTypeConfigs.put(roleTypeUpdate.getRoleType(), mergedRoleType);
+			}
+		}
+		merged.setRoleTypeConfigs(new ArrayList<RoleTypeConfig>(roleTypeConfigs.values()));
+		return merged;
+	}
+
+	/**
+	 * Sets the values of the updated parameters, adding the ones not known yet. A null value unsets a parameter.
+	 */
+	private static List<Config> merge(List<Config> configs, List<Config> updates) {
+		Map<String, Config> merged = new LinkedHashMap<String, Config>();
+		if (configs != null) {
+			for (Config config : configs) {
+				merged.put(config.getName(), config);
+			}
+		}
+		if (updates != null) {
+			for (Config update : updates) {
+				Config config = merged.get(update.getName());
+				Config copy = new Config();
+				copy.setName(update.getName());
+				copy.setValue(update.getValue());
+				if (config != null) {
+					copy.setRequired(config.isRequired());
+					copy.setDefaultValue(config.getDefaultValue());
+					copy.setDisplayName(config.getDisplayName());
+					copy.setDescription(config.getDescription());
+					copy.setRelatedName(config.getRelatedName());
+					copy.setValidationState(config.getValidationState());
+					copy.setValidationMessage(config.getValidationMessage());
+				}
+				merged.put(update.getName(), copy);
+			}
+		}
+		return new ArrayList<Config>(merged.values());
+	}
+
+	private static ServiceState serviceState(String commandName) {
+		if ("start".equals(commandName) || "restart".equals(commandName)) {
+			return ServiceState.STARTED;
+		}
+		return "stop".equals(commandName) ? ServiceState.STOPPED : null;
+	}
+
+	private static RoleState roleState(String commandName) {
+		if ("start".equals(commandName) || "restart".equals(commandName)) {
+			return RoleState.STARTED;
+		}
+		return "stop".equals(commandName) ? RoleState.STOPPED : null;
+	}
+
+	private static Service withState(Service service, ServiceState state) {
+		Service copy = new Service();
+		copy.setName(service.getName());
+		copy.setType(service.getType());
+		copy.setClusterRef(service.getClusterRef());
+		copy.setServiceState(state);
+		copy.setHealthSummary(service.getHealthSummary());
+		copy.setConfigStale(service.isConfigStale());
+		copy.setHealthChecks(service.getHealthChecks());
+		copy.setServiceUrl(service.getServiceUrl());
+		return copy;
+	}
+
+	private static Role withState(Role role, RoleState state) {
+		Role copy = new Role();
+		copy.setName(role.getName());
+		copy.setType(role.getType());
+		copy.setConfigStale(role.isConfigStale());
+		copy.setHostRef(role.getHostRef());
+		copy.setServiceRef(role.getServiceRef());
+		copy.setRoleState(state);
+		copy.setHealthSummary(role.getHealthSummary());
+		copy.setHealthChecks(role.getHealthChecks());
+		copy.setHaStatus(role.getHaStatus());
+		copy.setRoleUrl(role.getRoleUrl());
+		return copy;
+	}
+
+	private static ServiceRef serviceRef(String clusterName, String serviceName) {
+		ServiceRef serviceRef = new ServiceRef();
+		serviceRef.setClusterName(clusterName);
+		serviceRef.setServiceName(serviceName);
+		return serviceRef;
+	}
+
+	private static ApiException notFound(String[] segments) {
+		return new ApiException(404, "Unknown path: " + API_PATH + "/" + join(segments));
+	}
+
+	private static ApiException methodNotAllowed(String method, String[] segments) {
+		return new ApiException(405, method + " not supported on " + API_PATH + "/" + join(segments));
+	}
+
+	private static String join(String[] segments) {
+		StringBuilder path = new StringBuilder();
+		for (int i = 0; i < segments.length; i++) {
+			path.append((i > 0) ? "/" : "").append(segments[i]);
+		}
+		return path.toString();
+	}
+
+	private static byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GZIPOutputStream gzip = new GZIPOutputStream(out);
+		gzip.write(data);
+		gzip.close();
+		return out.toByteArray();
+	}
+
+	private static byte[] read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, read);
+		}
+		in.close();
+		return out.toByteArray();
+	}
+
+	private static class ApiException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int status;
+
+		ApiException(int status, String message) {
+			super(message);
+			this.status = status;
+		}
+	}
+}
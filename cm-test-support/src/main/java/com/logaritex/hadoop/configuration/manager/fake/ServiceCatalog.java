@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.fake;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.logaritex.hadoop.configuration.manager.domain.Service.ServiceType;
+
+/**
+ * The services the {@link TopologyGenerator} deploys on every cluster and the role types they run.
+ */
+final class ServiceCatalog {
+
+	/**
+	 * Service types deployed on every synthetic cluster, in deployment order.
+	 */
+	static final ServiceType[] SERVICE_TYPES = { ServiceType.HDFS, ServiceType.MAPREDUCE, ServiceType.HBASE,
+			ServiceType.ZOOKEEPER, ServiceType.OOZIE, ServiceType.HUE };
+
+	/**
+	 * One instance of each master role per cluster, spread over the first hosts of the cluster.
+	 */
+	static final RoleSpec[] MASTER_ROLES = { new RoleSpec(ServiceType.HDFS, "NAMENODE"),
+			new RoleSpec(ServiceType.HDFS, "SECONDARYNAMENODE"), new RoleSpec(ServiceType.MAPREDUCE, "JOBTRACKER"),
+			new RoleSpec(ServiceType.HBASE, "MASTER"), new RoleSpec(ServiceType.ZOOKEEPER, "SERVER"),
+			new RoleSpec(ServiceType.OOZIE, "OOZIE_SERVER"), new RoleSpec(ServiceType.HUE, "HUE_SERVER") };
+
+	/**
+	 * Worker roles, assigned to every host in this order until the requested number of roles per host is reached.
+	 */
+	static final RoleSpec[] WORKER_ROLES = { new RoleSpec(ServiceType.HDFS, "DATANODE"),
+			new RoleSpec(ServiceType.MAPREDUCE, "TASKTRACKER"), new RoleSpec(ServiceType.HBASE, "REGIONSERVER"),
+			new RoleSpec(ServiceType.HDFS, "GATEWAY"), new RoleSpec(ServiceType.MAPREDUCE, "GATEWAY"),
+			new RoleSpec(ServiceType.HBASE, "GATEWAY") };
+
+	private ServiceCatalog() {
+	}
+
+	/**
+	 * @return The name of the service of the given type, e.g. "hdfs1".
+	 */
+	static String serviceName(ServiceType serviceType) {
+		return serviceType.name().toLowerCase() + "1";
+	}
+
+	/**
+	 * @return The role types of the service type, masters first.
+	 */
+	static List<String> roleTypes(ServiceType serviceType) {
+		List<String> roleTypes = new ArrayList<String>();
+		for (RoleSpec spec : MASTER_ROLES) {
+			if (spec.serviceType == serviceType) {
+				roleTypes.add(spec.roleType);
+			}
+		}
+		for (RoleSpec spec : WORKER_ROLES) {
+			if (spec.serviceType == serviceType) {
+				roleTypes.add(spec.roleType);
+			}
+		}
+		return Collections.unmodifiableList(roleTypes);
+	}
+
+	static class RoleSpec {
+
+		final ServiceType serviceType;
+
+		final String roleType;
+
+		RoleSpec(ServiceType serviceType, String roleType) {
+			this.serviceType = serviceType;
+			this.roleType = roleType;
+		}
+	}
+}
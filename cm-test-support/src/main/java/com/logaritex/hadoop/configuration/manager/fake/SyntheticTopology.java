@@ -0,0 +1,419 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.fake;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.logaritex.hadoop.configuration.manager.domain.Cluster;
+import com.logaritex.hadoop.configuration.manager.domain.Config;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.Metric;
+import com.logaritex.hadoop.configuration.manager.domain.MetricData;
+import com.logaritex.hadoop.configuration.manager.domain.Role;
+import com.logaritex.hadoop.configuration.manager.domain.RoleRef;
+import com.logaritex.hadoop.configuration.manager.domain.Service;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceConfig;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceRef;
+import com.logaritex.hadoop.configuration.manager.domain.User;
+
+/**
+ * Thread-safe, in-memory state of a fake Cloudera Manager: the clusters, services, roles, hosts, configurations and
+ * users served by the {@link FakeClouderaManagerServer}. Usually created by the {@link TopologyGenerator}.
+ * 
+ * <br/>
+ * The stored domain objects are serialized as they are, concurrently with the requests being served. To change the
+ * state while a server is running (e.g. stop a role), put a modified copy instead of modifying the stored object.
+ * Lists are returned sorted by name (host id for hosts).
+ */
+public class SyntheticTopology {
+
+	public static final int DEFAULT_METRICS_PER_HOST = 10;
+
+	public static final int DEFAULT_DATA_POINTS_PER_METRIC = 6;
+
+	private static final String[] HOST_METRICS = { "cpu_user_rate", "cpu_system_rate", "load_1", "load_5",
+			"load_15", "physical_memory_used", "swap_used", "total_bytes_receive_rate_across_network_interfaces",
+			"total_bytes_transmit_rate_across_network_interfaces", "total_read_bytes_rate_across_disks",
+			"total_write_bytes_rate_across_disks", "alerts_rate", "events_critical_rate", "fd_open" };
+
+	private static final long DATA_POINT_INTERVAL_MS = 60000;
+
+	private final ConcurrentNavigableMap<String, Cluster> clusters = new ConcurrentSkipListMap<String, Cluster>();
+
+	private final ConcurrentMap<String, ConcurrentNavigableMap<String, Service>> services = new ConcurrentHashMap<String, ConcurrentNavigableMap<String, Service>>();
+
+	private final ConcurrentMap<String, ConcurrentNavigableMap<String, Role>> roles = new ConcurrentHashMap<String, ConcurrentNavigableMap<String, Role>>();
+
+	private final ConcurrentMap<String, ServiceConfig> serviceConfigs = new ConcurrentHashMap<String, ServiceConfig>();
+
+	private final ConcurrentNavigableMap<String, Host> hosts = new ConcurrentSkipListMap<String, Host>();
+
+	private final ConcurrentMap<String, List<Config>> hostConfigs = new ConcurrentHashMap<String, List<Config>>();
+
+	private final ConcurrentNavigableMap<String, User> users = new ConcurrentSkipListMap<String, User>();
+
+	private final AtomicLong commandIds = new AtomicLong();
+
+	private volatile List<Config> defaultHostConfig = Collections.emptyList();
+
+	private volatile int metricsPerHost = DEFAULT_METRICS_PER_HOST;
+
+	private volatile int dataPointsPerMetric = DEFAULT_DATA_POINTS_PER_METRIC;
+
+	// clusters
+
+	public List<Cluster> getClusters() {
+		return new ArrayList<Cluster>(clusters.values());
+	}
+
+	public Cluster getCluster(String clusterName) {
+		return clusters.get(clusterName);
+	}
+
+	public void putCluster(Cluster cluster) {
+		clusters.put(cluster.getName(), cluster);
+		services.putIfAbsent(cluster.getName(), new ConcurrentSkipListMap<String, Service>());
+	}
+
+	/**
+	 * Removes the cluster together with its services, roles and service configurations.
+	 */
+	public Cluster removeCluster(String clusterName) {
+		Cluster cluster = clusters.remove(clusterName);
+		ConcurrentNavigableMap<String, Service> clusterServices = services.remove(clusterName);
+		if (clusterServices != null) {
+			for (String serviceName : clusterServices.keySet()) {
+				roles.remove(key(clusterName, serviceName));
+				serviceConfigs.remove(key(clusterName, serviceName));
+			}
+		}
+		return cluster;
+	}
+
+	// services
+
+	/**
+	 * @return The services of the cluster or null if there is no such cluster.
+	 */
+	public List<Service> getServices(String clusterName) {
+		ConcurrentNavigableMap<String, Service> clusterServices = services.get(clusterName);
+		return (clusterServices == null) ? null : new ArrayList<Service>(clusterServices.values());
+	}
+
+	public Service getService(String clusterName, String serviceName) {
+		ConcurrentNavigableMap<String, Service> clusterServices = services.get(clusterName);
+		return (clusterServices == null) ? null : clusterServices.get(serviceName);
+	}
+
+	/**
+	 * Adds or replaces a service of an existing cluster, as given by the service's clusterRef.
+	 */
+	public void putService(Service service) {
+		String clusterName = service.getClusterRef().getClusterName();
+		ConcurrentNavigableMap<String, Service> clusterServices = services.get(clusterName);
+		if (clusterServices == null) {
+			throw new IllegalArgumentException("No cluster: " + clusterName);
+		}
+		clusterServices.put(service.getName(), service);
+		roles.putIfAbsent(key(clusterName, service.getName()), new ConcurrentSkipListMap<String, Role>());
+	}
+
+	/**
+	 * Removes the service together with its roles and configuration.
+	 */
+	public Service removeService(String clusterName, String serviceName) {
+		ConcurrentNavigableMap<String, Service> clusterServices = services.get(clusterName);
+		if (clusterServices == null) {
+			return null;
+		}
+		Service service = clusterServices.remove(serviceName);
+		ConcurrentNavigableMap<String, Role> serviceRoles = roles.remove(key(clusterName, serviceName));
+		if (serviceRoles != null) {
+			for (Role role : serviceRoles.values()) {
+				removeRoleRef(role);
+			}
+		}
+		serviceConfigs.remove(key(clusterName, serviceName));
+		return service;
+	}
+
+	/**
+	 * @return The role types of the service or null if there is no such service.
+	 */
+	public List<String> getRoleTypes(String clusterName, String serviceName) {
+		Service service = getService(clusterName, serviceName);
+		if (service == null) {
+			return null;
+		}
+		return (service.getType() == null) ? Collections.<String> emptyList() : ServiceCatalog.roleTypes(service
+				.getType());
+	}
+
+	public ServiceConfig getServiceConfig(String clusterName, String serviceName) {
+		return serviceConfigs.get(key(clusterName, serviceName));
+	}
+
+	public void putServiceConfig(String clusterName, String serviceName, ServiceConfig serviceConfig) {
+		serviceConfigs.put(key(clusterName, serviceName), serviceConfig);
+	}
+
+	// roles
+
+	/**
+	 * @return The roles of the service or null if there is no such service.
+	 */
+	public List<Role> getRoles(String clusterName, String serviceName) {
+		ConcurrentNavigableMap<String, Role> serviceRoles = roles.get(key(clusterName, serviceName));
+		return (serviceRoles == null) ? null : new ArrayList<Role>(serviceRoles.values());
+	}
+
+	public Role getRole(String clusterName, String serviceName, String roleName) {
+		ConcurrentNavigableMap<String, Role> serviceRoles = roles.get(key(clusterName, serviceName));
+		return (serviceRoles == null) ? null : serviceRoles.get(roleName);
+	}
+
+	/**
+	 * Adds or replaces a role of an existing service, as given by the role's serviceRef. A new role is also added to
+	 * the roleRefs of its host, if that host is already known.
+	 */
+	public void putRole(Role role) {
+		String clusterName = role.getServiceRef().getClusterName();
+		String serviceName = role.getServiceRef().getServiceName();
+		ConcurrentNavigableMap<String, Role> serviceRoles = roles.get(key(clusterName, serviceName));
+		if (serviceRoles == null) {
+			throw new IllegalArgumentException("No service: " + key(clusterName, serviceName));
+		}
+		if (serviceRoles.put(role.getName(), role) == null && role.getHostRef() != null) {
+			Host host = hosts.get(role.getHostRef().getHostId());
+			if (host != null) {
+				RoleRef roleRef = new RoleRef();
+				roleRef.setClusterName(clusterName);
+				roleRef.setServiceName(serviceName);
+				roleRef.setRoleName(role.getName());
+
+				List<RoleRef> roleRefs = new ArrayList<RoleRef>();
+				if (host.getRoleRefs() != null) {
+					roleRefs.addAll(host.getRoleRefs());
+				}
+				roleRefs.add(roleRef);
+				hosts.put(host.getHostId(), withRoleRefs(host, roleRefs));
+			}
+		}
+	}
+
+	public Role removeRole(String clusterName, String serviceName, String roleName) {
+		ConcurrentNavigableMap<String, Role> serviceRoles = roles.get(key(clusterName, serviceName));
+		Role role = (serviceRoles == null) ? null : serviceRoles.remove(roleName);
+		if (role != null) {
+			removeRoleRef(role);
+		}
+		return role;
+	}
+
+	/**
+	 * @return Total number of roles over all clusters and services.
+	 */
+	public int getRoleCount() {
+		int count = 0;
+		for (ConcurrentNavigableMap<String, Role> serviceRoles : roles.values()) {
+			count += serviceRoles.size();
+		}
+		return count;
+	}
+
+	// hosts
+
+	public List<Host> getHosts() {
+		return new ArrayList<Host>(hosts.values());
+	}
+
+	public Host getHost(String hostId) {
+		return hosts.get(hostId);
+	}
+
+	public int getHostCount() {
+		return hosts.size();
+	}
+
+	public void putHost(Host host) {
+		hosts.put(host.getHostId(), host);
+	}
+
+	public Host removeHost(String hostId) {
+		hostConfigs.remove(hostId);
+		return hosts.remove(hostId);
+	}
+
+	/**
+	 * @return The configuration of the host: its own if one was put, the default host configuration otherwise. Null
+	 *         if there is no such host.
+	 */
+	public List<Config> getHostConfig(String hostId) {
+		if (!hosts.containsKey(hostId)) {
+			return null;
+		}
+		List<Config> configs = hostConfigs.get(hostId);
+		return (configs == null) ? defaultHostConfig : configs;
+	}
+
+	public void putHostConfig(String hostId, List<Config> configs) {
+		hostConfigs.put(hostId, Collections.unmodifiableList(new ArrayList<Config>(configs)));
+	}
+
+	/**
+	 * @param configs
+	 *            Configuration of every host without a configuration of its own.
+	 */
+	public void setDefaultHostConfig(List<Config> configs) {
+		this.defaultHostConfig = Collections.unmodifiableList(new ArrayList<Config>(configs));
+	}
+
+	/**
+	 * Metrics are not stored: every call creates {@link #setMetricsPerHost(int)} fresh metrics with
+	 * {@link #setDataPointsPerMetric(int)} one minute apart data points ending now.
+	 * 
+	 * @return The current metrics of the host or null if there is no such host.
+	 */
+	public List<Metric> getHostMetrics(String hostId) {
+		if (!hosts.containsKey(hostId)) {
+			return null;
+		}
+
+		SimpleDateFormat dateFormat = createDateFormat();
+		long now = System.currentTimeMillis();
+		int seed = hostId.hashCode();
+
+		List<Metric> metrics = new ArrayList<Metric>(metricsPerHost);
+		for (int m = 0; m < metricsPerHost; m++) {
+			String name = HOST_METRICS[m % HOST_METRICS.length];
+			if (m >= HOST_METRICS.length) {
+				name = name + "_" + (m / HOST_METRICS.length);
+			}
+
+			List<MetricData> data = new ArrayList<MetricData>(dataPointsPerMetric);
+			for (int d = dataPointsPerMetric - 1; d >= 0; d--) {
+				MetricData point = new MetricData();
+				point.setTimestamp(dateFormat.format(new Date(now - d * DATA_POINT_INTERVAL_MS)));
+				point.setValue(String.valueOf(Math.abs((seed + 31 * m + 17 * d) % 10000) / 100.0));
+				data.add(point);
+			}
+
+			Metric metric = new Metric();
+			metric.setName(name);
+			metric.setContext(hostId);
+			metric.setUnit("percent");
+			metric.setDisplayName(name.replace('_', ' '));
+			metric.setDescription("Synthetic " + name.replace('_', ' ') + " of the host");
+			metric.setData(data);
+			metrics.add(metric);
+		}
+		return metrics;
+	}
+
+	public void setMetricsPerHost(int metricsPerHost) {
+		this.metricsPerHost = metricsPerHost;
+	}
+
+	public void setDataPointsPerMetric(int dataPointsPerMetric) {
+		this.dataPointsPerMetric = dataPointsPerMetric;
+	}
+
+	// users
+
+	public List<User> getUsers() {
+		return new ArrayList<User>(users.values());
+	}
+
+	public User getUser(String userName) {
+		return users.get(userName);
+	}
+
+	public void putUser(User user) {
+		users.put(user.getName(), user);
+	}
+
+	public User removeUser(String userName) {
+		return users.remove(userName);
+	}
+
+	// commands
+
+	/**
+	 * @return Id for the next command issued by the fake server.
+	 */
+	public String nextCommandId() {
+		return String.valueOf(commandIds.incrementAndGet());
+	}
+
+	/**
+	 * @return ISO-8601 UTC format of the timestamps used by Cloudera Manager. Not thread-safe.
+	 */
+	static SimpleDateFormat createDateFormat() {
+		SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+		dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+		return dateFormat;
+	}
+
+	private void removeRoleRef(Role role) {
+		if (role.getHostRef() == null) {
+			return;
+		}
+		Host host = hosts.get(role.getHostRef().getHostId());
+		if (host == null || host.getRoleRefs() == null) {
+			return;
+		}
+		List<RoleRef> roleRefs = new ArrayList<RoleRef>();
+		for (RoleRef roleRef : host.getRoleRefs()) {
+			ServiceRef serviceRef = role.getServiceRef();
+			if (!(role.getName().equals(roleRef.getRoleName())
+					&& serviceRef.getServiceName().equals(roleRef.getServiceName()) && serviceRef.getClusterName()
+					.equals(roleRef.getClusterName()))) {
+				roleRefs.add(roleRef);
+			}
+		}
+		hosts.put(host.getHostId(), withRoleRefs(host, roleRefs));
+	}
+
+	private static Host withRoleRefs(Host host, List<RoleRef> roleRefs) {
+		Host copy = new Host();
+		copy.setHostId(host.getHostId());
+		copy.setIpAddress(host.getIpAddress());
+		copy.setHostname(host.getHostname());
+		copy.setRackId(host.getRackId());
+		copy.setLastHeartbeat(host.getLastHeartbeat());
+		copy.setHealthSummary(host.getHealthSummary());
+		copy.setHealthChecks(host.getHealthChecks());
+		copy.setHostUrl(host.getHostUrl());
+		copy.setRoleRefs(roleRefs);
+		return copy;
+	}
+
+	private static String key(String clusterName, String serviceName) {
+		return clusterName + '/' + serviceName;
+	}
+}
@@ -0,0 +1,374 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.fake;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.logaritex.hadoop.configuration.manager.domain.Cluster;
+import com.logaritex.hadoop.configuration.manager.domain.Cluster.ClusterVersion;
+import com.logaritex.hadoop.configuration.manager.domain.ClusterRef;
+import com.logaritex.hadoop.configuration.manager.domain.Config;
+import com.logaritex.hadoop.configuration.manager.domain.Config.ValidationState;
+import com.logaritex.hadoop.configuration.manager.domain.HaStatus;
+import com.logaritex.hadoop.configuration.manager.domain.HealthCheck;
+import com.logaritex.hadoop.configuration.manager.domain.HealthSummary;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.HostRef;
+import com.logaritex.hadoop.configuration.manager.domain.Role;
+import com.logaritex.hadoop.configuration.manager.domain.Role.RoleState;
+import com.logaritex.hadoop.configuration.manager.domain.RoleRef;
+import com.logaritex.hadoop.configuration.manager.domain.RoleTypeConfig;
+import com.logaritex.hadoop.configuration.manager.domain.Service;
+import com.logaritex.hadoop.configuration.manager.domain.Service.ServiceState;
+import com.logaritex.hadoop.configuration.manager.domain.Service.ServiceType;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceConfig;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceRef;
+import com.logaritex.hadoop.configuration.manager.domain.User;
+import com.logaritex.hadoop.configuration.manager.fake.ServiceCatalog.RoleSpec;
+
+/**
+ * Generates a {@link SyntheticTopology} of N clusters, M hosts and K worker roles per host.
+ * 
+ * <br/>
+ * Every cluster runs one HDFS, MapReduce, HBase, ZooKeeper, Oozie and Hue service. The hosts are split evenly over
+ * the clusters; each host runs K worker roles (DATANODE, TASKTRACKER, REGIONSERVER and then gateways) and the first
+ * hosts of a cluster run one master role each on top of that. Health, role states and stale configurations are
+ * drawn from a seeded {@link Random}, so the same settings always generate the same topology.
+ */
+public class TopologyGenerator {
+
+	public static final long DEFAULT_SEED = 42;
+
+	public static final int DEFAULT_HOSTS_PER_RACK = 20;
+
+	public static final int DEFAULT_SERVICE_CONFIGS = 20;
+
+	public static final int DEFAULT_CONFIGS_PER_ROLE_TYPE = 20;
+
+	public static final int DEFAULT_HOST_CONFIGS = 10;
+
+	public static final double DEFAULT_UNHEALTHY_RATIO = 0.02;
+
+	public static final double DEFAULT_STALE_CONFIG_RATIO = 0.05;
+
+	public static final String ADMIN_USER = "admin";
+
+	private static final String BASE_URL = "http://cm.example.com:7180/cmf";
+
+	private static final String[] HOST_HEALTH_CHECKS = { "HOST_SCM_HEALTH", "HOST_CLOCK_OFFSET",
+			"HOST_DNS_RESOLUTION", "HOST_SWAP_MEMORY_USAGE", "HOST_NETWORK_FRAME_ERRORS" };
+
+	private static final String[] ROLE_HEALTH_CHECKS = { "_HOST_HEALTH", "_SCM_HEALTH" };
+
+	private final int clusters;
+
+	private final int hosts;
+
+	private final int rolesPerHost;
+
+	private long seed = DEFAULT_SEED;
+
+	private int hostsPerRack = DEFAULT_HOSTS_PER_RACK;
+
+	private int serviceConfigs = DEFAULT_SERVICE_CONFIGS;
+
+	private int configsPerRoleType = DEFAULT_CONFIGS_PER_ROLE_TYPE;
+
+	private int hostConfigs = DEFAULT_HOST_CONFIGS;
+
+	private double unhealthyRatio = DEFAULT_UNHEALTHY_RATIO;
+
+	private double staleConfigRatio = DEFAULT_STALE_CONFIG_RATIO;
+
+	/**
+	 * @param clusters
+	 *            Number of clusters.
+	 * @param hosts
+	 *            Total number of hosts, split evenly over the clusters. Must be at least the number of clusters.
+	 * @param rolesPerHost
+	 *            Number of worker roles on every host.
+	 */
+	public TopologyGenerator(int clusters, int hosts, int rolesPerHost) {
+		if (clusters < 1 || hosts < clusters || rolesPerHost < 0) {
+			throw new IllegalArgumentException("Invalid topology: " + clusters + " clusters, " + hosts + " hosts, "
+					+ rolesPerHost + " roles per host");
+		}
+		this.clusters = clusters;
+		this.hosts = hosts;
+		this.rolesPerHost = rolesPerHost;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public void setHostsPerRack(int hostsPerRack) {
+		this.hostsPerRack = hostsPerRack;
+	}
+
+	/**
+	 * @param serviceConfigs
+	 *            Number of service-wide configuration parameters of every service (full view).
+	 */
+	public void setServiceConfigs(int serviceConfigs) {
+		this.serviceConfigs = serviceConfigs;
+	}
+
+	/**
+	 * @param configsPerRoleType
+	 *            Number of configuration parameters per role type in the service configurations (full view).
+	 */
+	public void setConfigsPerRoleType(int configsPerRoleType) {
+		this.configsPerRoleType = configsPerRoleType;
+	}
+
+	public void setHostConfigs(int hostConfigs) {
+		this.hostConfigs = hostConfigs;
+	}
+
+	/**
+	 * @param unhealthyRatio
+	 *            Fraction of the hosts and roles that are not in GOOD health. Half of them are CONCERNING, half BAD;
+	 *            BAD roles are STOPPED.
+	 */
+	public void setUnhealthyRatio(double unhealthyRatio) {
+		this.unhealthyRatio = unhealthyRatio;
+	}
+
+	/**
+	 * @param staleConfigRatio
+	 *            Fraction of the roles with a stale configuration.
+	 */
+	public void setStaleConfigRatio(double staleConfigRatio) {
+		this.staleConfigRatio = staleConfigRatio;
+	}
+
+	public SyntheticTopology generate() {
+
+		Random random = new Random(seed);
+		String heartbeat = SyntheticTopology.createDateFormat().format(new Date());
+
+		SyntheticTopology topology = new SyntheticTopology();
+		topology.putUser(new User(ADMIN_USER, null, Arrays.asList("ROLE_ADMIN")));
+		topology.setDefaultHostConfig(configs("host", hostConfigs, random));
+
+		int hostIndex = 0;
+
+		for (int c = 0; c < clusters; c++) {
+
+			Cluster cluster = new Cluster();
+			cluster.setName("cluster" + (c + 1));
+			cluster.setVersion(ClusterVersion.CDH4);
+			topology.putCluster(cluster);
+
+			Map<ServiceType, Service> services = new HashMap<ServiceType, Service>();
+			for (ServiceType serviceType : ServiceCatalog.SERVICE_TYPES) {
+				Service service = service(cluster.getName(), serviceType);
+				services.put(serviceType, service);
+				topology.putService(service);
+				topology.putServiceConfig(cluster.getName(), service.getName(), serviceConfig(service, random));
+			}
+
+			int clusterHosts = hosts / clusters + ((c < hosts % clusters) ? 1 : 0);
+
+			for (int h = 0; h < clusterHosts; h++, hostIndex++) {
+
+				String hostId = String.format("host-%06d", hostIndex);
+				List<RoleRef> roleRefs = new ArrayList<RoleRef>();
+
+				// masters go to the first hosts, round robin when the cluster is smaller than the set of masters
+				for (int m = h; m < ServiceCatalog.MASTER_ROLES.length; m += clusterHosts) {
+					RoleSpec spec = ServiceCatalog.MASTER_ROLES[m];
+					Role role = role(services.get(spec.serviceType), spec.roleType, hostId, 0, random);
+					if ("NAMENODE".equals(spec.roleType)) {
+						role.setHaStatus(HaStatus.ACTIVE);
+					}
+					topology.putRole(role);
+					roleRefs.add(roleRef(role));
+				}
+
+				for (int r = 0; r < rolesPerHost; r++) {
+					RoleSpec spec = ServiceCatalog.WORKER_ROLES[r % ServiceCatalog.WORKER_ROLES.length];
+					Role role = role(services.get(spec.serviceType), spec.roleType, hostId, r
+							/ ServiceCatalog.WORKER_ROLES.length, random);
+					topology.putRole(role);
+					roleRefs.add(roleRef(role));
+				}
+
+				topology.putHost(host(hostIndex, hostId, cluster.getName(), heartbeat, roleRefs, random));
+			}
+
+			for (Service service : services.values()) {
+				service.setHealthSummary(serviceHealth(topology.getRoles(cluster.getName(), service.getName())));
+			}
+		}
+
+		return topology;
+	}
+
+	private Service service(String clusterName, ServiceType serviceType) {
+
+		ClusterRef clusterRef = new ClusterRef();
+		clusterRef.setClusterName(clusterName);
+
+		Service service = new Service();
+		service.setName(ServiceCatalog.serviceName(serviceType));
+		service.setType(serviceType);
+		service.setClusterRef(clusterRef);
+		service.setServiceState(ServiceState.STARTED);
+		service.setHealthSummary(HealthSummary.GOOD);
+		service.setServiceUrl(BASE_URL + "/serviceRedirect/" + service.getName());
+		return service;
+	}
+
+	private ServiceConfig serviceConfig(Service service, Random random) {
+
+		ServiceConfig serviceConfig = new ServiceConfig();
+		serviceConfig.setItems(configs(service.getName(), serviceConfigs, random));
+
+		List<RoleTypeConfig> roleTypeConfigs = new ArrayList<RoleTypeConfig>();
+		for (String roleType : ServiceCatalog.roleTypes(service.getType())) {
+			RoleTypeConfig roleTypeConfig = new RoleTypeConfig();
+			roleTypeConfig.setRoleType(roleType);
+			roleTypeConfig.setItems(configs(roleType.toLowerCase(), configsPerRoleType, random));
+			roleTypeConfigs.add(roleTypeConfig);
+		}
+		serviceConfig.setRoleTypeConfigs(roleTypeConfigs);
+
+		return serviceConfig;
+	}
+
+	private Role role(Service service, String roleType, String hostId, int instance, Random random) {
+
+		ServiceRef serviceRef = new ServiceRef();
+		serviceRef.setClusterName(service.getClusterRef().getClusterName());
+		serviceRef.setServiceName(service.getName());
+
+		HostRef hostRef = new HostRef();
+		hostRef.setHostId(hostId);
+
+		Role role = new Role();
+		role.setName(service.getName() + "-" + roleType + "-" + hostId + ((instance > 0) ? "-" + instance : ""));
+		role.setType(roleType);
+		role.setServiceRef(serviceRef);
+		role.setHostRef(hostRef);
+		role.setHealthSummary(health(random));
+		role.setRoleState((role.getHealthSummary() == HealthSummary.BAD) ? RoleState.STOPPED : RoleState.STARTED);
+		role.setConfigStale(random.nextDouble() < staleConfigRatio);
+		role.setRoleUrl(BASE_URL + "/roleRedirect/" + role.getName());
+
+		List<HealthCheck> healthChecks = new ArrayList<HealthCheck>(ROLE_HEALTH_CHECKS.length);
+		for (int i = 0; i < ROLE_HEALTH_CHECKS.length; i++) {
+			healthChecks.add(healthCheck(roleType + ROLE_HEALTH_CHECKS[i],
+					(i == 0) ? role.getHealthSummary() : HealthSummary.GOOD));
+		}
+		role.setHealthChecks(healthChecks);
+
+		return role;
+	}
+
+	private Host host(int hostIndex, String hostId, String clusterName, String heartbeat, List<RoleRef> roleRefs,
+			Random random) {
+
+		Host host = new Host();
+		host.setHostId(hostId);
+		host.setHostname(hostId + "." + clusterName + ".example.com");
+		host.setIpAddress("10." + ((hostIndex >> 16) & 0xff) + "." + ((hostIndex >> 8) & 0xff) + "."
+				+ (hostIndex & 0xff));
+		host.setRackId("/rack" + (hostIndex / hostsPerRack + 1));
+		host.setLastHeartbeat(heartbeat);
+		host.setHealthSummary(health(random));
+		host.setHostUrl(BASE_URL + "/hostRedirect/" + hostId);
+		host.setRoleRefs(roleRefs);
+
+		List<HealthCheck> healthChecks = new ArrayList<HealthCheck>(HOST_HEALTH_CHECKS.length);
+		for (int i = 0; i < HOST_HEALTH_CHECKS.length; i++) {
+			healthChecks.add(healthCheck(HOST_HEALTH_CHECKS[i], (i == 0) ? host.getHealthSummary()
+					: HealthSummary.GOOD));
+		}
+		host.setHealthChecks(healthChecks);
+
+		return host;
+	}
+
+	/**
+	 * Every second parameter is set; the others fall back to their default value and are left out of the summary
+	 * view.
+	 */
+	private static List<Config> configs(String prefix, int count, Random random) {
+		List<Config> configs = new ArrayList<Config>(count);
+		for (int i = 0; i < count; i++) {
+			String name = prefix + "_param_" + i;
+
+			Config config = new Config();
+			config.setName(name);
+			config.setDefaultValue(String.valueOf(1 << (i % 16)));
+			if (i % 2 == 0) {
+				config.setValue(String.valueOf(random.nextInt(65536)));
+			}
+			config.setRequired(i % 4 == 0);
+			config.setDisplayName("Parameter " + i + " of " + prefix);
+			config.setDescription("Synthetic configuration parameter " + i + " of " + prefix + ".");
+			config.setRelatedName(prefix.replace('_', '.') + ".param." + i);
+			config.setValidationState(ValidationState.OK);
+			configs.add(config);
+		}
+		return configs;
+	}
+
+	private HealthSummary health(Random random) {
+		double draw = random.nextDouble();
+		if (draw < unhealthyRatio / 2) {
+			return HealthSummary.BAD;
+		}
+		return (draw < unhealthyRatio) ? HealthSummary.CONCERNING : HealthSummary.GOOD;
+	}
+
+	/**
+	 * A service with BAD roles is CONCERNING, otherwise GOOD.
+	 */
+	private static HealthSummary serviceHealth(List<Role> roles) {
+		for (Role role : roles) {
+			if (role.getHealthSummary() == HealthSummary.BAD) {
+				return HealthSummary.CONCERNING;
+			}
+		}
+		return HealthSummary.GOOD;
+	}
+
+	private static HealthCheck healthCheck(String name, HealthSummary summary) {
+		HealthCheck healthCheck = new HealthCheck();
+		healthCheck.setName(name);
+		healthCheck.setSummary(summary);
+		return healthCheck;
+	}
+
+	private static RoleRef roleRef(Role role) {
+		RoleRef roleRef = new RoleRef();
+		roleRef.setClusterName(role.getServiceRef().getClusterName());
+		roleRef.setServiceName(role.getServiceRef().getServiceName());
+		roleRef.setRoleName(role.getName());
+		return roleRef;
+	}
+}
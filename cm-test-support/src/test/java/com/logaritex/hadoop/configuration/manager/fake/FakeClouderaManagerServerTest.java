@@ -0,0 +1,211 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.logaritex.hadoop.configuration.manager.fake;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.logaritex.hadoop.configuration.manager.SimpleHttpService;
+import com.logaritex.hadoop.configuration.manager.domain.BulkCommandList;
+import com.logaritex.hadoop.configuration.manager.domain.Config;
+import com.logaritex.hadoop.configuration.manager.domain.HaStatus;
+import com.logaritex.hadoop.configuration.manager.domain.Host;
+import com.logaritex.hadoop.configuration.manager.domain.Metric;
+import com.logaritex.hadoop.configuration.manager.domain.Role;
+import com.logaritex.hadoop.configuration.manager.domain.Role.RoleState;
+import com.logaritex.hadoop.configuration.manager.domain.Service;
+import com.logaritex.hadoop.configuration.manager.domain.Service.ServiceState;
+import com.logaritex.hadoop.configuration.manager.domain.ServiceConfig;
+import com.logaritex.hadoop.configuration.manager.domain.User;
+import com.logaritex.hadoop.configuration.manager.service.ClouderaManager;
+import com.logaritex.hadoop.configuration.manager.service.ServiceService.View;
+import com.logaritex.hadoop.configuration.manager.service.http.HttpStatusException;
+import com.logaritex.hadoop.configuration.manager.service.impl.ClouderaManagerImpl;
+
+public class FakeClouderaManagerServerTest {
+
+	private FakeClouderaManagerServer server;
+
+	private ClouderaManager cm;
+
+	@Before
+	public void before() throws Exception {
+		server = new FakeClouderaManagerServer(new TopologyGenerator(2, 20, 3).generate());
+		server.start();
+
+		cm = new ClouderaManagerImpl(new SimpleHttpService(server.getBaseUrl(), "admin", "admin"));
+	}
+
+	@After
+	public void after() {
+		server.stop();
+	}
+
+	@Test
+	public void testClustersAndServices() {
+		assertEquals(2, cm.getClusterService().getAllClusters().size());
+		assertEquals("cluster1", cm.getClusterService().getCluster("cluster1").getName());
+
+		List<Service> services = cm.getServiceService().getAllServices("cluster2");
+		assertEquals(6, services.size());
+
+		Service hdfs = cm.getServiceService().getService("cluster2", "hdfs1");
+		assertEquals(Service.ServiceType.HDFS, hdfs.getType());
+		assertEquals(Arrays.asList("NAMENODE", "SECONDARYNAMENODE", "DATANODE", "GATEWAY"), cm.getServiceService()
+				.getRoleTypes(hdfs));
+	}
+
+	@Test
+	public void testRolesAndHosts() {
+		Service hdfs = cm.getServiceService().getService("cluster1", "hdfs1");
+
+		// one DATANODE per host (3 roles per host: DATANODE, TASKTRACKER, REGIONSERVER) plus two masters
+		List<Role> roles = cm.getServiceService().getRoles(hdfs);
+		assertEquals(12, roles.size());
+
+		int active = 0;
+		for (Role role : roles) {
+			if (role.getHaStatus() == HaStatus.ACTIVE) {
+				active++;
+				assertEquals("NAMENODE", role.getType());
+			}
+		}
+		assertEquals(1, active);
+
+		List<Host> hosts = cm.getHostService().getAllHosts();
+		assertEquals(20, hosts.size());
+
+		int roleRefs = 0;
+		for (Host host : hosts) {
+			assertNotNull(host.getHealthChecks());
+			roleRefs += host.getRoleRefs().size();
+		}
+		// 3 worker roles per host and 7 masters per cluster
+		assertEquals(20 * 3 + 2 * 7, roleRefs);
+		assertEquals(roleRefs, server.getTopology().getRoleCount());
+	}
+
+	@Test
+	public void testServiceConfiguration() {
+		Service hbase = cm.getServiceService().getService("cluster1", "hbase1");
+
+		ServiceConfig full = cm.getServiceService().getServiceConfiguration(hbase, View.full);
+		assertEquals(TopologyGenerator.DEFAULT_SERVICE_CONFIGS, full.getItems().size());
+		assertEquals(3, full.getRoleTypeConfigs().size());
+		assertNotNull(full.getItems().get(0).getDisplayName());
+
+		ServiceConfig summary = cm.getServiceService().getServiceConfiguration(hbase, View.summary);
+		assertEquals(TopologyGenerator.DEFAULT_SERVICE_CONFIGS / 2, summary.getItems().size());
+		assertNull(summary.getItems().get(0).getDisplayName());
+
+		Config config = new Config();
+		config.setName("hbase1_param_1");
+		config.setValue("4096");
+		ServiceConfig update = new ServiceConfig();
+		update.setItems(Arrays.asList(config));
+
+		ServiceConfig updated = cm.getServiceService().updateServiceConfiguration(hbase, update);
+		assertEquals(TopologyGenerator.DEFAULT_SERVICE_CONFIGS / 2 + 1, updated.getItems().size());
+	}
+
+	@Test
+	public void testHostConfigAndMetrics() {
+		assertEquals(TopologyGenerator.DEFAULT_HOST_CONFIGS / 2, cm.getHostService().getHostConfig("host-000003")
+				.size());
+
+		List<Metric> metrics = cm.getHostService().getHostMetrics("host-000003");
+		assertEquals(SyntheticTopology.DEFAULT_METRICS_PER_HOST, metrics.size());
+		assertEquals(SyntheticTopology.DEFAULT_DATA_POINTS_PER_METRIC, metrics.get(0).getData().size());
+	}
+
+	@Test
+	public void testCommandsChangeState() {
+		Service mapreduce = cm.getServiceService().getService("cluster1", "mapreduce1");
+
+		assertTrue(cm.getServiceService().stopService(mapreduce).isSuccess());
+		assertEquals(ServiceState.STOPPED, cm.getServiceService().getService("cluster1", "mapreduce1")
+				.getServiceState());
+
+		List<Role> roles = cm.getServiceService().getRoles(mapreduce).subList(0, 2);
+		BulkCommandList commands = cm.getServiceService().stopRoles(roles);
+		assertEquals(2, commands.getItems().size());
+		assertTrue(commands.getErrors().isEmpty());
+
+		Role stopped = server.getTopology().getRole("cluster1", "mapreduce1", roles.get(0).getName());
+		assertEquals(RoleState.STOPPED, stopped.getRoleState());
+	}
+
+	@Test
+	public void testUsers() {
+		cm.getUserService().create(new User("operator", "secret", Arrays.asList("ROLE_USER")));
+
+		assertEquals(2, cm.getUserService().getAllUsers().size());
+		assertNull(cm.getUserService().get("operator").getPassword());
+	}
+
+	@Test
+	public void testInjectedFailures() {
+		server.setFailureRate(1.0);
+		try {
+			cm.getClusterService().getAllClusters();
+			fail("Failure expected");
+		} catch (HttpStatusException e) {
+			assertEquals(503, e.getStatusCode());
+		}
+		assertEquals(1, server.getFailureCount());
+
+		server.setFailureRate(0);
+		assertFalse(cm.getClusterService().getAllClusters().isEmpty());
+	}
+
+	@Test
+	public void testUnknownResource() {
+		try {
+			cm.getHostService().getHost("no-such-host");
+			fail("Failure expected");
+		} catch (HttpStatusException e) {
+			assertEquals(404, e.getStatusCode());
+		}
+	}
+
+	@Test
+	public void testGeneratorIsDeterministic() {
+		TopologyGenerator generator = new TopologyGenerator(1, 500, 4);
+		generator.setUnhealthyRatio(0.2);
+
+		List<Host> first = generator.generate().getHosts();
+		List<Host> second = generator.generate().getHosts();
+
+		assertEquals(500, first.size());
+		for (int i = 0; i < first.size(); i++) {
+			assertEquals(first.get(i).getHealthSummary(), second.get(i).getHealthSummary());
+			assertEquals(first.get(i).getRoleRefs(), second.get(i).getRoleRefs());
+		}
+	}
+}